@@ -0,0 +1,96 @@
+package com.weavecode.chatwoot.config;
+
+import com.weavecode.chatwoot.logging.ContextPropagatingTaskDecorator;
+import com.weavecode.chatwoot.metrics.ExecutorRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * The application's thread pools, one per kind of work.
+ *
+ * I/O-bound work (database, Redis, outbound calls) gets a pool sized
+ * well past the core count; once its queue fills, the submitting thread
+ * runs the task itself, which slows producers down instead of dropping
+ * work. CPU-bound work, such as password hashing, gets one thread per
+ * processor and is refused outright when its queue is full, so callers
+ * can shed load. Scheduled jobs run on their own small pool rather than
+ * competing with either. {@code @Async} methods run on the I/O pool.
+ *
+ * With more than one scheduler thread, different {@code @Scheduled} jobs
+ * can run at the same time. A fixed-delay or fixed-rate job never
+ * overlaps with itself, so each job only has to be safe against request
+ * threads and the other jobs.
+ */
+@Configuration
+public class ExecutorConfig implements AsyncConfigurer, SchedulingConfigurer {
+
+    public static final String IO_EXECUTOR = "ioExecutor";
+    public static final String CPU_EXECUTOR = "cpuExecutor";
+    public static final String SCHEDULED_EXECUTOR = "scheduledExecutor";
+
+    @Autowired
+    private ExecutorRegistry executorRegistry;
+
+    @Autowired
+    private ContextPropagatingTaskDecorator contextPropagatingTaskDecorator;
+
+    @Value("${app.executors.io.core-size:8}")
+    private int ioCoreSize;
+
+    @Value("${app.executors.io.max-size:32}")
+    private int ioMaxSize;
+
+    @Value("${app.executors.io.queue-capacity:500}")
+    private int ioQueueCapacity;
+
+    @Value("${app.executors.io.keep-alive-seconds:60}")
+    private long ioKeepAliveSeconds;
+
+    // 0 means one thread per available processor
+    @Value("${app.executors.cpu.threads:0}")
+    private int cpuThreads;
+
+    @Value("${app.executors.cpu.queue-capacity:100}")
+    private int cpuQueueCapacity;
+
+    @Value("${app.executors.scheduled.threads:4}")
+    private int scheduledThreads;
+
+    @Bean(name = IO_EXECUTOR, destroyMethod = "shutdown")
+    public ThreadPoolExecutor ioExecutor() {
+        return executorRegistry.newThreadPool("io", ioCoreSize, ioMaxSize, Duration.ofSeconds(ioKeepAliveSeconds),
+            ioQueueCapacity, new ThreadPoolExecutor.CallerRunsPolicy(), contextPropagatingTaskDecorator);
+    }
+
+    @Bean(name = CPU_EXECUTOR, destroyMethod = "shutdown")
+    public ThreadPoolExecutor cpuExecutor() {
+        int threads = cpuThreads > 0 ? cpuThreads : Runtime.getRuntime().availableProcessors();
+        return executorRegistry.newThreadPool("cpu", threads, threads, Duration.ZERO,
+            cpuQueueCapacity, new ThreadPoolExecutor.AbortPolicy(), contextPropagatingTaskDecorator);
+    }
+
+    @Bean(name = SCHEDULED_EXECUTOR, destroyMethod = "shutdown")
+    public ScheduledThreadPoolExecutor scheduledExecutor() {
+        return executorRegistry.newScheduledPool("scheduled", scheduledThreads);
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return ioExecutor();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.setScheduler(scheduledExecutor());
+    }
+}
@@ -0,0 +1,34 @@
+package com.weavecode.chatwoot.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Percentiles for HikariCP's connection acquire and usage timers, which
+     * Spring Boot registers without any. The connection pool tuner sizes
+     * the pool from the acquire percentiles.
+     */
+    @Bean
+    public MeterFilter hikariPercentiles() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                String name = id.getName();
+                if (name.equals("hikaricp.connections.acquire") || name.equals("hikaricp.connections.usage")) {
+                    return DistributionStatisticConfig.builder()
+                            .percentiles(0.5, 0.95, 0.99)
+                            .percentilesHistogram(true)
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        };
+    }
+}
@@ -7,22 +7,29 @@ import com.weavecode.chatwoot.dto.RegisterResponse;
 import com.weavecode.chatwoot.entity.Tenant;
 import com.weavecode.chatwoot.entity.User;
 import com.weavecode.chatwoot.enums.UserRole;
+import com.weavecode.chatwoot.exception.ServiceUnavailableException;
+import com.weavecode.chatwoot.security.JwtPrincipal;
 import com.weavecode.chatwoot.security.JwtTokenProvider;
+import com.weavecode.chatwoot.security.PasswordVerifier;
+import com.weavecode.chatwoot.security.TokenRevocationService;
 import com.weavecode.chatwoot.service.TenantService;
 import com.weavecode.chatwoot.service.UserService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Collections;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -32,9 +39,6 @@ public class AuthController {
     
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
     
-    @Autowired
-    private AuthenticationManager authenticationManager;
-    
     @Autowired
     private JwtTokenProvider tokenProvider;
     
@@ -47,22 +51,37 @@ public class AuthController {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private TokenRevocationService revocationService;
+    
+    @Autowired
+    private PasswordVerifier passwordVerifier;
+    
     @PostMapping("/login")
     public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
         try {
-            Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword())
-            );
+            // The same row is used to verify the password and to build the token claims
+            Optional<User> found = userService.findByEmailAndTenantId(loginRequest.getEmail(), loginRequest.getTenantId());
+            boolean passwordMatches = passwordVerifier.matches(loginRequest.getPassword(),
+                found.map(User::getPassword).orElse(null));
             
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+            if (!passwordMatches || found.get().getStatus() != User.UserStatus.ACTIVE) {
+                logger.warn("Login rejected for user: {}", loginRequest.getEmail());
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+            
+            User user = found.get();
+            Authentication authentication = new UsernamePasswordAuthenticationToken(user.getEmail(), null,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name())));
             
-            User user = userService.findByEmailAndTenantId(loginRequest.getEmail(), loginRequest.getTenantId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+            SecurityContextHolder.getContext().setAuthentication(authentication);
             
             String jwt = tokenProvider.generateTokenForUser(
                 user.getId(), 
                 user.getEmail(), 
-                user.getTenantId()
+                user.getTenantId(),
+                user.getRole().name(),
+                String.valueOf(user.getStatus())
             );
             
             LoginResponse response = new LoginResponse();
@@ -77,6 +96,11 @@ public class AuthController {
             logger.info("User logged in successfully: {}", user.getEmail());
             return ResponseEntity.ok(response);
             
+        } catch (ServiceUnavailableException e) {
+            logger.warn("Login shed for user {}: {}", loginRequest.getEmail(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .build();
         } catch (Exception e) {
             logger.error("Login failed for user: {}", loginRequest.getEmail(), e);
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -136,19 +160,37 @@ public class AuthController {
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
                 String token = authHeader.substring(7);
                 
-                if (tokenProvider.validateToken(token)) {
-                    String email = tokenProvider.getUsernameFromToken(token);
-                    UUID userId = tokenProvider.getUserIdFromToken(token);
-                    UUID tenantId = tokenProvider.getTenantIdFromToken(token);
+                Optional<JwtPrincipal> principal = tokenProvider.parseToken(token)
+                    .filter(p -> !revocationService.isRevoked(p.getTokenId()));
+                
+                if (principal.isPresent()) {
+                    // Reload the user so the new token carries current role and status claims
+                    Optional<User> userOpt = userService.findByEmailAndTenantId(
+                        principal.get().getSubject(), principal.get().getTenantId());
+                    
+                    if (userOpt.isEmpty() || userOpt.get().getStatus() != User.UserStatus.ACTIVE) {
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+                    }
                     
-                    String newToken = tokenProvider.generateTokenForUser(userId, email, tenantId);
+                    User user = userOpt.get();
+                    String newToken = tokenProvider.generateTokenForUser(
+                        user.getId(),
+                        user.getEmail(),
+                        user.getTenantId(),
+                        user.getRole().name(),
+                        String.valueOf(user.getStatus())
+                    );
+                    
+                    // Rotate: the token used to refresh cannot be used again
+                    revocationService.revoke(principal.get());
                     
                     LoginResponse response = new LoginResponse();
                     response.setToken(newToken);
                     response.setTokenType("Bearer");
-                    response.setUserId(userId);
-                    response.setTenantId(tenantId);
-                    response.setEmail(email);
+                    response.setUserId(user.getId());
+                    response.setTenantId(user.getTenantId());
+                    response.setEmail(user.getEmail());
+                    response.setRole(user.getRole());
                     response.setExpiresIn(3600000);
                     
                     return ResponseEntity.ok(response);
@@ -164,7 +206,10 @@ public class AuthController {
     }
     
     @PostMapping("/logout")
-    public ResponseEntity<Void> logout() {
+    public ResponseEntity<Void> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            tokenProvider.parseToken(authHeader.substring(7)).ifPresent(revocationService::revoke);
+        }
         SecurityContextHolder.clearContext();
         return ResponseEntity.ok().build();
     }
@@ -2,6 +2,7 @@ package com.weavecode.chatwoot.controller;
 
 import com.weavecode.chatwoot.dto.PerformanceMetrics;
 import com.weavecode.chatwoot.dto.CacheMetrics;
+import com.weavecode.chatwoot.dto.IndexRecommendation;
 import com.weavecode.chatwoot.service.PerformanceOptimizationService;
 import com.weavecode.chatwoot.security.SecurityService;
 import org.slf4j.Logger;
@@ -162,6 +163,25 @@ public class PerformanceController {
         }
     }
 
+    /**
+     * Get index and table statistics recommendations
+     */
+    @GetMapping("/analysis/indexes")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<IndexRecommendation>> getIndexRecommendations() {
+        try {
+            UUID tenantId = securityService.getCurrentTenantId();
+            List<IndexRecommendation> recommendations = performanceService.getIndexRecommendations(tenantId);
+            
+            logger.info("Retrieved index recommendations for tenant {}", tenantId);
+            return ResponseEntity.ok(recommendations);
+            
+        } catch (Exception e) {
+            logger.error("Error retrieving index recommendations: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * Optimize JPA entity relationships for current tenant
      */
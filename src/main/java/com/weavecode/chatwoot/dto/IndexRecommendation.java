@@ -0,0 +1,147 @@
+package com.weavecode.chatwoot.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IndexRecommendation {
+
+    public enum Type {
+        CREATE_INDEX,   // Index missing for a frequent query shape
+        DROP_INDEX,     // Index never scanned since statistics were reset
+        ANALYZE         // Table modified enough that planner statistics are stale
+    }
+
+    private Type type;
+    private String table;
+    private String indexName;
+    private List<String> columns;
+    private String statement;
+    private String reason;
+
+    // Evidence from the statistics views
+    private Long calls;
+    private Double totalTimeMs;
+    private Long seqScans;
+    private Long idxScans;
+    private Long sizeBytes;
+    private Long modifiedRows;
+
+    // Constructors
+    public IndexRecommendation() {}
+
+    public IndexRecommendation(Type type, String table, String statement, String reason) {
+        this.type = type;
+        this.table = table;
+        this.statement = statement;
+        this.reason = reason;
+    }
+
+    // Getters and Setters
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public void setTable(String table) {
+        this.table = table;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public void setColumns(List<String> columns) {
+        this.columns = columns;
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    public void setStatement(String statement) {
+        this.statement = statement;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public Long getCalls() {
+        return calls;
+    }
+
+    public void setCalls(Long calls) {
+        this.calls = calls;
+    }
+
+    public Double getTotalTimeMs() {
+        return totalTimeMs;
+    }
+
+    public void setTotalTimeMs(Double totalTimeMs) {
+        this.totalTimeMs = totalTimeMs;
+    }
+
+    public Long getSeqScans() {
+        return seqScans;
+    }
+
+    public void setSeqScans(Long seqScans) {
+        this.seqScans = seqScans;
+    }
+
+    public Long getIdxScans() {
+        return idxScans;
+    }
+
+    public void setIdxScans(Long idxScans) {
+        this.idxScans = idxScans;
+    }
+
+    public Long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(Long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public Long getModifiedRows() {
+        return modifiedRows;
+    }
+
+    public void setModifiedRows(Long modifiedRows) {
+        this.modifiedRows = modifiedRows;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexRecommendation{" +
+                "type=" + type +
+                ", table='" + table + '\'' +
+                ", statement='" + statement + '\'' +
+                ", reason='" + reason + '\'' +
+                '}';
+    }
+}
@@ -1,6 +1,7 @@
 package com.weavecode.chatwoot.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.weavecode.chatwoot.metrics.ConversationGaugeListener;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -31,6 +32,7 @@ import java.util.UUID;
     @Index(name = "idx_conversations_created_at", columnList = "created_at"),
     @Index(name = "idx_conversations_updated_at", columnList = "updated_at")
 })
+@EntityListeners(ConversationGaugeListener.class)
 public class Conversation {
 
     @Id
@@ -109,6 +111,11 @@ public class Conversation {
     @JsonIgnore
     private User assignedAgent;
 
+    // Status as last read from or written to the database, for status transition listeners
+    @Transient
+    @JsonIgnore
+    private ConversationStatus persistedStatus;
+
     // Enums
     public enum ConversationStatus {
         OPEN,           // Conversation is active and open
@@ -116,7 +123,11 @@ public class Conversation {
         PENDING,        // Pending agent response
         RESOLVED,       // Conversation resolved
         CLOSED,         // Conversation closed
-        ARCHIVED        // Conversation archived
+        ARCHIVED;       // Conversation archived
+
+        public boolean isActive() {
+            return this == OPEN || this == WAITING || this == PENDING;
+        }
     }
 
     public enum ConversationType {
@@ -327,9 +338,7 @@ public class Conversation {
     }
 
     public boolean isActive() {
-        return status == ConversationStatus.OPEN || 
-               status == ConversationStatus.WAITING || 
-               status == ConversationStatus.PENDING;
+        return status != null && status.isActive();
     }
 
     public boolean isResolved() {
@@ -375,6 +384,21 @@ public class Conversation {
         return lastMessage != null ? lastMessage.getCreatedAt() : updatedAt;
     }
 
+    /**
+     * Status as of the last load or flush, null for a conversation never persisted.
+     */
+    public ConversationStatus getPersistedStatus() {
+        return persistedStatus;
+    }
+
+    // Entity listeners run before this, so they still see the previous status
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void rememberPersistedStatus() {
+        this.persistedStatus = status;
+    }
+
     // Utility methods
     @Override
     public boolean equals(Object o) {
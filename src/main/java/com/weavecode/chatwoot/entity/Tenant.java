@@ -131,6 +131,9 @@ public class Tenant {
     @Column(name = "max_storage_gb")
     private Integer maxStorageGb = 1;
 
+    @Column(name = "max_api_calls_per_month")
+    private Integer maxApiCallsPerMonth = 1000;
+
     @Column(name = "support_level")
     private String supportLevel = "BASIC";
 
@@ -441,6 +444,14 @@ public class Tenant {
         this.maxStorageGb = maxStorageGb;
     }
 
+    public Integer getMaxApiCallsPerMonth() {
+        return maxApiCallsPerMonth;
+    }
+
+    public void setMaxApiCallsPerMonth(Integer maxApiCallsPerMonth) {
+        this.maxApiCallsPerMonth = maxApiCallsPerMonth;
+    }
+
     public String getSupportLevel() {
         return supportLevel;
     }
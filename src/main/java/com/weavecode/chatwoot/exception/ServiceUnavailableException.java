@@ -0,0 +1,19 @@
+package com.weavecode.chatwoot.exception;
+
+/**
+ * Exception thrown when a request is shed because a bounded resource is
+ * saturated. Carries how long the client should wait before retrying.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,276 @@
+package com.weavecode.chatwoot.logging;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Bounded copy of a request or response body, taken as the bytes stream
+ * past. Unlike the ContentCaching wrappers nothing is held back: every
+ * byte is passed straight through, and at most {@code maxBytes} are kept
+ * for logging. The buffer is only allocated once the first byte arrives.
+ */
+final class BodyCapture {
+
+    private final int maxBytes;
+    private byte[] buffer;
+    private int captured;
+    private long total;
+
+    BodyCapture(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    void write(int b) {
+        total++;
+        if (captured < maxBytes) {
+            ensureBuffer();
+            buffer[captured++] = (byte) b;
+        }
+    }
+
+    void write(byte[] bytes, int offset, int length) {
+        if (length <= 0) {
+            return;
+        }
+        total += length;
+        int room = maxBytes - captured;
+        if (room > 0) {
+            ensureBuffer();
+            int copied = Math.min(room, length);
+            System.arraycopy(bytes, offset, buffer, captured, copied);
+            captured += copied;
+        }
+    }
+
+    private void ensureBuffer() {
+        if (buffer == null) {
+            buffer = new byte[Math.min(maxBytes, 1024)];
+        } else if (captured == buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.min(maxBytes, buffer.length * 2));
+        }
+    }
+
+    boolean isEmpty() {
+        return total == 0;
+    }
+
+    boolean isTruncated() {
+        return total > captured;
+    }
+
+    long getTotalBytes() {
+        return total;
+    }
+
+    String asString(Charset charset) {
+        return captured == 0 ? "" : new String(buffer, 0, captured, charset);
+    }
+
+    static Charset charsetOf(String encoding) {
+        try {
+            return encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        } catch (Exception e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    /**
+     * Request wrapper that copies what the application reads from the body.
+     */
+    static final class CapturingRequest extends HttpServletRequestWrapper {
+
+        private final BodyCapture capture;
+        private ServletInputStream inputStream;
+
+        CapturingRequest(HttpServletRequest request, int maxBytes) {
+            super(request);
+            this.capture = new BodyCapture(maxBytes);
+        }
+
+        BodyCapture getCapture() {
+            return capture;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new TeeInputStream(super.getInputStream(), capture);
+            }
+            return inputStream;
+        }
+    }
+
+    /**
+     * Response wrapper that copies what the application writes, through
+     * either the output stream or the writer. Whether to copy is decided
+     * when the body is first opened, by which time the content type is
+     * normally set; bodies of other types are passed through untouched.
+     */
+    static final class CapturingResponse extends HttpServletResponseWrapper {
+
+        private final BodyCapture capture;
+        private final Predicate<String> capturableContentType;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+        private boolean capturing;
+
+        CapturingResponse(HttpServletResponse response, int maxBytes, Predicate<String> capturableContentType) {
+            super(response);
+            this.capture = new BodyCapture(maxBytes);
+            this.capturableContentType = capturableContentType;
+        }
+
+        BodyCapture getCapture() {
+            return capture;
+        }
+
+        boolean isCapturing() {
+            return capturing;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                return super.getOutputStream();
+            }
+            if (outputStream == null) {
+                outputStream = openStream();
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                capturing = capturableContentType.test(getContentType());
+                if (!capturing) {
+                    writer = super.getWriter();
+                } else {
+                    ServletOutputStream stream = outputStream != null ? outputStream : openStream();
+                    writer = new PrintWriter(new OutputStreamWriter(stream, charsetOf(getCharacterEncoding())));
+                }
+            }
+            return writer;
+        }
+
+        private ServletOutputStream openStream() throws IOException {
+            capturing = capturableContentType.test(getContentType());
+            ServletOutputStream stream = super.getOutputStream();
+            return capturing ? new TeeOutputStream(stream, capture) : stream;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            finish();
+            super.flushBuffer();
+        }
+
+        /**
+         * Push out anything still buffered in the writer, which the container
+         * does not know about.
+         */
+        void finish() {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+    }
+
+    private static final class TeeInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+        private final BodyCapture capture;
+
+        private TeeInputStream(ServletInputStream delegate, BodyCapture capture) {
+            this.delegate = delegate;
+            this.capture = capture;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b != -1) {
+                capture.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = delegate.read(bytes, offset, length);
+            capture.write(bytes, offset, read);
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+    }
+
+    private static final class TeeOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+        private final BodyCapture capture;
+
+        private TeeOutputStream(ServletOutputStream delegate, BodyCapture capture) {
+            this.delegate = delegate;
+            this.capture = capture;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            capture.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            delegate.write(bytes, offset, length);
+            capture.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
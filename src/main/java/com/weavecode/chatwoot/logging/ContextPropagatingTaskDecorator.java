@@ -0,0 +1,62 @@
+package com.weavecode.chatwoot.logging;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Carries the logging context and the authenticated tenant into async tasks.
+ *
+ * At submit time only two references are captured: the caller's
+ * {@link LogContext} snapshot and its security context, from which the
+ * tenant and user are resolved. The worker installs both before running
+ * the task and restores its own afterwards, so pooled threads never leak
+ * one request's context into the next task.
+ *
+ * Applied by the I/O and CPU pools in ExecutorConfig, which also serve
+ * {@code @Async}; {@link #propagating(Executor)} covers any other
+ * executor handed to CompletableFuture directly.
+ */
+@Component
+public class ContextPropagatingTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable task) {
+        return wrap(task);
+    }
+
+    /**
+     * Wrap an executor so every task it runs sees the submitting thread's context.
+     */
+    public static Executor propagating(Executor delegate) {
+        return task -> delegate.execute(wrap(task));
+    }
+
+    static Runnable wrap(Runnable task) {
+        LogContext logContext = LogContext.current();
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        boolean authenticated = securityContext.getAuthentication() != null;
+        if (logContext == null && !authenticated) {
+            return task;
+        }
+
+        return () -> {
+            LogContext previousLogContext = LogContext.attach(logContext);
+            SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+            if (authenticated) {
+                SecurityContextHolder.setContext(securityContext);
+            }
+            try {
+                task.run();
+            } finally {
+                LogContext.restore(previousLogContext);
+                if (authenticated) {
+                    SecurityContextHolder.setContext(previousSecurityContext);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,275 @@
+package com.weavecode.chatwoot.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous front for the JSON console and file appenders.
+ *
+ * Logging threads only snapshot the event and offer it to a lock-free ring
+ * buffer; a single worker drains it in batches, encodes and writes each
+ * batch through the attached appenders and flushes their streams once per
+ * batch. Shedding is level-aware: WARN and ERROR are never dropped, and
+ * wait for space when the buffer is full. Once the buffer passes the
+ * discarding threshold, DEBUG and TRACE are dropped and INFO is sampled,
+ * and when it is full INFO is dropped too.
+ */
+public class LevelAwareAsyncAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+
+    private int bufferSize = 8192;
+    private int batchSize = 256;
+    private double discardingThreshold = 0.8;
+    private int infoSampleEvery = 10;
+    private long maxFlushTimeMs = 5000;
+
+    private MpscRingBuffer<ILoggingEvent> buffer;
+    private int discardingDepth;
+    private Thread worker;
+    private volatile boolean running;
+    private volatile boolean workerParked;
+
+    private final LongAdder droppedDebug = new LongAdder();
+    private final LongAdder droppedInfo = new LongAdder();
+    private final LongAdder blockedCritical = new LongAdder();
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        buffer = new MpscRingBuffer<>(bufferSize);
+        discardingDepth = (int) (buffer.capacity() * discardingThreshold);
+        running = true;
+        worker = new Thread(this::drainLoop, "log-appender-" + getName());
+        worker.setDaemon(true);
+        super.start();
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        running = false;
+        super.stop();
+        LockSupport.unpark(worker);
+        try {
+            worker.join(maxFlushTimeMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            addWarn("Log appender worker did not finish within " + maxFlushTimeMs + " ms; "
+                    + buffer.size() + " events left unwritten");
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        int level = event.getLevel().toInt();
+        boolean critical = level >= Level.WARN_INT;
+
+        if (!critical && buffer.size() >= discardingDepth && !keepUnderPressure(level)) {
+            countDropped(level);
+            return;
+        }
+
+        // Message formatting, MDC and thread name must be captured on the calling thread
+        event.prepareForDeferredProcessing();
+
+        if (buffer.offer(event)) {
+            wakeWorker();
+            return;
+        }
+        if (!critical) {
+            countDropped(level);
+            return;
+        }
+        putCritical(event);
+    }
+
+    private boolean keepUnderPressure(int level) {
+        return level >= Level.INFO_INT && ThreadLocalRandom.current().nextInt(infoSampleEvery) == 0;
+    }
+
+    private void countDropped(int level) {
+        if (level >= Level.INFO_INT) {
+            droppedInfo.increment();
+        } else {
+            droppedDebug.increment();
+        }
+    }
+
+    private void putCritical(ILoggingEvent event) {
+        blockedCritical.increment();
+        while (!buffer.offer(event)) {
+            if (!running || !worker.isAlive()) {
+                // Nobody is draining any more, so write it ourselves rather than lose it
+                appenders.appendLoopOnAppenders(event);
+                return;
+            }
+            LockSupport.unpark(worker);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        wakeWorker();
+    }
+
+    private void wakeWorker() {
+        if (workerParked) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void drainLoop() {
+        List<ILoggingEvent> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            if (buffer.drainTo(batch, batchSize) == 0) {
+                idle();
+                continue;
+            }
+            try {
+                for (ILoggingEvent event : batch) {
+                    appenders.appendLoopOnAppenders(event);
+                }
+                flushAppenders();
+            } catch (Exception e) {
+                addError("Failed to write log batch", e);
+            } finally {
+                batch.clear();
+            }
+        }
+        flushAppenders();
+    }
+
+    private void idle() {
+        if (!buffer.isEmpty()) {
+            // A producer has claimed a slot but not published it yet
+            Thread.onSpinWait();
+            return;
+        }
+        workerParked = true;
+        // Re-check after announcing, so a producer that missed the flag is not stranded
+        if (running && buffer.isEmpty()) {
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        workerParked = false;
+    }
+
+    private void flushAppenders() {
+        Iterator<Appender<ILoggingEvent>> iterator = appenders.iteratorForAppenders();
+        while (iterator.hasNext()) {
+            Appender<ILoggingEvent> appender = iterator.next();
+            if (appender instanceof OutputStreamAppender) {
+                OutputStream stream = ((OutputStreamAppender<ILoggingEvent>) appender).getOutputStream();
+                if (stream != null) {
+                    try {
+                        stream.flush();
+                    } catch (IOException e) {
+                        addError("Failed to flush appender " + appender.getName(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    public int getQueueDepth() {
+        return buffer != null ? buffer.size() : 0;
+    }
+
+    public int getQueueCapacity() {
+        return buffer != null ? buffer.capacity() : bufferSize;
+    }
+
+    public long getDroppedDebugCount() {
+        return droppedDebug.sum();
+    }
+
+    public long getDroppedInfoCount() {
+        return droppedInfo.sum();
+    }
+
+    /**
+     * WARN and ERROR events that had to wait for space in a full buffer.
+     */
+    public long getBlockedCriticalCount() {
+        return blockedCritical.sum();
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setDiscardingThreshold(double discardingThreshold) {
+        this.discardingThreshold = discardingThreshold;
+    }
+
+    public void setInfoSampleEvery(int infoSampleEvery) {
+        this.infoSampleEvery = Math.max(1, infoSampleEvery);
+    }
+
+    public void setMaxFlushTimeMs(long maxFlushTimeMs) {
+        this.maxFlushTimeMs = maxFlushTimeMs;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        appenders.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
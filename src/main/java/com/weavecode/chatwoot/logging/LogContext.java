@@ -0,0 +1,93 @@
+package com.weavecode.chatwoot.logging;
+
+import org.slf4j.MDC;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the logging context bound to the current thread.
+ *
+ * {@link StructuredLoggingService} keeps the snapshot and the MDC in step,
+ * rebuilding the snapshot copy-on-write when a key changes (a handful of
+ * times per request). Handing the context to another thread is then a
+ * reference capture, with no MDC map copy at submit time; see
+ * {@link ContextPropagatingTaskDecorator}.
+ */
+public final class LogContext {
+
+    private static final ThreadLocal<LogContext> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, String> entries;
+
+    private LogContext(Map<String, String> entries) {
+        this.entries = Collections.unmodifiableMap(entries);
+    }
+
+    static LogContext of(Map<String, String> entries) {
+        return new LogContext(new HashMap<>(entries));
+    }
+
+    /**
+     * Snapshot bound to this thread, or null outside any request context.
+     */
+    public static LogContext current() {
+        return CURRENT.get();
+    }
+
+    public String get(String key) {
+        return entries.get(key);
+    }
+
+    Map<String, String> entries() {
+        return entries;
+    }
+
+    LogContext with(String key, String value) {
+        if (value == null) {
+            return without(key);
+        }
+        Map<String, String> copy = new HashMap<>(entries);
+        copy.put(key, value);
+        return new LogContext(copy);
+    }
+
+    LogContext without(String key) {
+        if (!entries.containsKey(key)) {
+            return this;
+        }
+        Map<String, String> copy = new HashMap<>(entries);
+        copy.remove(key);
+        return new LogContext(copy);
+    }
+
+    /**
+     * Bind a snapshot to this thread and install it into the MDC.
+     *
+     * @return the snapshot previously bound, to hand back to {@link #restore}
+     */
+    static LogContext attach(LogContext context) {
+        LogContext previous = CURRENT.get();
+        install(context);
+        return previous;
+    }
+
+    static void restore(LogContext previous) {
+        install(previous);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+        MDC.clear();
+    }
+
+    private static void install(LogContext context) {
+        if (context == null) {
+            clear();
+            return;
+        }
+        CURRENT.set(context);
+        MDC.setContextMap(context.entries);
+    }
+}
@@ -0,0 +1,105 @@
+package com.weavecode.chatwoot.logging;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import net.logstash.logback.argument.StructuredArgument;
+
+import java.io.IOException;
+
+/**
+ * Fields of one structured log event, written by the JSON encoder directly
+ * as top-level fields of the log line.
+ *
+ * Immutable, because with the async appender the encoder runs on another
+ * thread after the logging call has returned. Numbers and booleans are
+ * kept unboxed in a primitive array.
+ */
+public final class LogEvent implements StructuredArgument {
+
+    static final byte STRING = 0;
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte BOOLEAN = 3;
+    static final byte OBJECT = 4;
+
+    private final int size;
+    private final String[] keys;
+    private final byte[] types;
+    private final Object[] objects;
+    private final long[] primitives;
+
+    LogEvent(int size, String[] keys, byte[] types, Object[] objects, long[] primitives) {
+        this.size = size;
+        this.keys = keys;
+        this.types = types;
+        this.objects = objects;
+        this.primitives = primitives;
+    }
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        for (int i = 0; i < size; i++) {
+            generator.writeFieldName(keys[i]);
+            switch (types[i]) {
+                case LONG:
+                    generator.writeNumber(primitives[i]);
+                    break;
+                case DOUBLE:
+                    generator.writeNumber(Double.longBitsToDouble(primitives[i]));
+                    break;
+                case BOOLEAN:
+                    generator.writeBoolean(primitives[i] != 0);
+                    break;
+                case STRING:
+                    if (objects[i] == null) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeString((String) objects[i]);
+                    }
+                    break;
+                default:
+                    generator.writeObject(objects[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Value of a field, boxed; meant for tests and text output, not the hot path.
+     */
+    public Object get(String key) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) {
+                return valueAt(i);
+            }
+        }
+        return null;
+    }
+
+    private Object valueAt(int i) {
+        switch (types[i]) {
+            case LONG:
+                return primitives[i];
+            case DOUBLE:
+                return Double.longBitsToDouble(primitives[i]);
+            case BOOLEAN:
+                return primitives[i] != 0;
+            default:
+                return objects[i];
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(size * 16);
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(keys[i]).append('=').append(valueAt(i));
+        }
+        return text.toString();
+    }
+}
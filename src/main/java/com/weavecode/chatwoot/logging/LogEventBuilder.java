@@ -0,0 +1,228 @@
+package com.weavecode.chatwoot.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Reusable per-thread builder for {@link LogEvent}s.
+ *
+ * Fields are collected into arrays owned by the thread, and logging copies
+ * exactly the filled part into an immutable event, so a typical event
+ * costs the event and its arrays instead of a HashMap with an entry per
+ * field, a formatted timestamp and a toString() of the whole map. When the
+ * level is disabled a shared no-op builder is returned and nothing is
+ * collected. Timestamps are left to the encoder.
+ *
+ * <pre>
+ * LogEventBuilder.at(logger, Level.INFO, "API response")
+ *     .with("statusCode", 200)
+ *     .with("responseTime", 12)
+ *     .log();
+ * </pre>
+ */
+public final class LogEventBuilder {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final ThreadLocal<LogEventBuilder> BUILDERS = ThreadLocal.withInitial(LogEventBuilder::new);
+    private static final LogEventBuilder DISABLED = new LogEventBuilder();
+
+    private Logger logger;
+    private Level level;
+    private String message;
+    private Throwable throwable;
+    private boolean inUse;
+
+    private int size;
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private Object[] objects = new Object[INITIAL_CAPACITY];
+    private long[] primitives = new long[INITIAL_CAPACITY];
+
+    private LogEventBuilder() {
+    }
+
+    /**
+     * Start an event, or get a no-op builder when the level is disabled.
+     */
+    public static LogEventBuilder at(Logger logger, Level level, String message) {
+        if (!isEnabled(logger, level)) {
+            return DISABLED;
+        }
+        LogEventBuilder builder = BUILDERS.get();
+        if (builder.inUse) {
+            // Something logged while this thread was still building an event
+            builder = new LogEventBuilder();
+        }
+        builder.inUse = true;
+        builder.logger = logger;
+        builder.level = level;
+        builder.message = message;
+        return builder;
+    }
+
+    public LogEventBuilder with(String key, String value) {
+        if (this != DISABLED) {
+            add(key, LogEvent.STRING, value, 0L);
+        }
+        return this;
+    }
+
+    public LogEventBuilder with(String key, long value) {
+        if (this != DISABLED) {
+            add(key, LogEvent.LONG, null, value);
+        }
+        return this;
+    }
+
+    public LogEventBuilder with(String key, double value) {
+        if (this != DISABLED) {
+            add(key, LogEvent.DOUBLE, null, Double.doubleToRawLongBits(value));
+        }
+        return this;
+    }
+
+    public LogEventBuilder with(String key, boolean value) {
+        if (this != DISABLED) {
+            add(key, LogEvent.BOOLEAN, null, value ? 1L : 0L);
+        }
+        return this;
+    }
+
+    /**
+     * Add a value serialized by the encoder's object mapper, such as a map
+     * of headers. Strings and numbers should use the typed overloads.
+     */
+    public LogEventBuilder withObject(String key, Object value) {
+        if (this != DISABLED) {
+            if (value instanceof String) {
+                add(key, LogEvent.STRING, value, 0L);
+            } else {
+                add(key, LogEvent.OBJECT, value, 0L);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Add every entry of a map as a field; a null map adds nothing.
+     */
+    public LogEventBuilder withAll(Map<String, ?> fields) {
+        if (this != DISABLED && fields != null) {
+            fields.forEach(this::withObject);
+        }
+        return this;
+    }
+
+    public LogEventBuilder withThrowable(Throwable throwable) {
+        if (this != DISABLED) {
+            this.throwable = throwable;
+        }
+        return this;
+    }
+
+    /**
+     * Emit the event and release the builder for the thread's next event.
+     */
+    public void log() {
+        if (this == DISABLED) {
+            return;
+        }
+        LogEvent event = new LogEvent(size,
+            Arrays.copyOf(keys, size), Arrays.copyOf(types, size),
+            Arrays.copyOf(objects, size), Arrays.copyOf(primitives, size));
+        Logger target = logger;
+        Level targetLevel = level;
+        String text = message;
+        Throwable cause = throwable;
+        reset();
+
+        if (cause != null) {
+            emit(target, targetLevel, text, event, cause);
+        } else {
+            emit(target, targetLevel, text, event);
+        }
+    }
+
+    private void add(String key, byte type, Object object, long primitive) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            types = Arrays.copyOf(types, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+            primitives = Arrays.copyOf(primitives, capacity);
+        }
+        keys[size] = key;
+        types[size] = type;
+        objects[size] = object;
+        primitives[size] = primitive;
+        size++;
+    }
+
+    private void reset() {
+        Arrays.fill(objects, 0, size, null);
+        Arrays.fill(keys, 0, size, null);
+        size = 0;
+        logger = null;
+        level = null;
+        message = null;
+        throwable = null;
+        inUse = false;
+    }
+
+    private static boolean isEnabled(Logger logger, Level level) {
+        switch (level) {
+            case ERROR:
+                return logger.isErrorEnabled();
+            case WARN:
+                return logger.isWarnEnabled();
+            case INFO:
+                return logger.isInfoEnabled();
+            case DEBUG:
+                return logger.isDebugEnabled();
+            default:
+                return logger.isTraceEnabled();
+        }
+    }
+
+    private static void emit(Logger logger, Level level, String message, Object event) {
+        switch (level) {
+            case ERROR:
+                logger.error(message, event);
+                break;
+            case WARN:
+                logger.warn(message, event);
+                break;
+            case INFO:
+                logger.info(message, event);
+                break;
+            case DEBUG:
+                logger.debug(message, event);
+                break;
+            default:
+                logger.trace(message, event);
+        }
+    }
+
+    // SLF4J treats a trailing Throwable argument as the event's exception
+    private static void emit(Logger logger, Level level, String message, Object event, Throwable cause) {
+        switch (level) {
+            case ERROR:
+                logger.error(message, event, cause);
+                break;
+            case WARN:
+                logger.warn(message, event, cause);
+                break;
+            case INFO:
+                logger.info(message, event, cause);
+                break;
+            case DEBUG:
+                logger.debug(message, event, cause);
+                break;
+            default:
+                logger.trace(message, event, cause);
+        }
+    }
+}
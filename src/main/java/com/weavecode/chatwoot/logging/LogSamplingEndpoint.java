@@ -0,0 +1,47 @@
+package com.weavecode.chatwoot.logging;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint for request log sampling at /actuator/logsampling.
+ *
+ * GET shows the settings and each route's effective rate. POST changes
+ * them: sampleEvery alone sets the default rate, together with route it
+ * overrides that route, and route without sampleEvery clears the override.
+ */
+@Component
+@Endpoint(id = "logsampling")
+public class LogSamplingEndpoint {
+
+    @Autowired
+    private LogSamplingPolicy samplingPolicy;
+
+    @ReadOperation
+    public Map<String, Object> sampling() {
+        return samplingPolicy.describe();
+    }
+
+    @WriteOperation
+    public Map<String, Object> configure(@Nullable Boolean enabled, @Nullable Integer sampleEvery,
+                                         @Nullable Long slowThresholdMs, @Nullable String route) {
+        if (enabled != null) {
+            samplingPolicy.setEnabled(enabled);
+        }
+        if (slowThresholdMs != null) {
+            samplingPolicy.setSlowThresholdMs(slowThresholdMs);
+        }
+        if (route != null) {
+            samplingPolicy.setRouteSampleEvery(route, sampleEvery);
+        } else if (sampleEvery != null) {
+            samplingPolicy.setSampleEvery(sampleEvery);
+        }
+        return samplingPolicy.describe();
+    }
+}
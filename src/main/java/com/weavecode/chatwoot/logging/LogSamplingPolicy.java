@@ -0,0 +1,159 @@
+package com.weavecode.chatwoot.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides which requests get their lifecycle logged.
+ *
+ * Server errors, failed requests on auth endpoints and slow requests are
+ * always kept. Everything else is sampled 1 in N per route, counting
+ * rather than rolling dice so every route's first request is logged. N is
+ * re-derived each interval from the route's volume, so a quiet route is
+ * logged more often, down to every request, while a busy one never drops
+ * below its configured rate. Rates can be changed at runtime through
+ * {@link LogSamplingEndpoint}.
+ */
+@Component
+public class LogSamplingPolicy {
+
+    static final String OTHER_ROUTE = "OTHER";
+
+    @Value("${app.logging.sampling.enabled:true}")
+    private volatile boolean enabled;
+
+    @Value("${app.logging.sampling.sample-every:100}")
+    private volatile int sampleEvery;
+
+    @Value("${app.logging.sampling.slow-threshold-ms:1000}")
+    private volatile long slowThresholdMs;
+
+    @Value("${app.logging.sampling.target-per-interval:60}")
+    private volatile int targetPerInterval;
+
+    @Value("${app.logging.sampling.max-routes:500}")
+    private int maxRoutes;
+
+    private final Map<String, RouteSampler> samplers = new ConcurrentHashMap<>();
+    private final Map<String, Integer> overrides = new ConcurrentHashMap<>();
+
+    /**
+     * Whether to log a completed request.
+     *
+     * @param route        method and route template, e.g. "GET /api/conversations/{id}"
+     * @param authEndpoint whether the route authenticates clients
+     * @param failed       whether the request ended with an exception
+     */
+    public boolean shouldLog(String route, boolean authEndpoint, int statusCode, long elapsedMs, boolean failed) {
+        if (!enabled || failed || statusCode >= 500 || elapsedMs >= slowThresholdMs) {
+            return true;
+        }
+        if (authEndpoint && statusCode >= 400) {
+            return true;
+        }
+        return samplerFor(route).sample();
+    }
+
+    private RouteSampler samplerFor(String route) {
+        RouteSampler sampler = samplers.get(route);
+        if (sampler != null) {
+            return sampler;
+        }
+        // Bounded so unmatched paths cannot grow the map without limit
+        String key = samplers.size() < maxRoutes ? route : OTHER_ROUTE;
+        return samplers.computeIfAbsent(key, k -> new RouteSampler(configuredEvery(k)));
+    }
+
+    /**
+     * Re-derive each route's effective rate from the volume seen in the last interval.
+     */
+    @Scheduled(fixedDelayString = "${app.logging.sampling.adjust-interval-ms:60000}")
+    public void adjustRates() {
+        samplers.entrySet().removeIf(entry -> {
+            RouteSampler sampler = entry.getValue();
+            long volume = sampler.volume.sumThenReset();
+            if (volume == 0) {
+                return !overrides.containsKey(entry.getKey());
+            }
+            sampler.every = adaptiveEvery(configuredEvery(entry.getKey()), volume, targetPerInterval);
+            return false;
+        });
+    }
+
+    static int adaptiveEvery(int configuredEvery, long volume, int targetPerInterval) {
+        long needed = (volume + targetPerInterval - 1) / Math.max(1, targetPerInterval);
+        return (int) Math.max(1, Math.min(configuredEvery, needed));
+    }
+
+    private int configuredEvery(String route) {
+        return overrides.getOrDefault(route, sampleEvery);
+    }
+
+    public void setSampleEvery(int sampleEvery) {
+        this.sampleEvery = Math.max(1, sampleEvery);
+        // Applies immediately; volume adaptation resumes at the next interval
+        samplers.forEach((route, sampler) -> sampler.every = configuredEvery(route));
+    }
+
+    public void setRouteSampleEvery(String route, Integer every) {
+        if (every == null) {
+            overrides.remove(route);
+        } else {
+            overrides.put(route, Math.max(1, every));
+        }
+        RouteSampler sampler = samplers.get(route);
+        if (sampler != null) {
+            sampler.every = configuredEvery(route);
+        }
+    }
+
+    public void setSlowThresholdMs(long slowThresholdMs) {
+        this.slowThresholdMs = slowThresholdMs;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Current settings and the effective rate of every tracked route.
+     */
+    public Map<String, Object> describe() {
+        Map<String, Integer> routes = new LinkedHashMap<>();
+        samplers.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .forEach(entry -> routes.put(entry.getKey(), entry.getValue().every));
+
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("enabled", enabled);
+        description.put("sampleEvery", sampleEvery);
+        description.put("slowThresholdMs", slowThresholdMs);
+        description.put("targetPerInterval", targetPerInterval);
+        description.put("overrides", new LinkedHashMap<>(overrides));
+        description.put("effectiveSampleEvery", routes);
+        return description;
+    }
+
+    private static final class RouteSampler {
+        private final AtomicLong counter = new AtomicLong();
+        private final LongAdder volume = new LongAdder();
+        private volatile int every;
+
+        private RouteSampler(int every) {
+            this.every = every;
+        }
+
+        private boolean sample() {
+            volume.increment();
+            int n = every;
+            return n <= 1 || counter.getAndIncrement() % n == 0;
+        }
+    }
+}
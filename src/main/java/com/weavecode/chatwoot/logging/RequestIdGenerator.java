@@ -0,0 +1,58 @@
+package com.weavecode.chatwoot.logging;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fast, time-ordered identifiers for requests and correlation.
+ *
+ * An id is 24 hex characters: 48 bits of epoch millis, 16 bits of node id
+ * and a 32-bit sequence. Ids sort by creation millisecond, and the
+ * node id keeps nodes apart. Only the node id and the sequence seed come
+ * from SecureRandom, once at class load, so generating an id costs one
+ * atomic increment and never blocks on the entropy pool. Ids are not
+ * secret and must never be used as tokens.
+ */
+public final class RequestIdGenerator {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    static final int LENGTH = 24;
+
+    private static final int NODE_ID;
+    private static final AtomicInteger SEQUENCE;
+
+    static {
+        SecureRandom random = new SecureRandom();
+        NODE_ID = random.nextInt() & 0xFFFF;
+        SEQUENCE = new AtomicInteger(random.nextInt());
+    }
+
+    private RequestIdGenerator() {
+    }
+
+    public static String nextId() {
+        return format(System.currentTimeMillis(), NODE_ID, SEQUENCE.getAndIncrement());
+    }
+
+    static String format(long epochMillis, int nodeId, int sequence) {
+        char[] chars = new char[LENGTH];
+        writeHex(chars, 0, epochMillis, 12);
+        writeHex(chars, 12, nodeId, 4);
+        writeHex(chars, 16, sequence & 0xFFFFFFFFL, 8);
+        return new String(chars);
+    }
+
+    /**
+     * Creation time encoded in an id produced by this generator.
+     */
+    static long timestampOf(String id) {
+        return Long.parseLong(id.substring(0, 12), 16);
+    }
+
+    private static void writeHex(char[] chars, int offset, long value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            chars[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
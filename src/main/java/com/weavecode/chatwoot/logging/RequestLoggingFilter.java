@@ -1,23 +1,22 @@
 package com.weavecode.chatwoot.logging;
 
+import com.weavecode.chatwoot.security.EdgeRequestContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.util.ContentCachingRequestWrapper;
-import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Component
 @Order(5)
@@ -28,38 +27,67 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
     @Autowired
     private StructuredLoggingService loggingService;
 
+    @Autowired
+    private LogSamplingPolicy samplingPolicy;
+
+    // Bodies are streamed through untouched; a capped copy is logged only
+    // for sampled, failed or slow requests
+    @Value("${app.logging.body-capture.enabled:true}")
+    private boolean bodyCaptureEnabled;
+
+    @Value("${app.logging.body-capture.sample-rate:0.01}")
+    private double bodySampleRate;
+
+    @Value("${app.logging.body-capture.slow-threshold-ms:2000}")
+    private long slowThresholdMs;
+
+    @Value("${app.logging.body-capture.max-bytes:4096}")
+    private int maxBodyBytes;
+
+    @Value("${app.logging.body-capture.content-types:application/json,application/problem+json,application/xml,text/plain}")
+    private String[] capturableContentTypes;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                   FilterChain filterChain) throws ServletException, IOException {
         
-        long startTime = System.currentTimeMillis();
-        String requestId = UUID.randomUUID().toString();
+        EdgeRequestContext context = EdgeRequestContext.of(request);
+        String requestId = RequestIdGenerator.nextId();
         
-        // Wrap request and response for content caching
-        ContentCachingRequestWrapper wrappedRequest = new ContentCachingRequestWrapper(request);
-        ContentCachingResponseWrapper wrappedResponse = new ContentCachingResponseWrapper(response);
+        // Credentials and tokens travel in auth bodies, so those are never captured
+        boolean capture = bodyCaptureEnabled && context.getRouteClass() != EdgeRequestContext.RouteClass.AUTH;
+        BodyCapture.CapturingRequest capturingRequest = capture && isCapturable(request.getContentType())
+            ? new BodyCapture.CapturingRequest(request, maxBodyBytes) : null;
+        BodyCapture.CapturingResponse capturingResponse = capture
+            ? new BodyCapture.CapturingResponse(response, maxBodyBytes, this::isCapturable) : null;
+        HttpServletRequest loggedRequest = capturingRequest != null ? capturingRequest : request;
+        HttpServletResponse loggedResponse = capturingResponse != null ? capturingResponse : response;
         
         try {
             // Start request context
-            startRequestContext(wrappedRequest, requestId);
-            
-            // Log request start
-            logRequestStart(wrappedRequest, requestId);
+            startRequestContext(loggedRequest, context, requestId);
             
             // Continue with the filter chain
-            filterChain.doFilter(wrappedRequest, wrappedResponse);
-            
-            // Log response
-            long responseTime = System.currentTimeMillis() - startTime;
-            logResponse(wrappedRequest, wrappedResponse, responseTime, requestId);
+            filterChain.doFilter(loggedRequest, loggedResponse);
+            if (capturingResponse != null) {
+                capturingResponse.finish();
+            }
             
-            // Copy response content back to original response
-            wrappedResponse.copyBodyToResponse();
+            // The request line is deferred until the outcome decides whether this request is sampled
+            long responseTime = context.elapsedMillis();
+            int statusCode = loggedResponse.getStatus();
+            if (samplingPolicy.shouldLog(request.getMethod() + " " + EdgeRequestContext.routeTemplate(request),
+                    context.getRouteClass() == EdgeRequestContext.RouteClass.AUTH, statusCode, responseTime, false)) {
+                logRequestStart(loggedRequest, context);
+                Map<String, Object> bodies = shouldLogBodies(statusCode, responseTime)
+                    ? capturedBodies(capturingRequest, capturingResponse) : null;
+                logResponse(loggedRequest, loggedResponse, responseTime, bodies);
+            }
             
         } catch (Exception e) {
             // Log error
-            long responseTime = System.currentTimeMillis() - startTime;
-            logError(wrappedRequest, e, responseTime, requestId);
+            long responseTime = context.elapsedMillis();
+            logError(loggedRequest, context, e, responseTime, capturedBodies(capturingRequest, null));
             throw e;
         } finally {
             // Clear request context
@@ -67,14 +95,50 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
         }
     }
 
-    private void startRequestContext(HttpServletRequest request, String requestId) {
-        // Extract tenant and user info from request
-        String tenantId = extractTenantId(request);
-        String userId = extractUserId(request);
+    private boolean shouldLogBodies(int statusCode, long responseTime) {
+        return statusCode >= 400 ||
+               responseTime >= slowThresholdMs ||
+               (bodySampleRate > 0 && ThreadLocalRandom.current().nextDouble() < bodySampleRate);
+    }
+
+    private Map<String, Object> capturedBodies(BodyCapture.CapturingRequest request,
+                                               BodyCapture.CapturingResponse response) {
+        Map<String, Object> bodies = new HashMap<>();
+        if (request != null && !request.getCapture().isEmpty()) {
+            addBody(bodies, "requestBody", request.getCapture(), request.getCharacterEncoding());
+        }
+        if (response != null && response.isCapturing() && !response.getCapture().isEmpty()) {
+            addBody(bodies, "responseBody", response.getCapture(), response.getCharacterEncoding());
+        }
+        return bodies;
+    }
+
+    private static void addBody(Map<String, Object> bodies, String key, BodyCapture capture, String encoding) {
+        bodies.put(key, capture.asString(BodyCapture.charsetOf(encoding)));
+        if (capture.isTruncated()) {
+            bodies.put(key + "Bytes", capture.getTotalBytes());
+        }
+    }
+
+    private boolean isCapturable(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        for (String allowed : capturableContentTypes) {
+            if (contentType.regionMatches(true, 0, allowed, 0, allowed.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void startRequestContext(HttpServletRequest request, EdgeRequestContext context, String requestId) {
+        // Prefer the authenticated identity, falling back to what the client claims
+        String tenantId = context.getTenantId() != null ? context.getTenantId().toString() : extractTenantId(request);
+        String userId = context.getUserId() != null ? context.getUserId().toString() : extractUserId(request);
         
         // Start logging context
-        loggingService.startRequestContext(tenantId, userId);
-        loggingService.setContext("requestId", requestId);
+        loggingService.startRequestContext(tenantId, userId, requestId);
     }
 
     private String extractTenantId(HttpServletRequest request) {
@@ -101,17 +165,8 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
         return userId;
     }
 
-    private void logRequestStart(HttpServletRequest request, String requestId) {
-        Map<String, Object> requestData = new HashMap<>();
-        requestData.put("requestId", requestId);
-        requestData.put("method", request.getMethod());
-        requestData.put("uri", request.getRequestURI());
-        requestData.put("queryString", request.getQueryString());
-        requestData.put("clientIp", getClientIpAddress(request));
-        requestData.put("userAgent", request.getHeader("User-Agent"));
-        requestData.put("contentType", request.getContentType());
-        requestData.put("contentLength", request.getContentLength());
-        
+    // The request id is already on every line through the MDC
+    private void logRequestStart(HttpServletRequest request, EdgeRequestContext context) {
         // Log headers (excluding sensitive ones)
         Map<String, String> headers = new HashMap<>();
         request.getHeaderNames().asIterator().forEachRemaining(headerName -> {
@@ -119,25 +174,18 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
                 headers.put(headerName, request.getHeader(headerName));
             }
         });
-        requestData.put("headers", headers);
         
-        loggingService.logApiRequest(
-            request.getMethod(),
-            request.getRequestURI(),
-            getClientIpAddress(request),
-            requestData
-        );
+        loggingService.apiRequest(request.getMethod(), request.getRequestURI(), context.getClientIp())
+            .with("queryString", request.getQueryString())
+            .with("userAgent", request.getHeader("User-Agent"))
+            .with("contentType", request.getContentType())
+            .with("contentLength", request.getContentLengthLong())
+            .withObject("headers", headers)
+            .log();
     }
 
     private void logResponse(HttpServletRequest request, HttpServletResponse response, 
-                           long responseTime, String requestId) {
-        Map<String, Object> responseData = new HashMap<>();
-        responseData.put("requestId", requestId);
-        responseData.put("statusCode", response.getStatus());
-        responseData.put("responseTime", responseTime);
-        responseData.put("contentType", response.getContentType());
-        responseData.put("contentLength", response.getContentLength());
-        
+                           long responseTime, Map<String, Object> bodies) {
         // Log response headers (excluding sensitive ones)
         Map<String, String> headers = new HashMap<>();
         response.getHeaderNames().forEach(headerName -> {
@@ -145,46 +193,23 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
                 headers.put(headerName, response.getHeader(headerName));
             }
         });
-        responseData.put("headers", headers);
-        
-        loggingService.logApiResponse(
-            request.getMethod(),
-            request.getRequestURI(),
-            response.getStatus(),
-            responseTime,
-            responseData
-        );
-    }
-
-    private void logError(HttpServletRequest request, Exception exception, 
-                         long responseTime, String requestId) {
-        Map<String, Object> errorData = new HashMap<>();
-        errorData.put("requestId", requestId);
-        errorData.put("method", request.getMethod());
-        errorData.put("uri", request.getRequestURI());
-        errorData.put("responseTime", responseTime);
-        errorData.put("clientIp", getClientIpAddress(request));
         
-        loggingService.logError(
-            "Request processing failed",
-            "API_REQUEST",
-            exception,
-            errorData
-        );
+        loggingService.apiResponse(request.getMethod(), request.getRequestURI(), response.getStatus(), responseTime)
+            .with("contentType", response.getContentType())
+            .withObject("headers", headers)
+            .withAll(bodies)
+            .log();
     }
 
-    private String getClientIpAddress(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-        
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
-        }
-        
-        return request.getRemoteAddr();
+    private void logError(HttpServletRequest request, EdgeRequestContext context, Exception exception, 
+                         long responseTime, Map<String, Object> bodies) {
+        loggingService.error("Request processing failed", "API_REQUEST", exception)
+            .with("method", request.getMethod())
+            .with("uri", request.getRequestURI())
+            .with("responseTime", responseTime)
+            .with("clientIp", context.getClientIp())
+            .withAll(bodies)
+            .log();
     }
 
     private boolean isSensitiveHeader(String headerName) {
@@ -199,14 +224,7 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
-        // Skip logging for health checks and static resources
-        String path = request.getRequestURI();
-        return path.equals("/actuator/health") ||
-               path.equals("/actuator/info") ||
-               path.startsWith("/static/") ||
-               path.startsWith("/public/") ||
-               path.equals("/favicon.ico") ||
-               path.startsWith("/actuator/metrics") ||
-               path.startsWith("/actuator/prometheus");
+        // Skip logging for health checks, metric scrapes and static resources
+        return EdgeRequestContext.of(request).isStaticOrMonitoring();
     }
 }
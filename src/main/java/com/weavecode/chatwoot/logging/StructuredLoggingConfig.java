@@ -8,19 +8,26 @@ import ch.qos.logback.core.rolling.TimeBasedRollingPolicy;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.logstash.logback.composite.loggingevent.ArgumentsJsonProvider;
 import net.logstash.logback.composite.loggingevent.LoggingEventJsonProviders;
 import net.logstash.logback.composite.loggingevent.MdcJsonProvider;
 import net.logstash.logback.composite.loggingevent.MessageJsonProvider;
+import net.logstash.logback.composite.loggingevent.StackTraceJsonProvider;
 import net.logstash.logback.composite.loggingevent.TimestampJsonProvider;
 import net.logstash.logback.encoder.LoggingEventCompositeJsonEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
@@ -43,6 +50,23 @@ public class StructuredLoggingConfig {
     @Value("${logging.level.com.weavecode.chatwoot:DEBUG}")
     private String appLogLevel;
 
+    @Value("${app.logging.async.buffer-size:8192}")
+    private int asyncBufferSize;
+
+    @Value("${app.logging.async.batch-size:256}")
+    private int asyncBatchSize;
+
+    @Value("${app.logging.async.discarding-threshold:0.8}")
+    private double asyncDiscardingThreshold;
+
+    @Value("${app.logging.async.info-sample-every:10}")
+    private int asyncInfoSampleEvery;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private LevelAwareAsyncAppender asyncAppender;
+
     @PostConstruct
     public void configureLogging() {
         logger.info("Configuring structured logging for Chatwoot backend");
@@ -69,51 +93,73 @@ public class StructuredLoggingConfig {
         // Configure file appender with JSON format
         RollingFileAppender<ILoggingEvent> fileAppender = createFileAppender(context);
         
+        // Both sit behind one async stage, so logging threads never encode or write
+        asyncAppender = createAsyncAppender(context, consoleAppender, fileAppender);
+        bindAppenderMetrics(asyncAppender);
+        
         // Get root logger and add appenders
         ch.qos.logback.classic.Logger rootLogger = context.getLogger(ch.qos.logback.classic.Logger.ROOT_LOGGER_NAME);
-        rootLogger.addAppender(consoleAppender);
-        rootLogger.addAppender(fileAppender);
+        rootLogger.addAppender(asyncAppender);
         rootLogger.setLevel(ch.qos.logback.classic.Level.valueOf(rootLogLevel));
         
         // Configure application logger
         ch.qos.logback.classic.Logger appLogger = context.getLogger("com.weavecode.chatwoot");
         appLogger.setLevel(ch.qos.logback.classic.Level.valueOf(appLogLevel));
         appLogger.setAdditive(false);
-        appLogger.addAppender(consoleAppender);
-        appLogger.addAppender(fileAppender);
+        appLogger.addAppender(asyncAppender);
+    }
+
+    private LevelAwareAsyncAppender createAsyncAppender(LoggerContext context,
+                                                        ConsoleAppender<ILoggingEvent> consoleAppender,
+                                                        RollingFileAppender<ILoggingEvent> fileAppender) {
+        LevelAwareAsyncAppender appender = new LevelAwareAsyncAppender();
+        appender.setContext(context);
+        appender.setName("async");
+        appender.setBufferSize(asyncBufferSize);
+        appender.setBatchSize(asyncBatchSize);
+        appender.setDiscardingThreshold(asyncDiscardingThreshold);
+        appender.setInfoSampleEvery(asyncInfoSampleEvery);
+        appender.addAppender(consoleAppender);
+        appender.addAppender(fileAppender);
+        appender.start();
+        return appender;
+    }
+
+    private void bindAppenderMetrics(LevelAwareAsyncAppender appender) {
+        Gauge.builder("chatwoot.logging.queue.depth", appender, LevelAwareAsyncAppender::getQueueDepth)
+                .description("Log events waiting to be written")
+                .register(meterRegistry);
+        Gauge.builder("chatwoot.logging.queue.capacity", appender, LevelAwareAsyncAppender::getQueueCapacity)
+                .description("Capacity of the log event buffer")
+                .register(meterRegistry);
+        FunctionCounter.builder("chatwoot.logging.events.dropped", appender, LevelAwareAsyncAppender::getDroppedDebugCount)
+                .description("Log events dropped because the buffer was under pressure")
+                .tag("level", "DEBUG")
+                .register(meterRegistry);
+        FunctionCounter.builder("chatwoot.logging.events.dropped", appender, LevelAwareAsyncAppender::getDroppedInfoCount)
+                .description("Log events dropped because the buffer was under pressure")
+                .tag("level", "INFO")
+                .register(meterRegistry);
+        FunctionCounter.builder("chatwoot.logging.events.blocked", appender, LevelAwareAsyncAppender::getBlockedCriticalCount)
+                .description("WARN and ERROR events that waited for space in a full buffer")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stopAsyncAppender() {
+        if (asyncAppender != null) {
+            // Drains what is buffered before the context goes away
+            asyncAppender.stop();
+        }
     }
 
     private ConsoleAppender<ILoggingEvent> createConsoleAppender(LoggerContext context) {
         ConsoleAppender<ILoggingEvent> appender = new ConsoleAppender<>();
         appender.setContext(context);
         appender.setName("console");
-        
-        // Create JSON encoder
-        LoggingEventCompositeJsonEncoder encoder = new LoggingEventCompositeJsonEncoder();
-        encoder.setContext(context);
-        
-        // Configure JSON providers
-        LoggingEventJsonProviders providers = new LoggingEventJsonProviders();
-        
-        // Timestamp provider
-        TimestampJsonProvider timestampProvider = new TimestampJsonProvider();
-        timestampProvider.setFieldName("timestamp");
-        timestampProvider.setTimeZone("UTC");
-        providers.addProvider(timestampProvider);
-        
-        // Message provider
-        MessageJsonProvider messageProvider = new MessageJsonProvider();
-        providers.addProvider(messageProvider);
-        
-        // MDC provider for correlation IDs and other context
-        MdcJsonProvider mdcProvider = new MdcJsonProvider();
-        mdcProvider.setIncludeMdcKeyName(true);
-        providers.addProvider(mdcProvider);
-        
-        encoder.setProviders(providers);
-        encoder.start();
-        
-        appender.setEncoder(encoder);
+        appender.setEncoder(createJsonEncoder(context));
+        // Flushed once per batch by the async appender
+        appender.setImmediateFlush(false);
         appender.start();
         
         return appender;
@@ -135,32 +181,46 @@ public class StructuredLoggingConfig {
         rollingPolicy.start();
         
         appender.setRollingPolicy(rollingPolicy);
+        appender.setEncoder(createJsonEncoder(context));
+        // Flushed once per batch by the async appender
+        appender.setImmediateFlush(false);
+        appender.start();
         
-        // Create JSON encoder (same as console)
+        return appender;
+    }
+
+    static LoggingEventCompositeJsonEncoder createJsonEncoder(LoggerContext context) {
         LoggingEventCompositeJsonEncoder encoder = new LoggingEventCompositeJsonEncoder();
         encoder.setContext(context);
         
+        // Configure JSON providers
         LoggingEventJsonProviders providers = new LoggingEventJsonProviders();
         
+        // Timestamp provider
         TimestampJsonProvider timestampProvider = new TimestampJsonProvider();
         timestampProvider.setFieldName("timestamp");
         timestampProvider.setTimeZone("UTC");
         providers.addProvider(timestampProvider);
         
+        // Message provider
         MessageJsonProvider messageProvider = new MessageJsonProvider();
         providers.addProvider(messageProvider);
         
+        // MDC provider for correlation IDs and other context
         MdcJsonProvider mdcProvider = new MdcJsonProvider();
         mdcProvider.setIncludeMdcKeyName(true);
         providers.addProvider(mdcProvider);
         
+        // Fields of LogEvent arguments, written straight into the JSON line
+        providers.addProvider(new ArgumentsJsonProvider());
+        
+        // Stack trace of the event's throwable, as "stack_trace"
+        providers.addProvider(new StackTraceJsonProvider());
+        
         encoder.setProviders(providers);
         encoder.start();
         
-        appender.setEncoder(encoder);
-        appender.start();
-        
-        return appender;
+        return encoder;
     }
 
     @Bean
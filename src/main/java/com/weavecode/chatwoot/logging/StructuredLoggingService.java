@@ -4,14 +4,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.slf4j.event.Level;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 @Service
 public class StructuredLoggingService {
@@ -26,167 +24,199 @@ public class StructuredLoggingService {
     private ObjectMapper objectMapper;
 
     /**
-     * Start a new request context with correlation ID
+     * Start a new request context with a freshly generated request ID
      */
     public void startRequestContext(String tenantId, String userId) {
-        String correlationId = UUID.randomUUID().toString();
-        String requestId = UUID.randomUUID().toString();
-        
-        MDC.put(CORRELATION_ID_KEY, correlationId);
-        MDC.put(TENANT_ID_KEY, tenantId);
-        MDC.put(USER_ID_KEY, userId);
-        MDC.put(REQUEST_ID_KEY, requestId);
-        
-        logger.info("Request context started", Map.of(
-            "correlationId", correlationId,
-            "requestId", requestId,
-            "tenantId", tenantId,
-            "userId", userId
-        ));
+        startRequestContext(tenantId, userId, RequestIdGenerator.nextId());
+    }
+
+    /**
+     * Start a new request context. The request ID doubles as the correlation
+     * ID, so a request costs one generated identifier.
+     */
+    public void startRequestContext(String tenantId, String userId, String requestId) {
+        Map<String, String> entries = new HashMap<>(8);
+        entries.put(CORRELATION_ID_KEY, requestId);
+        entries.put(REQUEST_ID_KEY, requestId);
+        if (tenantId != null) {
+            entries.put(TENANT_ID_KEY, tenantId);
+        }
+        if (userId != null) {
+            entries.put(USER_ID_KEY, userId);
+        }
+        LogContext.attach(LogContext.of(entries));
+
+        logger.debug("Request context started: requestId={}, tenantId={}, userId={}", requestId, tenantId, userId);
     }
 
     /**
      * Clear the current request context
      */
     public void clearRequestContext() {
-        String correlationId = MDC.get(CORRELATION_ID_KEY);
         String requestId = MDC.get(REQUEST_ID_KEY);
         
-        if (correlationId != null) {
-            logger.info("Request context cleared", Map.of(
-                "correlationId", correlationId,
-                "requestId", requestId
-            ));
+        if (requestId != null) {
+            logger.debug("Request context cleared: requestId={}", requestId);
         }
         
-        MDC.clear();
+        LogContext.clear();
+    }
+
+    /*
+     * Each event type has a builder-returning form for callers adding typed
+     * fields and a Map form kept for existing callers. Map entries become
+     * fields alongside the fixed ones, so they should not repeat them.
+     * Timestamps come from the encoder.
+     */
+
+    /**
+     * Start a business event
+     */
+    public LogEventBuilder businessEvent(String event, String category) {
+        return LogEventBuilder.at(logger, Level.INFO, "Business event")
+            .with("event", event)
+            .with("category", category);
     }
 
     /**
      * Log business event with structured data
      */
     public void logBusinessEvent(String event, String category, Map<String, Object> data) {
-        Map<String, Object> logData = new HashMap<>(data);
-        logData.put("event", event);
-        logData.put("category", category);
-        logData.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        
-        logger.info("Business event: {}", logData);
+        businessEvent(event, category).withAll(data).log();
     }
 
     /**
-     * Log security event with structured data
+     * Start a security event, logged at a level matching its severity
      */
-    public void logSecurityEvent(String event, String severity, String source, Map<String, Object> data) {
-        Map<String, Object> logData = new HashMap<>(data);
-        logData.put("event", event);
-        logData.put("severity", severity);
-        logData.put("source", source);
-        logData.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        
+    public LogEventBuilder securityEvent(String event, String severity, String source) {
+        Level level;
         switch (severity.toUpperCase()) {
             case "HIGH":
-                logger.error("Security event: {}", logData);
+                level = Level.ERROR;
                 break;
             case "MEDIUM":
-                logger.warn("Security event: {}", logData);
+                level = Level.WARN;
                 break;
             default:
-                logger.info("Security event: {}", logData);
+                level = Level.INFO;
         }
+        return LogEventBuilder.at(logger, level, "Security event")
+            .with("event", event)
+            .with("severity", severity)
+            .with("source", source);
+    }
+
+    /**
+     * Log security event with structured data
+     */
+    public void logSecurityEvent(String event, String severity, String source, Map<String, Object> data) {
+        securityEvent(event, severity, source).withAll(data).log();
+    }
+
+    /**
+     * Start a performance metric event; slow operations are logged as warnings
+     */
+    public LogEventBuilder performanceMetric(String metric, String operation, long duration) {
+        return LogEventBuilder.at(logger, duration > 1000 ? Level.WARN : Level.INFO, "Performance metric")
+            .with("metric", metric)
+            .with("operation", operation)
+            .with("duration", duration);
     }
 
     /**
      * Log performance metric with structured data
      */
     public void logPerformanceMetric(String metric, String operation, long duration, Map<String, Object> data) {
-        Map<String, Object> logData = new HashMap<>(data);
-        logData.put("metric", metric);
-        logData.put("operation", operation);
-        logData.put("duration", duration);
-        logData.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        
-        if (duration > 1000) { // Log slow operations as warnings
-            logger.warn("Performance metric: {}", logData);
-        } else {
-            logger.info("Performance metric: {}", logData);
-        }
+        performanceMetric(metric, operation, duration).withAll(data).log();
+    }
+
+    /**
+     * Start an error event carrying the exception and its stack trace
+     */
+    public LogEventBuilder error(String error, String context, Exception exception) {
+        return LogEventBuilder.at(logger, Level.ERROR, "Error occurred")
+            .with("error", error)
+            .with("context", context)
+            .with("exception", exception.getClass().getSimpleName())
+            .with("exceptionMessage", exception.getMessage())
+            .withThrowable(exception);
     }
 
     /**
      * Log error with structured data and context
      */
     public void logError(String error, String context, Exception exception, Map<String, Object> data) {
-        Map<String, Object> logData = new HashMap<>(data);
-        logData.put("error", error);
-        logData.put("context", context);
-        logData.put("exception", exception.getClass().getSimpleName());
-        logData.put("message", exception.getMessage());
-        logData.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        
-        logger.error("Error occurred: {}", logData, exception);
+        error(error, context, exception).withAll(data).log();
+    }
+
+    /**
+     * Start an API request event
+     */
+    public LogEventBuilder apiRequest(String method, String endpoint, String clientIp) {
+        return LogEventBuilder.at(logger, Level.INFO, "API request")
+            .with("method", method)
+            .with("endpoint", endpoint)
+            .with("clientIp", clientIp);
     }
 
     /**
      * Log API request with structured data
      */
     public void logApiRequest(String method, String endpoint, String clientIp, Map<String, Object> data) {
-        Map<String, Object> logData = new HashMap<>(data);
-        logData.put("method", method);
-        logData.put("endpoint", endpoint);
-        logData.put("clientIp", clientIp);
-        logData.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        
-        logger.info("API request: {}", logData);
+        apiRequest(method, endpoint, clientIp).withAll(data).log();
+    }
+
+    /**
+     * Start an API response event; failed responses are logged as warnings
+     */
+    public LogEventBuilder apiResponse(String method, String endpoint, int statusCode, long responseTime) {
+        return LogEventBuilder.at(logger, statusCode >= 400 ? Level.WARN : Level.INFO, "API response")
+            .with("method", method)
+            .with("endpoint", endpoint)
+            .with("statusCode", statusCode)
+            .with("responseTime", responseTime);
     }
 
     /**
      * Log API response with structured data
      */
     public void logApiResponse(String method, String endpoint, int statusCode, long responseTime, Map<String, Object> data) {
-        Map<String, Object> logData = new HashMap<>(data);
-        logData.put("method", method);
-        logData.put("endpoint", endpoint);
-        logData.put("statusCode", statusCode);
-        logData.put("responseTime", responseTime);
-        logData.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        
-        if (statusCode >= 400) {
-            logger.warn("API response: {}", logData);
-        } else {
-            logger.info("API response: {}", logData);
-        }
+        apiResponse(method, endpoint, statusCode, responseTime).withAll(data).log();
+    }
+
+    /**
+     * Start a database operation event; slow queries are logged as warnings
+     */
+    public LogEventBuilder databaseOperation(String operation, String table, long duration) {
+        return LogEventBuilder.at(logger, duration > 500 ? Level.WARN : Level.DEBUG, "Database operation")
+            .with("operation", operation)
+            .with("table", table)
+            .with("duration", duration);
     }
 
     /**
      * Log database operation with structured data
      */
     public void logDatabaseOperation(String operation, String table, long duration, Map<String, Object> data) {
-        Map<String, Object> logData = new HashMap<>(data);
-        logData.put("operation", operation);
-        logData.put("table", table);
-        logData.put("duration", duration);
-        logData.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        
-        if (duration > 500) { // Log slow queries as warnings
-            logger.warn("Database operation: {}", logData);
-        } else {
-            logger.debug("Database operation: {}", logData);
-        }
+        databaseOperation(operation, table, duration).withAll(data).log();
+    }
+
+    /**
+     * Start a cache operation event
+     */
+    public LogEventBuilder cacheOperation(String operation, String key, boolean hit, long duration) {
+        return LogEventBuilder.at(logger, Level.DEBUG, "Cache operation")
+            .with("operation", operation)
+            .with("key", key)
+            .with("hit", hit)
+            .with("duration", duration);
     }
 
     /**
      * Log cache operation with structured data
      */
     public void logCacheOperation(String operation, String key, boolean hit, long duration, Map<String, Object> data) {
-        Map<String, Object> logData = new HashMap<>(data);
-        logData.put("operation", operation);
-        logData.put("key", key);
-        logData.put("hit", hit);
-        logData.put("duration", duration);
-        logData.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        
-        logger.debug("Cache operation: {}", logData);
+        cacheOperation(operation, key, hit, duration).withAll(data).log();
     }
 
     /**
@@ -221,13 +251,23 @@ public class StructuredLoggingService {
      * Set additional context in MDC
      */
     public void setContext(String key, String value) {
-        MDC.put(key, value);
+        LogContext context = LogContext.current();
+        if (context != null) {
+            LogContext.attach(context.with(key, value));
+        } else {
+            MDC.put(key, value);
+        }
     }
 
     /**
      * Remove context from MDC
      */
     public void removeContext(String key) {
-        MDC.remove(key);
+        LogContext context = LogContext.current();
+        if (context != null) {
+            LogContext.attach(context.without(key));
+        } else {
+            MDC.remove(key);
+        }
     }
 }
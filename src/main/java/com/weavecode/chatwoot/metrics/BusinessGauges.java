@@ -0,0 +1,226 @@
+package com.weavecode.chatwoot.metrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Business gauges kept current in memory from domain events instead of
+ * being polled from the database.
+ *
+ * Active conversations move with the opened and resolved transitions seen
+ * by {@link ConversationGaugeListener}, WebSocket connections with STOMP
+ * session connect and disconnect events, and database connections are
+ * read from the pool itself. Each is tracked per tenant and exported both
+ * as chatwoot.tenant.* gauges and as the untagged totals.
+ *
+ * Event counting drifts when writes bypass JPA or another node changes a
+ * conversation, so the database-backed counts are reconciled with one
+ * GROUP BY query each at startup and then on a slow schedule.
+ */
+@Component
+public class BusinessGauges {
+
+    private static final Logger logger = LoggerFactory.getLogger(BusinessGauges.class);
+
+    static final String TENANT_ATTRIBUTE = "tenantId";
+    static final String UNKNOWN_TENANT = "unknown";
+
+    private static final String ACTIVE_CONVERSATIONS_SQL =
+        "SELECT tenant_id, COUNT(*) FROM conversations WHERE status IN ('OPEN', 'WAITING', 'PENDING') " +
+        "GROUP BY tenant_id";
+
+    private static final String ACTIVE_USERS_SQL =
+        "SELECT tenant_id, COUNT(*) FROM users WHERE status = 'ACTIVE' GROUP BY tenant_id";
+
+    // Window in which a user with a recorded request counts as online
+    private static final Duration ONLINE_WINDOW = Duration.ofMinutes(5);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserActivityTracker userActivityTracker;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final Map<String, AtomicLong> activeConversations = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> activeUsers = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> webSocketConnections = new ConcurrentHashMap<>();
+
+    // STOMP session -> tenant, so a disconnect decrements the tenant it connected under
+    private final Map<String, String> webSocketSessions = new ConcurrentHashMap<>();
+
+    private volatile HikariPoolMXBean pool;
+    private volatile boolean poolResolved;
+
+    /**
+     * Apply an opened (+1) or resolved (-1) conversation transition.
+     */
+    public void adjustActiveConversations(String tenantId, long delta) {
+        counter(activeConversations, "chatwoot.tenant.conversations.active", tenantId).addAndGet(delta);
+    }
+
+    @EventListener
+    public void onWebSocketConnect(SessionConnectEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        if (sessionId == null) {
+            return;
+        }
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        Object tenantId = attributes != null ? attributes.get(TENANT_ATTRIBUTE) : null;
+        String tenant = tenantId != null ? tenantId.toString() : UNKNOWN_TENANT;
+        if (webSocketSessions.putIfAbsent(sessionId, tenant) == null) {
+            counter(webSocketConnections, "chatwoot.tenant.websocket.connections.active", tenant).incrementAndGet();
+        }
+    }
+
+    @EventListener
+    public void onWebSocketDisconnect(SessionDisconnectEvent event) {
+        // Disconnect can be published more than once per session; only the first one counts
+        String tenant = webSocketSessions.remove(event.getSessionId());
+        if (tenant != null) {
+            counter(webSocketConnections, "chatwoot.tenant.websocket.connections.active", tenant).decrementAndGet();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcile();
+    }
+
+    /**
+     * Correct the database-backed gauges against the database.
+     *
+     * The correction is applied as a delta from the value read before the
+     * query, so transitions counted while the query runs are kept.
+     */
+    @Scheduled(initialDelayString = "${app.metrics.gauges.reconcile-interval-ms:900000}",
+               fixedDelayString = "${app.metrics.gauges.reconcile-interval-ms:900000}")
+    public void reconcile() {
+        try {
+            reconcile(activeConversations, "chatwoot.tenant.conversations.active", ACTIVE_CONVERSATIONS_SQL);
+            reconcile(activeUsers, "chatwoot.tenant.users.active", ACTIVE_USERS_SQL);
+        } catch (Exception e) {
+            logger.error("Failed to reconcile business gauges: {}", e.getMessage());
+        }
+    }
+
+    private void reconcile(Map<String, AtomicLong> gauges, String gaugeName, String sql) {
+        Map<String, Long> before = new HashMap<>();
+        gauges.forEach((tenant, value) -> before.put(tenant, value.get()));
+
+        Map<String, Long> actual = new HashMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> actual.put(rs.getString(1), rs.getLong(2)));
+
+        long drift = 0;
+        for (Map.Entry<String, Long> entry : actual.entrySet()) {
+            long delta = entry.getValue() - before.getOrDefault(entry.getKey(), 0L);
+            if (delta != 0) {
+                counter(gauges, gaugeName, entry.getKey()).addAndGet(delta);
+                drift += Math.abs(delta);
+            }
+        }
+        // Tenants with no matching rows left
+        for (Map.Entry<String, Long> entry : before.entrySet()) {
+            if (!actual.containsKey(entry.getKey()) && entry.getValue() != 0) {
+                gauges.get(entry.getKey()).addAndGet(-entry.getValue());
+                drift += Math.abs(entry.getValue());
+            }
+        }
+        if (drift > 0) {
+            logger.debug("Reconciled {} with a drift of {}", gaugeName, drift);
+        }
+    }
+
+    public long totalActiveConversations() {
+        return sum(activeConversations);
+    }
+
+    public long totalActiveUsers() {
+        return sum(activeUsers);
+    }
+
+    public long totalOnlineUsers() {
+        return userActivityTracker.countOnlineUsers(ONLINE_WINDOW);
+    }
+
+    public int totalWebSocketConnections() {
+        return webSocketSessions.size();
+    }
+
+    /**
+     * Connections currently lent out by the pool, or -1 when the data source
+     * is not a Hikari pool.
+     */
+    public long activeDatabaseConnections() {
+        HikariPoolMXBean mxBean = hikariPool();
+        return mxBean != null ? mxBean.getActiveConnections() : -1;
+    }
+
+    private HikariPoolMXBean hikariPool() {
+        if (!poolResolved) {
+            try {
+                if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                    // Null until the pool has started; retried on the next read
+                    pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+                    poolResolved = pool != null;
+                } else {
+                    poolResolved = true;
+                }
+            } catch (SQLException e) {
+                poolResolved = true;
+            }
+        }
+        return pool;
+    }
+
+    private AtomicLong counter(Map<String, AtomicLong> gauges, String gaugeName, String tenantId) {
+        String tenant = tenantId != null ? tenantId : UNKNOWN_TENANT;
+        AtomicLong value = gauges.get(tenant);
+        if (value != null) {
+            return value;
+        }
+        return gauges.computeIfAbsent(tenant, key -> {
+            AtomicLong created = new AtomicLong();
+            Gauge.builder(gaugeName, created, AtomicLong::get)
+                    .tag("tenant", key)
+                    .register(meterRegistry);
+            return created;
+        });
+    }
+
+    private static long sum(Map<String, AtomicLong> gauges) {
+        long total = 0;
+        for (AtomicLong value : gauges.values()) {
+            total += value.get();
+        }
+        return total;
+    }
+}
@@ -1,12 +1,14 @@
 package com.weavecode.chatwoot.metrics;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.Gauge;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -19,6 +21,7 @@ public class ChatwootMetricsCollector {
     private static final Logger logger = LoggerFactory.getLogger(ChatwootMetricsCollector.class);
 
     private final MeterRegistry meterRegistry;
+    private final BusinessGauges businessGauges;
 
     // Counters
     private final Counter totalConversationsCounter;
@@ -40,6 +43,14 @@ public class ChatwootMetricsCollector {
     private final Timer cacheOperationTimer;
     private final Timer notificationDeliveryTimer;
 
+    // Distribution summaries
+    private final DistributionSummary identityLookupsSummary;
+
+    // Tagged counters, resolved once per tag tuple
+    private final MeterCache<Counter> apiRequestCounters;
+    private final MeterCache<Counter> cacheOperationCounters;
+    private final MeterCache<Counter> notificationDeliveryCounters;
+
     // Gauges
     private final AtomicLong activeConversationsGauge;
     private final AtomicLong activeUsersGauge;
@@ -49,8 +60,10 @@ public class ChatwootMetricsCollector {
     private final AtomicLong databaseConnectionsGauge;
 
     @Autowired
-    public ChatwootMetricsCollector(MeterRegistry meterRegistry) {
+    public ChatwootMetricsCollector(MeterRegistry meterRegistry, BusinessGauges businessGauges,
+                                    @Value("${app.metrics.max-tag-combinations:1000}") int maxTagCombinations) {
         this.meterRegistry = meterRegistry;
+        this.businessGauges = businessGauges;
 
         // Initialize counters
         this.totalConversationsCounter = Counter.builder("chatwoot.conversations.total")
@@ -118,6 +131,36 @@ public class ChatwootMetricsCollector {
                 .description("Notification delivery time")
                 .register(meterRegistry);
 
+        // Initialize distribution summaries
+        this.identityLookupsSummary = DistributionSummary.builder("chatwoot.security.identity.lookups")
+                .description("User lookups performed per authenticated request")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+
+        // Initialize tagged counters
+        this.apiRequestCounters = new MeterCache<>(meterRegistry, "chatwoot.api.requests.by.endpoint",
+                maxTagCombinations, key -> Counter.builder("chatwoot.api.requests.by.endpoint")
+                        .description("API requests by route template, method and status class")
+                        .tag("endpoint", key.first)
+                        .tag("method", key.second)
+                        .tag("status", key.third)
+                        .register(meterRegistry));
+
+        this.cacheOperationCounters = new MeterCache<>(meterRegistry, "chatwoot.cache.operations.by.type",
+                maxTagCombinations, key -> Counter.builder("chatwoot.cache.operations.by.type")
+                        .description("Cache operations by type and result")
+                        .tag("operation", key.first)
+                        .tag("result", key.second)
+                        .register(meterRegistry));
+
+        this.notificationDeliveryCounters = new MeterCache<>(meterRegistry, "chatwoot.notifications.delivery.by.type",
+                maxTagCombinations, key -> Counter.builder("chatwoot.notifications.delivery.by.type")
+                        .description("Notification deliveries by type, channel and outcome")
+                        .tag("type", key.first)
+                        .tag("channel", key.second)
+                        .tag("status", key.third)
+                        .register(meterRegistry));
+
         // Initialize gauges
         this.activeConversationsGauge = new AtomicLong(0);
         this.activeUsersGauge = new AtomicLong(0);
@@ -236,6 +279,11 @@ public class ChatwootMetricsCollector {
         sample.stop(notificationDeliveryTimer);
     }
 
+    // Distribution summary methods
+    public void recordIdentityLookups(int count) {
+        identityLookupsSummary.record(count);
+    }
+
     // Gauge methods
     public void setActiveConversations(long count) {
         activeConversationsGauge.set(count);
@@ -284,21 +332,27 @@ public class ChatwootMetricsCollector {
         
         // These would be updated with actual values from the system
         setTotalCacheSize(usedMemory / 1024); // Convert to KB for demo
-        setDatabaseConnections(5 + (long) (Math.random() * 10)); // Simulated value
+
+        long databaseConnections = businessGauges.activeDatabaseConnections();
+        if (databaseConnections >= 0) {
+            setDatabaseConnections(databaseConnections);
+        }
     }
 
     private void updateBusinessMetrics() {
-        // Update business-related gauges
-        // These would be updated with actual values from repositories/services
-        
-        // Simulated values for demo
-        setActiveConversations(10 + (long) (Math.random() * 50));
-        setActiveUsers(20 + (long) (Math.random() * 100));
-        setOnlineUsers(5 + (long) (Math.random() * 20));
-        setActiveWebSocketConnections(3 + (int) (Math.random() * 10));
+        // Totals of the event-driven per-tenant gauges; no database access here
+        setActiveConversations(businessGauges.totalActiveConversations());
+        setActiveUsers(businessGauges.totalActiveUsers());
+        setOnlineUsers(businessGauges.totalOnlineUsers());
+        setActiveWebSocketConnections(businessGauges.totalWebSocketConnections());
     }
 
     // Utility methods for external metric updates
+
+    /**
+     * Count an API request. Pass the matched route template, e.g.
+     * /api/users/{id}, never the raw URI; see {@link com.weavecode.chatwoot.security.EdgeRequestContext#routeTemplate}.
+     */
     public void recordApiRequest(String endpoint, String method, int statusCode) {
         incrementApiRequests();
         
@@ -307,12 +361,7 @@ public class ChatwootMetricsCollector {
         }
         
         // Record endpoint-specific metrics
-        Counter.builder("chatwoot.api.requests.by.endpoint")
-                .tag("endpoint", endpoint)
-                .tag("method", method)
-                .tag("status", String.valueOf(statusCode))
-                .register(meterRegistry)
-                .increment();
+        apiRequestCounters.get(endpoint, method, statusClass(statusCode)).increment();
     }
 
     public void recordCacheOperation(String operation, String key, boolean hit) {
@@ -323,11 +372,7 @@ public class ChatwootMetricsCollector {
         }
         
         // Record operation-specific metrics
-        Counter.builder("chatwoot.cache.operations.by.type")
-                .tag("operation", operation)
-                .tag("result", hit ? "hit" : "miss")
-                .register(meterRegistry)
-                .increment();
+        cacheOperationCounters.get(operation, hit ? "hit" : "miss", "").increment();
     }
 
     public void recordNotificationDelivery(String type, String channel, boolean success) {
@@ -336,11 +381,23 @@ public class ChatwootMetricsCollector {
         }
         
         // Record delivery-specific metrics
-        Counter.builder("chatwoot.notifications.delivery.by.type")
-                .tag("type", type)
-                .tag("channel", channel)
-                .tag("status", success ? "success" : "failed")
-                .register(meterRegistry)
-                .increment();
+        notificationDeliveryCounters.get(type, channel, success ? "success" : "failed").increment();
+    }
+
+    private static String statusClass(int statusCode) {
+        switch (statusCode / 100) {
+            case 1:
+                return "1xx";
+            case 2:
+                return "2xx";
+            case 3:
+                return "3xx";
+            case 4:
+                return "4xx";
+            case 5:
+                return "5xx";
+            default:
+                return "unknown";
+        }
     }
 }
@@ -0,0 +1,61 @@
+package com.weavecode.chatwoot.metrics;
+
+import com.weavecode.chatwoot.entity.Conversation;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Feeds conversation opened and resolved transitions into {@link BusinessGauges}.
+ *
+ * Runs as a JPA entity listener, so every write path is covered, and
+ * defers the gauge change until the transaction commits so rolled back
+ * writes never move it. Hibernate obtains the listener from the Spring
+ * bean container, which is what makes the injection work.
+ */
+public class ConversationGaugeListener {
+
+    @Autowired
+    private BusinessGauges businessGauges;
+
+    @PostPersist
+    public void onPersist(Conversation conversation) {
+        if (conversation.isActive()) {
+            afterCommit(conversation.getTenantId(), 1);
+        }
+    }
+
+    @PostUpdate
+    public void onUpdate(Conversation conversation) {
+        Conversation.ConversationStatus previous = conversation.getPersistedStatus();
+        boolean wasActive = previous != null && previous.isActive();
+        boolean isActive = conversation.isActive();
+        if (wasActive != isActive) {
+            afterCommit(conversation.getTenantId(), isActive ? 1 : -1);
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Conversation conversation) {
+        Conversation.ConversationStatus previous = conversation.getPersistedStatus();
+        if (previous != null && previous.isActive()) {
+            afterCommit(conversation.getTenantId(), -1);
+        }
+    }
+
+    private void afterCommit(String tenantId, int delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            businessGauges.adjustActiveConversations(tenantId, delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                businessGauges.adjustActiveConversations(tenantId, delta);
+            }
+        });
+    }
+}
@@ -0,0 +1,315 @@
+package com.weavecode.chatwoot.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Named thread pools for application work, and their meters.
+ *
+ * Every pool created here publishes queue depth, remaining queue
+ * capacity, active and pool thread counts and completed and rejected
+ * tasks under chatwoot.executor.*, tagged with its name, and times how
+ * long each task waits (or, when scheduled, how late it starts) and how
+ * long it runs. {@link #snapshot()} feeds the thread pool report and
+ * {@link #adjust()} moves a resizable pool's core size between its
+ * configured core and maximum as its backlog rises and falls.
+ */
+@Component
+public class ExecutorRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorRegistry.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Entry> executors = new ConcurrentSkipListMap<>();
+
+    /**
+     * Create and register a pool with a bounded queue. Threads beyond the
+     * core size are only started once the queue is full, and tasks arriving
+     * after that go to the rejection handler.
+     *
+     * @param decorator applied to each task at submit time, may be null
+     */
+    public ThreadPoolExecutor newThreadPool(String name, int coreSize, int maxSize, Duration keepAlive,
+                                            int queueCapacity, RejectedExecutionHandler rejectionHandler,
+                                            TaskDecorator decorator) {
+        Meters meters = meters(name);
+        ThreadPoolExecutor executor = new TimedThreadPoolExecutor(coreSize, maxSize, keepAlive,
+            queueCapacity, threadFactory(name), counting(rejectionHandler, meters.rejected), decorator, meters);
+        register(new Entry(name, executor, meters, coreSize, maxSize > coreSize));
+        return executor;
+    }
+
+    /**
+     * Create and register a fixed-size pool for scheduled tasks. Its delay
+     * queue is unbounded, so rejection only happens after shutdown.
+     */
+    public ScheduledThreadPoolExecutor newScheduledPool(String name, int threads) {
+        Meters meters = meters(name);
+        ScheduledThreadPoolExecutor executor = new TimedScheduledExecutor(threads, threadFactory(name),
+            counting(new ThreadPoolExecutor.AbortPolicy(), meters.rejected), meters);
+        executor.setRemoveOnCancelPolicy(true);
+        register(new Entry(name, executor, meters, threads, false));
+        return executor;
+    }
+
+    /**
+     * Current state of every registered pool, by name.
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new LinkedHashMap<>();
+        executors.forEach((name, entry) -> snapshot.put(name, entry.describe()));
+        return snapshot;
+    }
+
+    /**
+     * Step the core size of each resizable pool towards its backlog.
+     * Returns the core size of every pool that changed, by name.
+     */
+    public Map<String, Integer> adjust() {
+        Map<String, Integer> changed = new LinkedHashMap<>();
+        executors.forEach((name, entry) -> {
+            if (!entry.resizable) {
+                return;
+            }
+            ThreadPoolExecutor executor = entry.executor;
+            int core = executor.getCorePoolSize();
+            int next = nextCoreSize(core, entry.baselineCoreSize, executor.getMaximumPoolSize(),
+                executor.getActiveCount(), executor.getQueue().size());
+            if (next != core) {
+                logger.info("Resizing executor {} core from {} to {} ({} active, {} queued)",
+                    name, core, next, executor.getActiveCount(), executor.getQueue().size());
+                executor.setCorePoolSize(next);
+                changed.put(name, next);
+            }
+        });
+        return changed;
+    }
+
+    /**
+     * Grow by one thread while every core thread is busy and tasks are
+     * queued; shrink by one back towards the baseline once the queue is
+     * empty and fewer than half the core threads are busy.
+     */
+    static int nextCoreSize(int core, int baseline, int max, int active, int queued) {
+        if (queued > 0 && active >= core && core < max) {
+            return core + 1;
+        }
+        if (queued == 0 && active < core / 2 && core > baseline) {
+            return core - 1;
+        }
+        return core;
+    }
+
+    private void register(Entry entry) {
+        ThreadPoolExecutor executor = entry.executor;
+        String name = entry.name;
+        Gauge.builder("chatwoot.executor.queue.depth", executor, e -> e.getQueue().size())
+                .description("Tasks waiting for a thread")
+                .tag("executor", name)
+                .register(meterRegistry);
+        Gauge.builder("chatwoot.executor.queue.remaining", executor, e -> e.getQueue().remainingCapacity())
+                .description("Free slots in the executor queue")
+                .tag("executor", name)
+                .register(meterRegistry);
+        Gauge.builder("chatwoot.executor.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Threads running a task")
+                .tag("executor", name)
+                .register(meterRegistry);
+        Gauge.builder("chatwoot.executor.pool.size", executor, ThreadPoolExecutor::getPoolSize)
+                .description("Threads in the pool")
+                .tag("executor", name)
+                .register(meterRegistry);
+        Gauge.builder("chatwoot.executor.pool.core", executor, ThreadPoolExecutor::getCorePoolSize)
+                .description("Core size of the pool")
+                .tag("executor", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("chatwoot.executor.completed", executor, ThreadPoolExecutor::getCompletedTaskCount)
+                .description("Tasks the executor has finished")
+                .tag("executor", name)
+                .register(meterRegistry);
+        executors.put(name, entry);
+    }
+
+    private Meters meters(String name) {
+        return new Meters(
+            Timer.builder("chatwoot.executor.queue.wait")
+                    .description("Time tasks wait before starting, or start late when scheduled")
+                    .tag("executor", name)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry),
+            Timer.builder("chatwoot.executor.task.duration")
+                    .description("Time tasks spend running")
+                    .tag("executor", name)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry),
+            Counter.builder("chatwoot.executor.rejected")
+                    .description("Tasks refused by a saturated executor")
+                    .tag("executor", name)
+                    .register(meterRegistry));
+    }
+
+    private static RejectedExecutionHandler counting(RejectedExecutionHandler handler, Counter rejected) {
+        return (task, executor) -> {
+            rejected.increment();
+            handler.rejectedExecution(task, executor);
+        };
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+    }
+
+    private static double percentileMillis(HistogramSnapshot snapshot, double percentile) {
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return 0;
+    }
+
+    private static final class Meters {
+        final Timer queueWait;
+        final Timer duration;
+        final Counter rejected;
+
+        Meters(Timer queueWait, Timer duration, Counter rejected) {
+            this.queueWait = queueWait;
+            this.duration = duration;
+            this.rejected = rejected;
+        }
+    }
+
+    private static final class Entry {
+        final String name;
+        final ThreadPoolExecutor executor;
+        final Meters meters;
+        final int baselineCoreSize;
+        final boolean resizable;
+
+        Entry(String name, ThreadPoolExecutor executor, Meters meters, int baselineCoreSize, boolean resizable) {
+            this.name = name;
+            this.executor = executor;
+            this.meters = meters;
+            this.baselineCoreSize = baselineCoreSize;
+            this.resizable = resizable;
+        }
+
+        Map<String, Object> describe() {
+            boolean scheduled = executor instanceof ScheduledThreadPoolExecutor;
+            Map<String, Object> state = new LinkedHashMap<>();
+            state.put("corePoolSize", executor.getCorePoolSize());
+            // A scheduled pool never grows past its core size
+            state.put("maxPoolSize", scheduled ? executor.getCorePoolSize() : executor.getMaximumPoolSize());
+            state.put("poolSize", executor.getPoolSize());
+            state.put("largestPoolSize", executor.getLargestPoolSize());
+            state.put("activeCount", executor.getActiveCount());
+            state.put("queueDepth", executor.getQueue().size());
+            state.put("queueCapacity", scheduled ? -1 : executor.getQueue().size() + executor.getQueue().remainingCapacity());
+            state.put("completedTasks", executor.getCompletedTaskCount());
+            state.put("rejectedTasks", (long) meters.rejected.count());
+
+            HistogramSnapshot wait = meters.queueWait.takeSnapshot();
+            HistogramSnapshot duration = meters.duration.takeSnapshot();
+            state.put("queueWaitP99Ms", percentileMillis(wait, 0.99));
+            state.put("taskTimeMeanMs", duration.mean(TimeUnit.MILLISECONDS));
+            state.put("taskTimeP99Ms", percentileMillis(duration, 0.99));
+            state.put("taskTimeMaxMs", duration.max(TimeUnit.MILLISECONDS));
+            return state;
+        }
+    }
+
+    /**
+     * Times every task from submission, covering execute and submit alike.
+     */
+    private static final class TimedThreadPoolExecutor extends ThreadPoolExecutor {
+
+        private final TaskDecorator decorator;
+        private final Meters meters;
+
+        TimedThreadPoolExecutor(int coreSize, int maxSize, Duration keepAlive, int queueCapacity,
+                                ThreadFactory threadFactory, RejectedExecutionHandler rejectionHandler,
+                                TaskDecorator decorator, Meters meters) {
+            super(coreSize, maxSize, keepAlive.toMillis(), TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, rejectionHandler);
+            this.decorator = decorator;
+            this.meters = meters;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            long enqueuedAt = System.nanoTime();
+            Runnable task = decorator != null ? decorator.decorate(command) : command;
+            super.execute(() -> {
+                long start = System.nanoTime();
+                meters.queueWait.record(start - enqueuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } finally {
+                    meters.duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            });
+        }
+    }
+
+    /**
+     * Times scheduled runs around each execution, since periodic tasks are
+     * requeued internally without passing through execute.
+     */
+    private static final class TimedScheduledExecutor extends ScheduledThreadPoolExecutor {
+
+        private final Meters meters;
+        private final ThreadLocal<Long> startedAt = new ThreadLocal<>();
+
+        TimedScheduledExecutor(int threads, ThreadFactory threadFactory, RejectedExecutionHandler rejectionHandler,
+                               Meters meters) {
+            super(threads, threadFactory, rejectionHandler);
+            this.meters = meters;
+        }
+
+        @Override
+        protected void beforeExecute(Thread thread, Runnable task) {
+            if (task instanceof Delayed) {
+                // The trigger time has passed, so a negative delay is how late the run starts
+                long lateness = -((Delayed) task).getDelay(TimeUnit.NANOSECONDS);
+                meters.queueWait.record(Math.max(0, lateness), TimeUnit.NANOSECONDS);
+            }
+            startedAt.set(System.nanoTime());
+        }
+
+        @Override
+        protected void afterExecute(Runnable task, Throwable failure) {
+            Long start = startedAt.get();
+            if (start != null) {
+                meters.duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                startedAt.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.weavecode.chatwoot.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Request latency histograms for the node, per route template and per
+ * tenant.
+ *
+ * Requests are recorded into {@link LatencyRecorder}s without locking.
+ * Every reporting interval the recorders are rolled: each publishes the
+ * p50/p95/p99/max, throughput and error rate of the interval just closed,
+ * which is what the performance API and the chatwoot.http.* gauges read.
+ * Routes and tenants beyond their ceilings share an "other" recorder, so
+ * memory stays bounded whatever the traffic.
+ */
+@Component
+public class LatencyHistograms {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.metrics.latency.max-routes:200}")
+    private int maxRoutes;
+
+    @Value("${app.metrics.latency.max-tenants:500}")
+    private int maxTenants;
+
+    @Value("${app.metrics.latency.highest-trackable-ms:60000}")
+    private long highestTrackableMs;
+
+    private LatencyRecorder overall;
+    private final Map<String, LatencyRecorder> routes = new ConcurrentHashMap<>();
+    private final Map<String, LatencyRecorder> tenants = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        overall = newRecorder("chatwoot.http", Tags.empty());
+    }
+
+    /**
+     * Record a finished request. Statuses of 500 and above count as errors.
+     */
+    public void record(String routeTemplate, UUID tenantId, long nanos, int statusCode) {
+        boolean error = statusCode >= 500;
+        overall.record(nanos, error);
+        recorder(routes, maxRoutes, "chatwoot.http.route", "route", routeTemplate).record(nanos, error);
+        if (tenantId != null) {
+            recorder(tenants, maxTenants, "chatwoot.http.tenant", "tenant", tenantId.toString()).record(nanos, error);
+        }
+    }
+
+    /**
+     * Close the current interval on every recorder.
+     */
+    @Scheduled(fixedRateString = "${app.metrics.latency.interval-ms:60000}")
+    public void roll() {
+        long now = System.currentTimeMillis();
+        overall.roll(now);
+        for (LatencyRecorder recorder : routes.values()) {
+            recorder.roll(now);
+        }
+        for (LatencyRecorder recorder : tenants.values()) {
+            recorder.roll(now);
+        }
+    }
+
+    public LatencySnapshot overall() {
+        return overall.lastInterval();
+    }
+
+    /**
+     * Last interval of the tenant, or {@link LatencySnapshot#EMPTY} if it
+     * has no recorder of its own.
+     */
+    public LatencySnapshot forTenant(UUID tenantId) {
+        LatencyRecorder recorder = tenantId != null ? tenants.get(tenantId.toString()) : null;
+        return recorder != null ? recorder.lastInterval() : LatencySnapshot.EMPTY;
+    }
+
+    public LatencySnapshot forRoute(String routeTemplate) {
+        LatencyRecorder recorder = routes.get(routeTemplate);
+        return recorder != null ? recorder.lastInterval() : LatencySnapshot.EMPTY;
+    }
+
+    /**
+     * Last interval of every route, sorted by route.
+     */
+    public Map<String, LatencySnapshot> routeSnapshots() {
+        Map<String, LatencySnapshot> snapshots = new TreeMap<>();
+        routes.forEach((route, recorder) -> snapshots.put(route, recorder.lastInterval()));
+        return snapshots;
+    }
+
+    private LatencyRecorder recorder(Map<String, LatencyRecorder> recorders, int max, String prefix,
+                                     String tag, String key) {
+        String name = key != null ? key : "unknown";
+        LatencyRecorder recorder = recorders.get(name);
+        if (recorder != null) {
+            return recorder;
+        }
+        if (recorders.size() >= max) {
+            name = MeterCache.OTHER;
+        }
+        return recorders.computeIfAbsent(name, k -> newRecorder(prefix, Tags.of(tag, k)));
+    }
+
+    private LatencyRecorder newRecorder(String prefix, Tags tags) {
+        LatencyRecorder recorder = new LatencyRecorder(highestTrackableMs * 1000L, System.currentTimeMillis());
+        latencyGauge(prefix, tags, "0.5", recorder, r -> r.lastInterval().getP50());
+        latencyGauge(prefix, tags, "0.95", recorder, r -> r.lastInterval().getP95());
+        latencyGauge(prefix, tags, "0.99", recorder, r -> r.lastInterval().getP99());
+        latencyGauge(prefix, tags, "1.0", recorder, r -> r.lastInterval().getMax());
+        Gauge.builder(prefix + ".throughput", recorder, r -> r.lastInterval().getThroughput())
+                .description("Requests per second over the last reporting interval")
+                .baseUnit("requests")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder(prefix + ".error.rate", recorder, r -> r.lastInterval().getErrorRate())
+                .description("Percentage of server errors over the last reporting interval")
+                .baseUnit("percent")
+                .tags(tags)
+                .register(meterRegistry);
+        return recorder;
+    }
+
+    private void latencyGauge(String prefix, Tags tags, String quantile, LatencyRecorder recorder,
+                              ToDoubleFunction<LatencyRecorder> value) {
+        Gauge.builder(prefix + ".latency", recorder, value)
+                .description("Request latency quantile over the last reporting interval")
+                .baseUnit("milliseconds")
+                .tags(tags)
+                .tag("quantile", quantile)
+                .register(meterRegistry);
+    }
+}
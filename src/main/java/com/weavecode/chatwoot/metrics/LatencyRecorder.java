@@ -0,0 +1,61 @@
+package com.weavecode.chatwoot.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency recorder for one route, tenant or the whole node.
+ *
+ * Recording goes to an HdrHistogram {@link Recorder}, which is wait-free
+ * for writers and swaps its active histogram out when the interval is
+ * read. The range is fixed, so each recorder holds a constant amount of
+ * memory (a few tens of KB for its three histograms) however much traffic
+ * it sees; slower requests are clamped to the top of the range.
+ */
+final class LatencyRecorder {
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final long highestTrackableMicros;
+    private final Recorder recorder;
+    private final LongAdder errors = new LongAdder();
+
+    // Only touched by the rolling thread
+    private Histogram recycled;
+    private long intervalStart;
+
+    private volatile LatencySnapshot lastInterval = LatencySnapshot.EMPTY;
+
+    LatencyRecorder(long highestTrackableMicros, long now) {
+        this.highestTrackableMicros = highestTrackableMicros;
+        this.recorder = new Recorder(1, highestTrackableMicros, SIGNIFICANT_DIGITS);
+        this.intervalStart = now;
+    }
+
+    void record(long nanos, boolean error) {
+        long micros = nanos / 1000L;
+        recorder.recordValue(Math.max(1L, Math.min(micros, highestTrackableMicros)));
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Close the current interval and publish its snapshot.
+     */
+    LatencySnapshot roll(long now) {
+        // An error can land in the next interval's count; harmless at these rates
+        long errorCount = errors.sumThenReset();
+        recycled = recorder.getIntervalHistogram(recycled);
+        LatencySnapshot snapshot = LatencySnapshot.of(recycled, errorCount, now - intervalStart);
+        intervalStart = now;
+        lastInterval = snapshot;
+        return snapshot;
+    }
+
+    LatencySnapshot lastInterval() {
+        return lastInterval;
+    }
+}
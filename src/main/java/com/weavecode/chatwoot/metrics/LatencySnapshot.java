@@ -0,0 +1,107 @@
+package com.weavecode.chatwoot.metrics;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency distribution, throughput and error rate of one reporting
+ * interval. Immutable; latencies are in milliseconds.
+ */
+public final class LatencySnapshot {
+
+    public static final LatencySnapshot EMPTY = new LatencySnapshot(0, 0, 0, 0, 0, 0, 0, 0);
+
+    private final long count;
+    private final long errorCount;
+    private final long intervalMillis;
+    private final double mean;
+    private final double p50;
+    private final double p95;
+    private final double p99;
+    private final double max;
+
+    private LatencySnapshot(long count, long errorCount, long intervalMillis, double mean,
+                            double p50, double p95, double p99, double max) {
+        this.count = count;
+        this.errorCount = errorCount;
+        this.intervalMillis = intervalMillis;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    /**
+     * Summarize an interval histogram recorded in microseconds.
+     */
+    static LatencySnapshot of(Histogram micros, long errorCount, long intervalMillis) {
+        long count = micros.getTotalCount();
+        if (count == 0) {
+            return new LatencySnapshot(0, errorCount, intervalMillis, 0, 0, 0, 0, 0);
+        }
+        return new LatencySnapshot(count, errorCount, intervalMillis,
+            micros.getMean() / 1000.0,
+            micros.getValueAtPercentile(50.0) / 1000.0,
+            micros.getValueAtPercentile(95.0) / 1000.0,
+            micros.getValueAtPercentile(99.0) / 1000.0,
+            micros.getMaxValue() / 1000.0);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP95() {
+        return p95;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Requests per second over the interval.
+     */
+    public double getThroughput() {
+        return intervalMillis > 0 ? count * 1000.0 / intervalMillis : 0;
+    }
+
+    /**
+     * Percentage of requests that failed with a server error.
+     */
+    public double getErrorRate() {
+        return count > 0 ? errorCount * 100.0 / count : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencySnapshot{" +
+                "count=" + count +
+                ", errorCount=" + errorCount +
+                ", p50=" + p50 +
+                ", p95=" + p95 +
+                ", p99=" + p99 +
+                ", max=" + max +
+                '}';
+    }
+}
@@ -0,0 +1,85 @@
+package com.weavecode.chatwoot.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Meters of one name resolved once per tag tuple and cached, with a hard
+ * ceiling on the number of tuples.
+ *
+ * The first tag is the open-ended one (route, operation, type). Once the
+ * ceiling is reached, new tuples are folded into an {@link #OTHER} value
+ * for that tag, keeping the bounded tags intact, and every fold is counted
+ * in chatwoot.metrics.cardinality.overflow so a too-low ceiling is visible.
+ */
+final class MeterCache<M> {
+
+    static final String OTHER = "other";
+
+    private final int maxSize;
+    private final Function<Key, M> factory;
+    private final Map<Key, M> meters = new ConcurrentHashMap<>();
+    private final Counter overflowCounter;
+
+    MeterCache(MeterRegistry meterRegistry, String meterName, int maxSize, Function<Key, M> factory) {
+        this.maxSize = maxSize;
+        this.factory = factory;
+        this.overflowCounter = Counter.builder("chatwoot.metrics.cardinality.overflow")
+                .description("Recordings folded into the 'other' bucket by a cardinality ceiling")
+                .tag("meter", meterName)
+                .register(meterRegistry);
+    }
+
+    M get(String first, String second, String third) {
+        Key key = new Key(first, second, third);
+        M meter = meters.get(key);
+        if (meter != null) {
+            return meter;
+        }
+        if (meters.size() >= maxSize) {
+            overflowCounter.increment();
+            // Folded tuples are bounded by the other tags, so they may exceed the ceiling
+            return meters.computeIfAbsent(new Key(OTHER, second, third), factory);
+        }
+        return meters.computeIfAbsent(key, factory);
+    }
+
+    int size() {
+        return meters.size();
+    }
+
+    static final class Key {
+        final String first;
+        final String second;
+        final String third;
+        private final int hash;
+
+        private Key(String first, String second, String third) {
+            this.first = first != null ? first : "unknown";
+            this.second = second != null ? second : "unknown";
+            this.third = third != null ? third : "unknown";
+            this.hash = 31 * (31 * this.first.hashCode() + this.second.hashCode()) + this.third.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return first.equals(other.first) && second.equals(other.second) && third.equals(other.third);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
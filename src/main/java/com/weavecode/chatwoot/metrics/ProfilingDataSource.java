@@ -0,0 +1,127 @@
+package com.weavecode.chatwoot.metrics;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * JDK proxies around a DataSource, its connections and their statements
+ * that time every execute* call into the {@link SqlProfiler}.
+ *
+ * Only the execute call is timed, which covers the round trip and, for
+ * queries, the first fetch; reading further rows is not included.
+ * unwrap and isWrapperFor reach the real pool, so code looking for the
+ * HikariDataSource still finds it.
+ */
+public final class ProfilingDataSource {
+
+    private ProfilingDataSource() {
+    }
+
+    public static DataSource wrap(DataSource dataSource, SqlProfiler profiler) {
+        if (Proxy.isProxyClass(dataSource.getClass())
+                && Proxy.getInvocationHandler(dataSource) instanceof DataSourceHandler) {
+            return dataSource;
+        }
+        return proxy(DataSource.class, new DataSourceHandler(dataSource, profiler));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(),
+            new Class<?>[] {type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class DataSourceHandler implements InvocationHandler {
+        private final DataSource target;
+        private final SqlProfiler profiler;
+
+        private DataSourceHandler(DataSource target, SqlProfiler profiler) {
+            this.target = target;
+            this.profiler = profiler;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = ProfilingDataSource.invoke(target, method, args);
+            if (result instanceof Connection && "getConnection".equals(method.getName())) {
+                return proxy(Connection.class, new ConnectionHandler((Connection) result, profiler));
+            }
+            return result;
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final SqlProfiler profiler;
+
+        private ConnectionHandler(Connection target, SqlProfiler profiler) {
+            this.target = target;
+            this.profiler = profiler;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = ProfilingDataSource.invoke(target, method, args);
+            switch (method.getName()) {
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler((Statement) result, null, profiler));
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class,
+                        new StatementHandler((Statement) result, (String) args[0], profiler));
+                case "prepareCall":
+                    return proxy(CallableStatement.class,
+                        new StatementHandler((Statement) result, (String) args[0], profiler));
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final SqlProfiler profiler;
+        // SQL given at prepare time, or the last one added to a plain statement's batch
+        private String sql;
+
+        private StatementHandler(Statement target, String sql, SqlProfiler profiler) {
+            this.target = target;
+            this.sql = sql;
+            this.profiler = profiler;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                if ("addBatch".equals(name) && args != null && args.length == 1 && args[0] instanceof String) {
+                    sql = (String) args[0];
+                }
+                return ProfilingDataSource.invoke(target, method, args);
+            }
+
+            String executed = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+            long start = System.nanoTime();
+            try {
+                return ProfilingDataSource.invoke(target, method, args);
+            } finally {
+                if (executed != null) {
+                    profiler.record(executed, System.nanoTime() - start);
+                }
+            }
+        }
+    }
+}
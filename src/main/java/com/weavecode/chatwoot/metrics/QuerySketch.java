@@ -0,0 +1,207 @@
+package com.weavecode.chatwoot.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-saving sketch of the SQL fingerprints with the most total execution
+ * time, in a fixed number of slots.
+ *
+ * A fingerprint already tracked adds to its slot. Once all slots are taken,
+ * a new fingerprint replaces the slot with the least total time and starts
+ * from that total, remembering it as its error, so any fingerprint whose
+ * true total exceeds the smallest tracked total is guaranteed a slot. Each
+ * slot keeps a quarter-octave latency histogram for p99, accurate to about
+ * 20%.
+ *
+ * Recording runs on every JDBC statement, so it does not touch the sketch
+ * directly. Executions are appended to a small buffer picked by the
+ * calling thread, one of a few stripes, and a buffer is merged into the
+ * sketch in one go when it fills up or when the sketch is read. Each
+ * thread's executions reach the sketch in the order they were recorded.
+ */
+final class QuerySketch {
+
+    private static final int BUCKETS = 128;
+    private static final int STRIPES =
+        Integer.highestOneBit(Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors())));
+
+    private final Slot[] slots;
+    private final Map<String, Slot> byFingerprint;
+    private final Stripe[] stripes;
+    private int used;
+
+    QuerySketch(int capacity) {
+        this.slots = new Slot[capacity];
+        this.byFingerprint = new HashMap<>(capacity * 2);
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            // Two executions per slot keeps the global merge rare without much memory per tenant
+            stripes[i] = new Stripe(Math.max(16, capacity * 2));
+        }
+    }
+
+    void record(String fingerprint, long nanos, long nowMillis) {
+        int hash = System.identityHashCode(Thread.currentThread());
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        synchronized (stripe) {
+            stripe.fingerprints[stripe.size] = fingerprint;
+            stripe.nanos[stripe.size] = nanos;
+            stripe.executedMillis[stripe.size] = nowMillis;
+            if (++stripe.size == stripe.fingerprints.length) {
+                flush(stripe);
+            }
+        }
+    }
+
+    List<QueryStats> snapshot() {
+        flushAll();
+        synchronized (this) {
+            List<QueryStats> stats = new ArrayList<>(used);
+            for (int i = 0; i < used; i++) {
+                stats.add(slots[i].toStats());
+            }
+            return stats;
+        }
+    }
+
+    int size() {
+        flushAll();
+        synchronized (this) {
+            return used;
+        }
+    }
+
+    private void flushAll() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                flush(stripe);
+            }
+        }
+    }
+
+    // Callers hold the stripe's lock
+    private void flush(Stripe stripe) {
+        if (stripe.size == 0) {
+            return;
+        }
+        synchronized (this) {
+            for (int i = 0; i < stripe.size; i++) {
+                merge(stripe.fingerprints[i], stripe.nanos[i], stripe.executedMillis[i]);
+            }
+        }
+        Arrays.fill(stripe.fingerprints, 0, stripe.size, null);
+        stripe.size = 0;
+    }
+
+    private void merge(String fingerprint, long nanos, long nowMillis) {
+        Slot slot = byFingerprint.get(fingerprint);
+        if (slot == null) {
+            if (used < slots.length) {
+                slot = new Slot();
+                slots[used++] = slot;
+                slot.reset(fingerprint, 0);
+            } else {
+                slot = smallest();
+                byFingerprint.remove(slot.fingerprint);
+                slot.reset(fingerprint, slot.totalNanos);
+            }
+            byFingerprint.put(fingerprint, slot);
+        }
+        slot.record(nanos, nowMillis);
+    }
+
+    private Slot smallest() {
+        Slot smallest = slots[0];
+        for (int i = 1; i < used; i++) {
+            if (slots[i].totalNanos < smallest.totalNanos) {
+                smallest = slots[i];
+            }
+        }
+        return smallest;
+    }
+
+    static int bucketOf(long nanos) {
+        long micros = Math.max(0, nanos / 1000L);
+        if (micros < 4) {
+            return (int) micros;
+        }
+        int log2 = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) ((micros >>> (log2 - 2)) & 3);
+        return Math.min(BUCKETS - 1, (log2 - 1) * 4 + sub);
+    }
+
+    // Upper bound, in microseconds, of the values a bucket holds
+    static long bucketUpperMicros(int bucket) {
+        if (bucket < 4) {
+            return bucket + 1;
+        }
+        int log2 = bucket / 4 + 1;
+        long width = 1L << (log2 - 2);
+        return (1L << log2) + (bucket % 4) * width + width;
+    }
+
+    private static final class Stripe {
+        private final String[] fingerprints;
+        private final long[] nanos;
+        private final long[] executedMillis;
+        private int size;
+
+        private Stripe(int length) {
+            this.fingerprints = new String[length];
+            this.nanos = new long[length];
+            this.executedMillis = new long[length];
+        }
+    }
+
+    private static final class Slot {
+        private String fingerprint;
+        private long count;
+        private long totalNanos;
+        private long errorNanos;
+        private long maxNanos;
+        private long lastExecutedMillis;
+        private final long[] buckets = new long[BUCKETS];
+
+        private void reset(String fingerprint, long inheritedNanos) {
+            this.fingerprint = fingerprint;
+            this.count = 0;
+            this.totalNanos = inheritedNanos;
+            this.errorNanos = inheritedNanos;
+            this.maxNanos = 0;
+            Arrays.fill(buckets, 0);
+        }
+
+        private void record(long nanos, long nowMillis) {
+            count++;
+            totalNanos += nanos;
+            if (nanos > maxNanos) {
+                maxNanos = nanos;
+            }
+            buckets[bucketOf(nanos)]++;
+            // Stripes are merged out of order across threads
+            lastExecutedMillis = Math.max(lastExecutedMillis, nowMillis);
+        }
+
+        private QueryStats toStats() {
+            return new QueryStats(fingerprint, count, totalNanos / 1e6, errorNanos / 1e6,
+                Math.min(p99Micros() / 1e3, maxNanos / 1e6), maxNanos / 1e6, lastExecutedMillis);
+        }
+
+        private long p99Micros() {
+            // Rank of the 99th percentile, rounded up
+            long rank = (count * 99 + 99) / 100;
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return bucketUpperMicros(i);
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.weavecode.chatwoot.metrics;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Execution statistics of one SQL fingerprint. Immutable; times are in
+ * milliseconds.
+ *
+ * Counts and times come from a space-saving sketch: a fingerprint that
+ * took over a slot inherits up to {@link #getTotalTimeError()} of total
+ * time from the one it evicted, so its total is an upper bound.
+ */
+public final class QueryStats {
+
+    private final String fingerprint;
+    private final long executionCount;
+    private final double totalTime;
+    private final double totalTimeError;
+    private final double p99Time;
+    private final double maxTime;
+    private final long lastExecutedMillis;
+
+    QueryStats(String fingerprint, long executionCount, double totalTime, double totalTimeError,
+               double p99Time, double maxTime, long lastExecutedMillis) {
+        this.fingerprint = fingerprint;
+        this.executionCount = executionCount;
+        this.totalTime = totalTime;
+        this.totalTimeError = totalTimeError;
+        this.p99Time = p99Time;
+        this.maxTime = maxTime;
+        this.lastExecutedMillis = lastExecutedMillis;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public long getExecutionCount() {
+        return executionCount;
+    }
+
+    public double getTotalTime() {
+        return totalTime;
+    }
+
+    public double getTotalTimeError() {
+        return totalTimeError;
+    }
+
+    public double getAvgTime() {
+        return executionCount > 0 ? totalTime / executionCount : 0;
+    }
+
+    public double getP99Time() {
+        return p99Time;
+    }
+
+    public double getMaxTime() {
+        return maxTime;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("query", fingerprint);
+        map.put("executionCount", executionCount);
+        map.put("totalTime", totalTime);
+        map.put("totalTimeError", totalTimeError);
+        map.put("avgTime", getAvgTime());
+        map.put("p99Time", p99Time);
+        map.put("maxTime", maxTime);
+        map.put("lastExecuted", LocalDateTime.ofInstant(Instant.ofEpochMilli(lastExecutedMillis), ZoneId.systemDefault()));
+        return map;
+    }
+}
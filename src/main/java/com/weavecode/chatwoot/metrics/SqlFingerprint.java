@@ -0,0 +1,122 @@
+package com.weavecode.chatwoot.metrics;
+
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes SQL so that statements differing only in literal values share
+ * one fingerprint.
+ *
+ * String and numeric literals become ?, comments are dropped, whitespace
+ * is collapsed, text outside quoted identifiers is lower-cased, and lists
+ * of placeholders such as IN (?, ?, ?) or multi-row VALUES collapse to a
+ * single (?+), so batch size does not split a statement into many
+ * fingerprints.
+ */
+public final class SqlFingerprint {
+
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(?: ?, ?\\?)+");
+    private static final Pattern ROW_LIST = Pattern.compile("\\((\\?\\+?)\\)(?: ?, ?\\(\\?\\+?\\))+");
+
+    private SqlFingerprint() {
+    }
+
+    public static String of(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                // String literal; '' is an escaped quote
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+                out.append('?');
+            } else if (c == '"') {
+                // Quoted identifier, kept as written
+                int end = sql.indexOf('"', i + 1);
+                end = end < 0 ? length : end + 1;
+                out.append(sql, i, end);
+                i = end;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end;
+                appendSpace(out);
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                appendSpace(out);
+            } else if (Character.isWhitespace(c)) {
+                appendSpace(out);
+                i++;
+            } else if (Character.isDigit(c) && !isIdentifierPart(out)) {
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                out.append('?');
+            } else if (c == '$' && i + 1 < length && Character.isDigit(sql.charAt(i + 1))) {
+                // Positional parameter ($1)
+                i++;
+                while (i < length && Character.isDigit(sql.charAt(i))) {
+                    i++;
+                }
+                out.append('?');
+            } else {
+                out.append(Character.toLowerCase(c));
+                i++;
+            }
+        }
+        int end = out.length();
+        while (end > 0 && (out.charAt(end - 1) == ' ' || out.charAt(end - 1) == ';')) {
+            end--;
+        }
+        out.setLength(end);
+
+        String normalized = trimInsideParentheses(out);
+        normalized = PLACEHOLDER_LIST.matcher(normalized).replaceAll("?+");
+        return ROW_LIST.matcher(normalized).replaceAll("($1)+");
+    }
+
+    private static void appendSpace(StringBuilder out) {
+        if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') {
+            out.append(' ');
+        }
+    }
+
+    // A digit directly after a letter, digit or underscore belongs to an identifier such as t1 or col_2
+    private static boolean isIdentifierPart(StringBuilder out) {
+        if (out.length() == 0) {
+            return false;
+        }
+        char previous = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_';
+    }
+
+    private static String trimInsideParentheses(StringBuilder out) {
+        StringBuilder trimmed = new StringBuilder(out.length());
+        for (int i = 0; i < out.length(); i++) {
+            char c = out.charAt(i);
+            if (c == ' ') {
+                char previous = trimmed.length() > 0 ? trimmed.charAt(trimmed.length() - 1) : ' ';
+                char next = i + 1 < out.length() ? out.charAt(i + 1) : ' ';
+                if (previous == '(' || next == ')') {
+                    continue;
+                }
+            }
+            trimmed.append(c);
+        }
+        return trimmed.toString();
+    }
+}
@@ -0,0 +1,229 @@
+package com.weavecode.chatwoot.metrics;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client-side SQL profile fed by {@link ProfilingDataSource}.
+ *
+ * Every statement is fingerprinted and timed into a node-wide
+ * {@link QuerySketch} and, inside a request, into a smaller one for the
+ * request's tenant, so memory is fixed by the slot counts and the tenant
+ * ceiling rather than by the number of distinct statements.
+ *
+ * A request scope also counts executions per fingerprint; a fingerprint run
+ * at least the N+1 threshold times in one request is reported with the
+ * route it happened on.
+ */
+@Component
+public class SqlProfiler {
+
+    private static final int MAX_CACHED_FINGERPRINTS = 10000;
+    private static final int MAX_N_PLUS_ONE_FINDINGS = 200;
+
+    private static final ThreadLocal<RequestScope> SCOPE = new ThreadLocal<>();
+
+    @Value("${app.performance.sql.top-k:100}")
+    private int topK;
+
+    @Value("${app.performance.sql.tenant-top-k:20}")
+    private int tenantTopK;
+
+    @Value("${app.performance.sql.max-tenants:500}")
+    private int maxTenants;
+
+    @Value("${app.performance.sql.n-plus-one-threshold:10}")
+    private int nPlusOneThreshold;
+
+    private QuerySketch overall;
+    private final Map<UUID, QuerySketch> tenants = new ConcurrentHashMap<>();
+    private final Map<String, NPlusOne> nPlusOne = new ConcurrentHashMap<>();
+
+    // Raw SQL -> fingerprint; prepared statements repeat the same strings
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        overall = new QuerySketch(topK);
+    }
+
+    /**
+     * Record one executed statement.
+     */
+    public void record(String sql, long nanos) {
+        String fingerprint = fingerprint(sql);
+        long now = System.currentTimeMillis();
+        overall.record(fingerprint, nanos, now);
+
+        RequestScope scope = SCOPE.get();
+        if (scope != null) {
+            scope.executions.merge(fingerprint, 1, Integer::sum);
+            if (scope.tenantId != null) {
+                QuerySketch sketch = tenantSketch(scope.tenantId);
+                if (sketch != null) {
+                    sketch.record(fingerprint, nanos, now);
+                }
+            }
+        }
+    }
+
+    /**
+     * Start attributing statements on this thread to a request. Returns the
+     * scope it replaced, to be passed back to {@link #closeRequestScope}.
+     */
+    public RequestScope openRequestScope(UUID tenantId) {
+        RequestScope previous = SCOPE.get();
+        SCOPE.set(new RequestScope(tenantId));
+        return previous;
+    }
+
+    /**
+     * End the current request scope and report its N+1 suspects.
+     */
+    public void closeRequestScope(RequestScope previous, String route) {
+        RequestScope scope = SCOPE.get();
+        if (previous != null) {
+            SCOPE.set(previous);
+        } else {
+            SCOPE.remove();
+        }
+        if (scope == null) {
+            return;
+        }
+        for (Map.Entry<String, Integer> entry : scope.executions.entrySet()) {
+            if (entry.getValue() >= nPlusOneThreshold) {
+                reportNPlusOne(route, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Heaviest fingerprints of the tenant, or of the node when the tenant is
+     * null: the top by total time, followed by any further ones in the top
+     * by p99. Fingerprints with N+1 findings list the routes.
+     */
+    public List<Map<String, Object>> slowQueries(UUID tenantId, int limit) {
+        QuerySketch sketch = tenantId != null ? tenants.get(tenantId) : overall;
+        if (sketch == null) {
+            return new ArrayList<>();
+        }
+        List<QueryStats> stats = sketch.snapshot();
+        Map<String, QueryStats> selected = new LinkedHashMap<>();
+        stats.sort(Comparator.comparingDouble(QueryStats::getTotalTime).reversed());
+        stats.stream().limit(limit).forEach(s -> selected.put(s.getFingerprint(), s));
+        stats.sort(Comparator.comparingDouble(QueryStats::getP99Time).reversed());
+        stats.stream().limit(limit).forEach(s -> selected.putIfAbsent(s.getFingerprint(), s));
+
+        Map<String, List<Map<String, Object>>> findings = new HashMap<>();
+        for (Map<String, Object> finding : nPlusOneFindings()) {
+            findings.computeIfAbsent((String) finding.get("query"), k -> new ArrayList<>()).add(finding);
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>(selected.size());
+        for (QueryStats query : selected.values()) {
+            Map<String, Object> entry = query.toMap();
+            List<Map<String, Object>> suspects = findings.get(query.getFingerprint());
+            entry.put("nPlusOne", suspects != null ? suspects : List.of());
+            result.add(entry);
+        }
+        return result;
+    }
+
+    public List<Map<String, Object>> nPlusOneFindings() {
+        List<Map<String, Object>> findings = new ArrayList<>(nPlusOne.size());
+        for (NPlusOne finding : nPlusOne.values()) {
+            findings.add(finding.toMap());
+        }
+        findings.sort(Comparator.comparingLong(f -> -((Long) f.get("requests"))));
+        return findings;
+    }
+
+    String fingerprint(String sql) {
+        String fingerprint = fingerprints.get(sql);
+        if (fingerprint == null) {
+            fingerprint = SqlFingerprint.of(sql);
+            if (fingerprints.size() >= MAX_CACHED_FINGERPRINTS) {
+                // Unbounded distinct SQL means literals are being concatenated; start over
+                fingerprints.clear();
+            }
+            fingerprints.put(sql, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    // Null once the tenant ceiling is reached; those tenants only count towards the node
+    private QuerySketch tenantSketch(UUID tenantId) {
+        QuerySketch sketch = tenants.get(tenantId);
+        if (sketch != null || tenants.size() >= maxTenants) {
+            return sketch;
+        }
+        return tenants.computeIfAbsent(tenantId, id -> new QuerySketch(tenantTopK));
+    }
+
+    private void reportNPlusOne(String route, String fingerprint, int executions) {
+        String key = route + '\n' + fingerprint;
+        NPlusOne finding = nPlusOne.get(key);
+        if (finding == null) {
+            if (nPlusOne.size() >= MAX_N_PLUS_ONE_FINDINGS) {
+                return;
+            }
+            finding = nPlusOne.computeIfAbsent(key, k -> new NPlusOne(route, fingerprint));
+        }
+        finding.record(executions);
+    }
+
+    /**
+     * Statements executed by one request, per fingerprint.
+     */
+    public static final class RequestScope {
+        private final UUID tenantId;
+        private final Map<String, Integer> executions = new HashMap<>();
+
+        private RequestScope(UUID tenantId) {
+            this.tenantId = tenantId;
+        }
+    }
+
+    private static final class NPlusOne {
+        private final String route;
+        private final String fingerprint;
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong maxExecutions = new AtomicLong();
+        private volatile long lastSeenMillis;
+
+        private NPlusOne(String route, String fingerprint) {
+            this.route = route;
+            this.fingerprint = fingerprint;
+        }
+
+        private void record(int executions) {
+            requests.incrementAndGet();
+            maxExecutions.accumulateAndGet(executions, Math::max);
+            lastSeenMillis = System.currentTimeMillis();
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("route", route);
+            map.put("query", fingerprint);
+            map.put("requests", requests.get());
+            map.put("maxExecutionsPerRequest", maxExecutions.get());
+            map.put("lastSeen", LocalDateTime.ofInstant(Instant.ofEpochMilli(lastSeenMillis), ZoneId.systemDefault()));
+            return map;
+        }
+    }
+}
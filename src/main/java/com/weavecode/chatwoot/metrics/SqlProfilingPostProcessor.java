@@ -0,0 +1,33 @@
+package com.weavecode.chatwoot.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps DataSource beans in a {@link ProfilingDataSource} once they are
+ * initialized, so repositories, JdbcTemplate and Hibernate all go through
+ * the profiler.
+ */
+@Component
+public class SqlProfilingPostProcessor implements BeanPostProcessor {
+
+    // Resolved lazily so that the profiler is not created as early as this post-processor
+    @Autowired
+    private ObjectProvider<SqlProfiler> sqlProfiler;
+
+    @Value("${app.performance.sql.profiling-enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (enabled && bean instanceof DataSource) {
+            return ProfilingDataSource.wrap((DataSource) bean, sqlProfiler.getObject());
+        }
+        return bean;
+    }
+}
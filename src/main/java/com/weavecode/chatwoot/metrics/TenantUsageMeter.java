@@ -0,0 +1,381 @@
+package com.weavecode.chatwoot.metrics;
+
+import com.weavecode.chatwoot.entity.Tenant;
+import com.weavecode.chatwoot.repository.TenantRepository;
+import com.weavecode.chatwoot.security.RateLimitPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Per-tenant API call metering.
+ *
+ * Requests are counted in striped in-memory adders per tenant and endpoint
+ * class, and decisions are made against the usage last reported by Redis
+ * plus what this node has counted since. Deltas are flushed in batches every
+ * few seconds: one Redis pipeline keeps the cluster-wide monthly and
+ * per-minute totals, and one JDBC batch upserts the monthly rows in
+ * api_usage. No remote call happens on the request path.
+ *
+ * Monthly limits come from Tenant.maxApiCallsPerMonth; the per-minute burst
+ * limit is derived from it. Because nodes only learn each other's usage at
+ * flush time, limits can be overshot by roughly one flush interval of
+ * traffic.
+ */
+@Component
+public class TenantUsageMeter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TenantUsageMeter.class);
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final RateLimitPolicy[] ENDPOINT_CLASSES = RateLimitPolicy.values();
+    private static final String TOTAL_FIELD = "total";
+    private static final long UNLIMITED = -1;
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO api_usage (tenant_id, period_start, endpoint_class, request_count, updated_at) " +
+        "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP) " +
+        "ON CONFLICT (tenant_id, period_start, endpoint_class) " +
+        "DO UPDATE SET request_count = api_usage.request_count + EXCLUDED.request_count, " +
+        "updated_at = CURRENT_TIMESTAMP";
+
+    public enum Decision {
+        ALLOWED,
+        MONTHLY_LIMIT_EXCEEDED,
+        BURST_LIMIT_EXCEEDED
+    }
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    @Value("${app.metering.enabled:true}")
+    private boolean enabled;
+
+    // Burst limit per minute = max(min-burst-per-minute, monthly limit / burst-divisor)
+    @Value("${app.metering.min-burst-per-minute:60}")
+    private long minBurstPerMinute;
+
+    @Value("${app.metering.burst-divisor:1000}")
+    private long burstDivisor;
+
+    @Value("${app.metering.plan-refresh-ms:300000}")
+    private long planRefreshMs;
+
+    private final Map<UUID, TenantUsage> tenants = new ConcurrentHashMap<>();
+
+    // Deltas not yet written to each store; only touched by the flush thread
+    private final Map<UsageKey, Long> redisBacklog = new HashMap<>();
+    private final Map<UsageKey, Long> databaseBacklog = new HashMap<>();
+
+    /**
+     * Count one request for the tenant unless it is over its monthly or burst
+     * limit. Never blocks on Redis or the database.
+     */
+    public Decision tryRecord(UUID tenantId, RateLimitPolicy endpointClass) {
+        if (!enabled || tenantId == null) {
+            return Decision.ALLOWED;
+        }
+        TenantUsage usage = tenants.computeIfAbsent(tenantId, TenantUsage::new);
+        long local = usage.pendingTotal();
+
+        long monthlyLimit = usage.monthlyLimit;
+        if (monthlyLimit != UNLIMITED && usage.monthTotal + local >= monthlyLimit) {
+            return Decision.MONTHLY_LIMIT_EXCEEDED;
+        }
+        long burstLimit = usage.burstLimit;
+        long minute = System.currentTimeMillis() / 60_000L;
+        long minuteTotal = usage.minuteBucket == minute ? usage.minuteTotal : 0;
+        if (burstLimit != UNLIMITED && minuteTotal + local >= burstLimit) {
+            return Decision.BURST_LIMIT_EXCEEDED;
+        }
+
+        usage.pending[endpointClass.ordinal()].increment();
+        return Decision.ALLOWED;
+    }
+
+    /**
+     * API calls made by the tenant this month, as last reported by Redis plus
+     * calls counted on this node since.
+     */
+    public long getMonthlyUsage(UUID tenantId) {
+        TenantUsage usage = tenants.get(tenantId);
+        return usage != null ? usage.monthTotal + usage.pendingTotal() : 0;
+    }
+
+    /**
+     * Apply a tenant's plan limits immediately on this node. Other nodes pick
+     * the change up on their next plan refresh.
+     */
+    public void applyPlanLimits(UUID tenantId, Integer maxApiCallsPerMonth) {
+        if (tenantId == null) {
+            return;
+        }
+        tenants.computeIfAbsent(tenantId, TenantUsage::new)
+            .setLimits(maxApiCallsPerMonth, minBurstPerMinute, burstDivisor, System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${app.metering.flush-interval-ms:5000}")
+    public void flush() {
+        if (!enabled || tenants.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        YearMonth month = YearMonth.now(ZoneOffset.UTC);
+        long minute = now / 60_000L;
+        Map<UUID, Long> minuteDeltas = new HashMap<>();
+
+        for (TenantUsage usage : tenants.values()) {
+            if (!month.equals(usage.month)) {
+                usage.month = month;
+                usage.monthTotal = 0;
+            }
+            long tenantDelta = 0;
+            for (RateLimitPolicy endpointClass : ENDPOINT_CLASSES) {
+                long delta = usage.pending[endpointClass.ordinal()].sumThenReset();
+                if (delta > 0) {
+                    UsageKey key = new UsageKey(usage.tenantId, month, endpointClass);
+                    redisBacklog.merge(key, delta, Long::sum);
+                    databaseBacklog.merge(key, delta, Long::sum);
+                    tenantDelta += delta;
+                }
+            }
+            if (tenantDelta > 0) {
+                // Keep counting the flushed calls until Redis reports the new totals
+                usage.monthTotal += tenantDelta;
+                minuteDeltas.put(usage.tenantId, tenantDelta);
+            }
+        }
+
+        flushToRedis(month, minute, minuteDeltas);
+        flushToDatabase();
+        refreshPlanLimits(now);
+    }
+
+    private void flushToRedis(YearMonth month, long minute, Map<UUID, Long> minuteDeltas) {
+        if (redisBacklog.isEmpty()) {
+            return;
+        }
+        Map<String, Map<RateLimitPolicy, Long>> byKey = new HashMap<>();
+        Map<String, UsageKey> firstKeys = new HashMap<>();
+        for (Map.Entry<UsageKey, Long> entry : redisBacklog.entrySet()) {
+            String key = monthlyKey(entry.getKey().tenantId, entry.getKey().month);
+            byKey.computeIfAbsent(key, k -> new HashMap<>()).put(entry.getKey().endpointClass, entry.getValue());
+            firstKeys.putIfAbsent(key, entry.getKey());
+        }
+
+        // One handler per pipelined command, in command order
+        List<Consumer<Object>> handlers = new ArrayList<>();
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<String, Map<RateLimitPolicy, Long>> entry : byKey.entrySet()) {
+                    byte[] key = bytes(entry.getKey());
+                    long total = 0;
+                    for (Map.Entry<RateLimitPolicy, Long> delta : entry.getValue().entrySet()) {
+                        connection.hashCommands().hIncrBy(key, bytes(delta.getKey().getName()), delta.getValue());
+                        handlers.add(null);
+                        total += delta.getValue();
+                    }
+                    UsageKey usageKey = firstKeys.get(entry.getKey());
+                    connection.hashCommands().hIncrBy(key, bytes(TOTAL_FIELD), total);
+                    handlers.add(month.equals(usageKey.month) ? result -> updateMonthTotal(usageKey.tenantId, result) : null);
+                    expire(connection, key, Duration.ofDays(40), handlers);
+                }
+                for (Map.Entry<UUID, Long> entry : minuteDeltas.entrySet()) {
+                    byte[] key = bytes(minuteKey(entry.getKey(), minute));
+                    connection.stringCommands().incrBy(key, entry.getValue());
+                    UUID tenantId = entry.getKey();
+                    handlers.add(result -> updateMinuteTotal(tenantId, minute, result));
+                    expire(connection, key, Duration.ofMinutes(2), handlers);
+                }
+                return null;
+            });
+
+            for (int i = 0; i < results.size() && i < handlers.size(); i++) {
+                if (handlers.get(i) != null) {
+                    handlers.get(i).accept(results.get(i));
+                }
+            }
+            redisBacklog.clear();
+        } catch (Exception e) {
+            logger.error("Failed to flush API usage to Redis, keeping {} deltas for retry: {}",
+                redisBacklog.size(), e.getMessage());
+        }
+    }
+
+    private void flushToDatabase() {
+        if (databaseBacklog.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(databaseBacklog.size());
+        for (Map.Entry<UsageKey, Long> entry : databaseBacklog.entrySet()) {
+            UsageKey key = entry.getKey();
+            rows.add(new Object[] {
+                key.tenantId, Date.valueOf(key.month.atDay(1)), key.endpointClass.getName(), entry.getValue()
+            });
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+            databaseBacklog.clear();
+        } catch (Exception e) {
+            logger.error("Failed to flush API usage to database, keeping {} deltas for retry: {}",
+                rows.size(), e.getMessage());
+        }
+    }
+
+    private void refreshPlanLimits(long now) {
+        List<UUID> due = new ArrayList<>();
+        for (TenantUsage usage : tenants.values()) {
+            if (now - usage.limitsLoadedAt >= planRefreshMs) {
+                due.add(usage.tenantId);
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        try {
+            for (Tenant tenant : tenantRepository.findAllById(due)) {
+                applyPlanLimits(tenant.getId(), tenant.getMaxApiCallsPerMonth());
+            }
+            // Unknown tenants stay unlimited until the next refresh
+            for (UUID tenantId : due) {
+                TenantUsage usage = tenants.get(tenantId);
+                if (usage != null && usage.limitsLoadedAt < now) {
+                    usage.limitsLoadedAt = now;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to refresh plan limits for {} tenants: {}", due.size(), e.getMessage());
+        }
+    }
+
+    private void updateMonthTotal(UUID tenantId, Object result) {
+        TenantUsage usage = tenants.get(tenantId);
+        if (usage != null && result instanceof Number) {
+            usage.monthTotal = ((Number) result).longValue();
+        }
+    }
+
+    private void updateMinuteTotal(UUID tenantId, long minute, Object result) {
+        TenantUsage usage = tenants.get(tenantId);
+        if (usage != null && result instanceof Number) {
+            usage.minuteTotal = ((Number) result).longValue();
+            usage.minuteBucket = minute;
+        }
+    }
+
+    private static void expire(RedisConnection connection, byte[] key, Duration ttl, List<Consumer<Object>> handlers) {
+        connection.keyCommands().expire(key, ttl.getSeconds());
+        handlers.add(null);
+    }
+
+    private static String monthlyKey(UUID tenantId, YearMonth month) {
+        return "api_usage:" + tenantId + ":" + month.format(MONTH_FORMAT);
+    }
+
+    private static String minuteKey(UUID tenantId, long minute) {
+        return "api_usage:" + tenantId + ":minute:" + minute;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    int trackedTenants() {
+        return tenants.size();
+    }
+
+    private static final class TenantUsage {
+        private final UUID tenantId;
+        private final LongAdder[] pending = new LongAdder[ENDPOINT_CLASSES.length];
+
+        private volatile long monthlyLimit = UNLIMITED;
+        private volatile long burstLimit = UNLIMITED;
+        private volatile long limitsLoadedAt;
+
+        // Cluster-wide totals as of the last flush
+        private volatile YearMonth month = YearMonth.now(ZoneOffset.UTC);
+        private volatile long monthTotal;
+        private volatile long minuteBucket;
+        private volatile long minuteTotal;
+
+        private TenantUsage(UUID tenantId) {
+            this.tenantId = tenantId;
+            for (int i = 0; i < pending.length; i++) {
+                pending[i] = new LongAdder();
+            }
+        }
+
+        private long pendingTotal() {
+            long total = 0;
+            for (LongAdder adder : pending) {
+                total += adder.sum();
+            }
+            return total;
+        }
+
+        private void setLimits(Integer maxApiCallsPerMonth, long minBurst, long burstDivisor, long now) {
+            if (maxApiCallsPerMonth == null || maxApiCallsPerMonth < 0) {
+                monthlyLimit = UNLIMITED;
+                burstLimit = UNLIMITED;
+            } else {
+                monthlyLimit = maxApiCallsPerMonth;
+                burstLimit = Math.max(minBurst, maxApiCallsPerMonth / Math.max(1, burstDivisor));
+            }
+            limitsLoadedAt = now;
+        }
+    }
+
+    private static final class UsageKey {
+        private final UUID tenantId;
+        private final YearMonth month;
+        private final RateLimitPolicy endpointClass;
+
+        private UsageKey(UUID tenantId, YearMonth month, RateLimitPolicy endpointClass) {
+            this.tenantId = tenantId;
+            this.month = month;
+            this.endpointClass = endpointClass;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof UsageKey)) return false;
+            UsageKey other = (UsageKey) o;
+            return tenantId.equals(other.tenantId) && month.equals(other.month) && endpointClass == other.endpointClass;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenantId, month, endpointClass);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.weavecode.chatwoot.metrics;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind tracker for users.last_activity_at.
+ *
+ * Requests only stamp an in-memory map. Every flush interval the latest
+ * timestamp per user is written with one UPDATE ... FROM (VALUES ...)
+ * statement, so a busy user costs at most one row update per interval
+ * however many requests they make. Only users are tracked: JWT logins
+ * never create user_sessions rows, so there is no session to stamp.
+ *
+ * The map also answers online-user counts. It only sees requests served by
+ * this node, so behind a load balancer without sticky sessions the counts
+ * are per node.
+ */
+@Component
+public class UserActivityTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserActivityTracker.class);
+
+    // Rows per statement; keeps the bind parameter count well under the driver limit
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private static final String UPDATE_USERS_SQL =
+        "UPDATE users AS u SET last_activity_at = v.last_activity_at FROM (VALUES %s) " +
+        "AS v(id, last_activity_at) WHERE u.id = v.id " +
+        "AND (u.last_activity_at IS NULL OR u.last_activity_at < v.last_activity_at)";
+
+    private static final String USER_ROW = "(CAST(? AS UUID), CAST(? AS TIMESTAMPTZ))";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.activity.enabled:true}")
+    private boolean enabled;
+
+    // Users idle for longer than this are dropped from memory once flushed
+    @Value("${app.activity.retention-ms:900000}")
+    private long retentionMs;
+
+    // tenant -> user -> activity, so online counts only scan one tenant
+    private final Map<UUID, Map<UUID, Activity>> users = new ConcurrentHashMap<>();
+
+    /**
+     * Record that a user was active now.
+     */
+    public void recordActivity(UUID tenantId, UUID userId) {
+        if (!enabled || tenantId == null || userId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        users.computeIfAbsent(tenantId, id -> new ConcurrentHashMap<>())
+             .computeIfAbsent(userId, id -> new Activity())
+             .touch(now);
+    }
+
+    /**
+     * Users of the tenant seen by this node within the given window.
+     */
+    public long countOnlineUsers(UUID tenantId, Duration window) {
+        Map<UUID, Activity> tenantUsers = users.get(tenantId);
+        if (tenantUsers == null) {
+            return 0;
+        }
+        long cutoff = System.currentTimeMillis() - window.toMillis();
+        long online = 0;
+        for (Activity activity : tenantUsers.values()) {
+            if (activity.lastSeen >= cutoff) {
+                online++;
+            }
+        }
+        return online;
+    }
+
+    /**
+     * Users of all tenants seen by this node within the given window.
+     */
+    public long countOnlineUsers(Duration window) {
+        long online = 0;
+        for (UUID tenantId : users.keySet()) {
+            online += countOnlineUsers(tenantId, window);
+        }
+        return online;
+    }
+
+    @Scheduled(fixedDelayString = "${app.activity.flush-interval-ms:10000}")
+    public void flush() {
+        List<Object[]> userRows = new ArrayList<>();
+        List<Activity> userEntries = new ArrayList<>();
+        for (Map<UUID, Activity> tenantUsers : users.values()) {
+            for (Map.Entry<UUID, Activity> entry : tenantUsers.entrySet()) {
+                collectDirty(entry.getKey(), entry.getValue(), userRows, userEntries);
+            }
+        }
+
+        write(userRows, userEntries);
+        evictIdle();
+    }
+
+    private static void collectDirty(UUID userId, Activity activity, List<Object[]> rows, List<Activity> entries) {
+        long lastSeen = activity.lastSeen;
+        if (lastSeen > activity.flushed) {
+            rows.add(new Object[] {userId, new Timestamp(lastSeen)});
+            entries.add(activity);
+        }
+    }
+
+    private void write(List<Object[]> rows, List<Activity> entries) {
+        for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_STATEMENT) {
+            int to = Math.min(rows.size(), from + MAX_ROWS_PER_STATEMENT);
+            StringBuilder values = new StringBuilder(USER_ROW.length() * (to - from) + to - from);
+            Object[] args = new Object[(to - from) * 2];
+            for (int i = from; i < to; i++) {
+                if (i > from) {
+                    values.append(',');
+                }
+                values.append(USER_ROW);
+                args[(i - from) * 2] = rows.get(i)[0];
+                args[(i - from) * 2 + 1] = rows.get(i)[1];
+            }
+            try {
+                jdbcTemplate.update(String.format(UPDATE_USERS_SQL, values), args);
+                for (int i = from; i < to; i++) {
+                    entries.get(i).flushed = ((Timestamp) rows.get(i)[1]).getTime();
+                }
+            } catch (Exception e) {
+                // Entries stay dirty and are retried on the next flush
+                logger.error("Failed to flush last activity for {} users: {}", to - from, e.getMessage());
+            }
+        }
+    }
+
+    // A request racing with eviction can lose its stamp; the user reappears on their next request
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - retentionMs;
+        for (Map<UUID, Activity> tenantUsers : users.values()) {
+            tenantUsers.values().removeIf(activity -> activity.isEvictable(cutoff));
+        }
+        users.values().removeIf(Map::isEmpty);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    int trackedUsers() {
+        int tracked = 0;
+        for (Map<UUID, Activity> tenantUsers : users.values()) {
+            tracked += tenantUsers.size();
+        }
+        return tracked;
+    }
+
+    private static final class Activity {
+        private volatile long lastSeen;
+        // Only written by the flush thread
+        private volatile long flushed;
+
+        private void touch(long now) {
+            // Racing writers stamp near-identical times; a slightly older winner is harmless
+            if (now > lastSeen) {
+                lastSeen = now;
+            }
+        }
+
+        private boolean isEvictable(long cutoff) {
+            return lastSeen < cutoff && lastSeen <= flushed;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.weavecode.chatwoot.security;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable audit record queued for insertion into audit_logs.
+ */
+public final class AuditEvent {
+
+    public enum Severity {
+        // Dropped when the queue is full
+        LOW,
+        MEDIUM,
+        // Waits briefly for queue space before being dropped
+        HIGH
+    }
+
+    private final String action;
+    private final String entityType;
+    private final UUID entityId;
+    private final UUID tenantId;
+    private final UUID userId;
+    private final String ipAddress;
+    private final String userAgent;
+    private final Map<String, Object> details;
+    private final Severity severity;
+    private final Instant createdAt;
+
+    public AuditEvent(String action, String entityType, UUID entityId, UUID tenantId, UUID userId,
+                      String ipAddress, String userAgent, Map<String, Object> details, Severity severity) {
+        this.action = action;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.tenantId = tenantId;
+        this.userId = userId;
+        this.ipAddress = ipAddress;
+        this.userAgent = userAgent;
+        this.details = details;
+        this.severity = severity;
+        this.createdAt = Instant.now();
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public UUID getEntityId() {
+        return entityId;
+    }
+
+    public UUID getTenantId() {
+        return tenantId;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public String getIpAddress() {
+        return ipAddress;
+    }
+
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    public Map<String, Object> getDetails() {
+        return details;
+    }
+
+    public Severity getSeverity() {
+        return severity;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "AuditEvent{action='" + action + "', entityType='" + entityType + "', tenantId=" + tenantId +
+               ", ipAddress='" + ipAddress + "', severity=" + severity + ", details=" + details + "}";
+    }
+}
@@ -0,0 +1,302 @@
+package com.weavecode.chatwoot.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking audit channel in front of the audit_logs table.
+ *
+ * Request threads only enqueue into a bounded buffer; a single writer thread
+ * drains it and inserts whole batches with JDBC batching. When the buffer is
+ * full, LOW and MEDIUM events are dropped immediately while HIGH events wait
+ * up to a short timeout for space, so a slow database can never stall
+ * request handling for long.
+ */
+@Component
+public class AuditLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private static final String INSERT_SQL =
+        "INSERT INTO audit_logs (tenant_id, user_id, action, entity_type, entity_id, new_values, " +
+        "ip_address, user_agent, created_at) " +
+        "VALUES (?, ?, ?, ?, ?, CAST(? AS JSONB), CAST(? AS INET), ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.audit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.audit.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.audit.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${app.audit.block-timeout-ms:50}")
+    private long blockTimeoutMs;
+
+    private BlockingQueue<AuditEvent> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    private final Map<AuditEvent.Severity, Counter> droppedCounters = new EnumMap<>(AuditEvent.Severity.class);
+    private Counter writtenCounter;
+    private Counter failedCounter;
+    private Timer flushTimer;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("chatwoot.audit.queue.depth", queue, BlockingQueue::size)
+                .description("Audit events waiting to be written")
+                .register(meterRegistry);
+        for (AuditEvent.Severity severity : AuditEvent.Severity.values()) {
+            droppedCounters.put(severity, Counter.builder("chatwoot.audit.events.dropped")
+                    .description("Audit events dropped because the queue was full")
+                    .tag("severity", severity.name())
+                    .register(meterRegistry));
+        }
+        writtenCounter = Counter.builder("chatwoot.audit.events.written")
+                .description("Audit events written to audit_logs")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("chatwoot.audit.events.failed")
+                .description("Audit events lost because their batch could not be written")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("chatwoot.audit.flush.duration")
+                .description("Time taken to write one batch of audit events")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+
+        running = true;
+        writerThread = new Thread(this::drainLoop, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queue an event for writing. Never blocks for LOW and MEDIUM events and
+     * at most block-timeout-ms for HIGH events.
+     *
+     * @return false if the event was dropped
+     */
+    public boolean publish(AuditEvent event) {
+        boolean queued;
+        if (event.getSeverity() == AuditEvent.Severity.HIGH) {
+            try {
+                queued = queue.offer(event, blockTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+        } else {
+            queued = queue.offer(event);
+        }
+        if (!queued) {
+            droppedCounters.get(event.getSeverity()).increment();
+        }
+        return queued;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditEvent first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                // Shutdown requested; loop exits once the queue is empty
+                running = false;
+            } catch (Exception e) {
+                logger.error("Unexpected error in audit log writer: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void writeBatch(List<AuditEvent> batch) {
+        long start = System.nanoTime();
+        try {
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            for (AuditEvent event : batch) {
+                try {
+                    rows.add(toRow(event));
+                } catch (JsonProcessingException e) {
+                    failedCounter.increment();
+                    logger.error("Failed to serialize audit event {}: {}", event.getAction(), e.getMessage());
+                }
+            }
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+                writtenCounter.increment(rows.size());
+            } catch (DataAccessException e) {
+                if (isUnavailable(e)) {
+                    failedCounter.increment(rows.size());
+                    logger.error("Failed to write {} audit events: {}", rows.size(), e.getMessage());
+                } else {
+                    // One rejected row fails the whole batch; retry singly so only that row is lost
+                    logger.warn("Audit batch of {} rejected, retrying row by row: {}", rows.size(), e.getMessage());
+                    writeRowByRow(rows);
+                }
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void writeRowByRow(List<Object[]> rows) {
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, rows.get(i));
+                writtenCounter.increment();
+            } catch (DataAccessException e) {
+                if (isUnavailable(e)) {
+                    failedCounter.increment(rows.size() - i);
+                    logger.error("Failed to write {} audit events: {}", rows.size() - i, e.getMessage());
+                    return;
+                }
+                failedCounter.increment();
+                logger.error("Failed to write audit event {}: {}", rows.get(i)[2], e.getMessage());
+            }
+        }
+    }
+
+    // Retrying row by row cannot help when the database itself is unreachable
+    private static boolean isUnavailable(DataAccessException e) {
+        return e instanceof DataAccessResourceFailureException || e instanceof TransientDataAccessException;
+    }
+
+    private Object[] toRow(AuditEvent event) throws JsonProcessingException {
+        return new Object[] {
+            event.getTenantId(),
+            event.getUserId(),
+            event.getAction(),
+            event.getEntityType(),
+            event.getEntityId(),
+            event.getDetails() != null ? objectMapper.writeValueAsString(event.getDetails()) : null,
+            toInet(event.getIpAddress()),
+            event.getUserAgent(),
+            Timestamp.from(event.getCreatedAt())
+        };
+    }
+
+    /**
+     * The address if it is a valid IPv4 or IPv6 literal, otherwise null. It
+     * comes from X-Forwarded-For, so anything the INET cast would reject is
+     * dropped here rather than failing the insert.
+     */
+    static String toInet(String ipAddress) {
+        if (ipAddress == null) {
+            return null;
+        }
+        String candidate = ipAddress.trim();
+        if (candidate.isEmpty() || candidate.length() > 45) {
+            return null;
+        }
+        if (candidate.indexOf(':') < 0) {
+            return isIpv4(candidate) ? candidate : null;
+        }
+        for (int i = 0; i < candidate.length(); i++) {
+            char c = candidate.charAt(i);
+            if (Character.digit(c, 16) < 0 && c != '.' && c != ':') {
+                return null;
+            }
+        }
+        if (candidate.charAt(0) == '.') {
+            return null;
+        }
+        try {
+            // Starts with a hex digit or ':' and contains ':', so this parses an IPv6 literal and never resolves a name
+            InetAddress.getByName(candidate);
+            return candidate;
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    // Dotted quad without leading zeros; short forms such as "1.1" are rejected
+    private static boolean isIpv4(String candidate) {
+        String[] octets = candidate.split("\\.", -1);
+        if (octets.length != 4) {
+            return false;
+        }
+        for (String octet : octets) {
+            if (octet.isEmpty() || octet.length() > 3 || (octet.length() > 1 && octet.charAt(0) == '0')) {
+                return false;
+            }
+            for (int i = 0; i < octet.length(); i++) {
+                if (octet.charAt(i) < '0' || octet.charAt(i) > '9') {
+                    return false;
+                }
+            }
+            if (Integer.parseInt(octet) > 255) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            writerThread.interrupt();
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!queue.isEmpty()) {
+            logger.warn("Audit log writer stopped with {} events unwritten", queue.size());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.weavecode.chatwoot.security;
+
+import com.weavecode.chatwoot.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of the authenticated user for the current request.
+ *
+ * Resolved once by {@link JwtAuthenticationFilter} so that
+ * {@link SecurityService} checks can run without another user lookup.
+ */
+public final class CurrentUser {
+
+    private final UUID userId;
+    private final String email;
+    private final UUID tenantId;
+    private final String role;
+
+    public CurrentUser(UUID userId, String email, UUID tenantId, String role) {
+        this.userId = userId;
+        this.email = email;
+        this.tenantId = tenantId;
+        this.role = role;
+    }
+
+    static CurrentUser from(JwtPrincipal principal, UserDetails userDetails) {
+        return new CurrentUser(
+            principal.getUserId(),
+            principal.getSubject(),
+            principal.getTenantId(),
+            roleOf(userDetails)
+        );
+    }
+
+    static CurrentUser fromUser(User user) {
+        // The entity keeps tenant_id as text
+        UUID tenantId = user.getTenantId() != null ? UUID.fromString(user.getTenantId()) : null;
+        return new CurrentUser(user.getId(), user.getEmail(), tenantId, user.getRole().name());
+    }
+
+    private static String roleOf(UserDetails userDetails) {
+        for (GrantedAuthority authority : userDetails.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (name != null && name.startsWith("ROLE_")) {
+                return name.substring(5);
+            }
+        }
+        return null;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public UUID getTenantId() {
+        return tenantId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public boolean isTenantAdmin() {
+        return "ADMIN".equals(role) || "OWNER".equals(role);
+    }
+
+    @Override
+    public String toString() {
+        return "CurrentUser{userId=" + userId + ", email='" + email + "', tenantId=" + tenantId +
+               ", role=" + role + "}";
+    }
+}
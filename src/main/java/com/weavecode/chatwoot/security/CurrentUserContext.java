@@ -0,0 +1,84 @@
+package com.weavecode.chatwoot.security;
+
+import com.weavecode.chatwoot.entity.User;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+/**
+ * Per-request holder for the resolved {@link CurrentUser}.
+ *
+ * Stored as a request attribute, so it lives exactly as long as the request.
+ * Also counts how many times the request had to look the user up, which is
+ * reported as a metric when the request completes.
+ */
+public final class CurrentUserContext {
+
+    static final String ATTRIBUTE = CurrentUserContext.class.getName();
+
+    private CurrentUser currentUser;
+    private boolean resolved;
+    private Optional<User> userEntity;
+    private int identityLookups;
+
+    private CurrentUserContext() {
+    }
+
+    /**
+     * Attach a fresh context to the given request.
+     */
+    static CurrentUserContext bind(HttpServletRequest request) {
+        CurrentUserContext context = new CurrentUserContext();
+        request.setAttribute(ATTRIBUTE, context);
+        return context;
+    }
+
+    /**
+     * Context of the request bound to this thread. Outside a request a
+     * detached context is returned, so nothing is memoized.
+     */
+    static CurrentUserContext current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return new CurrentUserContext();
+        }
+        Object context = attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (context instanceof CurrentUserContext) {
+            return (CurrentUserContext) context;
+        }
+        CurrentUserContext created = new CurrentUserContext();
+        attributes.setAttribute(ATTRIBUTE, created, RequestAttributes.SCOPE_REQUEST);
+        return created;
+    }
+
+    CurrentUser getCurrentUser() {
+        return currentUser;
+    }
+
+    boolean isResolved() {
+        return resolved;
+    }
+
+    void setCurrentUser(CurrentUser currentUser) {
+        this.currentUser = currentUser;
+        this.resolved = true;
+    }
+
+    Optional<User> getUserEntity() {
+        return userEntity;
+    }
+
+    void setUserEntity(Optional<User> userEntity) {
+        this.userEntity = userEntity;
+    }
+
+    void recordIdentityLookup() {
+        identityLookups++;
+    }
+
+    int getIdentityLookups() {
+        return identityLookups;
+    }
+}
@@ -0,0 +1,29 @@
+package com.weavecode.chatwoot.security;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * First of the edge filters. Resolves the {@link EdgeRequestContext} once so
+ * the filters after it read client IP, route class and tenant from memory
+ * instead of each parsing headers and matching paths again. Runs after the
+ * Spring Security chain, so the authenticated tenant is already known.
+ */
+@Component
+@Order(0)
+public class EdgeContextFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                  FilterChain filterChain) throws ServletException, IOException {
+        EdgeRequestContext.bind(request);
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,198 @@
+package com.weavecode.chatwoot.security;
+
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.UUID;
+
+/**
+ * Facts about a request that every edge filter needs, resolved once by
+ * {@link EdgeContextFilter}: client IP, route class, tenant, user and
+ * start time. Immutable and stored as a request attribute, so it lives
+ * exactly as long as the request.
+ */
+public final class EdgeRequestContext {
+
+    static final String ATTRIBUTE = EdgeRequestContext.class.getName();
+
+    /**
+     * Coarse classification of the request path.
+     */
+    public enum RouteClass {
+        /** Login, registration and token endpoints */
+        AUTH,
+        /** Everything else under /api/ */
+        API,
+        /** /actuator/health, polled by load balancers */
+        HEALTH,
+        /** /actuator/info */
+        INFO,
+        /** /actuator/metrics and /actuator/prometheus, polled by scrapers */
+        METRICS,
+        /** Any other actuator endpoint */
+        ACTUATOR,
+        /** /static/, /public/ and the favicon */
+        STATIC,
+        OTHER
+    }
+
+    private final String clientIp;
+    private final String path;
+    private final RouteClass routeClass;
+    private final UUID tenantId;
+    private final UUID userId;
+    private final long startTimeMillis;
+    private final long startNanos;
+
+    private EdgeRequestContext(String clientIp, String path, RouteClass routeClass, UUID tenantId, UUID userId,
+                               long startTimeMillis, long startNanos) {
+        this.clientIp = clientIp;
+        this.path = path;
+        this.routeClass = routeClass;
+        this.tenantId = tenantId;
+        this.userId = userId;
+        this.startTimeMillis = startTimeMillis;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Resolve the context for a request and attach it.
+     */
+    static EdgeRequestContext bind(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        Object tenantId = request.getAttribute("tenantId");
+        Object userId = request.getAttribute("userId");
+        EdgeRequestContext context = new EdgeRequestContext(
+            resolveClientIp(request),
+            path,
+            classify(path),
+            tenantId instanceof UUID ? (UUID) tenantId : null,
+            userId instanceof UUID ? (UUID) userId : null,
+            System.currentTimeMillis(),
+            System.nanoTime());
+        request.setAttribute(ATTRIBUTE, context);
+        return context;
+    }
+
+    /**
+     * Context of the given request, resolved on the spot if the edge filter
+     * has not run for it (error dispatches, tests).
+     */
+    public static EdgeRequestContext of(HttpServletRequest request) {
+        Object context = request.getAttribute(ATTRIBUTE);
+        return context instanceof EdgeRequestContext ? (EdgeRequestContext) context : bind(request);
+    }
+
+    /**
+     * Route template of the handler Spring MVC matched, e.g. /api/users/{id},
+     * or the route class name when no handler matched. Bounded, unlike the
+     * raw path, so safe as a metric tag or map key. Only meaningful once
+     * the request has been dispatched.
+     */
+    public static String routeTemplate(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : of(request).getRouteClass().name();
+    }
+
+    static String resolveClientIp(HttpServletRequest request) {
+        String xForwardedFor = request.getHeader("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            int comma = xForwardedFor.indexOf(',');
+            return (comma >= 0 ? xForwardedFor.substring(0, comma) : xForwardedFor).trim();
+        }
+
+        String xRealIp = request.getHeader("X-Real-IP");
+        if (xRealIp != null && !xRealIp.isEmpty()) {
+            return xRealIp;
+        }
+
+        return request.getRemoteAddr();
+    }
+
+    static RouteClass classify(String path) {
+        if (path == null) {
+            return RouteClass.OTHER;
+        }
+        if (path.contains("/api/auth/") || path.contains("/api/login") || path.contains("/api/register")) {
+            return RouteClass.AUTH;
+        }
+        if (path.startsWith("/api/")) {
+            return RouteClass.API;
+        }
+        // Exact matches: health groups and anything else under these paths are ordinary actuator calls
+        if (path.equals("/actuator/health")) {
+            return RouteClass.HEALTH;
+        }
+        if (path.equals("/actuator/info")) {
+            return RouteClass.INFO;
+        }
+        if (path.startsWith("/actuator/metrics") || path.startsWith("/actuator/prometheus")) {
+            return RouteClass.METRICS;
+        }
+        if (path.startsWith("/actuator/")) {
+            return RouteClass.ACTUATOR;
+        }
+        if (path.startsWith("/static/") || path.startsWith("/public/") || path.equals("/favicon.ico")) {
+            return RouteClass.STATIC;
+        }
+        return RouteClass.OTHER;
+    }
+
+    public String getClientIp() {
+        return clientIp;
+    }
+
+    /**
+     * The request URI as received, before sanitization.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public RouteClass getRouteClass() {
+        return routeClass;
+    }
+
+    /**
+     * Authenticated tenant, or null for anonymous requests.
+     */
+    public UUID getTenantId() {
+        return tenantId;
+    }
+
+    /**
+     * Authenticated user, or null for anonymous requests.
+     */
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public long getStartTimeMillis() {
+        return startTimeMillis;
+    }
+
+    public long elapsedMillis() {
+        return elapsedNanos() / 1_000_000L;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Static resources, the health check and the info endpoint, which skip
+     * rate limiting and auditing. Only the first two also skip security
+     * headers.
+     */
+    public boolean isStaticOrHealthCheck() {
+        return routeClass == RouteClass.STATIC || routeClass == RouteClass.HEALTH || routeClass == RouteClass.INFO;
+    }
+
+    /**
+     * Static resources, health checks and metric scrapes, which skip input
+     * sanitization and request logging.
+     */
+    public boolean isStaticOrMonitoring() {
+        return isStaticOrHealthCheck() || routeClass == RouteClass.METRICS;
+    }
+}
@@ -1,178 +1,118 @@
 package com.weavecode.chatwoot.security;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.util.HtmlUtils;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.regex.Pattern;
+import java.util.HashMap;
+import java.util.Map;
 
 @Component
 @Order(3)
 public class InputSanitizationFilter extends OncePerRequestFilter {
 
-    private static final Logger logger = LoggerFactory.getLogger(InputSanitizationFilter.class);
-
-    // Patterns for detecting potentially malicious input
-    private static final Pattern SQL_INJECTION_PATTERN = Pattern.compile(
-        "(?i)(SELECT|INSERT|UPDATE|DELETE|DROP|CREATE|ALTER|EXEC|UNION|SCRIPT|<SCRIPT|JAVASCRIPT|ONLOAD|ONERROR|ONCLICK)",
-        Pattern.CASE_INSENSITIVE
-    );
-    
-    private static final Pattern XSS_PATTERN = Pattern.compile(
-        "(?i)(<SCRIPT|JAVASCRIPT|ONLOAD|ONERROR|ONCLICK|ONMOUSEOVER|ONFOCUS|ONBLUR|ONCHANGE|ONSUBMIT|ONRESET|ONSELECT|ONUNLOAD)",
-        Pattern.CASE_INSENSITIVE
-    );
-    
-    private static final Pattern PATH_TRAVERSAL_PATTERN = Pattern.compile(
-        "(?i)(\\.\\./|\\.\\.\\\\)",
-        Pattern.CASE_INSENSITIVE
-    );
-
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                   FilterChain filterChain) throws ServletException, IOException {
         
-        try {
-            // Create a sanitized request wrapper
-            SanitizedRequestWrapper sanitizedRequest = new SanitizedRequestWrapper(request);
-            
-            // Continue with the filter chain using sanitized request
-            filterChain.doFilter(sanitizedRequest, response);
-            
-        } catch (Exception e) {
-            logger.error("Error in input sanitization filter: {}", e.getMessage(), e);
-            // Continue with the filter chain even if sanitization fails
-            filterChain.doFilter(request, response);
-        }
+        // Values are sanitized lazily, so the wrapper itself cannot fail
+        filterChain.doFilter(new SanitizedRequestWrapper(request), response);
     }
 
-    private static class SanitizedRequestWrapper extends javax.servlet.http.HttpServletRequestWrapper {
-        
+    /**
+     * Sanitizes each parameter, header and path value once, on first read,
+     * and serves repeated reads by later filters and handlers from memory.
+     */
+    public static class SanitizedRequestWrapper extends javax.servlet.http.HttpServletRequestWrapper {
+
+        private static final String[] NO_VALUES = new String[0];
+
+        // Requests are handled on one thread, so plain maps are enough
+        private final Map<String, String> parameters = new HashMap<>();
+        private final Map<String, String[]> parameterValues = new HashMap<>();
+        private final Map<String, String> headers = new HashMap<>();
+        private String queryString;
+        private String requestUri;
+        private boolean pathsSanitized;
+
         public SanitizedRequestWrapper(HttpServletRequest request) {
             super(request);
         }
 
         @Override
         public String getParameter(String name) {
-            String value = super.getParameter(name);
-            return sanitizeInput(value);
+            String value = parameters.get(name);
+            if (value == null && !parameters.containsKey(name)) {
+                value = InputSanitizer.sanitizeInput(super.getParameter(name));
+                parameters.put(name, value);
+            }
+            return value;
         }
 
         @Override
         public String[] getParameterValues(String name) {
-            String[] values = super.getParameterValues(name);
+            String[] values = parameterValues.get(name);
             if (values == null) {
-                return null;
-            }
-            
-            String[] sanitizedValues = new String[values.length];
-            for (int i = 0; i < values.length; i++) {
-                sanitizedValues[i] = sanitizeInput(values[i]);
+                String[] raw = super.getParameterValues(name);
+                if (raw == null) {
+                    values = NO_VALUES;
+                } else {
+                    values = new String[raw.length];
+                    for (int i = 0; i < raw.length; i++) {
+                        values[i] = InputSanitizer.sanitizeInput(raw[i]);
+                    }
+                }
+                parameterValues.put(name, values);
             }
-            return sanitizedValues;
+            // Hand out copies so callers cannot alter the memoized values
+            return values == NO_VALUES ? null : values.clone();
         }
 
         @Override
         public String getHeader(String name) {
-            String value = super.getHeader(name);
-            return sanitizeInput(value);
+            String value = headers.get(name);
+            if (value == null && !headers.containsKey(name)) {
+                value = InputSanitizer.sanitizeInput(super.getHeader(name));
+                headers.put(name, value);
+            }
+            return value;
         }
 
         @Override
         public String getQueryString() {
-            String queryString = super.getQueryString();
-            return sanitizeInput(queryString);
+            sanitizePaths();
+            return queryString;
         }
 
         @Override
         public String getRequestURI() {
-            String uri = super.getRequestURI();
-            return sanitizePath(uri);
+            sanitizePaths();
+            return requestUri;
         }
 
         @Override
-        public String getRequestURL() {
-            StringBuffer url = super.getRequestURL();
-            return sanitizePath(url.toString());
-        }
-    }
-
-    private static String sanitizeInput(String input) {
-        if (input == null || input.trim().isEmpty()) {
-            return input;
+        public StringBuffer getRequestURL() {
+            // Built fresh each call, as callers may append to it
+            return new StringBuffer(InputSanitizer.sanitizePath(super.getRequestURL().toString()));
         }
 
-        try {
-            // Check for SQL injection patterns
-            if (SQL_INJECTION_PATTERN.matcher(input).find()) {
-                logger.warn("Potential SQL injection attempt detected: {}", input);
-                return "";
-            }
-
-            // Check for XSS patterns
-            if (XSS_PATTERN.matcher(input).find()) {
-                logger.warn("Potential XSS attempt detected: {}", input);
-                return "";
+        private void sanitizePaths() {
+            if (!pathsSanitized) {
+                queryString = InputSanitizer.sanitizeInput(super.getQueryString());
+                requestUri = InputSanitizer.sanitizePath(super.getRequestURI());
+                pathsSanitized = true;
             }
-
-            // HTML escape the input
-            String sanitized = HtmlUtils.htmlEscape(input.trim());
-            
-            // Remove any remaining potentially dangerous characters
-            sanitized = sanitized.replaceAll("[<>\"']", "");
-            
-            return sanitized;
-            
-        } catch (Exception e) {
-            logger.error("Error sanitizing input: {}", e.getMessage(), e);
-            return "";
-        }
-    }
-
-    private static String sanitizePath(String path) {
-        if (path == null || path.trim().isEmpty()) {
-            return path;
-        }
-
-        try {
-            // Check for path traversal attempts
-            if (PATH_TRAVERSAL_PATTERN.matcher(path).find()) {
-                logger.warn("Potential path traversal attempt detected: {}", path);
-                return "/";
-            }
-
-            // Remove any null bytes
-            path = path.replaceAll("\0", "");
-            
-            // Normalize the path
-            path = path.replaceAll("//+", "/");
-            
-            return path;
-            
-        } catch (Exception e) {
-            logger.error("Error sanitizing path: {}", e.getMessage(), e);
-            return "/";
         }
     }
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
-        // Skip sanitization for health checks and static resources
-        String path = request.getRequestURI();
-        return path.equals("/actuator/health") ||
-               path.equals("/actuator/info") ||
-               path.startsWith("/static/") ||
-               path.startsWith("/public/") ||
-               path.equals("/favicon.ico") ||
-               path.startsWith("/actuator/metrics") ||
-               path.startsWith("/actuator/prometheus");
+        // Skip sanitization for health checks, metric scrapes and static resources
+        return EdgeRequestContext.of(request).isStaticOrMonitoring();
     }
 }
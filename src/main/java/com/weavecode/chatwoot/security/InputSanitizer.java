@@ -0,0 +1,213 @@
+package com.weavecode.chatwoot.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.regex.Pattern;
+
+/**
+ * Sanitization rules applied by {@link InputSanitizationFilter}.
+ *
+ * Suspicious keywords are found in a single pass with an Aho-Corasick
+ * automaton compiled once at class load, instead of one regex scan per
+ * keyword group. Inputs that need no escaping or path normalization are
+ * returned as-is, so clean values cost one scan and no allocation.
+ */
+public final class InputSanitizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(InputSanitizer.class);
+
+    private static final String[] SQL_INJECTION_KEYWORDS = {
+        "SELECT", "INSERT", "UPDATE", "DELETE", "DROP", "CREATE", "ALTER", "EXEC", "UNION",
+        "SCRIPT", "<SCRIPT", "JAVASCRIPT", "ONLOAD", "ONERROR", "ONCLICK"
+    };
+
+    private static final String[] XSS_KEYWORDS = {
+        "<SCRIPT", "JAVASCRIPT", "ONLOAD", "ONERROR", "ONCLICK", "ONMOUSEOVER", "ONFOCUS", "ONBLUR",
+        "ONCHANGE", "ONSUBMIT", "ONRESET", "ONSELECT", "ONUNLOAD"
+    };
+
+    static final int SQL_INJECTION = 1;
+    static final int XSS = 2;
+
+    private static final KeywordAutomaton KEYWORDS = new KeywordAutomaton()
+        .add(SQL_INJECTION_KEYWORDS, SQL_INJECTION)
+        .add(XSS_KEYWORDS, XSS)
+        .build();
+
+    private static final Pattern PATH_TRAVERSAL_PATTERN = Pattern.compile("(\\.\\./|\\.\\.\\\\)");
+    private static final Pattern NULL_BYTE_PATTERN = Pattern.compile("\0");
+    private static final Pattern REPEATED_SLASH_PATTERN = Pattern.compile("//+");
+
+    private InputSanitizer() {
+    }
+
+    /**
+     * Sanitize a header, parameter or query string value. Values containing
+     * SQL injection or XSS keywords are blanked; everything else is trimmed
+     * and HTML-escaped.
+     */
+    public static String sanitizeInput(String input) {
+        if (input == null || isBlank(input)) {
+            return input;
+        }
+
+        try {
+            int matches = KEYWORDS.scan(input);
+            if ((matches & SQL_INJECTION) != 0) {
+                logger.warn("Potential SQL injection attempt detected: {}", input);
+                return "";
+            }
+            if ((matches & XSS) != 0) {
+                logger.warn("Potential XSS attempt detected: {}", input);
+                return "";
+            }
+
+            // Escaped output never contains < > " or ', so nothing is left to strip
+            String trimmed = input.trim();
+            return needsEscaping(trimmed) ? HtmlUtils.htmlEscape(trimmed) : trimmed;
+
+        } catch (Exception e) {
+            logger.error("Error sanitizing input: {}", e.getMessage(), e);
+            return "";
+        }
+    }
+
+    /**
+     * Sanitize a request path: traversal attempts collapse to "/", null bytes
+     * are removed and repeated slashes are normalized.
+     */
+    public static String sanitizePath(String path) {
+        if (path == null || isBlank(path)) {
+            return path;
+        }
+
+        try {
+            if (path.indexOf("..") >= 0 && PATH_TRAVERSAL_PATTERN.matcher(path).find()) {
+                logger.warn("Potential path traversal attempt detected: {}", path);
+                return "/";
+            }
+            if (path.indexOf('\0') >= 0) {
+                path = NULL_BYTE_PATTERN.matcher(path).replaceAll("");
+            }
+            if (path.contains("//")) {
+                path = REPEATED_SLASH_PATTERN.matcher(path).replaceAll("/");
+            }
+            return path;
+
+        } catch (Exception e) {
+            logger.error("Error sanitizing path: {}", e.getMessage(), e);
+            return "/";
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // HtmlUtils escapes the markup characters and anything with a named entity, which is all non-ASCII
+    private static boolean needsEscaping(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80 || c == '<' || c == '>' || c == '"' || c == '\'' || c == '&') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Case-insensitive (ASCII) multi-keyword matcher compiled to a dense DFA,
+     * so scanning costs one table lookup per character.
+     */
+    static final class KeywordAutomaton {
+
+        private static final int ALPHABET = 128;
+
+        private int[][] transitions = new int[1][ALPHABET];
+        private int[] outputs = new int[1];
+        private int states = 1;
+
+        KeywordAutomaton add(String[] keywords, int flag) {
+            for (String keyword : keywords) {
+                int state = 0;
+                for (int i = 0; i < keyword.length(); i++) {
+                    int c = fold(keyword.charAt(i));
+                    if (transitions[state][c] == 0) {
+                        transitions[state][c] = newState();
+                    }
+                    state = transitions[state][c];
+                }
+                outputs[state] |= flag;
+            }
+            return this;
+        }
+
+        KeywordAutomaton build() {
+            // Breadth-first failure links turn the keyword trie into a full DFA
+            int[] failure = new int[states];
+            Queue<Integer> queue = new ArrayDeque<>();
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = transitions[0][c];
+                if (next != 0) {
+                    queue.add(next);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                outputs[state] |= outputs[failure[state]];
+                for (int c = 0; c < ALPHABET; c++) {
+                    int next = transitions[state][c];
+                    if (next != 0) {
+                        failure[next] = transitions[failure[state]][c];
+                        queue.add(next);
+                    } else {
+                        transitions[state][c] = transitions[failure[state]][c];
+                    }
+                }
+            }
+            transitions = Arrays.copyOf(transitions, states);
+            outputs = Arrays.copyOf(outputs, states);
+            return this;
+        }
+
+        /**
+         * Return the union of flags of every keyword found in the input.
+         */
+        int scan(CharSequence input) {
+            int[][] table = transitions;
+            int[] out = outputs;
+            int state = 0;
+            int found = 0;
+            for (int i = 0; i < input.length(); i++) {
+                char c = input.charAt(i);
+                // No keyword contains non-ASCII characters, so they always restart matching
+                state = c < ALPHABET ? table[state][fold(c)] : 0;
+                found |= out[state];
+            }
+            return found;
+        }
+
+        private int newState() {
+            if (states == transitions.length) {
+                transitions = Arrays.copyOf(transitions, states * 2);
+                outputs = Arrays.copyOf(outputs, states * 2);
+            }
+            transitions[states] = new int[ALPHABET];
+            return states++;
+        }
+
+        private static int fold(char c) {
+            return c >= 'a' && c <= 'z' ? c - 32 : c;
+        }
+    }
+}
@@ -4,11 +4,15 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.weavecode.chatwoot.metrics.ChatwootMetricsCollector;
+import com.weavecode.chatwoot.metrics.UserActivityTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -16,6 +20,8 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Optional;
 import java.util.UUID;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -28,40 +34,94 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
     
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+    
+    @Autowired
+    private TokenRevocationService revocationService;
+    
+    @Autowired
+    private UserActivityTracker activityTracker;
+    
+    @Autowired
+    private ChatwootMetricsCollector metricsCollector;
+    
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
+        CurrentUserContext context = CurrentUserContext.bind(request);
+        
         try {
             String jwt = getJwtFromRequest(request);
             
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
-                UUID userId = tokenProvider.getUserIdFromToken(jwt);
-                UUID tenantId = tokenProvider.getTenantIdFromToken(jwt);
+            Optional<JwtPrincipal> principal = StringUtils.hasText(jwt) ? tokenProvider.parseToken(jwt) : Optional.empty();
+            
+            if (principal.isPresent() && revocationService.isRevoked(principal.get().getTokenId())) {
+                logger.debug("Rejected revoked token for user: {}", principal.get().getSubject());
+                principal = Optional.empty();
+            }
+            
+            if (principal.isPresent()) {
+                String username = principal.get().getSubject();
+                UUID userId = principal.get().getUserId();
+                UUID tenantId = principal.get().getTenantId();
                 
                 if (StringUtils.hasText(username) && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                    UserDetails userDetails = resolveUserDetails(principal.get(), context);
                     
-                    // Create authentication token with tenant context
-                    UsernamePasswordAuthenticationToken authentication = 
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                    
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    
-                    // Set tenant context in request attributes for later use
-                    request.setAttribute("userId", userId);
-                    request.setAttribute("tenantId", tenantId);
-                    
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                    
-                    logger.debug("Set user authentication for user: {} in tenant: {}", username, tenantId);
+                    if (userDetails != null) {
+                        // Create authentication token with tenant context
+                        UsernamePasswordAuthenticationToken authentication = 
+                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                        
+                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        
+                        // Set tenant context in request attributes for later use
+                        request.setAttribute("userId", userId);
+                        request.setAttribute("tenantId", tenantId);
+                        
+                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                        context.setCurrentUser(CurrentUser.from(principal.get(), userDetails));
+                        activityTracker.recordActivity(tenantId, userId);
+                        
+                        logger.debug("Set user authentication for user: {} in tenant: {}", username, tenantId);
+                    } else {
+                        logger.debug("Rejected token for inactive user: {}", username);
+                    }
                 }
             }
         } catch (Exception ex) {
             logger.error("Could not set user authentication in security context", ex);
         }
         
-        filterChain.doFilter(request, response);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            metricsCollector.recordIdentityLookups(context.getIdentityLookups());
+        }
+    }
+    
+    /**
+     * Build the user from the token claims when they can be trusted, otherwise
+     * fall back to the short-lived user cache backed by the database.
+     */
+    private UserDetails resolveUserDetails(JwtPrincipal principal, CurrentUserContext context) {
+        String username = principal.getSubject();
+        
+        if (principal.hasAuthorityClaims() && !userDetailsCache.isStale(username, principal.getIssuedAt())) {
+            if (!principal.isActive()) {
+                return null;
+            }
+            return User.withUsername(username)
+                .password("")
+                .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + principal.getRole())))
+                .build();
+        }
+        
+        return userDetailsCache.getOrLoad(username, email -> {
+            context.recordIdentityLookup();
+            return userDetailsService.loadUserByUsername(email);
+        });
     }
     
     private String getJwtFromRequest(HttpServletRequest request) {
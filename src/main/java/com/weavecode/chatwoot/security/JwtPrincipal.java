@@ -0,0 +1,123 @@
+package com.weavecode.chatwoot.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Immutable view of a verified JWT.
+ *
+ * Instances are only created by {@link JwtTokenProvider} after the token
+ * signature and expiry have been checked, so holders can trust every field
+ * without parsing the token again.
+ */
+public final class JwtPrincipal {
+
+    private static final Instant NEVER_EXPIRES = Instant.ofEpochMilli(Long.MAX_VALUE);
+
+    private final String tokenId;
+    private final String subject;
+    private final UUID userId;
+    private final UUID tenantId;
+    private final String role;
+    private final String status;
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+
+    public JwtPrincipal(String subject, UUID userId, UUID tenantId, Instant expiresAt) {
+        this(subject, userId, tenantId, null, null, null, expiresAt);
+    }
+
+    public JwtPrincipal(String subject, UUID userId, UUID tenantId, String role, String status,
+                        Instant issuedAt, Instant expiresAt) {
+        this(null, subject, userId, tenantId, role, status, issuedAt, expiresAt);
+    }
+
+    public JwtPrincipal(String tokenId, String subject, UUID userId, UUID tenantId, String role, String status,
+                        Instant issuedAt, Instant expiresAt) {
+        this.tokenId = tokenId;
+        this.subject = subject;
+        this.userId = userId;
+        this.tenantId = tenantId;
+        this.role = role;
+        this.status = status;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    static JwtPrincipal fromClaims(Claims claims) {
+        return new JwtPrincipal(
+            claims.getId(),
+            claims.getSubject(),
+            toUuid(claims.get("userId", String.class)),
+            toUuid(claims.get("tenantId", String.class)),
+            claims.get("role", String.class),
+            claims.get("status", String.class),
+            claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+            claims.getExpiration() != null ? claims.getExpiration().toInstant() : NEVER_EXPIRES
+        );
+    }
+
+    private static UUID toUuid(String value) {
+        return value != null ? UUID.fromString(value) : null;
+    }
+
+    /**
+     * The token's jti claim, or null for tokens issued before jti was added.
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public UUID getTenantId() {
+        return tenantId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+
+    /**
+     * Whether the token carries enough claims to authenticate without a user lookup.
+     * Tokens issued before role/status claims were added return false.
+     */
+    public boolean hasAuthorityClaims() {
+        return role != null && status != null && issuedAt != null;
+    }
+
+    public boolean isActive() {
+        return "active".equalsIgnoreCase(status);
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAt.toEpochMilli() <= nowMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "JwtPrincipal{tokenId='" + tokenId + "', subject='" + subject + "', userId=" + userId +
+               ", tenantId=" + tenantId + ", role=" + role + ", status=" + status +
+               ", expiresAt=" + expiresAt + "}";
+    }
+}
@@ -0,0 +1,86 @@
+package com.weavecode.chatwoot.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded, expiry-aware cache of verified tokens.
+ *
+ * Entries are keyed by a SHA-256 digest of the raw token so the cache never
+ * holds bearer credentials, and each entry lives only until the token's own
+ * expiry. When the cache is full, expired entries are purged first and, if
+ * that is not enough, arbitrary entries are dropped down to 90% capacity.
+ */
+class JwtTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final Map<String, JwtPrincipal> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    JwtTokenCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    String keyFor(String token) {
+        MessageDigest digest = SHA_256.get();
+        byte[] hash = digest.digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    JwtPrincipal get(String key, long nowMillis) {
+        JwtPrincipal principal = entries.get(key);
+        if (principal == null) {
+            return null;
+        }
+        if (principal.isExpired(nowMillis)) {
+            entries.remove(key, principal);
+            return null;
+        }
+        return principal;
+    }
+
+    void put(String key, JwtPrincipal principal, long nowMillis) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            makeRoom(nowMillis);
+        }
+        entries.put(key, principal);
+    }
+
+    void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void makeRoom(long nowMillis) {
+        entries.values().removeIf(principal -> principal.isExpired(nowMillis));
+
+        int target = (int) (maxEntries * 0.9);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
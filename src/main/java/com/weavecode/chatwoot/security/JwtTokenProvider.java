@@ -2,6 +2,7 @@ package com.weavecode.chatwoot.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.Optional;
 import java.util.UUID;
 
 @Component
@@ -24,9 +26,25 @@ public class JwtTokenProvider {
     @Value("${app.jwt.expiration}")
     private int jwtExpirationInMs;
     
+    @Value("${app.jwt.cache.max-size:10000}")
+    private int tokenCacheMaxSize;
+    
+    private Key signingKey;
+    private JwtParser jwtParser;
+    private JwtTokenCache tokenCache;
+    
+    @PostConstruct
+    public void init() {
+        // The key and parser are immutable and thread-safe, so build them once
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.tokenCache = new JwtTokenCache(tokenCacheMaxSize);
+    }
+    
     private Key getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
     
     public String generateToken(Authentication authentication) {
@@ -39,6 +57,7 @@ public class JwtTokenProvider {
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
         
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
@@ -47,58 +66,83 @@ public class JwtTokenProvider {
     }
     
     public String generateTokenForUser(UUID userId, String email, UUID tenantId) {
+        return generateTokenForUser(userId, email, tenantId, null, null);
+    }
+    
+    /**
+     * Issue a token that also carries the user's role and status, so requests
+     * can be authenticated from the claims without loading the user row.
+     */
+    public String generateTokenForUser(UUID userId, String email, UUID tenantId, String role, String status) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
         
-        return Jwts.builder()
+        // jti lets a single token be revoked before it expires
+        JwtBuilder builder = Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(email)
                 .claim("userId", userId.toString())
-                .claim("tenantId", tenantId.toString())
+                .claim("tenantId", tenantId.toString());
+        
+        if (role != null && status != null) {
+            builder.claim("role", role)
+                   .claim("status", status.toLowerCase());
+        }
+        
+        return builder
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
                 .signWith(getSigningKey(), SignatureAlgorithm.HS512)
                 .compact();
     }
     
+    public long getJwtExpirationInMs() {
+        return jwtExpirationInMs;
+    }
+    
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
         
         return claims.getSubject();
     }
     
     public UUID getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
         
         String userIdStr = claims.get("userId", String.class);
         return userIdStr != null ? UUID.fromString(userIdStr) : null;
     }
     
     public UUID getTenantIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
         
         String tenantIdStr = claims.get("tenantId", String.class);
         return tenantIdStr != null ? UUID.fromString(tenantIdStr) : null;
     }
     
-    public boolean validateToken(String authToken) {
+    /**
+     * Parse and verify a token once, returning its principal.
+     * Tokens seen before are served from the cache until they expire,
+     * so repeat requests with the same bearer token skip signature checks.
+     */
+    public Optional<JwtPrincipal> parseToken(String authToken) {
+        if (authToken == null || authToken.isEmpty()) {
+            logger.error("JWT claims string is empty");
+            return Optional.empty();
+        }
+        
+        long now = System.currentTimeMillis();
+        String cacheKey = tokenCache.keyFor(authToken);
+        JwtPrincipal cached = tokenCache.get(cacheKey, now);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
+            Claims claims = jwtParser.parseClaimsJws(authToken).getBody();
+            JwtPrincipal principal = JwtPrincipal.fromClaims(claims);
+            tokenCache.put(cacheKey, principal, now);
+            return Optional.of(principal);
         } catch (SecurityException ex) {
             logger.error("Invalid JWT signature");
         } catch (MalformedJwtException ex) {
@@ -109,7 +153,13 @@ public class JwtTokenProvider {
             logger.error("Unsupported JWT token");
         } catch (IllegalArgumentException ex) {
             logger.error("JWT claims string is empty");
+        } catch (JwtException ex) {
+            logger.error("Invalid JWT token: {}", ex.getMessage());
         }
-        return false;
+        return Optional.empty();
+    }
+    
+    public boolean validateToken(String authToken) {
+        return parseToken(authToken).isPresent();
     }
 }
@@ -0,0 +1,283 @@
+package com.weavecode.chatwoot.security;
+
+import com.weavecode.chatwoot.metrics.ExecutorRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier rate limiter.
+ *
+ * Each node leases small blocks of quota from the shared Redis budget and
+ * spends them from lock-free local buckets, so most requests are decided
+ * without a network call. Buckets are topped up in the background before
+ * they run dry, leases expire after a short time so unused quota flows back
+ * to other nodes, and everything still held is returned on shutdown.
+ *
+ * The global limit is exact up to the quota currently leased out, which is
+ * at most one block per client per node: only one thread at a time leases
+ * for a bucket, and requests arriving meanwhile are decided by Redis one
+ * at a time. A denial is remembered until its retry-after passes, so a
+ * client over its limit does not reach Redis on every request. Policies
+ * whose block size works out to a single request (auth endpoints) always
+ * go straight to Redis.
+ */
+@Component
+public class LeasingRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeasingRateLimiter.class);
+
+    @Autowired
+    private RedisRateLimiter redisRateLimiter;
+
+    @Autowired
+    private ExecutorRegistry executorRegistry;
+
+    @Value("${app.security.rate-limit.leasing.enabled:true}")
+    private boolean leasingEnabled;
+
+    // A lease covers this fraction of the per-minute budget
+    @Value("${app.security.rate-limit.leasing.minute-divisor:20}")
+    private int minuteDivisor;
+
+    @Value("${app.security.rate-limit.leasing.lease-ttl-ms:2000}")
+    private long leaseTtlMs;
+
+    @Value("${app.security.rate-limit.leasing.redis-backoff-ms:5000}")
+    private long redisBackoffMs;
+
+    private final Map<String, LeasedBucket> buckets = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor refillExecutor;
+
+    // Requests fail open without touching Redis until this time
+    private volatile long redisBackoffUntil;
+
+    @PostConstruct
+    public void start() {
+        // Refills and returns are dropped rather than run inline once the queue is full
+        refillExecutor = executorRegistry.newThreadPool("rate-limit-lease", 1, 2, Duration.ofSeconds(30), 1024,
+            new ThreadPoolExecutor.AbortPolicy(), null);
+    }
+
+    /**
+     * Decide whether the client may make one more request under the policy.
+     *
+     * @return the decision, or null when no decision could be made because
+     *         Redis is unavailable; callers should let the request through
+     */
+    public RateLimitResult tryAcquire(RateLimitPolicy policy, String clientId) {
+        int leaseSize = leaseSize(policy);
+        long now = System.currentTimeMillis();
+        if (!leasingEnabled || leaseSize <= 1) {
+            return now < redisBackoffUntil ? null
+                : callRedis(() -> redisRateLimiter.tryAcquire(policy, clientId), now);
+        }
+
+        LeasedBucket bucket = buckets.computeIfAbsent(policy.getName() + ":" + clientId,
+            key -> new LeasedBucket(policy, clientId));
+
+        // Fast path: spend from the local lease
+        if (bucket.expiresAt > now && bucket.tryTake()) {
+            if (bucket.tokens.get() <= leaseSize / 4) {
+                refillAsync(bucket, leaseSize);
+            }
+            return bucket.localResult();
+        }
+
+        // A recent denial stands until its retry-after passes, without asking Redis again
+        if (now < bucket.deniedUntil) {
+            return bucket.deniedResult(now);
+        }
+        if (now < redisBackoffUntil) {
+            return null;
+        }
+
+        // Slow path: the lease is empty or expired. One thread per bucket leases inline;
+        // the others decide their own request directly rather than each taking a lease.
+        if (!bucket.refilling.compareAndSet(false, true)) {
+            return remember(bucket, callRedis(() -> redisRateLimiter.tryAcquire(policy, clientId), now), now);
+        }
+        try {
+            returnUnused(bucket);
+            RateLimitResult lease = callRedis(() -> redisRateLimiter.lease(policy, clientId, leaseSize), now);
+            if (lease == null || !lease.isAllowed()) {
+                return remember(bucket, lease, now);
+            }
+            bucket.grant(lease, lease.getGranted() - 1, now + leaseTtlMs);
+            return bucket.localResult();
+        } finally {
+            bucket.refilling.set(false);
+        }
+    }
+
+    private static RateLimitResult remember(LeasedBucket bucket, RateLimitResult result, long now) {
+        if (result != null && !result.isAllowed()) {
+            bucket.deny(result, now);
+        }
+        return result;
+    }
+
+    private void refillAsync(LeasedBucket bucket, int leaseSize) {
+        if (!bucket.refilling.compareAndSet(false, true)) {
+            return;
+        }
+        if (System.currentTimeMillis() < redisBackoffUntil) {
+            bucket.refilling.set(false);
+            return;
+        }
+        try {
+            refillExecutor.execute(() -> {
+                try {
+                    long now = System.currentTimeMillis();
+                    RateLimitResult lease = callRedis(
+                        () -> redisRateLimiter.lease(bucket.policy, bucket.clientId, leaseSize), now);
+                    if (lease != null && lease.isAllowed()) {
+                        bucket.grant(lease, lease.getGranted(), now + leaseTtlMs);
+                    } else {
+                        remember(bucket, lease, now);
+                    }
+                } finally {
+                    bucket.refilling.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The request that drains the bucket will lease inline instead
+            bucket.refilling.set(false);
+        }
+    }
+
+    private RateLimitResult callRedis(Supplier<RateLimitResult> call, long now) {
+        try {
+            return call.get();
+        } catch (Exception e) {
+            redisBackoffUntil = now + redisBackoffMs;
+            logger.error("Rate limit store unavailable, failing open for {} ms: {}", redisBackoffMs, e.getMessage());
+            return null;
+        }
+    }
+
+    private int leaseSize(RateLimitPolicy policy) {
+        return Math.max(1, policy.getPerMinute() / Math.max(1, minuteDivisor));
+    }
+
+    private void returnUnused(LeasedBucket bucket) {
+        long unused = bucket.tokens.getAndSet(0);
+        if (unused > 0) {
+            try {
+                refillExecutor.execute(() -> release(bucket, unused));
+            } catch (RejectedExecutionException e) {
+                // Not returned; the quota frees itself once its window passes
+                logger.debug("Dropped return of {} leased requests for {}", unused, bucket.clientId);
+            }
+        }
+    }
+
+    private void release(LeasedBucket bucket, long unused) {
+        try {
+            redisRateLimiter.release(bucket.policy, bucket.clientId, unused);
+        } catch (Exception e) {
+            logger.warn("Could not return {} leased requests for {}: {}", unused, bucket.clientId, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void evictExpiredLeases() {
+        long now = System.currentTimeMillis();
+        Iterator<LeasedBucket> iterator = buckets.values().iterator();
+        while (iterator.hasNext()) {
+            LeasedBucket bucket = iterator.next();
+            if (bucket.expiresAt <= now && bucket.deniedUntil <= now && !bucket.refilling.get()) {
+                iterator.remove();
+                returnUnused(bucket);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void returnLeases() {
+        refillExecutor.shutdown();
+        int returned = 0;
+        for (LeasedBucket bucket : buckets.values()) {
+            long unused = bucket.tokens.getAndSet(0);
+            if (unused > 0) {
+                release(bucket, unused);
+                returned++;
+            }
+        }
+        buckets.clear();
+        logger.info("Returned {} rate limit leases on shutdown", returned);
+    }
+
+    int bucketCount() {
+        return buckets.size();
+    }
+
+    private static final class LeasedBucket {
+        private final RateLimitPolicy policy;
+        private final String clientId;
+        private final AtomicLong tokens = new AtomicLong();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+        private volatile long expiresAt;
+        private volatile RateLimitResult lastLease;
+        private volatile RateLimitResult lastDenial;
+        private volatile long deniedUntil;
+
+        private LeasedBucket(RateLimitPolicy policy, String clientId) {
+            this.policy = policy;
+            this.clientId = clientId;
+        }
+
+        private boolean tryTake() {
+            long current;
+            do {
+                current = tokens.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(current, current - 1));
+            return true;
+        }
+
+        private void grant(RateLimitResult lease, long count, long expiresAt) {
+            this.lastLease = lease;
+            this.expiresAt = expiresAt;
+            tokens.addAndGet(count);
+        }
+
+        private void deny(RateLimitResult denial, long now) {
+            this.lastDenial = denial;
+            this.deniedUntil = now + denial.getRetryAfterMillis();
+        }
+
+        private RateLimitResult deniedResult(long now) {
+            RateLimitResult denial = lastDenial;
+            long retryAfter = Math.max(0, deniedUntil - now);
+            long elapsed = denial.getRetryAfterMillis() - retryAfter;
+            return new RateLimitResult(0, denial.getLimit(), 0,
+                Math.max(retryAfter, denial.getResetMillis() - elapsed), retryAfter);
+        }
+
+        private RateLimitResult localResult() {
+            RateLimitResult lease = lastLease;
+            // Quota held locally has already been taken from the shared budget
+            return new RateLimitResult(1, lease.getLimit(), lease.getRemaining() + tokens.get(),
+                lease.getResetMillis(), 0);
+        }
+    }
+}
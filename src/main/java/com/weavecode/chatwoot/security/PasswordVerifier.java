@@ -0,0 +1,130 @@
+package com.weavecode.chatwoot.security;
+
+import com.weavecode.chatwoot.config.ExecutorConfig;
+import com.weavecode.chatwoot.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Password verification on the CPU-bound executor.
+ *
+ * BCrypt is deliberately expensive, so a login storm run on request threads
+ * starves every other endpoint of CPU. Here at most one hash per core runs
+ * at a time and the executor's bounded queue holds the rest; once the queue
+ * is full, further logins are shed immediately with a retry hint instead of
+ * piling up. The pool is sized under app.executors.cpu.
+ */
+@Component
+public class PasswordVerifier {
+
+    // Used when the BCrypt cost is not yet known
+    private static final double DEFAULT_HASH_SECONDS = 0.1;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier(ExecutorConfig.CPU_EXECUTOR)
+    private ThreadPoolExecutor executor;
+
+    @Value("${app.security.password-verification.timeout-ms:10000}")
+    private long timeoutMs;
+
+    // Verified when the user does not exist, so unknown emails take as long as wrong passwords
+    private String dummyHash;
+
+    private Timer queueWaitTimer;
+    private Timer hashTimer;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void start() {
+        dummyHash = passwordEncoder.encode(UUID.randomUUID().toString());
+
+        // Queue depth and rejections of the pool itself are under chatwoot.executor.*{executor=cpu}
+        queueWaitTimer = Timer.builder("chatwoot.auth.password.queue.wait")
+                .description("Time password verifications spend queued")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        hashTimer = Timer.builder("chatwoot.auth.password.hash.duration")
+                .description("Time spent hashing to verify a password")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("chatwoot.auth.password.rejected")
+                .description("Logins shed because password verification was saturated")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Check a raw password against its stored hash, blocking until the
+     * CPU executor gets to it. A null hash (unknown user) is checked
+     * against a dummy hash and never matches.
+     *
+     * @throws ServiceUnavailableException if the pool is saturated
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long enqueuedAt = System.nanoTime();
+        Future<Boolean> result;
+        try {
+            result = executor.submit(() -> {
+                long start = System.nanoTime();
+                queueWaitTimer.record(start - enqueuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    boolean matches = passwordEncoder.matches(rawPassword,
+                        encodedPassword != null ? encodedPassword : dummyHash);
+                    return matches && encodedPassword != null;
+                } finally {
+                    hashTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw saturated();
+        }
+
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // A cancelled task that is still queued is skipped when its turn comes
+            result.cancel(false);
+            throw saturated();
+        } catch (InterruptedException e) {
+            result.cancel(false);
+            Thread.currentThread().interrupt();
+            throw saturated();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password verification failed", e.getCause());
+        }
+    }
+
+    private ServiceUnavailableException saturated() {
+        rejectedCounter.increment();
+        return new ServiceUnavailableException("Password verification is saturated", retryAfterSeconds());
+    }
+
+    /**
+     * Estimated seconds until the current backlog drains.
+     */
+    long retryAfterSeconds() {
+        double hashSeconds = hashTimer.count() > 0 ? hashTimer.mean(TimeUnit.SECONDS) : DEFAULT_HASH_SECONDS;
+        long backlog = executor.getQueue().size() + (long) executor.getActiveCount();
+        return Math.max(1, (long) Math.ceil(backlog * hashSeconds / executor.getMaximumPoolSize()));
+    }
+}
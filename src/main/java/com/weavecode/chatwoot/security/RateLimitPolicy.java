@@ -0,0 +1,36 @@
+package com.weavecode.chatwoot.security;
+
+/**
+ * Per-minute and per-hour request budgets for each class of endpoint.
+ */
+public enum RateLimitPolicy {
+
+    AUTH("auth", 5, 20),
+    API("api", 200, 2000),
+    GENERAL("general", 100, 1000);
+
+    static final long MINUTE_MILLIS = 60_000L;
+    static final long HOUR_MILLIS = 3_600_000L;
+
+    private final String name;
+    private final int perMinute;
+    private final int perHour;
+
+    RateLimitPolicy(String name, int perMinute, int perHour) {
+        this.name = name;
+        this.perMinute = perMinute;
+        this.perHour = perHour;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPerMinute() {
+        return perMinute;
+    }
+
+    public int getPerHour() {
+        return perHour;
+    }
+}
@@ -0,0 +1,63 @@
+package com.weavecode.chatwoot.security;
+
+/**
+ * Outcome of a rate limit check.
+ *
+ * Limit, remaining and reset describe the most constrained window, which is
+ * what clients need to pace themselves.
+ */
+public final class RateLimitResult {
+
+    private final long granted;
+    private final long limit;
+    private final long remaining;
+    private final long resetMillis;
+    private final long retryAfterMillis;
+
+    public RateLimitResult(long granted, long limit, long remaining, long resetMillis, long retryAfterMillis) {
+        this.granted = granted;
+        this.limit = limit;
+        this.remaining = remaining;
+        this.resetMillis = resetMillis;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public boolean isAllowed() {
+        return granted > 0;
+    }
+
+    /**
+     * Number of requests granted; more than one when quota is leased in bulk.
+     */
+    public long getGranted() {
+        return granted;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * Milliseconds until the constrained window is fully replenished.
+     */
+    public long getResetMillis() {
+        return resetMillis;
+    }
+
+    /**
+     * Milliseconds until a rejected request would be admitted; zero when allowed.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitResult{granted=" + granted + ", limit=" + limit + ", remaining=" + remaining +
+               ", resetMillis=" + resetMillis + ", retryAfterMillis=" + retryAfterMillis + "}";
+    }
+}
@@ -0,0 +1,97 @@
+package com.weavecode.chatwoot.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Redis-backed rate limiter.
+ *
+ * Both the minute and hour budgets are checked and consumed by a single GCRA
+ * script, so each call costs one round trip and concurrent requests cannot
+ * slip past a limit between the check and the increment.
+ */
+@Component
+public class RedisRateLimiter {
+
+    private static final StringRedisSerializer STRING_SERIALIZER = new StringRedisSerializer();
+
+    private final DefaultRedisScript<List> acquireScript;
+    private final DefaultRedisScript<Long> releaseScript;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    public RedisRateLimiter() {
+        acquireScript = new DefaultRedisScript<>();
+        acquireScript.setLocation(new ClassPathResource("redis/rate_limit_gcra.lua"));
+        acquireScript.setResultType(List.class);
+
+        releaseScript = new DefaultRedisScript<>();
+        releaseScript.setLocation(new ClassPathResource("redis/rate_limit_release.lua"));
+        releaseScript.setResultType(Long.class);
+    }
+
+    /**
+     * Consume one request from the client's minute and hour budgets.
+     */
+    public RateLimitResult tryAcquire(RateLimitPolicy policy, String clientId) {
+        return lease(policy, clientId, 1);
+    }
+
+    /**
+     * Consume up to the given number of requests from the client's minute and
+     * hour budgets. Fewer are granted when that is all both budgets can spare;
+     * none when either is exhausted.
+     */
+    public RateLimitResult lease(RateLimitPolicy policy, String clientId, int wanted) {
+        List<?> result = redisTemplate.execute(acquireScript, STRING_SERIALIZER, STRING_SERIALIZER,
+            keysFor(policy, clientId), windowArgs(policy, wanted));
+
+        if (result == null || result.size() < 5) {
+            throw new IllegalStateException("Unexpected rate limit script result: " + result);
+        }
+        return new RateLimitResult(
+            toLong(result.get(0)),
+            toLong(result.get(1)),
+            toLong(result.get(2)),
+            toLong(result.get(3)),
+            toLong(result.get(4))
+        );
+    }
+
+    /**
+     * Return unused requests from an earlier lease to the client's budgets.
+     */
+    public void release(RateLimitPolicy policy, String clientId, long count) {
+        if (count <= 0) {
+            return;
+        }
+        redisTemplate.execute(releaseScript, STRING_SERIALIZER, STRING_SERIALIZER,
+            keysFor(policy, clientId), windowArgs(policy, count));
+    }
+
+    private static List<String> keysFor(RateLimitPolicy policy, String clientId) {
+        // Hash tag keeps both keys on the same slot when running on a cluster
+        String prefix = "rate_limit:" + policy.getName() + ":{" + clientId + "}:";
+        return Arrays.asList(prefix + "minute", prefix + "hour");
+    }
+
+    private static Object[] windowArgs(RateLimitPolicy policy, long count) {
+        return new Object[] {
+            String.valueOf(policy.getPerMinute()), String.valueOf(RateLimitPolicy.MINUTE_MILLIS),
+            String.valueOf(policy.getPerHour()), String.valueOf(RateLimitPolicy.HOUR_MILLIS),
+            String.valueOf(count)
+        };
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString());
+    }
+}
@@ -1,8 +1,12 @@
 package com.weavecode.chatwoot.security;
 
+import com.weavecode.chatwoot.metrics.ChatwootMetricsCollector;
+import com.weavecode.chatwoot.metrics.LatencyHistograms;
+import com.weavecode.chatwoot.metrics.SqlProfiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -14,9 +18,9 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 @Order(4)
@@ -28,132 +32,153 @@ public class SecurityAuditFilter extends OncePerRequestFilter {
     @Autowired
     private ChatwootMetricsCollector metricsCollector;
 
+    @Autowired
+    private LatencyHistograms latencyHistograms;
+
+    @Autowired
+    private SqlProfiler sqlProfiler;
+
     // Track suspicious IPs and their activities
-    private final Map<String, SuspiciousActivity> suspiciousIps = new ConcurrentHashMap<>();
-    
-    // Thresholds for suspicious activity
-    private static final int MAX_FAILED_AUTH_ATTEMPTS = 10;
-    private static final int MAX_4XX_RESPONSES = 20;
-    private static final int MAX_5XX_RESPONSES = 5;
-    private static final int SUSPICIOUS_ACTIVITY_WINDOW_MINUTES = 15;
+    @Autowired
+    private SuspiciousActivityTracker activityTracker;
+
+    @Autowired
+    private AuditLogWriter auditLogWriter;
+
+    // Write every response to audit_logs, not only security-relevant ones
+    @Value("${app.audit.all-responses:false}")
+    private boolean auditAllResponses;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                   FilterChain filterChain) throws ServletException, IOException {
         
-        long startTime = System.currentTimeMillis();
-        String clientIp = getClientIpAddress(request);
+        EdgeRequestContext context = EdgeRequestContext.of(request);
         String userAgent = request.getHeader("User-Agent");
-        String endpoint = request.getRequestURI();
         String method = request.getMethod();
+        SqlProfiler.RequestScope outerScope = sqlProfiler.openRequestScope(context.getTenantId());
         
         try {
-            // Log request start
-            logRequestStart(clientIp, userAgent, endpoint, method);
-            
             // Continue with the filter chain
             filterChain.doFilter(request, response);
             
-            // Log response
+            // Audit response
             int statusCode = response.getStatus();
-            long responseTime = System.currentTimeMillis() - startTime;
+            long elapsedNanos = context.elapsedNanos();
+            long responseTime = elapsedNanos / 1_000_000L;
+            String routeTemplate = EdgeRequestContext.routeTemplate(request);
             
-            logResponse(clientIp, endpoint, method, statusCode, responseTime);
+            if (isAuditable(request, context, method, statusCode)) {
+                auditResponse(context, userAgent, method, statusCode, responseTime);
+            }
+            metricsCollector.recordApiRequest(routeTemplate, method, statusCode);
+            latencyHistograms.record(routeTemplate, context.getTenantId(), elapsedNanos, statusCode);
             
             // Check for suspicious activity
-            checkSuspiciousActivity(clientIp, endpoint, statusCode, responseTime);
+            checkSuspiciousActivity(context, userAgent, statusCode);
             
         } catch (Exception e) {
+            latencyHistograms.record(EdgeRequestContext.routeTemplate(request), context.getTenantId(),
+                context.elapsedNanos(), 500);
+
             // Log security exception
-            logSecurityException(clientIp, endpoint, method, e);
+            logSecurityException(context, userAgent, method, e);
             throw e;
+        } finally {
+            sqlProfiler.closeRequestScope(outerScope, method + " " + EdgeRequestContext.routeTemplate(request));
         }
     }
 
-    private void logRequestStart(String clientIp, String userAgent, String endpoint, String method) {
-        Map<String, Object> logData = new HashMap<>();
-        logData.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        logData.put("event", "REQUEST_START");
-        logData.put("clientIp", clientIp);
-        logData.put("userAgent", userAgent);
-        logData.put("endpoint", endpoint);
-        logData.put("method", method);
-        
-        securityLogger.info("Security audit: {}", logData);
+    /**
+     * Failed responses, authentication and actuator calls, and changes made
+     * with admin rights; routine successful traffic belongs in the access log.
+     */
+    private boolean isAuditable(HttpServletRequest request, EdgeRequestContext context, String method,
+                                int statusCode) {
+        if (auditAllResponses || statusCode >= 400) {
+            return true;
+        }
+        EdgeRequestContext.RouteClass routeClass = context.getRouteClass();
+        if (routeClass == EdgeRequestContext.RouteClass.AUTH || routeClass == EdgeRequestContext.RouteClass.ACTUATOR) {
+            return true;
+        }
+        boolean readOnly = "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+        return !readOnly && request.isUserInRole("ADMIN");
     }
 
-    private void logResponse(String clientIp, String endpoint, String method, int statusCode, long responseTime) {
-        Map<String, Object> logData = new HashMap<>();
-        logData.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        logData.put("event", "RESPONSE");
-        logData.put("clientIp", clientIp);
-        logData.put("endpoint", endpoint);
-        logData.put("method", method);
-        logData.put("statusCode", statusCode);
-        logData.put("responseTime", responseTime);
-        
-        // Log suspicious responses
-        if (statusCode >= 400) {
-            logData.put("severity", statusCode >= 500 ? "HIGH" : "MEDIUM");
-            securityLogger.warn("Suspicious response: {}", logData);
-        } else {
-            securityLogger.info("Security audit: {}", logData);
-        }
+    private void auditResponse(EdgeRequestContext context, String userAgent, String method, int statusCode,
+                               long responseTime) {
+        Map<String, Object> details = new HashMap<>();
+        details.put("endpoint", context.getPath());
+        details.put("method", method);
+        details.put("statusCode", statusCode);
+        details.put("responseTime", responseTime);
+
+        // Failed responses are worth more than routine traffic when the queue is full
+        AuditEvent.Severity severity = statusCode >= 500 ? AuditEvent.Severity.HIGH
+            : statusCode >= 400 ? AuditEvent.Severity.MEDIUM : AuditEvent.Severity.LOW;
+        auditLogWriter.publish(newEvent(context, "RESPONSE", "HTTP_REQUEST", userAgent, details, severity));
     }
 
-    private void logSecurityException(String clientIp, String endpoint, String method, Exception e) {
+    private void logSecurityException(EdgeRequestContext context, String userAgent, String method, Exception e) {
         Map<String, Object> logData = new HashMap<>();
         logData.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
         logData.put("event", "SECURITY_EXCEPTION");
-        logData.put("clientIp", clientIp);
-        logData.put("endpoint", endpoint);
+        logData.put("clientIp", context.getClientIp());
+        logData.put("endpoint", context.getPath());
         logData.put("method", method);
         logData.put("exception", e.getClass().getSimpleName());
         logData.put("message", e.getMessage());
         logData.put("severity", "HIGH");
         
         securityLogger.error("Security exception: {}", logData);
+        auditLogWriter.publish(newEvent(context, "SECURITY_EXCEPTION", "HTTP_REQUEST", userAgent,
+            logData, AuditEvent.Severity.HIGH));
         
         // Increment security metrics
         metricsCollector.incrementApiErrors();
     }
 
-    private void checkSuspiciousActivity(String clientIp, String endpoint, int statusCode, long responseTime) {
-        SuspiciousActivity activity = suspiciousIps.computeIfAbsent(clientIp, k -> new SuspiciousActivity());
-        
+    private AuditEvent newEvent(EdgeRequestContext context, String action, String entityType, String userAgent,
+                                Map<String, Object> details, AuditEvent.Severity severity) {
+        return new AuditEvent(action, entityType, null, context.getTenantId(), context.getUserId(),
+            context.getClientIp(), userAgent, details, severity);
+    }
+
+    private void checkSuspiciousActivity(EdgeRequestContext context, String userAgent, int statusCode) {
+        int[] kinds = new int[3];
+        int count = 0;
+
         // Update activity counters
         if (statusCode >= 400 && statusCode < 500) {
-            activity.increment4xxResponses();
+            kinds[count++] = SuspiciousActivityTracker.RESPONSES_4XX;
         } else if (statusCode >= 500) {
-            activity.increment5xxResponses();
+            kinds[count++] = SuspiciousActivityTracker.RESPONSES_5XX;
         }
         
         // Check for failed authentication attempts
-        if (isAuthEndpoint(endpoint) && statusCode >= 400) {
-            activity.incrementFailedAuthAttempts();
+        if (context.getRouteClass() == EdgeRequestContext.RouteClass.AUTH && statusCode >= 400) {
+            kinds[count++] = SuspiciousActivityTracker.FAILED_AUTH;
         }
         
         // Check for suspicious patterns
-        if (isSuspiciousPattern(endpoint, userAgent)) {
-            activity.incrementSuspiciousPatterns();
+        if (isSuspiciousPattern(context.getPath(), userAgent)) {
+            kinds[count++] = SuspiciousActivityTracker.SUSPICIOUS_PATTERNS;
         }
         
+        if (count == 0) {
+            return;
+        }
+
         // Log suspicious activity if thresholds are exceeded
-        if (activity.isSuspicious()) {
-            logSuspiciousActivity(clientIp, activity);
+        SuspiciousActivityTracker.ActivitySnapshot activity =
+            activityTracker.record(context.getClientIp(), Arrays.copyOf(kinds, count));
+        if (activity != null) {
+            logSuspiciousActivity(context, userAgent, activity);
             
             // Increment security metrics
             metricsCollector.incrementApiErrors();
         }
-        
-        // Clean up old activity records
-        cleanupOldActivity();
-    }
-
-    private boolean isAuthEndpoint(String endpoint) {
-        return endpoint.contains("/api/auth/") || 
-               endpoint.contains("/api/login") || 
-               endpoint.contains("/api/register");
     }
 
     private boolean isSuspiciousPattern(String endpoint, String userAgent) {
@@ -166,11 +191,12 @@ public class SecurityAuditFilter extends OncePerRequestFilter {
                ));
     }
 
-    private void logSuspiciousActivity(String clientIp, SuspiciousActivity activity) {
+    private void logSuspiciousActivity(EdgeRequestContext context, String userAgent,
+                                       SuspiciousActivityTracker.ActivitySnapshot activity) {
         Map<String, Object> logData = new HashMap<>();
         logData.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
         logData.put("event", "SUSPICIOUS_ACTIVITY");
-        logData.put("clientIp", clientIp);
+        logData.put("clientIp", context.getClientIp());
         logData.put("failedAuthAttempts", activity.getFailedAuthAttempts());
         logData.put("4xxResponses", activity.get4xxResponses());
         logData.put("5xxResponses", activity.get5xxResponses());
@@ -178,80 +204,13 @@ public class SecurityAuditFilter extends OncePerRequestFilter {
         logData.put("severity", "HIGH");
         
         securityLogger.warn("Suspicious activity detected: {}", logData);
-    }
-
-    private void cleanupOldActivity() {
-        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(SUSPICIOUS_ACTIVITY_WINDOW_MINUTES);
-        
-        suspiciousIps.entrySet().removeIf(entry -> 
-            entry.getValue().getLastActivity().isBefore(cutoff)
-        );
-    }
-
-    private String getClientIpAddress(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-        
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
-        }
-        
-        return request.getRemoteAddr();
+        auditLogWriter.publish(newEvent(context, "SUSPICIOUS_ACTIVITY", "CLIENT_IP", userAgent,
+            logData, AuditEvent.Severity.HIGH));
     }
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         // Skip audit for health checks and static resources
-        String path = request.getRequestURI();
-        return path.equals("/actuator/health") ||
-               path.equals("/actuator/info") ||
-               path.startsWith("/static/") ||
-               path.startsWith("/public/") ||
-               path.equals("/favicon.ico");
-    }
-
-    private static class SuspiciousActivity {
-        private int failedAuthAttempts = 0;
-        private int responses4xx = 0;
-        private int responses5xx = 0;
-        private int suspiciousPatterns = 0;
-        private LocalDateTime lastActivity = LocalDateTime.now();
-
-        public void incrementFailedAuthAttempts() {
-            failedAuthAttempts++;
-            lastActivity = LocalDateTime.now();
-        }
-
-        public void increment4xxResponses() {
-            responses4xx++;
-            lastActivity = LocalDateTime.now();
-        }
-
-        public void increment5xxResponses() {
-            responses5xx++;
-            lastActivity = LocalDateTime.now();
-        }
-
-        public void incrementSuspiciousPatterns() {
-            suspiciousPatterns++;
-            lastActivity = LocalDateTime.now();
-        }
-
-        public boolean isSuspicious() {
-            return failedAuthAttempts >= MAX_FAILED_AUTH_ATTEMPTS ||
-                   responses4xx >= MAX_4XX_RESPONSES ||
-                   responses5xx >= MAX_5XX_RESPONSES ||
-                   suspiciousPatterns >= 5;
-        }
-
-        // Getters
-        public int getFailedAuthAttempts() { return failedAuthAttempts; }
-        public int get4xxResponses() { return responses4xx; }
-        public int get5xxResponses() { return responses5xx; }
-        public int getSuspiciousPatterns() { return suspiciousPatterns; }
-        public LocalDateTime getLastActivity() { return lastActivity; }
+        return EdgeRequestContext.of(request).isStaticOrHealthCheck();
     }
 }
@@ -58,6 +58,8 @@ public class SecurityConfig {
                 .requestMatchers("/actuator/health").permitAll()
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
                 .requestMatchers("/error").permitAll()
+                // Runtime logging controls
+                .requestMatchers("/actuator/logsampling/**", "/actuator/logsampling").hasRole("ADMIN")
                 // All other requests require authentication
                 .anyRequest().authenticated()
             );
@@ -24,19 +24,16 @@ public class SecurityHeadersFilter extends OncePerRequestFilter {
         
         try {
             // Add security headers
-            addSecurityHeaders(response);
-            
-            // Continue with the filter chain
-            filterChain.doFilter(request, response);
-            
+            addSecurityHeaders(EdgeRequestContext.of(request), response);
         } catch (Exception e) {
-            logger.error("Error in security headers filter: {}", e.getMessage(), e);
             // Continue with the filter chain even if headers fail
-            filterChain.doFilter(request, response);
+            logger.error("Error in security headers filter: {}", e.getMessage(), e);
         }
+        
+        filterChain.doFilter(request, response);
     }
 
-    private void addSecurityHeaders(HttpServletResponse response) {
+    private void addSecurityHeaders(EdgeRequestContext context, HttpServletResponse response) {
         // Security Headers
         response.setHeader("X-Content-Type-Options", "nosniff");
         response.setHeader("X-Frame-Options", "DENY");
@@ -67,7 +64,7 @@ public class SecurityHeadersFilter extends OncePerRequestFilter {
             "publickey-credentials-get=(), screen-wake-lock=(), web-share=()");
         
         // Cache Control for sensitive endpoints
-        if (isSensitiveEndpoint(request)) {
+        if (isSensitiveEndpoint(context)) {
             response.setHeader("Cache-Control", "no-store, no-cache, must-revalidate, private");
             response.setHeader("Pragma", "no-cache");
             response.setHeader("Expires", "0");
@@ -79,22 +76,26 @@ public class SecurityHeadersFilter extends OncePerRequestFilter {
         logger.debug("Security headers added to response");
     }
 
-    private boolean isSensitiveEndpoint(HttpServletRequest request) {
-        String path = request.getRequestURI();
-        return path.contains("/api/auth/") || 
-               path.contains("/api/users/") || 
-               path.contains("/actuator/") ||
-               path.contains("/swagger-ui/") ||
-               path.contains("/v3/api-docs/");
+    private boolean isSensitiveEndpoint(EdgeRequestContext context) {
+        switch (context.getRouteClass()) {
+            case AUTH:
+            case HEALTH:
+            case INFO:
+            case METRICS:
+            case ACTUATOR:
+                return true;
+            default:
+                String path = context.getPath();
+                return path.contains("/api/users/") ||
+                       path.contains("/swagger-ui/") ||
+                       path.contains("/v3/api-docs/");
+        }
     }
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
-        // Skip filtering for static resources and health checks
-        String path = request.getRequestURI();
-        return path.startsWith("/static/") || 
-               path.startsWith("/public/") || 
-               path.equals("/actuator/health") ||
-               path.equals("/favicon.ico");
+        // Skip filtering for static resources and the health check; /actuator/info still gets headers
+        EdgeRequestContext.RouteClass routeClass = EdgeRequestContext.of(request).getRouteClass();
+        return routeClass == EdgeRequestContext.RouteClass.STATIC || routeClass == EdgeRequestContext.RouteClass.HEALTH;
     }
 }
@@ -1,6 +1,5 @@
 package com.weavecode.chatwoot.security;
 
-import com.weavecode.chatwoot.entity.Tenant;
 import com.weavecode.chatwoot.entity.User;
 import com.weavecode.chatwoot.service.TenantService;
 import com.weavecode.chatwoot.service.UserService;
@@ -30,20 +29,12 @@ public class SecurityService {
      */
     public boolean isTenantOwner(UUID tenantId) {
         try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            if (authentication == null || !authentication.isAuthenticated()) {
-                return false;
-            }
-            
-            String email = authentication.getName();
-            Optional<User> userOpt = userService.findByEmailAndTenantId(email, tenantId);
+            Optional<CurrentUser> currentUser = resolveCurrentUser();
             
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-                return user.getRole().name().equals("ADMIN") || user.getRole().name().equals("OWNER");
-            }
-            
-            return false;
+            return currentUser.isPresent() &&
+                   tenantId != null &&
+                   tenantId.equals(currentUser.get().getTenantId()) &&
+                   currentUser.get().isTenantAdmin();
         } catch (Exception e) {
             logger.error("Error checking tenant ownership for tenant: {}", tenantId, e);
             return false;
@@ -55,20 +46,9 @@ public class SecurityService {
      */
     public boolean isCurrentUser(UUID userId) {
         try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            if (authentication == null || !authentication.isAuthenticated()) {
-                return false;
-            }
-            
-            String email = authentication.getName();
-            Optional<User> userOpt = userService.findByEmail(email);
-            
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-                return user.getId().equals(userId);
-            }
-            
-            return false;
+            Optional<CurrentUser> currentUser = resolveCurrentUser();
+            return currentUser.isPresent() && currentUser.get().getUserId() != null &&
+                   currentUser.get().getUserId().equals(userId);
         } catch (Exception e) {
             logger.error("Error checking if user is current user: {}", userId, e);
             return false;
@@ -76,7 +56,7 @@ public class SecurityService {
     }
     
     /**
-     * Get the current authenticated user
+     * Get the current authenticated user entity, loaded at most once per request
      */
     public Optional<User> getCurrentUser() {
         try {
@@ -85,8 +65,12 @@ public class SecurityService {
                 return Optional.empty();
             }
             
-            String email = authentication.getName();
-            return userService.findByEmail(email);
+            CurrentUserContext context = CurrentUserContext.current();
+            if (context.getUserEntity() == null) {
+                context.recordIdentityLookup();
+                context.setUserEntity(userService.findByEmail(authentication.getName()));
+            }
+            return context.getUserEntity();
         } catch (Exception e) {
             logger.error("Error getting current user", e);
             return Optional.empty();
@@ -98,14 +82,32 @@ public class SecurityService {
      */
     public Optional<UUID> getCurrentUserTenantId() {
         try {
-            Optional<User> currentUser = getCurrentUser();
-            return currentUser.map(User::getTenantId);
+            return resolveCurrentUser().map(CurrentUser::getTenantId);
         } catch (Exception e) {
             logger.error("Error getting current user tenant ID", e);
             return Optional.empty();
         }
     }
     
+    /**
+     * Get the current user's tenant ID, or null when unauthenticated
+     */
+    public UUID getCurrentTenantId() {
+        return getCurrentUserTenantId().orElse(null);
+    }
+    
+    /**
+     * Get the current user's ID, or null when unauthenticated
+     */
+    public UUID getCurrentUserId() {
+        try {
+            return resolveCurrentUser().map(CurrentUser::getUserId).orElse(null);
+        } catch (Exception e) {
+            logger.error("Error getting current user ID", e);
+            return null;
+        }
+    }
+    
     /**
      * Check if the current user has access to a specific tenant
      */
@@ -150,4 +152,25 @@ public class SecurityService {
     public boolean isTenantAdmin() {
         return hasRole("ADMIN") || hasRole("OWNER");
     }
+    
+    /**
+     * Resolve the current user snapshot. Normally filled by the JWT filter;
+     * otherwise looked up once and kept for the rest of the request.
+     */
+    private Optional<CurrentUser> resolveCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return Optional.empty();
+        }
+        
+        CurrentUserContext context = CurrentUserContext.current();
+        CurrentUser currentUser = context.getCurrentUser();
+        if (context.isResolved() && (currentUser == null || currentUser.getEmail().equals(authentication.getName()))) {
+            return Optional.ofNullable(currentUser);
+        }
+        
+        currentUser = getCurrentUser().map(CurrentUser::fromUser).orElse(null);
+        context.setCurrentUser(currentUser);
+        return Optional.ofNullable(currentUser);
+    }
 }
@@ -0,0 +1,214 @@
+package com.weavecode.chatwoot.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Sliding-window counters of suspicious activity per client IP.
+ *
+ * Each IP owns a ring of per-minute slots holding atomic counters, so a
+ * request costs one slot lookup and one atomic increment, and window totals
+ * sum a fixed number of slots. Stale slots are replaced rather than reset,
+ * which keeps counts exact under concurrency. A background sweeper drops
+ * idle IPs and publishes the worst offenders as a metric.
+ */
+@Component
+public class SuspiciousActivityTracker {
+
+    public static final int FAILED_AUTH = 0;
+    public static final int RESPONSES_4XX = 1;
+    public static final int RESPONSES_5XX = 2;
+    public static final int SUSPICIOUS_PATTERNS = 3;
+    private static final int KINDS = 4;
+
+    // Thresholds within the window
+    private static final int[] THRESHOLDS = {10, 20, 5, 5};
+
+    static final int WINDOW_MINUTES = 15;
+    private static final int TOP_OFFENDERS = 10;
+
+    private final Map<String, ActivityWindow> windows = new ConcurrentHashMap<>();
+    private final MultiGauge topOffendersGauge;
+
+    @Autowired
+    public SuspiciousActivityTracker(MeterRegistry meterRegistry) {
+        this.topOffendersGauge = MultiGauge.builder("chatwoot.security.suspicious.top_offenders")
+                .description("Suspicious events in the last 15 minutes for the worst offending IPs")
+                .register(meterRegistry);
+
+        Gauge.builder("chatwoot.security.suspicious.tracked_ips", windows, Map::size)
+                .description("Client IPs with activity in the suspicious activity window")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record the given kinds of activity for an IP.
+     *
+     * @return the IP's window totals if any threshold is now reached, otherwise null
+     */
+    public ActivitySnapshot record(String clientIp, int... kinds) {
+        if (kinds.length == 0) {
+            return null;
+        }
+        long minute = currentMinute();
+        ActivityWindow window = windows.computeIfAbsent(clientIp, ip -> new ActivityWindow(minute));
+        Slot slot = window.slotFor(minute);
+        for (int kind : kinds) {
+            slot.counts.incrementAndGet(kind);
+        }
+        window.lastMinute = minute;
+
+        int[] totals = window.totals(minute);
+        for (int kind = 0; kind < KINDS; kind++) {
+            if (totals[kind] >= THRESHOLDS[kind]) {
+                return new ActivitySnapshot(clientIp, totals);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Window totals for an IP, or null when it has no recent activity.
+     */
+    public ActivitySnapshot snapshot(String clientIp) {
+        ActivityWindow window = windows.get(clientIp);
+        return window != null ? new ActivitySnapshot(clientIp, window.totals(currentMinute())) : null;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void sweep() {
+        long minute = currentMinute();
+        windows.values().removeIf(window -> window.lastMinute <= minute - WINDOW_MINUTES);
+        publishTopOffenders(minute);
+    }
+
+    public List<ActivitySnapshot> getTopOffenders() {
+        return topOffenders(currentMinute());
+    }
+
+    private void publishTopOffenders(long minute) {
+        List<MultiGauge.Row<?>> rows = new ArrayList<>();
+        for (ActivitySnapshot offender : topOffenders(minute)) {
+            rows.add(MultiGauge.Row.of(Tags.of("ip", offender.getClientIp()), offender.getTotal()));
+        }
+        topOffendersGauge.register(rows, true);
+    }
+
+    private List<ActivitySnapshot> topOffenders(long minute) {
+        PriorityQueue<ActivitySnapshot> top = new PriorityQueue<>(
+            (a, b) -> Integer.compare(a.getTotal(), b.getTotal()));
+        for (Map.Entry<String, ActivityWindow> entry : windows.entrySet()) {
+            ActivitySnapshot snapshot = new ActivitySnapshot(entry.getKey(), entry.getValue().totals(minute));
+            if (snapshot.getTotal() == 0) {
+                continue;
+            }
+            if (top.size() < TOP_OFFENDERS) {
+                top.add(snapshot);
+            } else if (snapshot.getTotal() > top.peek().getTotal()) {
+                top.poll();
+                top.add(snapshot);
+            }
+        }
+        List<ActivitySnapshot> result = new ArrayList<>(top);
+        result.sort(Collections.reverseOrder((a, b) -> Integer.compare(a.getTotal(), b.getTotal())));
+        return result;
+    }
+
+    private static long currentMinute() {
+        return System.currentTimeMillis() / 60_000L;
+    }
+
+    int trackedIps() {
+        return windows.size();
+    }
+
+    private static final class ActivityWindow {
+        private final AtomicReferenceArray<Slot> slots = new AtomicReferenceArray<>(WINDOW_MINUTES);
+        private volatile long lastMinute;
+
+        private ActivityWindow(long minute) {
+            this.lastMinute = minute;
+        }
+
+        private Slot slotFor(long minute) {
+            int index = (int) (minute % WINDOW_MINUTES);
+            while (true) {
+                Slot slot = slots.get(index);
+                if (slot != null && slot.minute == minute) {
+                    return slot;
+                }
+                if (slot != null && slot.minute > minute) {
+                    // Clock stepped back; count into the newer slot rather than lose the event
+                    return slot;
+                }
+                Slot fresh = new Slot(minute);
+                if (slots.compareAndSet(index, slot, fresh)) {
+                    return fresh;
+                }
+            }
+        }
+
+        private int[] totals(long minute) {
+            int[] totals = new int[KINDS];
+            for (int i = 0; i < WINDOW_MINUTES; i++) {
+                Slot slot = slots.get(i);
+                if (slot != null && slot.minute > minute - WINDOW_MINUTES) {
+                    for (int kind = 0; kind < KINDS; kind++) {
+                        totals[kind] += slot.counts.get(kind);
+                    }
+                }
+            }
+            return totals;
+        }
+    }
+
+    private static final class Slot {
+        private final long minute;
+        private final AtomicIntegerArray counts = new AtomicIntegerArray(KINDS);
+
+        private Slot(long minute) {
+            this.minute = minute;
+        }
+    }
+
+    /**
+     * Activity totals for one IP over the window.
+     */
+    public static final class ActivitySnapshot {
+        private final String clientIp;
+        private final int[] totals;
+
+        private ActivitySnapshot(String clientIp, int[] totals) {
+            this.clientIp = clientIp;
+            this.totals = totals;
+        }
+
+        public String getClientIp() { return clientIp; }
+        public int getFailedAuthAttempts() { return totals[FAILED_AUTH]; }
+        public int get4xxResponses() { return totals[RESPONSES_4XX]; }
+        public int get5xxResponses() { return totals[RESPONSES_5XX]; }
+        public int getSuspiciousPatterns() { return totals[SUSPICIOUS_PATTERNS]; }
+
+        public int getTotal() {
+            int total = 0;
+            for (int count : totals) {
+                total += count;
+            }
+            return total;
+        }
+    }
+}
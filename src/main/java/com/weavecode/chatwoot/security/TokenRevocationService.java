@@ -0,0 +1,173 @@
+package com.weavecode.chatwoot.security;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revocation list for issued tokens, keyed by their jti claim.
+ *
+ * Redis holds the authoritative list, each entry expiring with the token
+ * it revokes. Every node mirrors the list into an exact in-memory set
+ * fronted by a Bloom filter, kept current through Redis pub/sub plus a
+ * periodic resync, so checking a token on the request path is a local
+ * O(1) lookup and almost always a single Bloom filter miss.
+ */
+@Component
+public class TokenRevocationService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    static final String REVOCATION_CHANNEL = "token_revocation:revoked";
+    private static final String KEY_PREFIX = "revoked_token:";
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${app.jwt.revocation.expected-revocations:100000}")
+    private int expectedRevocations;
+
+    // jti -> token expiry in epoch millis
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloomFilter;
+
+    @PostConstruct
+    public void init() {
+        bloomFilter = new BloomFilter(expectedRevocations, 0.001);
+        listenerContainer.addMessageListener(this, new ChannelTopic(REVOCATION_CHANNEL));
+        resync();
+    }
+
+    /**
+     * Whether the token with this jti has been revoked. Never touches the network.
+     */
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !bloomFilter.mightContain(tokenId)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(tokenId);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * Revoke a token for the rest of its lifetime on every node.
+     *
+     * @return false if the token predates jti claims and cannot be revoked individually
+     */
+    public boolean revoke(JwtPrincipal principal) {
+        String tokenId = principal.getTokenId();
+        if (tokenId == null) {
+            logger.warn("Cannot revoke token without jti for user: {}", principal.getSubject());
+            return false;
+        }
+        long expiresAt = principal.getExpiresAt().toEpochMilli();
+        long remaining = expiresAt - System.currentTimeMillis();
+        if (remaining <= 0) {
+            return true;
+        }
+
+        revokeLocally(tokenId, expiresAt);
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + tokenId, expiresAt, Duration.ofMillis(remaining));
+            redisTemplate.convertAndSend(REVOCATION_CHANNEL, tokenId + ":" + expiresAt);
+        } catch (Exception e) {
+            // Still revoked on this node; other nodes pick it up on the next resync
+            logger.error("Failed to publish token revocation {}: {}", tokenId, e.getMessage());
+        }
+        return true;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (body == null) {
+                return;
+            }
+            String value = body.toString();
+            int separator = value.lastIndexOf(':');
+            revokeLocally(value.substring(0, separator), Long.parseLong(value.substring(separator + 1)));
+        } catch (Exception e) {
+            logger.warn("Could not process token revocation message: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reload the revocation list from Redis, covering messages missed while
+     * this node was starting or disconnected.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.resync-interval-ms:300000}",
+               initialDelayString = "${app.jwt.revocation.resync-interval-ms:300000}")
+    public void resync() {
+        try {
+            List<String> keys = new ArrayList<>();
+            ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+            try (Cursor<String> cursor = redisTemplate.scan(options)) {
+                cursor.forEachRemaining(keys::add);
+            }
+            if (keys.isEmpty()) {
+                return;
+            }
+            List<Object> expiries = redisTemplate.opsForValue().multiGet(keys);
+            for (int i = 0; i < keys.size(); i++) {
+                Object expiresAt = expiries != null ? expiries.get(i) : null;
+                if (expiresAt instanceof Number) {
+                    revokeLocally(keys.get(i).substring(KEY_PREFIX.length()), ((Number) expiresAt).longValue());
+                }
+            }
+            logger.debug("Resynced {} revoked tokens from Redis", keys.size());
+        } catch (Exception e) {
+            logger.error("Failed to resync revoked tokens: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drop entries for tokens that have expired anyway and rebuild the Bloom
+     * filter from what is left, since Bloom filters cannot forget entries.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        if (!revoked.values().removeIf(expiresAt -> expiresAt <= now)) {
+            return;
+        }
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, revoked.size() * 2), 0.001);
+        revoked.keySet().forEach(rebuilt::add);
+        bloomFilter = rebuilt;
+        // Entries added while rebuilding may have gone into the old filter only
+        revoked.keySet().forEach(rebuilt::add);
+    }
+
+    int revokedCount() {
+        return revoked.size();
+    }
+
+    private void revokeLocally(String tokenId, long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        // Exact set first, so a Bloom hit always finds its entry
+        revoked.put(tokenId, expiresAt);
+        bloomFilter.add(tokenId);
+    }
+}
@@ -0,0 +1,224 @@
+package com.weavecode.chatwoot.security;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Short-lived, node-local cache of user security state.
+ *
+ * Tokens carry role and status claims, so most requests never reach this
+ * cache. When a user's role or status changes, the time of the change is
+ * stored in Redis for as long as tokens live and every node is told
+ * through pub/sub: the cached entry is dropped and tokens issued before
+ * the change stop being trusted, forcing one fresh load for that user.
+ * Nodes reload the change markers from Redis at startup and periodically,
+ * covering messages missed while starting or disconnected; until the
+ * first load succeeds no token claims are trusted.
+ */
+@Component
+public class UserDetailsCache implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDetailsCache.class);
+
+    static final String INVALIDATION_CHANNEL = "user_security:invalidated";
+    private static final String KEY_PREFIX = "user_security_changed:";
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${app.security.user-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${app.security.user-cache.max-size:10000}")
+    private int maxEntries;
+
+    @Value("${app.jwt.expiration}")
+    private long jwtExpirationInMs;
+
+    private final Map<String, CachedUserDetails> entries = new ConcurrentHashMap<>();
+
+    // email -> time the user's security state last changed, mirrored from Redis
+    private final Map<String, Long> changedAt = new ConcurrentHashMap<>();
+
+    // False until the change markers have been loaded from Redis once
+    private volatile boolean synced;
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+        resync();
+    }
+
+    /**
+     * Return the cached user details, loading and caching them on a miss.
+     */
+    public UserDetails getOrLoad(String email, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        CachedUserDetails cached = entries.get(email);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.userDetails;
+        }
+
+        UserDetails loaded = loader.apply(email);
+        if (entries.size() >= maxEntries) {
+            makeRoom(now);
+        }
+        // Keep authorities only; the password hash has no use after authentication
+        UserDetails stripped = User.withUserDetails(loaded).password("").build();
+        entries.put(email, new CachedUserDetails(stripped, now + ttlSeconds * 1000));
+        return stripped;
+    }
+
+    /**
+     * Whether a token issued at the given time predates a change to the user's
+     * role or status, meaning its claims can no longer be trusted.
+     */
+    public boolean isStale(String email, Instant issuedAt) {
+        if (!synced) {
+            return true;
+        }
+        Long changed = changedAt.get(email);
+        return changed != null && (issuedAt == null || issuedAt.toEpochMilli() <= changed);
+    }
+
+    /**
+     * Invalidate the user on every node. Inside a transaction the broadcast is
+     * deferred until commit so other nodes cannot reload the old row.
+     */
+    public void invalidate(String email) {
+        if (email == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    broadcast(email);
+                }
+            });
+        } else {
+            broadcast(email);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (body == null) {
+                return;
+            }
+            // "<changed at millis>:<email>"; emails may contain ':' so split on the first one
+            String value = body.toString();
+            int separator = value.indexOf(':');
+            invalidateLocally(value.substring(separator + 1), Long.parseLong(value.substring(0, separator)));
+        } catch (Exception e) {
+            logger.warn("Could not process user invalidation message: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reload the change markers from Redis, covering messages missed while
+     * this node was starting or disconnected.
+     */
+    @Scheduled(fixedDelayString = "${app.security.user-cache.resync-interval-ms:300000}",
+               initialDelayString = "${app.security.user-cache.resync-interval-ms:300000}")
+    public void resync() {
+        try {
+            List<String> keys = new ArrayList<>();
+            ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+            try (Cursor<String> cursor = redisTemplate.scan(options)) {
+                cursor.forEachRemaining(keys::add);
+            }
+            if (!keys.isEmpty()) {
+                List<Object> changes = redisTemplate.opsForValue().multiGet(keys);
+                for (int i = 0; i < keys.size(); i++) {
+                    Object changed = changes != null ? changes.get(i) : null;
+                    if (changed instanceof Number) {
+                        invalidateLocally(keys.get(i).substring(KEY_PREFIX.length()), ((Number) changed).longValue());
+                    }
+                }
+            }
+            synced = true;
+            logger.debug("Resynced {} user security changes from Redis", keys.size());
+        } catch (Exception e) {
+            logger.error("Failed to resync user security changes: {}", e.getMessage());
+        }
+    }
+
+    private void broadcast(String email) {
+        long now = System.currentTimeMillis();
+        invalidateLocally(email, now);
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + email, now, Duration.ofMillis(jwtExpirationInMs));
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, now + ":" + email);
+        } catch (Exception e) {
+            // Still applied on this node; other nodes fall back to the database until Redis returns
+            logger.error("Failed to broadcast user invalidation for {}: {}", email, e.getMessage());
+        }
+    }
+
+    private void invalidateLocally(String email, long changed) {
+        changedAt.merge(email, changed, Math::max);
+        entries.remove(email);
+        logger.debug("Invalidated cached security state for user: {}", email);
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        // Tokens issued before this cut-off have expired, so their markers are no longer needed
+        long cutoff = now - jwtExpirationInMs;
+        changedAt.values().removeIf(changed -> changed < cutoff);
+    }
+
+    private void makeRoom(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+
+        int target = (int) (maxEntries * 0.9);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static final class CachedUserDetails {
+        private final UserDetails userDetails;
+        private final long expiresAt;
+
+        private CachedUserDetails(UserDetails userDetails, long expiresAt) {
+            this.userDetails = userDetails;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
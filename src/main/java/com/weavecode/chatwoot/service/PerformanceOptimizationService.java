@@ -2,6 +2,7 @@ package com.weavecode.chatwoot.service;
 
 import com.weavecode.chatwoot.dto.PerformanceMetrics;
 import com.weavecode.chatwoot.dto.CacheMetrics;
+import com.weavecode.chatwoot.dto.IndexRecommendation;
 
 import java.util.List;
 import java.util.Map;
@@ -24,6 +25,11 @@ public interface PerformanceOptimizationService {
      */
     void optimizeDatabaseQueries(UUID tenantId);
     
+    /**
+     * Get missing and unused index and stale statistics recommendations
+     */
+    List<IndexRecommendation> getIndexRecommendations(UUID tenantId);
+    
     /**
      * Warm up cache for frequently accessed data
      */
@@ -194,11 +194,6 @@ public interface UserService extends BaseService<User, UUID> {
      */
     LocalDateTime getUserNextAvailableTime(UUID userId);
 
-    /**
-     * Update user last activity
-     */
-    User updateLastActivity(UUID userId);
-
     /**
      * Get user activity log
      */
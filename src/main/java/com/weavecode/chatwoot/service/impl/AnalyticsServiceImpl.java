@@ -4,6 +4,7 @@ import com.weavecode.chatwoot.dto.AnalyticsData;
 import com.weavecode.chatwoot.dto.ConversationMetrics;
 import com.weavecode.chatwoot.dto.UserPerformanceMetrics;
 import com.weavecode.chatwoot.dto.TenantUsageStats;
+import com.weavecode.chatwoot.metrics.UserActivityTracker;
 import com.weavecode.chatwoot.service.AnalyticsService;
 import com.weavecode.chatwoot.service.ConversationService;
 import com.weavecode.chatwoot.service.UserService;
@@ -24,6 +25,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -69,6 +71,9 @@ public class AnalyticsServiceImpl implements AnalyticsService {
     @Autowired
     private AutomationService automationService;
 
+    @Autowired
+    private UserActivityTracker activityTracker;
+
     @Override
     public ConversationMetrics getConversationMetrics(UUID tenantId, LocalDate startDate, LocalDate endDate) {
         try {
@@ -665,7 +670,7 @@ public class AnalyticsServiceImpl implements AnalyticsService {
             long activeConversations = conversationRepository.countByTenantIdAndStatus(tenantId, ConversationStatus.ACTIVE);
             long conversationsLast24h = conversationRepository.countByTenantIdAndCreatedAtBetween(tenantId, last24Hours, now);
             long messagesLast24h = messageRepository.countByTenantIdAndCreatedAtBetween(tenantId, last24Hours, now);
-            long onlineUsers = userRepository.countByTenantIdAndLastActiveAtAfter(tenantId, now.minusMinutes(5));
+            long onlineUsers = activityTracker.countOnlineUsers(tenantId, Duration.ofMinutes(5));
 
             Map<String, Object> metrics = new HashMap<>();
             metrics.put("activeConversations", activeConversations);
@@ -0,0 +1,243 @@
+package com.weavecode.chatwoot.service.impl;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HikariCP telemetry and a feedback controller for the pool size.
+ *
+ * Pool state comes from the pool's MXBeans and the acquire and usage
+ * timers Spring Boot registers for it, so reading it never borrows a
+ * connection. Each adjustment compares the acquire-wait p95 against a
+ * target: waits above it, or threads queued for a connection, grow the
+ * pool by one step as long as PostgreSQL has max_connections headroom
+ * beyond the reserve; a pool that is mostly idle with fast acquires
+ * shrinks by one step. The size always stays within the configured
+ * bounds.
+ *
+ * The headroom query does need a connection, so it is only sampled while
+ * the pool has an idle one to hand out. An exhausted pool, which is
+ * exactly when growth is wanted, is sized from the last sample instead
+ * of queueing the tuner behind the threads it is trying to help.
+ */
+@Component
+public class ConnectionPoolTuner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPoolTuner.class);
+
+    private static final String SERVER_CONNECTIONS_SQL =
+        "SELECT current_setting('max_connections')::int AS max_connections, " +
+        "(SELECT count(*) FROM pg_stat_activity) AS used_connections";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.performance.pool.auto-adjust:false}")
+    private boolean autoAdjust;
+
+    @Value("${app.performance.pool.min-size:5}")
+    private int minSize;
+
+    @Value("${app.performance.pool.max-size:50}")
+    private int maxSize;
+
+    @Value("${app.performance.pool.step:2}")
+    private int step;
+
+    @Value("${app.performance.pool.target-acquire-p95-ms:20}")
+    private double targetAcquireP95Ms;
+
+    // Server connections left free for other nodes, migrations and superusers
+    @Value("${app.performance.pool.reserved-server-connections:10}")
+    private int reservedServerConnections;
+
+    // max_connections minus connections in use, as of the last non-blocking sample; -1 until one succeeds
+    private volatile int sampledHeadroom = -1;
+
+    /**
+     * Current pool telemetry; empty apart from the pool type when the
+     * DataSource is not a Hikari pool.
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        HikariDataSource hikari = hikari();
+        if (hikari == null || hikari.getHikariPoolMXBean() == null) {
+            metrics.put("pool", dataSource.getClass().getSimpleName());
+            return metrics;
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        HikariConfigMXBean config = hikari.getHikariConfigMXBean();
+        metrics.put("pool", config.getPoolName());
+        metrics.put("activeConnections", pool.getActiveConnections());
+        metrics.put("idleConnections", pool.getIdleConnections());
+        metrics.put("totalConnections", pool.getTotalConnections());
+        metrics.put("pendingThreads", pool.getThreadsAwaitingConnection());
+        metrics.put("maxConnections", config.getMaximumPoolSize());
+        metrics.put("minConnections", config.getMinimumIdle());
+        metrics.put("connectionTimeoutMs", config.getConnectionTimeout());
+        metrics.put("acquireTime", timerSummary("hikaricp.connections.acquire", config.getPoolName()));
+        metrics.put("usageTime", timerSummary("hikaricp.connections.usage", config.getPoolName()));
+        return metrics;
+    }
+
+    /**
+     * Connections the pool holds, or 0 when it is not a Hikari pool.
+     */
+    public int totalConnections() {
+        HikariDataSource hikari = hikari();
+        HikariPoolMXBean pool = hikari != null ? hikari.getHikariPoolMXBean() : null;
+        return pool != null ? pool.getTotalConnections() : 0;
+    }
+
+    /**
+     * Connections currently borrowed from the pool, or 0 when it is not a
+     * Hikari pool.
+     */
+    public int activeConnections() {
+        HikariDataSource hikari = hikari();
+        HikariPoolMXBean pool = hikari != null ? hikari.getHikariPoolMXBean() : null;
+        return pool != null ? pool.getActiveConnections() : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.performance.pool.adjust-interval-ms:60000}",
+               initialDelayString = "${app.performance.pool.adjust-interval-ms:60000}")
+    public void scheduledAdjust() {
+        if (autoAdjust) {
+            adjust();
+        }
+    }
+
+    /**
+     * Run one step of the controller. Returns the new maximum pool size, or
+     * -1 when there is no Hikari pool to adjust. Synchronized because the
+     * scheduled step and an admin-triggered one may otherwise both resize
+     * from the same starting size.
+     */
+    public synchronized int adjust() {
+        HikariDataSource hikari = hikari();
+        if (hikari == null || hikari.getHikariPoolMXBean() == null) {
+            return -1;
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        HikariConfigMXBean config = hikari.getHikariConfigMXBean();
+        int current = config.getMaximumPoolSize();
+        double acquireP95 = percentileMillis(timer("hikaricp.connections.acquire", config.getPoolName()), 0.95);
+        sampleServerHeadroom(pool);
+        int target = targetSize(current, pool.getActiveConnections(), pool.getThreadsAwaitingConnection(),
+            acquireP95, sampledHeadroom);
+
+        if (target != current) {
+            logger.info("Resizing connection pool {} from {} to {} (acquire p95 {}ms, {} threads waiting)",
+                config.getPoolName(), current, target, acquireP95, pool.getThreadsAwaitingConnection());
+            if (target < config.getMinimumIdle()) {
+                config.setMinimumIdle(target);
+            }
+            config.setMaximumPoolSize(target);
+        }
+        return target;
+    }
+
+    /**
+     * Next maximum pool size. Headroom is the number of further connections
+     * the server accepts, or a negative value when it is unknown, which
+     * blocks growth.
+     */
+    int targetSize(int current, int active, int pending, double acquireP95Ms, int headroom) {
+        int target = current;
+        if (acquireP95Ms > targetAcquireP95Ms || pending > 0) {
+            int growable = headroom - reservedServerConnections;
+            if (growable > 0) {
+                target = current + Math.min(step, growable);
+            }
+        } else if (acquireP95Ms < targetAcquireP95Ms / 4 && active <= current / 2) {
+            // Keep a step of spare connections over what is in use, but never grow here
+            target = Math.min(current, Math.max(current - step, active + step));
+        }
+        return Math.max(minSize, Math.min(maxSize, target));
+    }
+
+    /**
+     * Refresh the headroom sample when a connection can be borrowed without
+     * waiting. With none idle the previous sample is kept: borrowing would
+     * queue behind the waiting threads and could time out. A failed query
+     * also keeps the previous sample.
+     */
+    private void sampleServerHeadroom(HikariPoolMXBean pool) {
+        if (pool.getIdleConnections() <= 0 || pool.getThreadsAwaitingConnection() > 0) {
+            return;
+        }
+        try {
+            Map<String, Object> row = jdbcTemplate.queryForMap(SERVER_CONNECTIONS_SQL);
+            int max = ((Number) row.get("max_connections")).intValue();
+            int used = ((Number) row.get("used_connections")).intValue();
+            sampledHeadroom = max - used;
+        } catch (DataAccessException e) {
+            logger.warn("Could not read server connection headroom: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, Object> timerSummary(String name, String poolName) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        Timer timer = timer(name, poolName);
+        if (timer == null) {
+            return summary;
+        }
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        summary.put("count", snapshot.count());
+        summary.put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+        summary.put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            summary.put("p" + Math.round(percentile.percentile() * 100) + "Ms", percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return summary;
+    }
+
+    private Timer timer(String name, String poolName) {
+        return meterRegistry.find(name).tag("pool", poolName).timer();
+    }
+
+    private static double percentileMillis(Timer timer, double percentile) {
+        if (timer == null) {
+            return 0;
+        }
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return 0;
+    }
+
+    private HikariDataSource hikari() {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
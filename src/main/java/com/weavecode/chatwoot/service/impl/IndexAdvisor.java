@@ -0,0 +1,472 @@
+package com.weavecode.chatwoot.service.impl;
+
+import com.weavecode.chatwoot.dto.IndexRecommendation;
+import com.weavecode.chatwoot.metrics.SqlFingerprint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Index and statistics advice from PostgreSQL's own statistics views.
+ *
+ * - Missing indexes: the heaviest pg_stat_statements entries are reduced
+ *   to single-table query shapes. A shape filtering on tenant_id plus a
+ *   range or sort column (typically created_at) needs a composite
+ *   (tenant_id, ..., created_at) index; one is recommended unless a
+ *   valid existing index already starts with those columns.
+ * - Unused indexes: non-unique indexes in pg_stat_user_indexes that have
+ *   never been scanned since the statistics were last reset.
+ * - Stale statistics: tables in pg_stat_user_tables modified by more than
+ *   a fraction of their rows since the last ANALYZE.
+ *
+ * Indexes are shared by all tenants, so the advice is database-wide.
+ * Only index creation can be applied automatically, by a scheduled job
+ * that only builds when enabled and inside the maintenance window; drops
+ * are left to a human. Every node runs the job, so builds take a
+ * cluster-wide advisory lock. An invalid index left by a failed concurrent
+ * build does not count as covering and is dropped before being built
+ * again, unless a build of it is still in progress.
+ */
+@Component
+public class IndexAdvisor {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexAdvisor.class);
+
+    private static final String STATEMENTS_SQL =
+        "SELECT query, calls, total_exec_time FROM pg_stat_statements " +
+        "WHERE dbid = (SELECT oid FROM pg_database WHERE datname = current_database()) " +
+        "ORDER BY total_exec_time DESC LIMIT ?";
+
+    private static final String TABLES_SQL =
+        "SELECT relname, seq_scan, COALESCE(idx_scan, 0), n_live_tup, n_mod_since_analyze " +
+        "FROM pg_stat_user_tables WHERE schemaname = current_schema()";
+
+    // Invalid indexes are not used by the planner, so they cannot cover a query shape
+    private static final String INDEXES_SQL =
+        "SELECT x.tablename, x.indexname, x.indexdef FROM pg_indexes x " +
+        "JOIN pg_class c ON c.relname = x.indexname " +
+        "JOIN pg_namespace n ON n.oid = c.relnamespace AND n.nspname = x.schemaname " +
+        "JOIN pg_index i ON i.indexrelid = c.oid " +
+        "WHERE x.schemaname = current_schema() AND i.indisvalid";
+
+    // A build still running (here or on another node) is invalid too, but is not a leftover
+    private static final String LEFTOVER_INDEX_SQL =
+        "SELECT count(*) FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+        "WHERE c.relname = ? AND c.relnamespace = current_schema()::regnamespace AND NOT i.indisvalid " +
+        "AND NOT EXISTS (SELECT 1 FROM pg_stat_progress_create_index p WHERE p.index_relid = i.indexrelid)";
+
+    // Arbitrary key shared by every node running the advisor
+    static final long APPLY_LOCK_KEY = 0x636877696478L;
+
+    private static final String UNUSED_INDEXES_SQL =
+        "SELECT s.relname, s.indexrelname, pg_relation_size(s.indexrelid) FROM pg_stat_user_indexes s " +
+        "JOIN pg_index i ON i.indexrelid = s.indexrelid " +
+        "WHERE s.schemaname = current_schema() AND s.idx_scan = 0 " +
+        "AND NOT i.indisunique AND NOT i.indisprimary AND pg_relation_size(s.indexrelid) >= ?";
+
+    private static final String IDENTIFIER = "[a-z_][a-z0-9_]*";
+    private static final String COLUMN = "(?:" + IDENTIFIER + "\\.)?(" + IDENTIFIER + ")";
+    private static final Pattern FROM = Pattern.compile("\\bfrom (?:" + IDENTIFIER + "\\.)?(" + IDENTIFIER + ")");
+    private static final Pattern EQUALITY = Pattern.compile(COLUMN + " ?= ?\\?");
+    private static final Pattern RANGE = Pattern.compile(COLUMN + " ?(?:<=|>=|<|>) ?\\?|" + COLUMN + " between ");
+    private static final Pattern ORDER_BY = Pattern.compile("\\border by " + COLUMN);
+    private static final Pattern INDEX_COLUMNS = Pattern.compile("\\(([^()]*)\\)\\s*(?:INCLUDE|WHERE|$)");
+    private static final Pattern VALID_IDENTIFIER = Pattern.compile(IDENTIFIER);
+
+    static final String TENANT_COLUMN = "tenant_id";
+    private static final int MAX_IDENTIFIER_LENGTH = 63;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.performance.index-advisor.statements:200}")
+    private int statementLimit;
+
+    @Value("${app.performance.index-advisor.min-calls:100}")
+    private long minCalls;
+
+    @Value("${app.performance.index-advisor.unused-index-min-bytes:1048576}")
+    private long unusedIndexMinBytes;
+
+    @Value("${app.performance.index-advisor.analyze-min-modified-rows:1000}")
+    private long analyzeMinModifiedRows;
+
+    @Value("${app.performance.index-advisor.analyze-modified-fraction:0.1}")
+    private double analyzeModifiedFraction;
+
+    @Value("${app.performance.index-advisor.apply-enabled:false}")
+    private boolean applyEnabled;
+
+    @Value("${app.performance.index-advisor.maintenance-window:02:00-05:00}")
+    private String maintenanceWindow;
+
+    @Value("${app.performance.index-advisor.zone:UTC}")
+    private String zone;
+
+    @Value("${app.performance.index-advisor.max-indexes-per-run:1}")
+    private int maxIndexesPerRun;
+
+    /**
+     * Composite indexes missing for the heaviest query shapes, heaviest first,
+     * followed by unused indexes.
+     */
+    public List<IndexRecommendation> recommendIndexes() {
+        List<IndexRecommendation> recommendations = new ArrayList<>(missingIndexes());
+        recommendations.addAll(unusedIndexes());
+        return recommendations;
+    }
+
+    /**
+     * Tables whose planner statistics are stale.
+     */
+    public List<IndexRecommendation> tablesDueForAnalyze() {
+        List<IndexRecommendation> due = new ArrayList<>();
+        jdbcTemplate.query(TABLES_SQL, (RowCallbackHandler) rs -> {
+            String table = rs.getString(1);
+            long liveRows = rs.getLong(4);
+            long modified = rs.getLong(5);
+            if (modified >= Math.max(analyzeMinModifiedRows, (long) (liveRows * analyzeModifiedFraction))
+                    && VALID_IDENTIFIER.matcher(table).matches()) {
+                IndexRecommendation recommendation = new IndexRecommendation(IndexRecommendation.Type.ANALYZE,
+                    table, "ANALYZE " + table,
+                    modified + " rows modified since the last analyze, against " + liveRows + " live rows");
+                recommendation.setModifiedRows(modified);
+                due.add(recommendation);
+            }
+        });
+        return due;
+    }
+
+    /**
+     * Run ANALYZE for each table due. Returns the number analyzed.
+     */
+    public int analyze(List<IndexRecommendation> due) {
+        int analyzed = 0;
+        for (IndexRecommendation recommendation : due) {
+            try {
+                jdbcTemplate.execute(recommendation.getStatement());
+                analyzed++;
+            } catch (DataAccessException e) {
+                logger.warn("Failed to analyze table {}: {}", recommendation.getTable(), e.getMessage());
+            }
+        }
+        return analyzed;
+    }
+
+    /**
+     * Build the recommended indexes in the background rather than in an
+     * admin request, since a concurrent build can take minutes on a large
+     * table. Checked every apply-interval-ms; only acts inside the window.
+     */
+    @Scheduled(fixedDelayString = "${app.performance.index-advisor.apply-interval-ms:900000}",
+               initialDelayString = "${app.performance.index-advisor.apply-interval-ms:900000}")
+    public void scheduledApply() {
+        if (!applyEnabled || !inMaintenanceWindow(maintenanceWindow, LocalTime.now(ZoneId.of(zone)))) {
+            return;
+        }
+        try {
+            List<String> created = apply(recommendIndexes());
+            if (!created.isEmpty()) {
+                logger.info("Created indexes {}", created);
+            }
+        } catch (DataAccessException e) {
+            logger.error("Scheduled index creation failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Create recommended indexes with CREATE INDEX CONCURRENTLY, at most
+     * max-indexes-per-run of them, if applying is enabled and the current
+     * time is inside the maintenance window. Must not run inside a
+     * transaction. Returns the names of the indexes created.
+     */
+    public List<String> apply(List<IndexRecommendation> recommendations) {
+        if (!applyEnabled) {
+            return new ArrayList<>();
+        }
+        if (!inMaintenanceWindow(maintenanceWindow, LocalTime.now(ZoneId.of(zone)))) {
+            logger.info("Skipping index creation outside the maintenance window {} {}", maintenanceWindow, zone);
+            return new ArrayList<>();
+        }
+        // Session advisory locks belong to a connection, so the whole run uses one
+        return jdbcTemplate.execute((ConnectionCallback<List<String>>) connection ->
+            createIndexes(new JdbcTemplate(new SingleConnectionDataSource(connection, true)), recommendations));
+    }
+
+    /**
+     * Build indexes on the given single-connection session while holding
+     * the advisory lock; nothing is built when another node holds it. An
+     * invalid leftover of the same name is dropped first, since IF NOT
+     * EXISTS would otherwise keep it.
+     */
+    List<String> createIndexes(JdbcTemplate session, List<IndexRecommendation> recommendations) {
+        List<String> created = new ArrayList<>();
+        Boolean locked = session.queryForObject("SELECT pg_try_advisory_lock(?)", Boolean.class, APPLY_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            logger.info("Another node is creating indexes, skipping this run");
+            return created;
+        }
+        try {
+            createIndexesLocked(session, recommendations, created);
+        } finally {
+            session.queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, APPLY_LOCK_KEY);
+        }
+        return created;
+    }
+
+    private void createIndexesLocked(JdbcTemplate session, List<IndexRecommendation> recommendations,
+                                     List<String> created) {
+        for (IndexRecommendation recommendation : recommendations) {
+            if (created.size() >= maxIndexesPerRun) {
+                break;
+            }
+            if (recommendation.getType() != IndexRecommendation.Type.CREATE_INDEX) {
+                continue;
+            }
+            try {
+                if (isLeftover(session, recommendation.getIndexName())) {
+                    logger.warn("Rebuilding invalid index {}", recommendation.getIndexName());
+                    session.execute("DROP INDEX CONCURRENTLY IF EXISTS " + recommendation.getIndexName());
+                }
+                logger.info("Creating index: {}", recommendation.getStatement());
+                session.execute(recommendation.getStatement());
+                created.add(recommendation.getIndexName());
+            } catch (DataAccessException e) {
+                logger.error("Failed to create index {}: {}", recommendation.getIndexName(), e.getMessage());
+                // A failed concurrent build leaves an invalid index behind
+                dropLeftoverQuietly(session, recommendation.getIndexName());
+            }
+        }
+    }
+
+    private List<IndexRecommendation> missingIndexes() {
+        Map<String, List<List<String>>> existing = new HashMap<>();
+        jdbcTemplate.query(INDEXES_SQL, (RowCallbackHandler) rs ->
+            existing.computeIfAbsent(rs.getString(1), t -> new ArrayList<>()).add(indexColumns(rs.getString(3))));
+        Map<String, long[]> tableScans = new HashMap<>();
+        jdbcTemplate.query(TABLES_SQL, (RowCallbackHandler) rs ->
+            tableScans.put(rs.getString(1), new long[] {rs.getLong(2), rs.getLong(3)}));
+
+        Map<String, IndexRecommendation> byIndex = new LinkedHashMap<>();
+        for (Object[] statement : heaviestStatements()) {
+            String query = (String) statement[0];
+            long calls = (Long) statement[1];
+            double totalTime = (Double) statement[2];
+            if (calls < minCalls) {
+                continue;
+            }
+            QueryShape shape = shapeOf(query);
+            if (shape == null) {
+                continue;
+            }
+            List<String> columns = shape.compositeIndex();
+            if (columns == null || isCovered(existing.get(shape.table), columns)) {
+                continue;
+            }
+            String indexName = indexName(shape.table, columns);
+            IndexRecommendation recommendation = byIndex.get(indexName);
+            if (recommendation == null) {
+                recommendation = new IndexRecommendation(IndexRecommendation.Type.CREATE_INDEX, shape.table,
+                    "CREATE INDEX CONCURRENTLY IF NOT EXISTS " + indexName + " ON " + shape.table +
+                        " (" + String.join(", ", columns) + ")",
+                    "Tenant-scoped queries filter or sort on " + columns.get(columns.size() - 1) +
+                        " without an index starting with " + String.join(", ", columns));
+                recommendation.setIndexName(indexName);
+                recommendation.setColumns(columns);
+                recommendation.setCalls(0L);
+                recommendation.setTotalTimeMs(0.0);
+                long[] scans = tableScans.get(shape.table);
+                if (scans != null) {
+                    recommendation.setSeqScans(scans[0]);
+                    recommendation.setIdxScans(scans[1]);
+                }
+                byIndex.put(indexName, recommendation);
+            }
+            recommendation.setCalls(recommendation.getCalls() + calls);
+            recommendation.setTotalTimeMs(recommendation.getTotalTimeMs() + totalTime);
+        }
+
+        List<IndexRecommendation> missing = new ArrayList<>(byIndex.values());
+        missing.sort((a, b) -> Double.compare(b.getTotalTimeMs(), a.getTotalTimeMs()));
+        return missing;
+    }
+
+    private List<Object[]> heaviestStatements() {
+        try {
+            return jdbcTemplate.query(STATEMENTS_SQL,
+                (rs, rowNum) -> new Object[] {rs.getString(1), rs.getLong(2), rs.getDouble(3)}, statementLimit);
+        } catch (DataAccessException e) {
+            // Extension not installed, or a server older than PostgreSQL 13
+            logger.warn("pg_stat_statements unavailable, skipping missing index analysis: {}", e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private List<IndexRecommendation> unusedIndexes() {
+        return jdbcTemplate.query(UNUSED_INDEXES_SQL, (rs, rowNum) -> {
+            String indexName = rs.getString(2);
+            long size = rs.getLong(3);
+            IndexRecommendation recommendation = new IndexRecommendation(IndexRecommendation.Type.DROP_INDEX,
+                rs.getString(1), "DROP INDEX CONCURRENTLY IF EXISTS " + indexName,
+                "Never scanned since statistics were last reset; costs writes and " + size + " bytes");
+            recommendation.setIndexName(indexName);
+            recommendation.setIdxScans(0L);
+            recommendation.setSizeBytes(size);
+            return recommendation;
+        }, unusedIndexMinBytes);
+    }
+
+    private static boolean isLeftover(JdbcTemplate session, String indexName) {
+        Integer leftover = session.queryForObject(LEFTOVER_INDEX_SQL, Integer.class, indexName);
+        return leftover != null && leftover > 0;
+    }
+
+    private static void dropLeftoverQuietly(JdbcTemplate session, String indexName) {
+        try {
+            if (isLeftover(session, indexName)) {
+                session.execute("DROP INDEX CONCURRENTLY IF EXISTS " + indexName);
+            }
+        } catch (DataAccessException e) {
+            logger.error("Failed to drop invalid index {}: {}", indexName, e.getMessage());
+        }
+    }
+
+    /**
+     * Shape of a single-table query, or null for joins and statements
+     * without a FROM clause.
+     */
+    static QueryShape shapeOf(String query) {
+        String fingerprint = SqlFingerprint.of(query);
+        if (fingerprint.contains(" join ")) {
+            // Unqualified columns cannot be attributed to a table
+            return null;
+        }
+        Matcher from = FROM.matcher(fingerprint);
+        if (!from.find()) {
+            return null;
+        }
+        QueryShape shape = new QueryShape(from.group(1));
+        Matcher equality = EQUALITY.matcher(fingerprint);
+        while (equality.find()) {
+            shape.equality.add(equality.group(1));
+        }
+        Matcher range = RANGE.matcher(fingerprint);
+        while (range.find()) {
+            shape.ordered.add(range.group(1) != null ? range.group(1) : range.group(2));
+        }
+        Matcher orderBy = ORDER_BY.matcher(fingerprint);
+        if (orderBy.find()) {
+            shape.ordered.add(orderBy.group(1));
+        }
+        return shape;
+    }
+
+    /**
+     * Column list of an index from its pg_indexes definition, lower-cased.
+     */
+    static List<String> indexColumns(String indexDefinition) {
+        Matcher matcher = INDEX_COLUMNS.matcher(indexDefinition);
+        if (!matcher.find()) {
+            return new ArrayList<>();
+        }
+        List<String> columns = new ArrayList<>();
+        for (String column : matcher.group(1).split(",")) {
+            // Drop opclass, ordering and quoting: "created_at DESC" -> created_at
+            columns.add(column.trim().split("\\s+")[0].replace("\"", "").toLowerCase());
+        }
+        return columns;
+    }
+
+    static boolean isCovered(List<List<String>> indexes, List<String> columns) {
+        if (indexes == null) {
+            return false;
+        }
+        for (List<String> index : indexes) {
+            if (index.size() >= columns.size() && index.subList(0, columns.size()).equals(columns)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String indexName(String table, List<String> columns) {
+        String name = "idx_" + table + "_" + String.join("_", columns);
+        return name.length() > MAX_IDENTIFIER_LENGTH ? name.substring(0, MAX_IDENTIFIER_LENGTH) : name;
+    }
+
+    /**
+     * Whether the time falls in a HH:mm-HH:mm window, which may span
+     * midnight; equal bounds mean always.
+     */
+    static boolean inMaintenanceWindow(String window, LocalTime now) {
+        String[] bounds = window.split("-");
+        if (bounds.length != 2) {
+            return false;
+        }
+        LocalTime start = LocalTime.parse(bounds[0].trim());
+        LocalTime end = LocalTime.parse(bounds[1].trim());
+        if (start.isBefore(end)) {
+            return !now.isBefore(start) && now.isBefore(end);
+        }
+        return !now.isBefore(start) || now.isBefore(end);
+    }
+
+    static final class QueryShape {
+        final String table;
+        final Set<String> equality = new LinkedHashSet<>();
+        final Set<String> ordered = new LinkedHashSet<>();
+
+        private QueryShape(String table) {
+            this.table = table;
+        }
+
+        /**
+         * tenant_id, the other equality columns in name order, then the
+         * first range or sort column; null unless the shape is tenant-scoped
+         * with such a column.
+         */
+        List<String> compositeIndex() {
+            if (!equality.contains(TENANT_COLUMN)) {
+                return null;
+            }
+            String rangeColumn = null;
+            for (String column : ordered) {
+                if (!equality.contains(column)) {
+                    rangeColumn = column;
+                    break;
+                }
+            }
+            if (rangeColumn == null) {
+                return null;
+            }
+            List<String> columns = new ArrayList<>(Arrays.asList(TENANT_COLUMN));
+            Set<String> others = new TreeSet<>(equality);
+            others.remove(TENANT_COLUMN);
+            columns.addAll(others);
+            columns.add(rangeColumn);
+            return columns;
+        }
+    }
+}
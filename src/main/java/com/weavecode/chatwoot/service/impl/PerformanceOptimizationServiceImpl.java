@@ -1,7 +1,13 @@
 package com.weavecode.chatwoot.service.impl;
 
+import com.weavecode.chatwoot.config.ExecutorConfig;
 import com.weavecode.chatwoot.dto.PerformanceMetrics;
 import com.weavecode.chatwoot.dto.CacheMetrics;
+import com.weavecode.chatwoot.dto.IndexRecommendation;
+import com.weavecode.chatwoot.metrics.ExecutorRegistry;
+import com.weavecode.chatwoot.metrics.LatencyHistograms;
+import com.weavecode.chatwoot.metrics.LatencySnapshot;
+import com.weavecode.chatwoot.metrics.SqlProfiler;
 import com.weavecode.chatwoot.service.PerformanceOptimizationService;
 import com.weavecode.chatwoot.service.TenantService;
 import com.weavecode.chatwoot.repository.ConversationRepository;
@@ -12,6 +18,7 @@ import com.weavecode.chatwoot.repository.AutomationRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
@@ -25,15 +32,14 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
-import javax.sql.DataSource;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadInfo;
 import java.lang.management.ThreadMXBean;
 import java.lang.management.GarbageCollectorMXBean;
-import java.sql.Connection;
-import java.sql.DatabaseMetaData;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -41,6 +47,8 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
 
     private static final Logger logger = LoggerFactory.getLogger(PerformanceOptimizationServiceImpl.class);
 
+    private static final int SLOW_QUERY_LIMIT = 20;
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
@@ -48,7 +56,7 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
     private JdbcTemplate jdbcTemplate;
 
     @Autowired
-    private DataSource dataSource;
+    private ConnectionPoolTuner connectionPoolTuner;
 
     @Autowired
     private TenantService tenantService;
@@ -68,6 +76,22 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
     @Autowired
     private AutomationRepository automationRepository;
 
+    @Autowired
+    private LatencyHistograms latencyHistograms;
+
+    @Autowired
+    private SqlProfiler sqlProfiler;
+
+    @Autowired
+    private IndexAdvisor indexAdvisor;
+
+    @Autowired
+    private ExecutorRegistry executorRegistry;
+
+    @Autowired
+    @Qualifier(ExecutorConfig.IO_EXECUTOR)
+    private Executor ioExecutor;
+
     @Override
     public PerformanceMetrics getSystemPerformanceMetrics(UUID tenantId) {
         try {
@@ -89,11 +113,12 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
             metrics.setHeapMemoryMax(maxMemory);
             metrics.setNonHeapMemoryUsed(getNonHeapMemoryUsed());
 
-            // Application metrics
-            metrics.setResponseTime(getAverageResponseTime(tenantId));
-            metrics.setThroughput(getThroughput(tenantId));
-            metrics.setActiveConnections(getActiveConnections());
-            metrics.setErrorRate(getErrorRate(tenantId));
+            // Application metrics, from the tenant's last latency interval
+            LatencySnapshot latency = latencyHistograms.forTenant(tenantId);
+            metrics.setResponseTime(latency.getMean());
+            metrics.setThroughput(latency.getThroughput());
+            metrics.setActiveConnections(connectionPoolTuner.activeConnections());
+            metrics.setErrorRate(latency.getErrorRate());
 
             // Database metrics
             metrics.setDatabaseResponseTime(getDatabaseResponseTime());
@@ -121,6 +146,11 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
             customMetrics.put("tenantActiveUsers", getTenantActiveUsers(tenantId));
             customMetrics.put("tenantActiveConversations", getTenantActiveConversations(tenantId));
             customMetrics.put("tenantAutomationCount", getTenantAutomationCount(tenantId));
+            customMetrics.put("responseTimeP50", latency.getP50());
+            customMetrics.put("responseTimeP95", latency.getP95());
+            customMetrics.put("responseTimeP99", latency.getP99());
+            customMetrics.put("responseTimeMax", latency.getMax());
+            customMetrics.put("requestCount", latency.getCount());
             metrics.setCustomMetrics(customMetrics);
 
             logger.info("Generated system performance metrics for tenant {}", tenantId);
@@ -190,7 +220,7 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
             // Update table statistics
             updateTableStatistics(tenantId);
             
-            // Analyze and suggest indexes
+            // Suggest indexes; IndexAdvisor builds them later, inside the maintenance window
             suggestIndexOptimization(tenantId);
 
             logger.info("Completed database query optimization for tenant {}", tenantId);
@@ -201,19 +231,36 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
         }
     }
 
+    @Override
+    public List<IndexRecommendation> getIndexRecommendations(UUID tenantId) {
+        try {
+            // Indexes are shared by all tenants, so the advice is database-wide
+            List<IndexRecommendation> recommendations = new ArrayList<>(indexAdvisor.recommendIndexes());
+            recommendations.addAll(indexAdvisor.tablesDueForAnalyze());
+
+            logger.info("Generated {} index recommendations for tenant {}", recommendations.size(), tenantId);
+            return recommendations;
+
+        } catch (Exception e) {
+            logger.error("Error generating index recommendations for tenant {}: {}", tenantId, e.getMessage(), e);
+            throw new RuntimeException("Failed to generate index recommendations", e);
+        }
+    }
+
     @Override
     public void warmUpCache(UUID tenantId) {
         try {
             logger.info("Starting cache warm-up for tenant {}", tenantId);
 
-            // Warm up frequently accessed data
+            // Warm up frequently accessed data on the I/O executor, which carries the
+            // caller's logging and tenant context along
             CompletableFuture<Void> conversationsWarmup = CompletableFuture.runAsync(() -> {
                 try {
                     warmUpConversationsCache(tenantId);
                 } catch (Exception e) {
                     logger.error("Error warming up conversations cache: {}", e.getMessage(), e);
                 }
-            });
+            }, ioExecutor);
 
             CompletableFuture<Void> usersWarmup = CompletableFuture.runAsync(() -> {
                 try {
@@ -221,7 +268,7 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
                 } catch (Exception e) {
                     logger.error("Error warming up users cache: {}", e.getMessage(), e);
                 }
-            });
+            }, ioExecutor);
 
             CompletableFuture<Void> customersWarmup = CompletableFuture.runAsync(() -> {
                 try {
@@ -229,7 +276,7 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
                 } catch (Exception e) {
                     logger.error("Error warming up customers cache: {}", e.getMessage(), e);
                 }
-            });
+            }, ioExecutor);
 
             // Wait for all warm-up operations to complete
             CompletableFuture.allOf(conversationsWarmup, usersWarmup, customersWarmup).join();
@@ -312,18 +359,8 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
     @Override
     public List<Map<String, Object>> getSlowQueryAnalysis(UUID tenantId) {
         try {
-            List<Map<String, Object>> slowQueries = new ArrayList<>();
-
-            // This would typically query a slow query log or performance schema
-            // For now, return a placeholder structure
-            Map<String, Object> sampleQuery = new HashMap<>();
-            sampleQuery.put("query", "SELECT * FROM conversations WHERE tenant_id = ?");
-            sampleQuery.put("avgTime", 150.5);
-            sampleQuery.put("executionCount", 1250L);
-            sampleQuery.put("totalTime", 188125.0);
-            sampleQuery.put("lastExecuted", java.time.LocalDateTime.now().minusHours(2));
-
-            slowQueries.add(sampleQuery);
+            // Statements timed by the profiling DataSource since startup
+            List<Map<String, Object>> slowQueries = sqlProfiler.slowQueries(tenantId, SLOW_QUERY_LIMIT);
 
             logger.info("Retrieved slow query analysis for tenant {}", tenantId);
             return slowQueries;
@@ -359,27 +396,8 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
     @Override
     public Map<String, Object> getConnectionPoolMetrics(UUID tenantId) {
         try {
-            Map<String, Object> metrics = new HashMap<>();
-
-            // Get connection pool information
-            if (dataSource instanceof org.apache.tomcat.jdbc.pool.DataSource) {
-                org.apache.tomcat.jdbc.pool.DataSource tomcatDataSource = (org.apache.tomcat.jdbc.pool.DataSource) dataSource;
-                
-                metrics.put("activeConnections", tomcatDataSource.getNumActive());
-                metrics.put("idleConnections", tomcatDataSource.getNumIdle());
-                metrics.put("totalConnections", tomcatDataSource.getNumActive() + tomcatDataSource.getNumIdle());
-                metrics.put("maxConnections", tomcatDataSource.getMaxActive());
-                metrics.put("minConnections", tomcatDataSource.getMinIdle());
-                metrics.put("connectionWaitTime", tomcatDataSource.getMaxWait());
-            } else {
-                // Generic connection pool metrics
-                try (Connection connection = dataSource.getConnection()) {
-                    DatabaseMetaData metaData = connection.getMetaData();
-                    metrics.put("maxConnections", metaData.getMaxConnections());
-                    metrics.put("databaseProductName", metaData.getDatabaseProductName());
-                    metrics.put("databaseProductVersion", metaData.getDatabaseProductVersion());
-                }
-            }
+            // The pool is shared by all tenants; read from its MXBeans, never by borrowing a connection
+            Map<String, Object> metrics = connectionPoolTuner.metrics();
 
             logger.info("Retrieved connection pool metrics for tenant {}", tenantId);
             return metrics;
@@ -487,16 +505,20 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
             metrics.put("deadlocked_thread_count", threadBean.getDeadlockedThreadCount());
             metrics.put("deadlocked_monitor_count", threadBean.getDeadlockedMonitorCount());
 
-            // Get thread state distribution
-            Thread.State[] states = Thread.State.values();
-            for (Thread.State state : states) {
-                long count = Arrays.stream(threadBean.getAllThreadIds())
-                        .mapToObj(threadBean::getThreadInfo)
-                        .filter(Objects::nonNull)
-                        .filter(info -> info.getThreadState() == state)
-                        .count();
-                metrics.put("thread_state_" + state.name().toLowerCase(), count);
+            // Get thread state distribution from a single pass over the live threads
+            Map<Thread.State, Long> states = new EnumMap<>(Thread.State.class);
+            for (Thread.State state : Thread.State.values()) {
+                states.put(state, 0L);
+            }
+            for (ThreadInfo info : threadBean.getThreadInfo(threadBean.getAllThreadIds())) {
+                if (info != null) {
+                    states.merge(info.getThreadState(), 1L, Long::sum);
+                }
             }
+            states.forEach((state, count) -> metrics.put("thread_state_" + state.name().toLowerCase(), count));
+
+            // Application thread pools
+            metrics.put("executors", executorRegistry.snapshot());
 
             logger.info("Retrieved thread pool metrics for tenant {}", tenantId);
             return metrics;
@@ -629,30 +651,6 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
         return memoryBean.getNonHeapMemoryUsage().getUsed();
     }
 
-    private double getAverageResponseTime(UUID tenantId) {
-        // This would calculate actual average response time
-        // For now, return a placeholder value
-        return 150.0 + Math.random() * 100;
-    }
-
-    private double getThroughput(UUID tenantId) {
-        // This would calculate actual throughput
-        // For now, return a placeholder value
-        return 100.0 + Math.random() * 50;
-    }
-
-    private int getActiveConnections() {
-        // This would get actual active connections
-        // For now, return a placeholder value
-        return (int) (5 + Math.random() * 10);
-    }
-
-    private double getErrorRate(UUID tenantId) {
-        // This would calculate actual error rate
-        // For now, return a placeholder value
-        return Math.random() * 5;
-    }
-
     private double getDatabaseResponseTime() {
         // This would measure actual database response time
         // For now, return a placeholder value
@@ -660,9 +658,7 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
     }
 
     private int getDatabaseConnections() {
-        // This would get actual database connections
-        // For now, return a placeholder value
-        return (int) (3 + Math.random() * 7);
+        return connectionPoolTuner.totalConnections();
     }
 
     private long getDatabaseQueryCount(UUID tenantId) {
@@ -804,13 +800,21 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
     }
 
     private void suggestConnectionPoolOptimizations(Map<String, Object> metrics, UUID tenantId) {
-        // This would suggest connection pool optimizations
-        logger.info("Suggesting connection pool optimizations for tenant {}", tenantId);
+        Object pending = metrics.get("pendingThreads");
+        if (pending instanceof Integer && (Integer) pending > 0) {
+            logger.warn("{} threads waiting for a connection from pool {} (max {})",
+                pending, metrics.get("pool"), metrics.get("maxConnections"));
+        }
+        logger.info("Connection pool state for tenant {}: {}", tenantId, metrics);
     }
 
     private void applyConnectionPoolAdjustments(UUID tenantId) {
-        // This would apply connection pool adjustments
-        logger.info("Applying connection pool adjustments for tenant {}", tenantId);
+        int size = connectionPoolTuner.adjust();
+        if (size < 0) {
+            logger.info("Connection pool is not HikariCP, skipping adjustments for tenant {}", tenantId);
+        } else {
+            logger.info("Connection pool maximum size is {} after adjustment for tenant {}", size, tenantId);
+        }
     }
 
     private void suggestJVMTuningParameters(Map<String, Object> gcMetrics, UUID tenantId) {
@@ -823,14 +827,28 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
         return Math.random() > 0.8; // 20% chance
     }
 
+    @SuppressWarnings("unchecked")
     private void suggestThreadPoolOptimizations(Map<String, Object> threadMetrics, UUID tenantId) {
-        // This would suggest thread pool optimizations
-        logger.info("Suggesting thread pool optimizations for tenant {}", tenantId);
+        Map<String, Map<String, Object>> executors =
+            (Map<String, Map<String, Object>>) threadMetrics.getOrDefault("executors", Map.of());
+        executors.forEach((name, state) -> {
+            long rejected = (Long) state.get("rejectedTasks");
+            int depth = (Integer) state.get("queueDepth");
+            int capacity = (Integer) state.get("queueCapacity");
+            if (rejected > 0) {
+                logger.warn("Executor {} has refused {} tasks; consider a larger pool or queue", name, rejected);
+            }
+            if (capacity > 0 && depth > capacity * 0.8) {
+                logger.warn("Executor {} queue is {}/{} full", name, depth, capacity);
+            }
+        });
+        logger.info("Reviewed {} executors for tenant {}", executors.size(), tenantId);
     }
 
     private void applyThreadPoolAdjustments(UUID tenantId) {
-        // This would apply thread pool adjustments
-        logger.info("Applying thread pool adjustments for tenant {}", tenantId);
+        Map<String, Integer> resized = executorRegistry.adjust();
+        logger.info("Applied thread pool adjustments for tenant {}: {}", tenantId,
+            resized.isEmpty() ? "no changes" : resized);
     }
 
     private String calculateSystemHealth(PerformanceMetrics metrics) {
@@ -1034,12 +1052,11 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
 
     private void updateTableStatistics(UUID tenantId) {
         try {
-            // This would update PostgreSQL table statistics
-            // For now, just log the action
-            logger.info("Table statistics update requested for tenant {}", tenantId);
-            
-            // In a real implementation, this would run ANALYZE commands
-            // jdbcTemplate.execute("ANALYZE");
+            // Only tables modified enough since their last analyze
+            List<IndexRecommendation> due = indexAdvisor.tablesDueForAnalyze();
+            int analyzed = indexAdvisor.analyze(due);
+            logger.info("Analyzed {} of {} tables with stale statistics (requested by tenant {})",
+                analyzed, due.size(), tenantId);
             
         } catch (Exception e) {
             logger.error("Error updating table statistics: {}", e.getMessage(), e);
@@ -1048,14 +1065,12 @@ public class PerformanceOptimizationServiceImpl implements PerformanceOptimizati
 
     private void suggestIndexOptimization(UUID tenantId) {
         try {
-            // This would analyze table usage and suggest indexes
-            // For now, just log the action
-            logger.info("Index optimization analysis requested for tenant {}", tenantId);
-            
-            // In a real implementation, this would analyze slow queries and suggest indexes
+            for (IndexRecommendation recommendation : indexAdvisor.recommendIndexes()) {
+                logger.info("Index recommendation: {} ({})", recommendation.getStatement(), recommendation.getReason());
+            }
             
         } catch (Exception e) {
-            logger.error("Error suggesting index optimization: {}", e.getMessage(), e);
+            logger.error("Error suggesting index optimization for tenant {}: {}", tenantId, e.getMessage(), e);
         }
     }
 }
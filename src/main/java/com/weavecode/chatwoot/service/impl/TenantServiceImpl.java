@@ -4,6 +4,7 @@ import com.weavecode.chatwoot.dto.TenantUsageStats;
 import com.weavecode.chatwoot.entity.Tenant;
 import com.weavecode.chatwoot.enums.PlanType;
 import com.weavecode.chatwoot.exception.ValidationException;
+import com.weavecode.chatwoot.metrics.TenantUsageMeter;
 import com.weavecode.chatwoot.repository.TenantRepository;
 import com.weavecode.chatwoot.service.TenantService;
 import org.slf4j.Logger;
@@ -33,10 +34,12 @@ public class TenantServiceImpl extends BaseServiceImpl<Tenant, UUID> implements
 
     private static final Logger logger = LoggerFactory.getLogger(TenantServiceImpl.class);
     private final TenantRepository tenantRepository;
+    private final TenantUsageMeter usageMeter;
 
-    public TenantServiceImpl(TenantRepository tenantRepository) {
+    public TenantServiceImpl(TenantRepository tenantRepository, TenantUsageMeter usageMeter) {
         super(tenantRepository);
         this.tenantRepository = tenantRepository;
+        this.usageMeter = usageMeter;
     }
 
     @Override
@@ -243,6 +246,7 @@ public class TenantServiceImpl extends BaseServiceImpl<Tenant, UUID> implements
                 tenant.setMaxApiCallsPerMonth(1000000);
                 break;
         }
+        usageMeter.applyPlanLimits(tenant.getId(), tenant.getMaxApiCallsPerMonth());
     }
 
     @Override
@@ -332,6 +336,8 @@ public class TenantServiceImpl extends BaseServiceImpl<Tenant, UUID> implements
         stats.setTotalUsers(tenant.getMaxUsers());
         stats.setStorageUsedBytes(0L);
         stats.setStorageLimitBytes(tenant.getMaxStorageGB() * 1024L * 1024L * 1024L);
+        stats.setApiCallsCount((int) usageMeter.getMonthlyUsage(tenantId));
+        stats.setApiCallsLimit(tenant.getMaxApiCallsPerMonth());
         
         return stats;
     }
@@ -349,7 +355,7 @@ public class TenantServiceImpl extends BaseServiceImpl<Tenant, UUID> implements
             case "STORAGE":
                 return quantity <= tenant.getMaxStorageGB();
             case "API_CALLS":
-                return quantity <= tenant.getMaxApiCallsPerMonth();
+                return usageMeter.getMonthlyUsage(tenantId) + quantity <= tenant.getMaxApiCallsPerMonth();
             default:
                 return true;
         }
@@ -6,6 +6,7 @@ import com.weavecode.chatwoot.enums.UserRole;
 import com.weavecode.chatwoot.exception.EntityNotFoundException;
 import com.weavecode.chatwoot.exception.ValidationException;
 import com.weavecode.chatwoot.repository.UserRepository;
+import com.weavecode.chatwoot.security.UserDetailsCache;
 import com.weavecode.chatwoot.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,12 +32,15 @@ public class UserServiceImpl extends BaseServiceImpl<User, UUID> implements User
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserDetailsCache userDetailsCache;
     
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                           UserDetailsCache userDetailsCache) {
         super(userRepository);
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userDetailsCache = userDetailsCache;
     }
     
     @Override
@@ -84,6 +88,18 @@ public class UserServiceImpl extends BaseServiceImpl<User, UUID> implements User
         return existing;
     }
     
+    /**
+     * Role, status or credentials may have changed through the generic
+     * update paths, so tokens issued before now must not be trusted.
+     */
+    @Override
+    public void handleEntityLifecycle(User user, String operation) {
+        super.handleEntityLifecycle(user, operation);
+        if ("UPDATE".equals(operation) || "DELETE".equals(operation)) {
+            userDetailsCache.invalidate(user.getEmail());
+        }
+    }
+    
     @Override
     public void validateBusinessRules(User user) {
         // Validate email format
@@ -209,7 +225,10 @@ public class UserServiceImpl extends BaseServiceImpl<User, UUID> implements User
         user.setPassword(passwordEncoder.encode(newPassword));
         user.setUpdatedAt(LocalDateTime.now());
         
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        // Tokens issued with the old password stop being trusted
+        userDetailsCache.invalidate(saved.getEmail());
+        return saved;
     }
     
     @Override
@@ -223,7 +242,10 @@ public class UserServiceImpl extends BaseServiceImpl<User, UUID> implements User
         user.setPassword(passwordEncoder.encode(newPassword));
         user.setUpdatedAt(LocalDateTime.now());
         
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        // Tokens issued with the old password stop being trusted
+        userDetailsCache.invalidate(saved.getEmail());
+        return saved;
     }
     
     @Override
@@ -232,7 +254,10 @@ public class UserServiceImpl extends BaseServiceImpl<User, UUID> implements User
         user.setStatus("active");
         user.setUpdatedAt(LocalDateTime.now());
         
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userDetailsCache.invalidate(saved.getEmail());
+        
+        return saved;
     }
     
     @Override
@@ -241,7 +266,10 @@ public class UserServiceImpl extends BaseServiceImpl<User, UUID> implements User
         user.setStatus("inactive");
         user.setUpdatedAt(LocalDateTime.now());
         
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userDetailsCache.invalidate(saved.getEmail());
+        
+        return saved;
     }
     
     @Override
@@ -250,7 +278,10 @@ public class UserServiceImpl extends BaseServiceImpl<User, UUID> implements User
         user.setStatus("suspended");
         user.setUpdatedAt(LocalDateTime.now());
         
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userDetailsCache.invalidate(saved.getEmail());
+        
+        return saved;
     }
     
     @Override
@@ -259,7 +290,10 @@ public class UserServiceImpl extends BaseServiceImpl<User, UUID> implements User
         user.setStatus("active");
         user.setUpdatedAt(LocalDateTime.now());
         
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userDetailsCache.invalidate(saved.getEmail());
+        
+        return saved;
     }
     
     @Override
@@ -268,7 +302,10 @@ public class UserServiceImpl extends BaseServiceImpl<User, UUID> implements User
         user.setRole(newRole);
         user.setUpdatedAt(LocalDateTime.now());
         
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userDetailsCache.invalidate(saved.getEmail());
+        
+        return saved;
     }
     
     @Override
@@ -385,15 +422,6 @@ public class UserServiceImpl extends BaseServiceImpl<User, UUID> implements User
         return LocalDateTime.now().plusHours(1);
     }
     
-    @Override
-    public User updateLastActivity(UUID userId) {
-        User user = findByIdOrThrow(userId);
-        user.setLastActivityAt(LocalDateTime.now());
-        user.setUpdatedAt(LocalDateTime.now());
-        
-        return userRepository.save(user);
-    }
-    
     @Override
     public List<UserActivityLog> getUserActivityLog(UUID userId, LocalDateTime startDate, LocalDateTime endDate) {
         // TODO: Implement activity log retrieval
@@ -421,7 +449,10 @@ public class UserServiceImpl extends BaseServiceImpl<User, UUID> implements User
             user.setUpdatedAt(LocalDateTime.now());
         });
         
-        return userRepository.saveAll(users);
+        List<User> saved = userRepository.saveAll(users);
+        saved.forEach(user -> userDetailsCache.invalidate(user.getEmail()));
+        
+        return saved;
     }
     
     @Override
@@ -432,7 +463,10 @@ public class UserServiceImpl extends BaseServiceImpl<User, UUID> implements User
             user.setUpdatedAt(LocalDateTime.now());
         });
         
-        return userRepository.saveAll(users);
+        List<User> saved = userRepository.saveAll(users);
+        saved.forEach(user -> userDetailsCache.invalidate(user.getEmail()));
+        
+        return saved;
     }
     
     @Override
@@ -0,0 +1,25 @@
+-- V4__Add_api_usage_metering.sql
+-- Monthly API call limits and metered usage per tenant
+
+ALTER TABLE tenants ADD COLUMN IF NOT EXISTS max_api_calls_per_month INTEGER NOT NULL DEFAULT 1000;
+
+-- Existing tenants get the quota of their plan, matching what new tenants are assigned
+UPDATE tenants SET max_api_calls_per_month = CASE plan_type
+    WHEN 'BASIC' THEN 10000
+    WHEN 'PROFESSIONAL' THEN 100000
+    WHEN 'ENTERPRISE' THEN 1000000
+    ELSE max_api_calls_per_month
+END
+WHERE plan_type IN ('BASIC', 'PROFESSIONAL', 'ENTERPRISE');
+
+-- Create api_usage table; rows are upserted in batches by the usage meter
+CREATE TABLE api_usage (
+    tenant_id UUID NOT NULL REFERENCES tenants(id) ON DELETE CASCADE,
+    period_start DATE NOT NULL,
+    endpoint_class VARCHAR(20) NOT NULL,
+    request_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (tenant_id, period_start, endpoint_class)
+);
+
+CREATE INDEX idx_api_usage_period_start ON api_usage(period_start);
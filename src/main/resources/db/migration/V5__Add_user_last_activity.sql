@@ -0,0 +1,6 @@
+-- V5__Add_user_last_activity.sql
+-- Last activity timestamp for users, maintained in batches by the activity tracker
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS last_activity_at TIMESTAMP WITH TIME ZONE;
+
+CREATE INDEX IF NOT EXISTS idx_users_tenant_last_activity ON users(tenant_id, last_activity_at);
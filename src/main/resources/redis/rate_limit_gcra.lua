@@ -0,0 +1,65 @@
+-- Generic cell rate algorithm (GCRA) over any number of windows, checked and
+-- consumed atomically in a single round trip.
+--
+-- KEYS[i]        theoretical arrival time (TAT) key for window i
+-- ARGV[2i-1]     request limit for window i
+-- ARGV[2i]       window period in milliseconds
+-- ARGV[#ARGV]    number of requests wanted; fewer are granted if that is all
+--                every window can spare
+--
+-- Returns {granted, limit, remaining, reset_ms, retry_after_ms} where limit,
+-- remaining and reset describe the most constrained window after the grant.
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local wanted = tonumber(ARGV[#ARGV])
+
+local granted = wanted
+local retry_after = 0
+local windows = {}
+
+for i = 1, #KEYS do
+    local limit = tonumber(ARGV[i * 2 - 1])
+    local period = tonumber(ARGV[i * 2])
+    local interval = period / limit
+
+    local tat = tonumber(redis.call('GET', KEYS[i])) or now
+    if tat < now then
+        tat = now
+    end
+
+    local available = math.floor((period - (tat - now)) / interval)
+    if available < granted then
+        granted = math.max(0, available)
+    end
+    if available < 1 then
+        retry_after = math.max(retry_after, tat + interval - period - now)
+    end
+
+    windows[i] = {limit, period, interval, tat}
+end
+
+local best_limit = 0
+local best_remaining = -1
+local best_reset = 0
+
+for i = 1, #KEYS do
+    local limit, period, interval, tat = unpack(windows[i])
+    if granted > 0 then
+        tat = tat + interval * granted
+        redis.call('SET', KEYS[i], tostring(tat), 'PX', math.ceil(tat - now))
+    end
+
+    local remaining = math.max(0, math.floor((period - (tat - now)) / interval))
+    if best_remaining < 0 or remaining < best_remaining then
+        best_limit = limit
+        best_remaining = remaining
+        best_reset = math.ceil(tat - now)
+    end
+end
+
+if granted > 0 then
+    retry_after = 0
+end
+
+return {granted, best_limit, best_remaining, best_reset, math.ceil(retry_after)}
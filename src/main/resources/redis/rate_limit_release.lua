@@ -0,0 +1,28 @@
+-- Hand unused requests back to GCRA windows, e.g. when a node drops a lease.
+--
+-- KEYS[i]        theoretical arrival time (TAT) key for window i
+-- ARGV[2i-1]     request limit for window i
+-- ARGV[2i]       window period in milliseconds
+-- ARGV[#ARGV]    number of requests to return
+--
+-- A window is never credited past "now", so returns cannot create burst
+-- capacity beyond the configured limit.
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local count = tonumber(ARGV[#ARGV])
+
+for i = 1, #KEYS do
+    local tat = tonumber(redis.call('GET', KEYS[i]))
+    if tat and tat > now then
+        local interval = tonumber(ARGV[i * 2]) / tonumber(ARGV[i * 2 - 1])
+        tat = math.max(now, tat - interval * count)
+        if tat > now then
+            redis.call('SET', KEYS[i], tostring(tat), 'PX', math.ceil(tat - now))
+        else
+            redis.call('DEL', KEYS[i])
+        end
+    end
+end
+
+return 1
@@ -8,7 +8,11 @@ import com.weavecode.chatwoot.dto.RegisterResponse;
 import com.weavecode.chatwoot.entity.Tenant;
 import com.weavecode.chatwoot.entity.User;
 import com.weavecode.chatwoot.enums.UserRole;
+import com.weavecode.chatwoot.exception.ServiceUnavailableException;
+import com.weavecode.chatwoot.security.JwtPrincipal;
 import com.weavecode.chatwoot.security.JwtTokenProvider;
+import com.weavecode.chatwoot.security.PasswordVerifier;
+import com.weavecode.chatwoot.security.TokenRevocationService;
 import com.weavecode.chatwoot.service.TenantService;
 import com.weavecode.chatwoot.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -20,15 +24,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.*;
@@ -40,9 +43,6 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @DisplayName("AuthController Tests")
 class AuthControllerTest {
 
-    @Mock
-    private AuthenticationManager authenticationManager;
-
     @Mock
     private JwtTokenProvider tokenProvider;
 
@@ -56,7 +56,10 @@ class AuthControllerTest {
     private PasswordEncoder passwordEncoder;
 
     @Mock
-    private Authentication authentication;
+    private TokenRevocationService revocationService;
+
+    @Mock
+    private PasswordVerifier passwordVerifier;
 
     @InjectMocks
     private AuthController authController;
@@ -126,12 +129,12 @@ class AuthControllerTest {
         expectedResponse.setRole(UserRole.USER);
         expectedResponse.setExpiresIn(3600000L);
 
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .thenReturn(authentication);
-        when(tokenProvider.generateToken(any(Authentication.class))).thenReturn(token);
-        when(tokenProvider.getUserIdFromToken(token)).thenReturn(testUserId);
-        when(tokenProvider.getTenantIdFromToken(token)).thenReturn(testTenantId);
-        when(userService.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        testUser.setPassword("encoded-password");
+        testUser.setStatus(User.UserStatus.ACTIVE);
+        when(userService.findByEmailAndTenantId("test@example.com", testTenantId)).thenReturn(Optional.of(testUser));
+        when(passwordVerifier.matches("password123", "encoded-password")).thenReturn(true);
+        when(tokenProvider.generateTokenForUser(testUserId, "test@example.com", testTenantId, "USER", "ACTIVE"))
+                .thenReturn(token);
 
         // When & Then
         mockMvc.perform(post("/api/auth/login")
@@ -139,11 +142,13 @@ class AuthControllerTest {
                         .content(objectMapper.writeValueAsString(loginRequest)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.token").value(token))
+                .andExpect(jsonPath("$.tokenType").value("Bearer"))
                 .andExpect(jsonPath("$.userId").value(testUserId.toString()))
                 .andExpect(jsonPath("$.tenantId").value(testTenantId.toString()));
 
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(tokenProvider).generateToken(authentication);
+        // The user row is fetched once for both verification and token claims
+        verify(userService, times(1)).findByEmailAndTenantId("test@example.com", testTenantId);
+        verify(passwordVerifier).matches("password123", "encoded-password");
     }
 
     @Test
@@ -186,12 +191,14 @@ class AuthControllerTest {
         expectedResponse.setUserId(testUserId);
         expectedResponse.setTenantId(testTenantId);
 
-        when(tokenProvider.validateToken("old-token-123")).thenReturn(true);
-        when(tokenProvider.getUsernameFromToken("old-token-123")).thenReturn("test@example.com");
-        when(tokenProvider.generateTokenFromUsername("test@example.com")).thenReturn(newToken);
-        when(tokenProvider.getUserIdFromToken(newToken)).thenReturn(testUserId);
-        when(tokenProvider.getTenantIdFromToken(newToken)).thenReturn(testTenantId);
-        when(userService.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        testUser.setStatus(User.UserStatus.ACTIVE);
+        JwtPrincipal principal = new JwtPrincipal("test@example.com", testUserId, testTenantId,
+                Instant.now().plusSeconds(3600));
+
+        when(tokenProvider.parseToken("old-token-123")).thenReturn(Optional.of(principal));
+        when(userService.findByEmailAndTenantId("test@example.com", testTenantId)).thenReturn(Optional.of(testUser));
+        when(tokenProvider.generateTokenForUser(testUserId, "test@example.com", testTenantId, "USER", "ACTIVE"))
+                .thenReturn(newToken);
 
         // When & Then
         mockMvc.perform(post("/api/auth/refresh")
@@ -199,8 +206,28 @@ class AuthControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.token").value(newToken));
 
-        verify(tokenProvider).validateToken("old-token-123");
-        verify(tokenProvider).generateTokenFromUsername("test@example.com");
+        verify(tokenProvider).parseToken("old-token-123");
+        verify(userService).findByEmailAndTenantId("test@example.com", testTenantId);
+        verify(revocationService).revoke(principal);
+    }
+
+    @Test
+    @DisplayName("Should reject refresh with revoked token")
+    void shouldRejectRefreshWithRevokedToken() throws Exception {
+        // Given
+        JwtPrincipal principal = new JwtPrincipal("jti-1", "test@example.com", testUserId, testTenantId,
+                "USER", "active", Instant.now(), Instant.now().plusSeconds(3600));
+
+        when(tokenProvider.parseToken("old-token-123")).thenReturn(Optional.of(principal));
+        when(revocationService.isRevoked("jti-1")).thenReturn(true);
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/refresh")
+                        .header("Authorization", "Bearer old-token-123"))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(userService);
+        verify(revocationService, never()).revoke(any());
     }
 
     @Test
@@ -211,7 +238,23 @@ class AuthControllerTest {
                 .andExpect(status().isOk());
 
         // Verify that SecurityContextHolder is cleared
-        verifyNoInteractions(authenticationManager, tokenProvider, userService, tenantService);
+        verifyNoInteractions(passwordVerifier, tokenProvider, userService, tenantService, revocationService);
+    }
+
+    @Test
+    @DisplayName("Should revoke token on logout")
+    void shouldRevokeTokenOnLogout() throws Exception {
+        // Given
+        JwtPrincipal principal = new JwtPrincipal("jti-1", "test@example.com", testUserId, testTenantId,
+                "USER", "active", Instant.now(), Instant.now().plusSeconds(3600));
+        when(tokenProvider.parseToken("token-123")).thenReturn(Optional.of(principal));
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer token-123"))
+                .andExpect(status().isOk());
+
+        verify(revocationService).revoke(principal);
     }
 
     @Test
@@ -228,7 +271,7 @@ class AuthControllerTest {
                         .content(objectMapper.writeValueAsString(invalidRequest)))
                 .andExpect(status().isBadRequest());
 
-        verifyNoInteractions(authenticationManager, tokenProvider, userService, tenantService);
+        verifyNoInteractions(passwordVerifier, tokenProvider, userService, tenantService);
     }
 
     @Test
@@ -252,16 +295,70 @@ class AuthControllerTest {
     @DisplayName("Should handle authentication failure")
     void shouldHandleAuthenticationFailure() throws Exception {
         // Given
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .thenThrow(new RuntimeException("Invalid credentials"));
+        testUser.setPassword("encoded-password");
+        testUser.setStatus(User.UserStatus.ACTIVE);
+        when(userService.findByEmailAndTenantId("test@example.com", testTenantId)).thenReturn(Optional.of(testUser));
+        when(passwordVerifier.matches("password123", "encoded-password")).thenReturn(false);
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(tokenProvider);
+    }
+
+    @Test
+    @DisplayName("Should reject a correct password for a suspended user")
+    void shouldRejectSuspendedUser() throws Exception {
+        // Given
+        testUser.setPassword("encoded-password");
+        testUser.setStatus(User.UserStatus.SUSPENDED);
+        when(userService.findByEmailAndTenantId("test@example.com", testTenantId)).thenReturn(Optional.of(testUser));
+        when(passwordVerifier.matches("password123", "encoded-password")).thenReturn(true);
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(tokenProvider);
+    }
+
+    @Test
+    @DisplayName("Should verify against a dummy hash for unknown users")
+    void shouldVerifyDummyHashForUnknownUsers() throws Exception {
+        // Given
+        when(userService.findByEmailAndTenantId("test@example.com", testTenantId)).thenReturn(Optional.empty());
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isUnauthorized());
+
+        verify(passwordVerifier).matches("password123", null);
+        verifyNoInteractions(tokenProvider);
+    }
+
+    @Test
+    @DisplayName("Should shed logins with retry hint when verification is saturated")
+    void shouldShedLoginsWhenVerificationSaturated() throws Exception {
+        // Given
+        testUser.setPassword("encoded-password");
+        when(userService.findByEmailAndTenantId("test@example.com", testTenantId)).thenReturn(Optional.of(testUser));
+        when(passwordVerifier.matches("password123", "encoded-password"))
+                .thenThrow(new ServiceUnavailableException("Password verification is saturated", 3));
 
         // When & Then
         mockMvc.perform(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(loginRequest)))
-                .andExpect(status().isInternalServerError());
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "3"));
 
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verifyNoInteractions(tokenProvider, userService);
+        verifyNoInteractions(tokenProvider);
     }
 }
@@ -0,0 +1,70 @@
+package com.weavecode.chatwoot.integration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+@DisplayName("API Usage Metering Migration Tests")
+class ApiUsageMeteringMigrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("chatwoot_migration_test")
+            .withUsername("test")
+            .withPassword("test");
+
+    private Flyway flyway(String target) {
+        return Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration")
+                .target(target)
+                .cleanDisabled(false)
+                .load();
+    }
+
+    @Test
+    @DisplayName("Should keep the plan quota of tenants that existed before metering")
+    void shouldBackfillQuotaByPlan() {
+        // Given tenants created before the metering migration
+        Flyway beforeMetering = flyway("3");
+        beforeMetering.clean();
+        beforeMetering.migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+        UUID free = insertTenant(jdbcTemplate, "FREE");
+        UUID basic = insertTenant(jdbcTemplate, "BASIC");
+        UUID professional = insertTenant(jdbcTemplate, "PROFESSIONAL");
+        UUID enterprise = insertTenant(jdbcTemplate, "ENTERPRISE");
+
+        // When
+        flyway("latest").migrate();
+
+        // Then
+        assertEquals(1000, quota(jdbcTemplate, free));
+        assertEquals(10000, quota(jdbcTemplate, basic));
+        assertEquals(100000, quota(jdbcTemplate, professional));
+        assertEquals(1000000, quota(jdbcTemplate, enterprise));
+    }
+
+    private static UUID insertTenant(JdbcTemplate jdbcTemplate, String planType) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO tenants (id, name, domain, plan_type) VALUES (?, ?, ?, ?)",
+            id, "Migration " + planType, id + ".migration.test", planType);
+        return id;
+    }
+
+    private static int quota(JdbcTemplate jdbcTemplate, UUID tenantId) {
+        return jdbcTemplate.queryForObject(
+            "SELECT max_api_calls_per_month FROM tenants WHERE id = ?", Integer.class, tenantId);
+    }
+}
@@ -0,0 +1,114 @@
+package com.weavecode.chatwoot.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BodyCapture Tests")
+class BodyCaptureTest {
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Test
+    @DisplayName("Should keep at most the configured number of bytes")
+    void shouldKeepAtMostMaxBytes() {
+        // Given
+        BodyCapture capture = new BodyCapture(8);
+        byte[] body = "0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        capture.write(body, 0, 4);
+        capture.write(body, 4, 12);
+
+        // Then
+        assertEquals("01234567", capture.asString(StandardCharsets.UTF_8));
+        assertTrue(capture.isTruncated());
+        assertEquals(16, capture.getTotalBytes());
+    }
+
+    @Test
+    @DisplayName("Should stream every byte through while capturing a prefix")
+    void shouldStreamEveryByteThrough() throws Exception {
+        // Given
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(servletStream(sink));
+        when(response.getContentType()).thenReturn("application/json;charset=UTF-8");
+        BodyCapture.CapturingResponse wrapper =
+            new BodyCapture.CapturingResponse(response, 5, type -> type.startsWith("application/json"));
+
+        // When
+        wrapper.getOutputStream().write("{\"id\":42}".getBytes(StandardCharsets.UTF_8));
+
+        // Then
+        assertEquals("{\"id\":42}", sink.toString(StandardCharsets.UTF_8));
+        assertTrue(wrapper.isCapturing());
+        assertEquals("{\"id\"", wrapper.getCapture().asString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should capture writer output once flushed")
+    void shouldCaptureWriterOutput() throws Exception {
+        // Given
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(servletStream(sink));
+        when(response.getContentType()).thenReturn("text/plain");
+        when(response.getCharacterEncoding()).thenReturn("UTF-8");
+        BodyCapture.CapturingResponse wrapper = new BodyCapture.CapturingResponse(response, 64, type -> true);
+
+        // When
+        PrintWriter writer = wrapper.getWriter();
+        writer.write("Rate limit exceeded.");
+        wrapper.finish();
+
+        // Then
+        assertEquals("Rate limit exceeded.", sink.toString(StandardCharsets.UTF_8));
+        assertEquals("Rate limit exceeded.", wrapper.getCapture().asString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should pass other content types through untouched")
+    void shouldPassOtherContentTypesThrough() throws Exception {
+        // Given
+        ServletOutputStream raw = servletStream(new ByteArrayOutputStream());
+        when(response.getOutputStream()).thenReturn(raw);
+        when(response.getContentType()).thenReturn("text/csv");
+        BodyCapture.CapturingResponse wrapper =
+            new BodyCapture.CapturingResponse(response, 64, type -> type.startsWith("application/json"));
+
+        // When & Then
+        assertSame(raw, wrapper.getOutputStream());
+        assertFalse(wrapper.isCapturing());
+    }
+
+    private static ServletOutputStream servletStream(ByteArrayOutputStream sink) {
+        return new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                sink.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        };
+    }
+}
@@ -0,0 +1,127 @@
+package com.weavecode.chatwoot.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LevelAwareAsyncAppender Tests")
+class LevelAwareAsyncAppenderTest {
+
+    private final LoggerContext loggerContext = new LoggerContext();
+    private final Logger logger = loggerContext.getLogger("test");
+    private final GatedAppender downstream = new GatedAppender();
+    private LevelAwareAsyncAppender appender;
+
+    @AfterEach
+    void tearDown() {
+        downstream.gate.countDown();
+        if (appender != null) {
+            appender.stop();
+        }
+    }
+
+    private void startAppender(int bufferSize) {
+        downstream.setContext(loggerContext);
+        downstream.start();
+        appender = new LevelAwareAsyncAppender();
+        appender.setContext(loggerContext);
+        appender.setName("async-test");
+        appender.setBufferSize(bufferSize);
+        appender.setBatchSize(1);
+        appender.setDiscardingThreshold(0.5);
+        appender.addAppender(downstream);
+        appender.start();
+    }
+
+    private ILoggingEvent event(Level level, String message) {
+        return new LoggingEvent(LevelAwareAsyncAppenderTest.class.getName(), logger, level, message, null, null);
+    }
+
+    @Test
+    @DisplayName("Should deliver every event in order when there is no pressure")
+    void shouldDeliverInOrder() throws Exception {
+        // Given
+        startAppender(64);
+        downstream.gate.countDown();
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            appender.doAppend(event(Level.INFO, "event-" + i));
+        }
+        appender.stop();
+
+        // Then
+        assertEquals(20, downstream.received.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals("event-" + i, downstream.received.get(i).getFormattedMessage());
+        }
+        assertEquals(0, appender.getDroppedInfoCount());
+    }
+
+    @Test
+    @DisplayName("Should shed DEBUG under pressure but never drop WARN or ERROR")
+    void shouldShedDebugButKeepWarnings() throws Exception {
+        // Given - the writer is stuck on the first event, so the buffer fills up
+        startAppender(8);
+        appender.doAppend(event(Level.INFO, "first"));
+        assertTrue(downstream.entered.await(5, TimeUnit.SECONDS));
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            appender.doAppend(event(Level.DEBUG, "debug-" + i));
+        }
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 20; i++) {
+                appender.doAppend(event(i % 2 == 0 ? Level.WARN : Level.ERROR, "critical-" + i));
+            }
+        });
+        producer.start();
+        Thread.sleep(50);
+        assertTrue(producer.isAlive(), "critical events should wait for space, not be dropped");
+        downstream.gate.countDown();
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+        appender.stop();
+
+        // Then
+        long critical = downstream.received.stream()
+            .filter(e -> e.getLevel().isGreaterOrEqual(Level.WARN))
+            .count();
+        assertEquals(20, critical);
+        assertTrue(appender.getDroppedDebugCount() > 0);
+        assertTrue(appender.getBlockedCriticalCount() > 0);
+        assertEquals(1 + 50 + 20 - appender.getDroppedDebugCount(), downstream.received.size());
+    }
+
+    /**
+     * Records events, holding the writer thread on the first one until the gate opens.
+     */
+    private static final class GatedAppender extends AppenderBase<ILoggingEvent> {
+        private final List<ILoggingEvent> received = new CopyOnWriteArrayList<>();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch gate = new CountDownLatch(1);
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            entered.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(event);
+        }
+    }
+}
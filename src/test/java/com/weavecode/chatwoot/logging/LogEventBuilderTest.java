@@ -0,0 +1,149 @@
+package com.weavecode.chatwoot.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.logstash.logback.encoder.LoggingEventCompositeJsonEncoder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LogEventBuilder Tests")
+class LogEventBuilderTest {
+
+    private final LoggerContext loggerContext = new LoggerContext();
+    private final Logger logger = loggerContext.getLogger("test");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        appender.setContext(loggerContext);
+        appender.start();
+        logger.addAppender(appender);
+        logger.setLevel(Level.INFO);
+    }
+
+    private LogEvent fieldsOf(ILoggingEvent event) {
+        return (LogEvent) event.getArgumentArray()[0];
+    }
+
+    @Test
+    @DisplayName("Should log typed fields as a single structured argument")
+    void shouldLogTypedFields() throws Exception {
+        // When
+        LogEventBuilder.at(logger, org.slf4j.event.Level.WARN, "API response")
+            .with("method", "GET")
+            .with("statusCode", 404)
+            .with("ratio", 0.5)
+            .with("cached", true)
+            .withObject("headers", Map.of("Accept", "application/json"))
+            .log();
+
+        // Then
+        ILoggingEvent event = appender.list.get(0);
+        assertEquals(Level.WARN, event.getLevel());
+        assertEquals("API response", event.getFormattedMessage());
+
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = new ObjectMapper().getFactory().createGenerator(json)) {
+            generator.writeStartObject();
+            fieldsOf(event).writeTo(generator);
+            generator.writeEndObject();
+        }
+        assertEquals("{\"method\":\"GET\",\"statusCode\":404,\"ratio\":0.5,\"cached\":true," +
+                     "\"headers\":{\"Accept\":\"application/json\"}}", json.toString());
+    }
+
+    @Test
+    @DisplayName("Should hand out independent events while reusing the thread's builder")
+    void shouldKeepEventsIndependentOfReuse() {
+        // When
+        LogEventBuilder.at(logger, org.slf4j.event.Level.INFO, "first").with("n", 1).with("extra", "x").log();
+        LogEventBuilder.at(logger, org.slf4j.event.Level.INFO, "second").with("n", 2).log();
+
+        // Then
+        LogEvent first = fieldsOf(appender.list.get(0));
+        LogEvent second = fieldsOf(appender.list.get(1));
+        assertEquals(2, first.size());
+        assertEquals(1L, first.get("n"));
+        assertEquals("x", first.get("extra"));
+        assertEquals(1, second.size());
+        assertEquals(2L, second.get("n"));
+        assertNull(second.get("extra"));
+    }
+
+    @Test
+    @DisplayName("Should collect nothing when the level is disabled")
+    void shouldSkipDisabledLevels() {
+        // When
+        LogEventBuilder builder = LogEventBuilder.at(logger, org.slf4j.event.Level.DEBUG, "ignored");
+        builder.with("n", 1).withAll(Map.of("a", "b")).log();
+
+        // Then
+        assertTrue(appender.list.isEmpty());
+        assertSame(builder, LogEventBuilder.at(logger, org.slf4j.event.Level.TRACE, "ignored"));
+    }
+
+    @Test
+    @DisplayName("Should not corrupt an event being built when another is logged meanwhile")
+    void shouldHandleNestedEvents() {
+        // When
+        LogEventBuilder outer = LogEventBuilder.at(logger, org.slf4j.event.Level.INFO, "outer").with("a", 1);
+        LogEventBuilder.at(logger, org.slf4j.event.Level.INFO, "inner").with("b", 2).log();
+        outer.with("c", 3).log();
+
+        // Then
+        assertEquals("inner", appender.list.get(0).getMessage());
+        LogEvent outerFields = fieldsOf(appender.list.get(1));
+        assertEquals(1L, outerFields.get("a"));
+        assertEquals(3L, outerFields.get("c"));
+        assertNull(outerFields.get("b"));
+    }
+
+    @Test
+    @DisplayName("Should attach the throwable to error events")
+    void shouldAttachThrowable() {
+        // When
+        IllegalStateException failure = new IllegalStateException("boom");
+        LogEventBuilder.at(logger, org.slf4j.event.Level.ERROR, "failed").with("uri", "/api/users")
+            .withThrowable(failure).log();
+
+        // Then
+        ILoggingEvent event = appender.list.get(0);
+        assertEquals("boom", event.getThrowableProxy().getMessage());
+        assertEquals(1, event.getArgumentArray().length);
+    }
+
+    @Test
+    @DisplayName("Should encode the stack trace without clobbering the event message")
+    void shouldEncodeStackTrace() throws Exception {
+        // Given
+        LoggingEventCompositeJsonEncoder encoder = StructuredLoggingConfig.createJsonEncoder(loggerContext);
+        IllegalStateException failure = new IllegalStateException("boom");
+
+        // When
+        LogEventBuilder.at(logger, org.slf4j.event.Level.ERROR, "Error occurred")
+            .with("exception", failure.getClass().getSimpleName())
+            .with("exceptionMessage", failure.getMessage())
+            .withThrowable(failure).log();
+        byte[] encoded = encoder.encode(appender.list.get(0));
+
+        // Then
+        JsonNode json = new ObjectMapper().readTree(new String(encoded, StandardCharsets.UTF_8));
+        assertEquals("Error occurred", json.get("message").asText());
+        assertEquals("boom", json.get("exceptionMessage").asText());
+        assertTrue(json.get("stack_trace").asText().startsWith("java.lang.IllegalStateException: boom"));
+        encoder.stop();
+    }
+}
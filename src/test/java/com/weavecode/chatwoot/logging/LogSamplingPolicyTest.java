@@ -0,0 +1,102 @@
+package com.weavecode.chatwoot.logging;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LogSamplingPolicy Tests")
+class LogSamplingPolicyTest {
+
+    private static final String ROUTE = "GET /api/conversations/{id}";
+
+    private LogSamplingPolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        policy = new LogSamplingPolicy();
+        ReflectionTestUtils.setField(policy, "enabled", true);
+        ReflectionTestUtils.setField(policy, "sampleEvery", 10);
+        ReflectionTestUtils.setField(policy, "slowThresholdMs", 1000L);
+        ReflectionTestUtils.setField(policy, "targetPerInterval", 5);
+        ReflectionTestUtils.setField(policy, "maxRoutes", 2);
+    }
+
+    private int logged(String route, int requests) {
+        return logged(route, 200, requests);
+    }
+
+    private int logged(String route, int statusCode, int requests) {
+        int logged = 0;
+        for (int i = 0; i < requests; i++) {
+            if (policy.shouldLog(route, false, statusCode, 5, false)) {
+                logged++;
+            }
+        }
+        return logged;
+    }
+
+    @Test
+    @DisplayName("Should always keep errors, auth failures and slow requests")
+    void shouldAlwaysKeepImportantRequests() {
+        for (int i = 0; i < 50; i++) {
+            assertTrue(policy.shouldLog(ROUTE, false, 500, 5, false));
+            assertTrue(policy.shouldLog(ROUTE, false, 200, 5, true));
+            assertTrue(policy.shouldLog("POST /api/auth/login", true, 401, 5, false));
+            assertTrue(policy.shouldLog(ROUTE, false, 200, 1500, false));
+        }
+    }
+
+    @Test
+    @DisplayName("Should sample successful requests 1 in N per route")
+    void shouldSampleSuccessfulRequests() {
+        assertEquals(10, logged(ROUTE, 100));
+        assertEquals(10, logged("GET /api/users", 100));
+        // Client errors outside auth endpoints are routine traffic
+        assertEquals(1, logged(ROUTE, 404, 10));
+    }
+
+    @Test
+    @DisplayName("Should raise the sample rate for quiet routes and cap it for busy ones")
+    void shouldAdaptToVolume() {
+        // Given - a quiet interval of 20 requests against a target of 5 logged
+        logged(ROUTE, 20);
+
+        // When
+        policy.adjustRates();
+
+        // Then - 1 in 4 instead of 1 in 10
+        assertEquals(5, logged(ROUTE, 20));
+        assertEquals(4, LogSamplingPolicy.adaptiveEvery(10, 20, 5));
+        assertEquals(1, LogSamplingPolicy.adaptiveEvery(10, 3, 5));
+        assertEquals(10, LogSamplingPolicy.adaptiveEvery(10, 100_000, 5));
+    }
+
+    @Test
+    @DisplayName("Should apply runtime overrides per route and share a bucket beyond max routes")
+    @SuppressWarnings("unchecked")
+    void shouldApplyOverridesAndBoundRoutes() {
+        // When
+        policy.setRouteSampleEvery(ROUTE, 1);
+        logged(ROUTE, 1);
+        logged("GET /api/users", 1);
+        logged("GET /api/customers", 1);
+
+        // Then
+        assertEquals(20, logged(ROUTE, 20));
+        Map<String, Object> description = policy.describe();
+        Map<String, Integer> routes = (Map<String, Integer>) description.get("effectiveSampleEvery");
+        assertEquals(3, routes.size());
+        assertFalse(routes.containsKey("GET /api/customers"));
+        assertTrue(routes.containsKey(LogSamplingPolicy.OTHER_ROUTE));
+        assertEquals(1, ((Map<String, Integer>) description.get("overrides")).get(ROUTE));
+
+        // Clearing the override returns the route to the default rate
+        policy.setRouteSampleEvery(ROUTE, null);
+        assertEquals(2, logged(ROUTE, 20));
+    }
+}
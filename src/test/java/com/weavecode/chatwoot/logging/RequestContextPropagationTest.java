@@ -0,0 +1,121 @@
+package com.weavecode.chatwoot.logging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Request ID and context propagation Tests")
+class RequestContextPropagationTest {
+
+    private final ContextPropagatingTaskDecorator decorator = new ContextPropagatingTaskDecorator();
+
+    @AfterEach
+    void tearDown() {
+        LogContext.clear();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should generate unique fixed-width ids ordered by time")
+    void shouldGenerateUniqueTimeOrderedIds() {
+        // Given
+        Set<String> ids = new HashSet<>();
+        long before = System.currentTimeMillis();
+
+        // When
+        String previous = null;
+        for (int i = 0; i < 10_000; i++) {
+            String id = RequestIdGenerator.nextId();
+            assertEquals(RequestIdGenerator.LENGTH, id.length());
+            assertTrue(ids.add(id), "duplicate id " + id);
+            if (previous != null) {
+                assertTrue(RequestIdGenerator.timestampOf(id) >= RequestIdGenerator.timestampOf(previous));
+            }
+            previous = id;
+        }
+
+        // Then
+        assertTrue(RequestIdGenerator.timestampOf(previous) >= before);
+        assertTrue(RequestIdGenerator.format(2, 0, 0).compareTo(RequestIdGenerator.format(1, 0xFFFF, -1)) > 0);
+    }
+
+    @Test
+    @DisplayName("Should carry logging and security context into the task and restore the worker afterwards")
+    void shouldPropagateContextToWorker() throws Exception {
+        // Given
+        StructuredLoggingService loggingService = new StructuredLoggingService();
+        loggingService.startRequestContext("tenant-1", "user-1", "req-1");
+        loggingService.setContext("route", "/api/conversations");
+        Authentication authentication = new UsernamePasswordAuthenticationToken("user@example.com", null);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        AtomicReference<Map<String, String>> seenMdc = new AtomicReference<>();
+        AtomicReference<Authentication> seenAuthentication = new AtomicReference<>();
+        ExecutorService worker = Executors.newSingleThreadExecutor();
+
+        try {
+            // When
+            Runnable task = decorator.decorate(() -> {
+                seenMdc.set(MDC.getCopyOfContextMap());
+                seenAuthentication.set(SecurityContextHolder.getContext().getAuthentication());
+            });
+            worker.submit(task).get();
+            Future<Object[]> after = worker.submit(() -> new Object[] {
+                MDC.get("requestId"), LogContext.current(), SecurityContextHolder.getContext().getAuthentication()
+            });
+
+            // Then
+            assertEquals("req-1", seenMdc.get().get("requestId"));
+            assertEquals("req-1", seenMdc.get().get("correlationId"));
+            assertEquals("tenant-1", seenMdc.get().get("tenantId"));
+            assertEquals("/api/conversations", seenMdc.get().get("route"));
+            assertSame(authentication, seenAuthentication.get());
+            assertArrayEquals(new Object[] {null, null, null}, after.get());
+        } finally {
+            worker.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should pass tasks through untouched when there is no context")
+    void shouldNotWrapWithoutContext() {
+        // Given
+        Runnable task = () -> { };
+
+        // When / Then
+        assertSame(task, decorator.decorate(task));
+    }
+
+    @Test
+    @DisplayName("Should leave the captured snapshot unchanged when the request context changes")
+    void shouldKeepSnapshotImmutable() {
+        // Given
+        StructuredLoggingService loggingService = new StructuredLoggingService();
+        loggingService.startRequestContext("tenant-1", "user-1", "req-1");
+        LogContext captured = LogContext.current();
+
+        // When
+        loggingService.setContext("tenantId", "tenant-2");
+        loggingService.removeContext("userId");
+
+        // Then
+        assertEquals("tenant-1", captured.get("tenantId"));
+        assertEquals("user-1", captured.get("userId"));
+        assertEquals("tenant-2", MDC.get("tenantId"));
+        assertNull(MDC.get("userId"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.weavecode.chatwoot.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BusinessGauges Tests")
+class BusinessGaugesTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BusinessGauges businessGauges;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        businessGauges = new BusinessGauges();
+        ReflectionTestUtils.setField(businessGauges, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(businessGauges, "meterRegistry", meterRegistry);
+    }
+
+    private double tenantGauge(String name, String tenant) {
+        return meterRegistry.get(name).tag("tenant", tenant).gauge().value();
+    }
+
+    private void givenRows(String table, Map<String, Long> rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Map.Entry<String, Long> row : rows.entrySet()) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString(1)).thenReturn(row.getKey());
+                when(rs.getLong(2)).thenReturn(row.getValue());
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(contains("FROM " + table), any(RowCallbackHandler.class));
+    }
+
+    private SessionConnectEvent connect(String sessionId, String tenantId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        Map<String, Object> attributes = new HashMap<>();
+        if (tenantId != null) {
+            attributes.put(BusinessGauges.TENANT_ATTRIBUTE, tenantId);
+        }
+        accessor.setSessionAttributes(attributes);
+        return new SessionConnectEvent(this, MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    private SessionDisconnectEvent disconnect(String sessionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        accessor.setSessionId(sessionId);
+        return new SessionDisconnectEvent(this, MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()),
+                sessionId, CloseStatus.NORMAL);
+    }
+
+    @Test
+    @DisplayName("Should track active conversations per tenant from transitions")
+    void shouldTrackConversationTransitions() {
+        // When
+        businessGauges.adjustActiveConversations("tenant-a", 1);
+        businessGauges.adjustActiveConversations("tenant-a", 1);
+        businessGauges.adjustActiveConversations("tenant-b", 1);
+        businessGauges.adjustActiveConversations("tenant-a", -1);
+
+        // Then
+        assertEquals(1, tenantGauge("chatwoot.tenant.conversations.active", "tenant-a"));
+        assertEquals(1, tenantGauge("chatwoot.tenant.conversations.active", "tenant-b"));
+        assertEquals(2, businessGauges.totalActiveConversations());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should correct drift and zero out tenants missing from the database")
+    void shouldReconcileAgainstDatabase() {
+        // Given
+        businessGauges.adjustActiveConversations("tenant-a", 5);
+        businessGauges.adjustActiveConversations("tenant-b", 2);
+        givenRows("conversations", Map.of("tenant-a", 3L, "tenant-c", 4L));
+        givenRows("users", Map.of("tenant-a", 10L));
+
+        // When
+        businessGauges.reconcile();
+
+        // Then
+        assertEquals(3, tenantGauge("chatwoot.tenant.conversations.active", "tenant-a"));
+        assertEquals(0, tenantGauge("chatwoot.tenant.conversations.active", "tenant-b"));
+        assertEquals(4, tenantGauge("chatwoot.tenant.conversations.active", "tenant-c"));
+        assertEquals(7, businessGauges.totalActiveConversations());
+        assertEquals(10, businessGauges.totalActiveUsers());
+    }
+
+    @Test
+    @DisplayName("Should count WebSocket sessions per tenant and ignore repeated disconnects")
+    void shouldTrackWebSocketSessions() {
+        // When
+        businessGauges.onWebSocketConnect(connect("s1", "tenant-a"));
+        businessGauges.onWebSocketConnect(connect("s2", "tenant-a"));
+        businessGauges.onWebSocketConnect(connect("s3", null));
+        businessGauges.onWebSocketDisconnect(disconnect("s1"));
+        businessGauges.onWebSocketDisconnect(disconnect("s1"));
+
+        // Then
+        assertEquals(1, tenantGauge("chatwoot.tenant.websocket.connections.active", "tenant-a"));
+        assertEquals(1, tenantGauge("chatwoot.tenant.websocket.connections.active", BusinessGauges.UNKNOWN_TENANT));
+        assertEquals(2, businessGauges.totalWebSocketConnections());
+    }
+}
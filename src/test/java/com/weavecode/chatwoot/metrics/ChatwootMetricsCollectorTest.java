@@ -0,0 +1,85 @@
+package com.weavecode.chatwoot.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("ChatwootMetricsCollector Tests")
+class ChatwootMetricsCollectorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ChatwootMetricsCollector collector;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        collector = new ChatwootMetricsCollector(meterRegistry, mock(BusinessGauges.class), 3);
+    }
+
+    private double apiRequests(String endpoint, String method, String status) {
+        Counter counter = meterRegistry.find("chatwoot.api.requests.by.endpoint")
+                .tag("endpoint", endpoint).tag("method", method).tag("status", status)
+                .counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private double overflow(String meter) {
+        return meterRegistry.get("chatwoot.metrics.cardinality.overflow").tag("meter", meter).counter().count();
+    }
+
+    @Test
+    @DisplayName("Should tag API requests by route template and status class, reusing the meter")
+    void shouldTagByRouteAndStatusClass() {
+        // When
+        collector.recordApiRequest("/api/users/{id}", "GET", 200);
+        collector.recordApiRequest("/api/users/{id}", "GET", 204);
+        collector.recordApiRequest("/api/users/{id}", "GET", 404);
+
+        // Then
+        assertEquals(2, apiRequests("/api/users/{id}", "GET", "2xx"));
+        assertEquals(1, apiRequests("/api/users/{id}", "GET", "4xx"));
+        assertEquals(2, meterRegistry.find("chatwoot.api.requests.by.endpoint").counters().size());
+        assertEquals(1, meterRegistry.get("chatwoot.api.errors").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should fold endpoints beyond the ceiling into the other bucket and count the overflow")
+    void shouldFoldOverflowIntoOther() {
+        // When
+        for (int i = 0; i < 10; i++) {
+            collector.recordApiRequest("/api/route-" + i, "GET", 200);
+        }
+        collector.recordApiRequest("/api/route-0", "GET", 200);
+
+        // Then
+        assertEquals(2, apiRequests("/api/route-0", "GET", "2xx"));
+        assertEquals(7, apiRequests(MeterCache.OTHER, "GET", "2xx"));
+        assertEquals(0, apiRequests("/api/route-9", "GET", "2xx"));
+        assertEquals(7, overflow("chatwoot.api.requests.by.endpoint"));
+        assertEquals(4, meterRegistry.find("chatwoot.api.requests.by.endpoint").counters().size());
+    }
+
+    @Test
+    @DisplayName("Should cache cache-operation and notification counters the same way")
+    void shouldCacheOtherTaggedCounters() {
+        // When
+        collector.recordCacheOperation("get", "user:1", true);
+        collector.recordCacheOperation("get", "user:2", false);
+        collector.recordCacheOperation("get", "user:3", true);
+        collector.recordNotificationDelivery("MESSAGE", "websocket", true);
+        collector.recordNotificationDelivery("MESSAGE", "websocket", false);
+
+        // Then
+        assertEquals(2, meterRegistry.get("chatwoot.cache.operations.by.type")
+                .tag("operation", "get").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("chatwoot.notifications.delivery.by.type")
+                .tag("status", "failed").counter().count());
+        assertEquals(1, meterRegistry.get("chatwoot.notifications.sent").counter().count());
+        assertEquals(0, overflow("chatwoot.cache.operations.by.type"));
+    }
+}
@@ -0,0 +1,120 @@
+package com.weavecode.chatwoot.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ExecutorRegistry Tests")
+class ExecutorRegistryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorRegistry executorRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executorRegistry = new ExecutorRegistry();
+        ReflectionTestUtils.setField(executorRegistry, "meterRegistry", meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should report queue depth and rejections of a saturated pool")
+    void shouldReportSaturatedPool() throws Exception {
+        // Given
+        ThreadPoolExecutor executor = executorRegistry.newThreadPool("test", 1, 1, Duration.ZERO, 1,
+            new ThreadPoolExecutor.AbortPolicy(), null);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        started.await(5, TimeUnit.SECONDS);
+        executor.execute(() -> { });
+
+        // When
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        Map<String, Object> saturated = executorRegistry.snapshot().get("test");
+
+        // Then
+        assertEquals(1, saturated.get("activeCount"));
+        assertEquals(1, saturated.get("queueDepth"));
+        assertEquals(1, saturated.get("queueCapacity"));
+        assertEquals(1L, saturated.get("rejectedTasks"));
+        assertEquals(1.0, meterRegistry.get("chatwoot.executor.queue.depth").tag("executor", "test").gauge().value());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, meterRegistry.get("chatwoot.executor.task.duration").tag("executor", "test").timer().count());
+        assertEquals(2, meterRegistry.get("chatwoot.executor.queue.wait").tag("executor", "test").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should apply the task decorator to submitted tasks")
+    void shouldDecorateTasks() throws Exception {
+        // Given
+        AtomicBoolean decorated = new AtomicBoolean();
+        ThreadPoolExecutor executor = executorRegistry.newThreadPool("decorated", 1, 1, Duration.ZERO, 10,
+            new ThreadPoolExecutor.AbortPolicy(), task -> () -> {
+                decorated.set(true);
+                task.run();
+            });
+
+        // When
+        executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // Then
+        assertTrue(decorated.get());
+    }
+
+    @Test
+    @DisplayName("Should time scheduled runs and report the pool as fixed size")
+    void shouldTimeScheduledRuns() throws Exception {
+        // Given
+        ScheduledThreadPoolExecutor executor = executorRegistry.newScheduledPool("scheduled", 2);
+
+        // When
+        executor.schedule(() -> { }, 10, TimeUnit.MILLISECONDS).get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // Then
+        Map<String, Object> state = executorRegistry.snapshot().get("scheduled");
+        assertEquals(2, state.get("maxPoolSize"));
+        assertEquals(-1, state.get("queueCapacity"));
+        assertEquals(1, meterRegistry.get("chatwoot.executor.task.duration").tag("executor", "scheduled").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should grow the core size under backlog and shrink it back when idle")
+    void shouldStepCoreSize() {
+        assertEquals(5, ExecutorRegistry.nextCoreSize(4, 4, 16, 4, 10));
+        assertEquals(16, ExecutorRegistry.nextCoreSize(16, 4, 16, 16, 10));
+        assertEquals(4, ExecutorRegistry.nextCoreSize(5, 4, 16, 1, 0));
+        assertEquals(4, ExecutorRegistry.nextCoreSize(4, 4, 16, 0, 0));
+        assertEquals(8, ExecutorRegistry.nextCoreSize(8, 4, 16, 6, 0));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
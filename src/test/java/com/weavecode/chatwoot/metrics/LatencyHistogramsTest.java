@@ -0,0 +1,97 @@
+package com.weavecode.chatwoot.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LatencyHistograms Tests")
+class LatencyHistogramsTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LatencyHistograms latencyHistograms;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        latencyHistograms = new LatencyHistograms();
+        ReflectionTestUtils.setField(latencyHistograms, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(latencyHistograms, "maxRoutes", 2);
+        ReflectionTestUtils.setField(latencyHistograms, "maxTenants", 2);
+        ReflectionTestUtils.setField(latencyHistograms, "highestTrackableMs", 60000L);
+        latencyHistograms.init();
+    }
+
+    @Test
+    @DisplayName("Should report percentiles, max and error rate of the closed interval")
+    void shouldReportIntervalDistribution() {
+        // Given
+        UUID tenantId = UUID.randomUUID();
+        for (int i = 1; i <= 100; i++) {
+            latencyHistograms.record("/api/users/{id}", tenantId, i * MILLIS, i <= 2 ? 503 : 200);
+        }
+
+        // When
+        latencyHistograms.roll();
+
+        // Then
+        LatencySnapshot snapshot = latencyHistograms.forTenant(tenantId);
+        assertEquals(100, snapshot.getCount());
+        assertEquals(50, snapshot.getP50(), 1);
+        assertEquals(95, snapshot.getP95(), 1);
+        assertEquals(99, snapshot.getP99(), 1);
+        assertEquals(100, snapshot.getMax(), 1);
+        assertEquals(2.0, snapshot.getErrorRate(), 0.001);
+        assertEquals(100, latencyHistograms.forRoute("/api/users/{id}").getCount());
+        assertEquals(99, meterRegistry.get("chatwoot.http.tenant.latency")
+                .tag("tenant", tenantId.toString()).tag("quantile", "0.99").gauge().value(), 1);
+    }
+
+    @Test
+    @DisplayName("Should start every interval empty")
+    void shouldResetOnRoll() {
+        // Given
+        latencyHistograms.record("/api/users", null, 5 * MILLIS, 200);
+        latencyHistograms.roll();
+
+        // When
+        latencyHistograms.roll();
+
+        // Then
+        assertEquals(0, latencyHistograms.overall().getCount());
+        assertEquals(0, latencyHistograms.overall().getP99());
+    }
+
+    @Test
+    @DisplayName("Should clamp latencies beyond the trackable range")
+    void shouldClampOutliers() {
+        // When
+        latencyHistograms.record("/api/users", null, 120_000 * MILLIS, 200);
+        latencyHistograms.roll();
+
+        // Then
+        assertEquals(60000, latencyHistograms.overall().getMax(), 60000 * 0.01);
+    }
+
+    @Test
+    @DisplayName("Should fold tenants beyond the ceiling into one shared histogram")
+    void shouldBoundTenants() {
+        // When
+        for (int i = 0; i < 10; i++) {
+            latencyHistograms.record("/api/users", UUID.randomUUID(), MILLIS, 200);
+        }
+        latencyHistograms.roll();
+
+        // Then
+        assertEquals(3, meterRegistry.find("chatwoot.http.tenant.latency").tag("quantile", "0.5").gauges().size());
+        assertNotNull(meterRegistry.find("chatwoot.http.tenant.latency").tag("tenant", MeterCache.OTHER).gauge());
+        assertEquals(10, latencyHistograms.overall().getCount());
+    }
+}
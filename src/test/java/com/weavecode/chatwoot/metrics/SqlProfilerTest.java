@@ -0,0 +1,161 @@
+package com.weavecode.chatwoot.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("SqlProfiler Tests")
+class SqlProfilerTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private SqlProfiler sqlProfiler;
+
+    @BeforeEach
+    void setUp() {
+        sqlProfiler = new SqlProfiler();
+        ReflectionTestUtils.setField(sqlProfiler, "topK", 2);
+        ReflectionTestUtils.setField(sqlProfiler, "tenantTopK", 2);
+        ReflectionTestUtils.setField(sqlProfiler, "maxTenants", 10);
+        ReflectionTestUtils.setField(sqlProfiler, "nPlusOneThreshold", 3);
+        sqlProfiler.init();
+    }
+
+    @Test
+    @DisplayName("Should strip literals, comments and list lengths from fingerprints")
+    void shouldNormalizeSql() {
+        assertEquals("select * from users where id = ? and email = ?",
+            SqlFingerprint.of("SELECT *\n  FROM users WHERE id = 42 AND email = 'o''brien@example.com'"));
+        assertEquals("select id from t1 where x in (?+)", SqlFingerprint.of("select id from t1 where x in (1, 2, 3)"));
+        assertEquals("select id from t1 where x in (?+)", SqlFingerprint.of("/* list */ select id from t1 where x in (4,5)"));
+        assertEquals("insert into t (a, b) values (?+)+",
+            SqlFingerprint.of("INSERT INTO t (a, b) VALUES (?, ?), (?, ?) ;"));
+        assertEquals("select \"Name\" from t where a = ?", SqlFingerprint.of("SELECT \"Name\" FROM t WHERE a = $1"));
+    }
+
+    @Test
+    @DisplayName("Should keep the heaviest fingerprints in fixed slots and report the inherited error")
+    void shouldEvictLightestFingerprint() {
+        // When
+        sqlProfiler.record("SELECT * FROM a WHERE id = 1", 10 * MILLIS);
+        sqlProfiler.record("SELECT * FROM b WHERE id = 1", MILLIS);
+        sqlProfiler.record("SELECT * FROM c WHERE id = 1", 5 * MILLIS);
+
+        // Then
+        List<Map<String, Object>> slowQueries = sqlProfiler.slowQueries(null, 10);
+        assertEquals(2, slowQueries.size());
+        assertEquals("select * from a where id = ?", slowQueries.get(0).get("query"));
+        assertEquals("select * from c where id = ?", slowQueries.get(1).get("query"));
+        assertEquals(6.0, (Double) slowQueries.get(1).get("totalTime"), 0.001);
+        assertEquals(1.0, (Double) slowQueries.get(1).get("totalTimeError"), 0.001);
+        assertEquals(1L, slowQueries.get(1).get("executionCount"));
+    }
+
+    @Test
+    @DisplayName("Should flag a fingerprint repeated within one request and profile it for the tenant")
+    void shouldDetectNPlusOne() {
+        // Given
+        UUID tenantId = UUID.randomUUID();
+
+        // When
+        SqlProfiler.RequestScope outer = sqlProfiler.openRequestScope(tenantId);
+        for (int i = 0; i < 5; i++) {
+            sqlProfiler.record("SELECT * FROM messages WHERE conversation_id = " + i, MILLIS);
+        }
+        sqlProfiler.record("SELECT * FROM conversations WHERE tenant_id = 'x'", MILLIS);
+        sqlProfiler.closeRequestScope(outer, "GET /api/conversations");
+        sqlProfiler.record("SELECT * FROM messages WHERE conversation_id = 9", MILLIS);
+
+        // Then
+        List<Map<String, Object>> findings = sqlProfiler.nPlusOneFindings();
+        assertEquals(1, findings.size());
+        assertEquals("GET /api/conversations", findings.get(0).get("route"));
+        assertEquals("select * from messages where conversation_id = ?", findings.get(0).get("query"));
+        assertEquals(5L, findings.get(0).get("maxExecutionsPerRequest"));
+
+        List<Map<String, Object>> tenantQueries = sqlProfiler.slowQueries(tenantId, 10);
+        assertEquals(2, tenantQueries.size());
+        assertEquals(5L, tenantQueries.get(0).get("executionCount"));
+        assertEquals(1, ((List<?>) tenantQueries.get(0).get("nPlusOne")).size());
+        assertTrue(sqlProfiler.slowQueries(UUID.randomUUID(), 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should time statements executed through the profiling DataSource")
+    void shouldProfileThroughDataSourceProxy() throws Exception {
+        // Given
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("SELECT * FROM users WHERE id = ?")).thenReturn(statement);
+        DataSource profiled = ProfilingDataSource.wrap(dataSource, sqlProfiler);
+
+        // When
+        try (Connection c = profiled.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT * FROM users WHERE id = ?")) {
+            ps.setLong(1, 7L);
+            ps.executeQuery();
+            ps.executeQuery();
+        }
+
+        // Then
+        verify(statement).setLong(1, 7L);
+        verify(statement, times(2)).executeQuery();
+        verify(connection).close();
+        List<Map<String, Object>> slowQueries = sqlProfiler.slowQueries(null, 10);
+        assertEquals(1, slowQueries.size());
+        assertEquals(2L, slowQueries.get(0).get("executionCount"));
+        assertSame(profiled, ProfilingDataSource.wrap(profiled, sqlProfiler));
+    }
+
+    @Test
+    @DisplayName("Should count every statement recorded concurrently from many threads")
+    void shouldMergeConcurrentRecords() throws Exception {
+        // Given
+        int threads = 8;
+        int perThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    sqlProfiler.record("SELECT * FROM users WHERE id = " + i, MILLIS);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        List<Map<String, Object>> slowQueries = sqlProfiler.slowQueries(null, 10);
+        assertEquals(1, slowQueries.size());
+        assertEquals((long) threads * perThread, slowQueries.get(0).get("executionCount"));
+        assertEquals(threads * perThread, (Double) slowQueries.get(0).get("totalTime"), 0.001);
+    }
+}
@@ -0,0 +1,74 @@
+package com.weavecode.chatwoot.metrics;
+
+import com.weavecode.chatwoot.security.RateLimitPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TenantUsageMeter Tests")
+class TenantUsageMeterTest {
+
+    private TenantUsageMeter usageMeter;
+    private UUID tenantId;
+
+    @BeforeEach
+    void setUp() {
+        usageMeter = new TenantUsageMeter();
+        ReflectionTestUtils.setField(usageMeter, "enabled", true);
+        ReflectionTestUtils.setField(usageMeter, "minBurstPerMinute", 1000L);
+        ReflectionTestUtils.setField(usageMeter, "burstDivisor", 1000L);
+        ReflectionTestUtils.setField(usageMeter, "planRefreshMs", 300000L);
+        tenantId = UUID.randomUUID();
+    }
+
+    @Test
+    @DisplayName("Should count requests without a plan limit")
+    void shouldCountRequestsWithoutPlanLimit() {
+        // When
+        for (int i = 0; i < 25; i++) {
+            assertEquals(TenantUsageMeter.Decision.ALLOWED, usageMeter.tryRecord(tenantId, RateLimitPolicy.API));
+        }
+
+        // Then
+        assertEquals(25, usageMeter.getMonthlyUsage(tenantId));
+    }
+
+    @Test
+    @DisplayName("Should reject requests beyond the monthly plan limit")
+    void shouldRejectBeyondMonthlyLimit() {
+        // Given
+        usageMeter.applyPlanLimits(tenantId, 10);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertEquals(TenantUsageMeter.Decision.ALLOWED, usageMeter.tryRecord(tenantId, RateLimitPolicy.API));
+        }
+
+        // Then
+        assertEquals(TenantUsageMeter.Decision.MONTHLY_LIMIT_EXCEEDED,
+            usageMeter.tryRecord(tenantId, RateLimitPolicy.GENERAL));
+        assertEquals(10, usageMeter.getMonthlyUsage(tenantId));
+    }
+
+    @Test
+    @DisplayName("Should reject requests beyond the burst limit derived from the plan")
+    void shouldRejectBeyondBurstLimit() {
+        // Given
+        ReflectionTestUtils.setField(usageMeter, "minBurstPerMinute", 5L);
+        usageMeter.applyPlanLimits(tenantId, 1000);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            usageMeter.tryRecord(tenantId, RateLimitPolicy.API);
+        }
+
+        // Then
+        assertEquals(TenantUsageMeter.Decision.BURST_LIMIT_EXCEEDED,
+            usageMeter.tryRecord(tenantId, RateLimitPolicy.API));
+    }
+}
@@ -0,0 +1,120 @@
+package com.weavecode.chatwoot.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserActivityTracker Tests")
+class UserActivityTrackerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private UserActivityTracker activityTracker;
+
+    private UUID tenantId;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(activityTracker, "enabled", true);
+        ReflectionTestUtils.setField(activityTracker, "retentionMs", 900000L);
+        tenantId = UUID.randomUUID();
+    }
+
+    @Test
+    @DisplayName("Should coalesce repeated activity into one row per user")
+    void shouldCoalesceRepeatedActivity() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < 100; i++) {
+            activityTracker.recordActivity(tenantId, userId);
+        }
+        activityTracker.recordActivity(tenantId, UUID.randomUUID());
+
+        // When
+        activityTracker.flush();
+
+        // Then
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).update(sql.capture(), args.capture());
+        assertTrue(sql.getValue().startsWith("UPDATE users"));
+        assertEquals(4, args.getValue().length);
+    }
+
+    @Test
+    @DisplayName("Should skip users with nothing new since the last flush")
+    void shouldSkipCleanUsers() {
+        // Given
+        activityTracker.recordActivity(tenantId, UUID.randomUUID());
+        activityTracker.flush();
+
+        // When
+        activityTracker.flush();
+
+        // Then
+        verify(jdbcTemplate, times(1)).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Should retry activity whose flush failed")
+    void shouldRetryFailedFlush() {
+        // Given
+        activityTracker.recordActivity(tenantId, UUID.randomUUID());
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+            .thenThrow(new RuntimeException("Database down"))
+            .thenReturn(1);
+
+        // When
+        activityTracker.flush();
+        activityTracker.flush();
+        activityTracker.flush();
+
+        // Then
+        verify(jdbcTemplate, times(2)).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Should count online users per tenant from memory")
+    void shouldCountOnlineUsersPerTenant() {
+        // Given
+        activityTracker.recordActivity(tenantId, UUID.randomUUID());
+        activityTracker.recordActivity(tenantId, UUID.randomUUID());
+        activityTracker.recordActivity(UUID.randomUUID(), UUID.randomUUID());
+
+        // When & Then
+        assertEquals(2, activityTracker.countOnlineUsers(tenantId, Duration.ofMinutes(5)));
+        assertEquals(0, activityTracker.countOnlineUsers(UUID.randomUUID(), Duration.ofMinutes(5)));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should drop idle users once their activity is flushed")
+    void shouldDropIdleUsersOnceFlushed() {
+        // Given
+        ReflectionTestUtils.setField(activityTracker, "retentionMs", -1000L);
+        activityTracker.recordActivity(tenantId, UUID.randomUUID());
+
+        // When
+        activityTracker.flush();
+
+        // Then
+        assertEquals(0, activityTracker.trackedUsers());
+    }
+}
@@ -0,0 +1,66 @@
+package com.weavecode.chatwoot.performance;
+
+import com.weavecode.chatwoot.security.JwtPrincipal;
+import com.weavecode.chatwoot.security.JwtTokenProvider;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the legacy four-parse authentication path against the
+ * single-parse cached API in JwtTokenProvider.
+ *
+ * Run with: java -cp target/test-classes:... org.openjdk.jmh.Main JwtTokenProviderBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private static final String SECRET = "benchmark-jwt-secret-key-that-is-long-enough-for-hs512-signatures-0123456789";
+
+    private JwtTokenProvider cachedProvider;
+    private JwtTokenProvider uncachedProvider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachedProvider = newProvider(10000);
+        uncachedProvider = newProvider(0);
+        token = cachedProvider.generateTokenForUser(UUID.randomUUID(), "bench@example.com", UUID.randomUUID());
+    }
+
+    private static JwtTokenProvider newProvider(int cacheSize) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpirationInMs", 3600000);
+        ReflectionTestUtils.setField(provider, "tokenCacheMaxSize", cacheSize);
+        provider.init();
+        return provider;
+    }
+
+    @Benchmark
+    public void legacyFourParse(Blackhole blackhole) {
+        // Mirrors the old JwtAuthenticationFilter sequence
+        blackhole.consume(uncachedProvider.validateToken(token));
+        blackhole.consume(uncachedProvider.getUsernameFromToken(token));
+        blackhole.consume(uncachedProvider.getUserIdFromToken(token));
+        blackhole.consume(uncachedProvider.getTenantIdFromToken(token));
+    }
+
+    @Benchmark
+    public JwtPrincipal singleParseUncached() {
+        return uncachedProvider.parseToken(token).orElseThrow();
+    }
+
+    @Benchmark
+    public JwtPrincipal singleParseCached() {
+        return cachedProvider.parseToken(token).orElseThrow();
+    }
+}
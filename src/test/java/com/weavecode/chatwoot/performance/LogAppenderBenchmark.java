@@ -0,0 +1,135 @@
+package com.weavecode.chatwoot.performance;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.weavecode.chatwoot.logging.LevelAwareAsyncAppender;
+import net.logstash.logback.composite.loggingevent.LoggingEventJsonProviders;
+import net.logstash.logback.composite.loggingevent.MdcJsonProvider;
+import net.logstash.logback.composite.loggingevent.MessageJsonProvider;
+import net.logstash.logback.composite.loggingevent.TimestampJsonProvider;
+import net.logstash.logback.encoder.LoggingEventCompositeJsonEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.MDC;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Log events per second accepted by the application logger when the JSON
+ * appender runs synchronously on the logging thread versus behind
+ * LevelAwareAsyncAppender. The appender writes to a discarding stream, so
+ * the numbers isolate encoding and appender overhead from disk speed.
+ * Divide the aggregate score by the thread count for events/sec per core.
+ *
+ * WARN events are never shed, so that row is the sustained rate with the
+ * writer as bottleneck; the INFO row includes sampling under pressure.
+ *
+ * Run with: java -cp target/test-classes:... org.openjdk.jmh.Main LogAppenderBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class LogAppenderBenchmark {
+
+    @Param({"INFO", "WARN"})
+    private String level;
+
+    private LoggerContext context;
+    private Logger synchronousLogger;
+    private Logger asyncLogger;
+    private LevelAwareAsyncAppender asyncAppender;
+    private Level eventLevel;
+
+    @Setup
+    public void setUp() {
+        context = new LoggerContext();
+        eventLevel = Level.toLevel(level);
+
+        OutputStreamAppender<ILoggingEvent> synchronous = discardingJsonAppender("sync", true);
+        synchronousLogger = context.getLogger("bench.sync");
+        synchronousLogger.setAdditive(false);
+        synchronousLogger.addAppender(synchronous);
+
+        asyncAppender = new LevelAwareAsyncAppender();
+        asyncAppender.setContext(context);
+        asyncAppender.setName("async");
+        asyncAppender.addAppender(discardingJsonAppender("async-json", false));
+        asyncAppender.start();
+        asyncLogger = context.getLogger("bench.async");
+        asyncLogger.setAdditive(false);
+        asyncLogger.addAppender(asyncAppender);
+    }
+
+    @TearDown
+    public void tearDown() {
+        asyncAppender.stop();
+        context.stop();
+    }
+
+    /**
+     * Request context as the logging filter leaves it on each worker thread.
+     */
+    @State(Scope.Thread)
+    public static class RequestMdc {
+        @Setup
+        public void setUp() {
+            MDC.put("requestId", "0190a5c3e7d24b1c00000001");
+            MDC.put("tenantId", "7f1c2a9e-3b4d-4e5f-8a6b-1c2d3e4f5a6b");
+        }
+
+        @TearDown
+        public void tearDown() {
+            MDC.clear();
+        }
+    }
+
+    @Benchmark
+    public void synchronousJsonAppender(RequestMdc mdc) {
+        log(synchronousLogger);
+    }
+
+    @Benchmark
+    public void ringBufferAsyncAppender(RequestMdc mdc) {
+        log(asyncLogger);
+    }
+
+    private void log(Logger logger) {
+        if (eventLevel == Level.WARN) {
+            logger.warn("API response: method={}, endpoint={}, status={}", "GET", "/api/conversations", 200);
+        } else {
+            logger.info("API response: method={}, endpoint={}, status={}", "GET", "/api/conversations", 200);
+        }
+    }
+
+    private OutputStreamAppender<ILoggingEvent> discardingJsonAppender(String name, boolean immediateFlush) {
+        LoggingEventCompositeJsonEncoder encoder = new LoggingEventCompositeJsonEncoder();
+        encoder.setContext(context);
+        LoggingEventJsonProviders providers = new LoggingEventJsonProviders();
+        TimestampJsonProvider timestampProvider = new TimestampJsonProvider();
+        timestampProvider.setFieldName("timestamp");
+        timestampProvider.setTimeZone("UTC");
+        providers.addProvider(timestampProvider);
+        providers.addProvider(new MessageJsonProvider());
+        MdcJsonProvider mdcProvider = new MdcJsonProvider();
+        mdcProvider.setIncludeMdcKeyName(true);
+        providers.addProvider(mdcProvider);
+        encoder.setProviders(providers);
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setName(name);
+        appender.setEncoder(encoder);
+        appender.setImmediateFlush(immediateFlush);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        return appender;
+    }
+}
@@ -0,0 +1,100 @@
+package com.weavecode.chatwoot.performance;
+
+import com.weavecode.chatwoot.metrics.ExecutorRegistry;
+import com.weavecode.chatwoot.security.LeasingRateLimiter;
+import com.weavecode.chatwoot.security.RateLimitPolicy;
+import com.weavecode.chatwoot.security.RateLimitResult;
+import com.weavecode.chatwoot.security.RedisRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares the rate limiting overhead RateLimitingFilter adds to each request
+ * when every request goes to Redis against leasing quota into local buckets.
+ * Redis is replaced by a stub that injects a fixed latency per call, so the
+ * sampled percentiles (p99 in particular) show how much of that latency
+ * reaches requests.
+ *
+ * Run with: java -cp target/test-classes:... org.openjdk.jmh.Main RateLimiterBenchmark
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+    @Param({"0", "2000"})
+    private long redisLatencyMicros;
+
+    private LeasingRateLimiter perRequest;
+    private LeasingRateLimiter leased;
+
+    @Setup
+    public void setUp() {
+        RedisRateLimiter redis = new LatencyInjectingRedisRateLimiter(redisLatencyMicros);
+        perRequest = newLimiter(redis, false);
+        leased = newLimiter(redis, true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        perRequest.returnLeases();
+        leased.returnLeases();
+    }
+
+    private static LeasingRateLimiter newLimiter(RedisRateLimiter redis, boolean leasing) {
+        LeasingRateLimiter limiter = new LeasingRateLimiter();
+        ReflectionTestUtils.setField(limiter, "redisRateLimiter", redis);
+        ReflectionTestUtils.setField(limiter, "leasingEnabled", leasing);
+        ReflectionTestUtils.setField(limiter, "minuteDivisor", 20);
+        ReflectionTestUtils.setField(limiter, "leaseTtlMs", 2000L);
+        ReflectionTestUtils.setField(limiter, "redisBackoffMs", 5000L);
+        ExecutorRegistry executorRegistry = new ExecutorRegistry();
+        ReflectionTestUtils.setField(executorRegistry, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(limiter, "executorRegistry", executorRegistry);
+        limiter.start();
+        return limiter;
+    }
+
+    @Benchmark
+    public RateLimitResult redisPerRequest() {
+        return perRequest.tryAcquire(RateLimitPolicy.API, "203.0.113.7");
+    }
+
+    @Benchmark
+    public RateLimitResult leasedLocalBuckets() {
+        return leased.tryAcquire(RateLimitPolicy.API, "203.0.113.7");
+    }
+
+    private static final class LatencyInjectingRedisRateLimiter extends RedisRateLimiter {
+        private final long latencyNanos;
+
+        private LatencyInjectingRedisRateLimiter(long latencyMicros) {
+            this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+        }
+
+        @Override
+        public RateLimitResult lease(RateLimitPolicy policy, String clientId, int wanted) {
+            pause();
+            return new RateLimitResult(wanted, policy.getPerMinute(), policy.getPerMinute() - wanted, 60000, 0);
+        }
+
+        @Override
+        public void release(RateLimitPolicy policy, String clientId, long count) {
+            pause();
+        }
+
+        private void pause() {
+            if (latencyNanos > 0) {
+                LockSupport.parkNanos(latencyNanos);
+            }
+        }
+    }
+}
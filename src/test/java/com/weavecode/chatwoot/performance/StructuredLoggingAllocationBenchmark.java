@@ -0,0 +1,119 @@
+package com.weavecode.chatwoot.performance;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.weavecode.chatwoot.logging.LogEventBuilder;
+import net.logstash.logback.composite.loggingevent.ArgumentsJsonProvider;
+import net.logstash.logback.composite.loggingevent.LoggingEventJsonProviders;
+import net.logstash.logback.composite.loggingevent.MdcJsonProvider;
+import net.logstash.logback.composite.loggingevent.MessageJsonProvider;
+import net.logstash.logback.composite.loggingevent.TimestampJsonProvider;
+import net.logstash.logback.encoder.LoggingEventCompositeJsonEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.event.Level;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation per logged API response event, from the logging call through
+ * JSON encoding, for the former Map-based StructuredLoggingService path
+ * against the typed LogEventBuilder path. The appender writes to a
+ * discarding stream.
+ *
+ * Run with the GC profiler and compare gc.alloc.rate.norm (bytes/op):
+ * java -cp target/test-classes:... org.openjdk.jmh.Main StructuredLoggingAllocationBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StructuredLoggingAllocationBenchmark {
+
+    private LoggerContext context;
+    private Logger logger;
+    private Map<String, String> headers;
+
+    @Setup
+    public void setUp() {
+        context = new LoggerContext();
+        logger = context.getLogger("bench");
+        logger.setAdditive(false);
+        logger.addAppender(discardingJsonAppender());
+
+        headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+        headers.put("Cache-Control", "no-store");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.stop();
+    }
+
+    /**
+     * The caller's map, copied and stamped the way logApiResponse used to.
+     */
+    @Benchmark
+    public void mapBasedEvent() {
+        Map<String, Object> responseData = new HashMap<>();
+        responseData.put("statusCode", 200);
+        responseData.put("responseTime", 12L);
+        responseData.put("contentType", "application/json");
+        responseData.put("headers", headers);
+
+        Map<String, Object> logData = new HashMap<>(responseData);
+        logData.put("method", "GET");
+        logData.put("endpoint", "/api/conversations");
+        logData.put("statusCode", 200);
+        logData.put("responseTime", 12L);
+        logData.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+
+        logger.info("API response: {}", logData);
+    }
+
+    @Benchmark
+    public void typedEvent() {
+        LogEventBuilder.at(logger, Level.INFO, "API response")
+            .with("method", "GET")
+            .with("endpoint", "/api/conversations")
+            .with("statusCode", 200)
+            .with("responseTime", 12L)
+            .with("contentType", "application/json")
+            .withObject("headers", headers)
+            .log();
+    }
+
+    private OutputStreamAppender<ILoggingEvent> discardingJsonAppender() {
+        LoggingEventCompositeJsonEncoder encoder = new LoggingEventCompositeJsonEncoder();
+        encoder.setContext(context);
+        LoggingEventJsonProviders providers = new LoggingEventJsonProviders();
+        TimestampJsonProvider timestampProvider = new TimestampJsonProvider();
+        timestampProvider.setFieldName("timestamp");
+        timestampProvider.setTimeZone("UTC");
+        providers.addProvider(timestampProvider);
+        providers.addProvider(new MessageJsonProvider());
+        MdcJsonProvider mdcProvider = new MdcJsonProvider();
+        mdcProvider.setIncludeMdcKeyName(true);
+        providers.addProvider(mdcProvider);
+        providers.addProvider(new ArgumentsJsonProvider());
+        encoder.setProviders(providers);
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setName("json");
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        return appender;
+    }
+}
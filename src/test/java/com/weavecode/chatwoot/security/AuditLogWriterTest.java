@@ -0,0 +1,160 @@
+package com.weavecode.chatwoot.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AuditLogWriter Tests")
+class AuditLogWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AuditLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        writer = new AuditLogWriter();
+        ReflectionTestUtils.setField(writer, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(writer, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(writer, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 2);
+        ReflectionTestUtils.setField(writer, "batchSize", 100);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(writer, "blockTimeoutMs", 10L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.stop();
+    }
+
+    @Test
+    @DisplayName("Should write queued events in a JDBC batch")
+    void shouldWriteQueuedEventsInBatch() throws Exception {
+        // Given
+        CountDownLatch written = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            written.countDown();
+            return new int[] {1};
+        });
+        writer.start();
+
+        // When
+        assertTrue(writer.publish(event(AuditEvent.Severity.LOW)));
+
+        // Then
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        verify(jdbcTemplate).batchUpdate(contains("INSERT INTO audit_logs"), anyList());
+    }
+
+    @Test
+    @DisplayName("Should drop events and count them when the queue is full")
+    void shouldDropWhenQueueIsFull() throws Exception {
+        // Given a writer stuck on a slow database
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new int[] {1};
+        });
+        writer.start();
+        writer.publish(event(AuditEvent.Severity.LOW));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // When
+        writer.publish(event(AuditEvent.Severity.LOW));
+        writer.publish(event(AuditEvent.Severity.LOW));
+        boolean lowQueued = writer.publish(event(AuditEvent.Severity.LOW));
+        boolean highQueued = writer.publish(event(AuditEvent.Severity.HIGH));
+        release.countDown();
+
+        // Then
+        assertFalse(lowQueued);
+        assertFalse(highQueued);
+        assertEquals(1.0, meterRegistry.get("chatwoot.audit.events.dropped").tag("severity", "LOW").counter().count());
+        assertEquals(1.0, meterRegistry.get("chatwoot.audit.events.dropped").tag("severity", "HIGH").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should write only valid IP literals from forwarded headers")
+    void shouldRejectMalformedAddresses() {
+        assertEquals("203.0.113.7", AuditLogWriter.toInet("203.0.113.7"));
+        assertEquals("2001:db8::1", AuditLogWriter.toInet("2001:db8::1"));
+        assertEquals("::ffff:198.51.100.1", AuditLogWriter.toInet("::ffff:198.51.100.1"));
+        assertNull(AuditLogWriter.toInet("cafe"));
+        assertNull(AuditLogWriter.toInet("1.1"));
+        assertNull(AuditLogWriter.toInet("dead:beef:"));
+        assertNull(AuditLogWriter.toInet("256.1.1.1"));
+        assertNull(AuditLogWriter.toInet("10.0.0.01"));
+        assertNull(AuditLogWriter.toInet("fe80::1%eth0"));
+        assertNull(AuditLogWriter.toInet("203.0.113.7, 10.0.0.1"));
+    }
+
+    @Test
+    @DisplayName("Should keep the other events when one row of a batch is rejected")
+    void shouldRetryRejectedBatchRowByRow() {
+        // Given
+        writer.start();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+            .thenThrow(new DataIntegrityViolationException("invalid input syntax for type inet"));
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+            .thenReturn(1)
+            .thenThrow(new DataIntegrityViolationException("invalid input syntax for type inet"))
+            .thenReturn(1);
+
+        // When
+        writer.writeBatch(List.of(event(AuditEvent.Severity.HIGH), event(AuditEvent.Severity.HIGH),
+            event(AuditEvent.Severity.HIGH)));
+
+        // Then
+        verify(jdbcTemplate, times(3)).update(anyString(), any(Object[].class));
+        assertEquals(2.0, meterRegistry.get("chatwoot.audit.events.written").counter().count());
+        assertEquals(1.0, meterRegistry.get("chatwoot.audit.events.failed").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should not retry row by row when the database is unreachable")
+    void shouldNotRetryWhenDatabaseIsDown() {
+        // Given
+        writer.start();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+            .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        // When
+        writer.writeBatch(List.of(event(AuditEvent.Severity.HIGH), event(AuditEvent.Severity.HIGH)));
+
+        // Then
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        assertEquals(2.0, meterRegistry.get("chatwoot.audit.events.failed").counter().count());
+    }
+
+    private static AuditEvent event(AuditEvent.Severity severity) {
+        return new AuditEvent("RESPONSE", "HTTP_REQUEST", null, UUID.randomUUID(), null,
+            "203.0.113.7", "JUnit", Map.of("statusCode", 200), severity);
+    }
+}
@@ -0,0 +1,116 @@
+package com.weavecode.chatwoot.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EdgeRequestContext Tests")
+class EdgeRequestContextTest {
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Test
+    @DisplayName("Should classify routes")
+    void shouldClassifyRoutes() {
+        assertEquals(EdgeRequestContext.RouteClass.AUTH, EdgeRequestContext.classify("/api/auth/login"));
+        assertEquals(EdgeRequestContext.RouteClass.AUTH, EdgeRequestContext.classify("/api/register"));
+        assertEquals(EdgeRequestContext.RouteClass.API, EdgeRequestContext.classify("/api/conversations/1"));
+        assertEquals(EdgeRequestContext.RouteClass.HEALTH, EdgeRequestContext.classify("/actuator/health"));
+        assertEquals(EdgeRequestContext.RouteClass.INFO, EdgeRequestContext.classify("/actuator/info"));
+        assertEquals(EdgeRequestContext.RouteClass.METRICS, EdgeRequestContext.classify("/actuator/prometheus"));
+        assertEquals(EdgeRequestContext.RouteClass.ACTUATOR, EdgeRequestContext.classify("/actuator/env"));
+        assertEquals(EdgeRequestContext.RouteClass.STATIC, EdgeRequestContext.classify("/favicon.ico"));
+        assertEquals(EdgeRequestContext.RouteClass.OTHER, EdgeRequestContext.classify("/"));
+    }
+
+    @Test
+    @DisplayName("Should only treat the exact health and info paths as probes")
+    void shouldMatchProbesExactly() {
+        assertEquals(EdgeRequestContext.RouteClass.ACTUATOR, EdgeRequestContext.classify("/actuator/health/liveness"));
+        assertEquals(EdgeRequestContext.RouteClass.ACTUATOR, EdgeRequestContext.classify("/actuator/healthz"));
+        assertEquals(EdgeRequestContext.RouteClass.ACTUATOR, EdgeRequestContext.classify("/actuator/info/git"));
+        assertEquals(EdgeRequestContext.RouteClass.OTHER, EdgeRequestContext.classify("/actuatorz"));
+    }
+
+    @Test
+    @DisplayName("Should recognise auth endpoints anywhere in the path")
+    void shouldMatchAuthEndpointsBySubstring() {
+        assertEquals(EdgeRequestContext.RouteClass.AUTH, EdgeRequestContext.classify("/api/login"));
+        assertEquals(EdgeRequestContext.RouteClass.AUTH, EdgeRequestContext.classify("/v1/api/auth/refresh"));
+        assertEquals(EdgeRequestContext.RouteClass.API, EdgeRequestContext.classify("/api/auth"));
+        assertEquals(EdgeRequestContext.RouteClass.API, EdgeRequestContext.classify("/api/users/login"));
+    }
+
+    @Test
+    @DisplayName("Should skip rate limiting and auditing for probes and static resources")
+    void shouldSkipProbesAndStaticResources() {
+        // Given
+        when(request.getRemoteAddr()).thenReturn("10.0.0.3");
+
+        // When & Then
+        for (String path : new String[] {"/actuator/health", "/actuator/info", "/static/app.js"}) {
+            when(request.getRequestURI()).thenReturn(path);
+            assertTrue(EdgeRequestContext.bind(request).isStaticOrHealthCheck(), path);
+        }
+        for (String path : new String[] {"/actuator/health/liveness", "/api/login"}) {
+            when(request.getRequestURI()).thenReturn(path);
+            assertFalse(EdgeRequestContext.bind(request).isStaticOrHealthCheck(), path);
+        }
+    }
+
+    @Test
+    @DisplayName("Should take the first forwarded address as the client IP")
+    void shouldTakeFirstForwardedAddress() {
+        // Given
+        when(request.getHeader("X-Forwarded-For")).thenReturn(" 203.0.113.7 , 10.0.0.12");
+
+        // When & Then
+        assertEquals("203.0.113.7", EdgeRequestContext.resolveClientIp(request));
+    }
+
+    @Test
+    @DisplayName("Should fall back to X-Real-IP and then the remote address")
+    void shouldFallBackToRealIpThenRemoteAddress() {
+        // Given
+        when(request.getHeader("X-Forwarded-For")).thenReturn(null);
+        when(request.getHeader("X-Real-IP")).thenReturn("198.51.100.4").thenReturn(null);
+        when(request.getRemoteAddr()).thenReturn("10.0.0.3");
+
+        // When & Then
+        assertEquals("198.51.100.4", EdgeRequestContext.resolveClientIp(request));
+        assertEquals("10.0.0.3", EdgeRequestContext.resolveClientIp(request));
+    }
+
+    @Test
+    @DisplayName("Should resolve once and reuse the bound context")
+    void shouldResolveOnceAndReuseBoundContext() {
+        // Given
+        UUID tenantId = UUID.randomUUID();
+        when(request.getRequestURI()).thenReturn("/api/conversations");
+        when(request.getAttribute("tenantId")).thenReturn(tenantId);
+        when(request.getAttribute("userId")).thenReturn(null);
+        when(request.getRemoteAddr()).thenReturn("10.0.0.3");
+
+        // When
+        EdgeRequestContext context = EdgeRequestContext.bind(request);
+        when(request.getAttribute(EdgeRequestContext.ATTRIBUTE)).thenReturn(context);
+
+        // Then
+        assertSame(context, EdgeRequestContext.of(request));
+        assertEquals(tenantId, context.getTenantId());
+        assertEquals(EdgeRequestContext.RouteClass.API, context.getRouteClass());
+        verify(request).setAttribute(eq(EdgeRequestContext.ATTRIBUTE), same(context));
+        verify(request, times(1)).getRequestURI();
+    }
+}
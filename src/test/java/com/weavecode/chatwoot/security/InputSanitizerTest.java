@@ -0,0 +1,60 @@
+package com.weavecode.chatwoot.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("InputSanitizer Tests")
+class InputSanitizerTest {
+
+    @Test
+    @DisplayName("Should blank values containing SQL keywords in any case")
+    void shouldBlankSqlKeywords() {
+        assertEquals("", InputSanitizer.sanitizeInput("1; DROP TABLE users"));
+        assertEquals("", InputSanitizer.sanitizeInput("x' union select password"));
+        assertEquals("", InputSanitizer.sanitizeInput("please UpDaTe me"));
+    }
+
+    @Test
+    @DisplayName("Should blank values containing XSS keywords")
+    void shouldBlankXssKeywords() {
+        assertEquals("", InputSanitizer.sanitizeInput("<img src=x onmouseover=alert(1)>"));
+        assertEquals("", InputSanitizer.sanitizeInput("javascript:alert(1)"));
+    }
+
+    @Test
+    @DisplayName("Should find keywords that overlap a partial match")
+    void shouldFindOverlappingKeywords() {
+        // A failed partial match must resume from the longest suffix that is still a keyword prefix
+        assertEquals("", InputSanitizer.sanitizeInput("xonoNLOADx"));
+        assertEquals("", InputSanitizer.sanitizeInput("DELDELETE"));
+    }
+
+    @Test
+    @DisplayName("Should return clean values unchanged")
+    void shouldReturnCleanValuesUnchanged() {
+        String value = "application/json";
+        assertSame(value, InputSanitizer.sanitizeInput(value));
+        assertEquals("refund order", InputSanitizer.sanitizeInput("  refund order "));
+        assertEquals("   ", InputSanitizer.sanitizeInput("   "));
+        assertNull(InputSanitizer.sanitizeInput(null));
+    }
+
+    @Test
+    @DisplayName("Should HTML-escape markup and non-ASCII characters")
+    void shouldEscapeMarkup() {
+        assertEquals("Tom &amp; Jerry", InputSanitizer.sanitizeInput("Tom & Jerry"));
+        assertEquals("caf&eacute;", InputSanitizer.sanitizeInput("café"));
+    }
+
+    @Test
+    @DisplayName("Should sanitize request paths")
+    void shouldSanitizePaths() {
+        assertEquals("/", InputSanitizer.sanitizePath("/api/../etc/passwd"));
+        assertEquals("/api/users", InputSanitizer.sanitizePath("/api//users"));
+        assertEquals("/api/users", InputSanitizer.sanitizePath("/api/us\0ers"));
+        String clean = "/api/users";
+        assertSame(clean, InputSanitizer.sanitizePath(clean));
+    }
+}
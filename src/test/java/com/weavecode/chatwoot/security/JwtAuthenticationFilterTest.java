@@ -0,0 +1,160 @@
+package com.weavecode.chatwoot.security;
+
+import com.weavecode.chatwoot.metrics.ChatwootMetricsCollector;
+import com.weavecode.chatwoot.metrics.UserActivityTracker;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("JwtAuthenticationFilter Tests")
+class JwtAuthenticationFilterTest {
+
+    private static final String EMAIL = "agent@example.com";
+    private static final String TOKEN = "header.payload.signature";
+
+    @Mock
+    private JwtTokenProvider tokenProvider;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private UserDetailsCache userDetailsCache;
+
+    @Mock
+    private TokenRevocationService revocationService;
+
+    @Mock
+    private UserActivityTracker activityTracker;
+
+    @Mock
+    private ChatwootMetricsCollector metricsCollector;
+
+    @Mock
+    private FilterChain filterChain;
+
+    @InjectMocks
+    private JwtAuthenticationFilter filter;
+
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        request = new MockHttpServletRequest("GET", "/api/conversations");
+        request.addHeader("Authorization", "Bearer " + TOKEN);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should authenticate from trusted claims without loading the user")
+    void shouldAuthenticateFromClaims() throws Exception {
+        // Given
+        JwtPrincipal principal = principal("ADMIN", "active");
+        when(tokenProvider.parseToken(TOKEN)).thenReturn(Optional.of(principal));
+        when(userDetailsCache.isStale(EMAIL, principal.getIssuedAt())).thenReturn(false);
+
+        // When
+        filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        // Then
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals("ROLE_ADMIN", authentication.getAuthorities().iterator().next().getAuthority());
+        assertEquals(principal.getTenantId(), request.getAttribute("tenantId"));
+        verify(userDetailsCache, never()).getOrLoad(anyString(), any());
+        verifyNoInteractions(userDetailsService);
+        verify(metricsCollector).recordIdentityLookups(0);
+        verify(filterChain).doFilter(eq(request), any());
+    }
+
+    @Test
+    @DisplayName("Should reload the user when the token predates a role change")
+    void shouldReloadUserForStaleToken() throws Exception {
+        // Given
+        JwtPrincipal principal = principal("ADMIN", "active");
+        when(tokenProvider.parseToken(TOKEN)).thenReturn(Optional.of(principal));
+        when(userDetailsCache.isStale(EMAIL, principal.getIssuedAt())).thenReturn(true);
+        when(userDetailsCache.getOrLoad(eq(EMAIL), any())).thenAnswer(invocation -> {
+            Function<String, UserDetails> loader = invocation.getArgument(1);
+            return loader.apply(EMAIL);
+        });
+        when(userDetailsService.loadUserByUsername(EMAIL))
+            .thenReturn(User.withUsername(EMAIL).password("").roles("AGENT").build());
+
+        // When
+        filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        // Then
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals("ROLE_AGENT", authentication.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority).findFirst().orElse(null));
+        verify(metricsCollector).recordIdentityLookups(1);
+    }
+
+    @Test
+    @DisplayName("Should not authenticate a token whose status claim is inactive")
+    void shouldRejectInactiveClaims() throws Exception {
+        // Given
+        JwtPrincipal principal = principal("AGENT", "suspended");
+        when(tokenProvider.parseToken(TOKEN)).thenReturn(Optional.of(principal));
+        when(userDetailsCache.isStale(EMAIL, principal.getIssuedAt())).thenReturn(false);
+
+        // When
+        filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        // Then
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(activityTracker);
+        verify(filterChain).doFilter(eq(request), any());
+    }
+
+    @Test
+    @DisplayName("Should not authenticate a revoked token")
+    void shouldRejectRevokedToken() throws Exception {
+        // Given
+        JwtPrincipal principal = principal("ADMIN", "active");
+        when(tokenProvider.parseToken(TOKEN)).thenReturn(Optional.of(principal));
+        when(revocationService.isRevoked(principal.getTokenId())).thenReturn(true);
+
+        // When
+        filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        // Then
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userDetailsCache);
+    }
+
+    private static JwtPrincipal principal(String role, String status) {
+        return new JwtPrincipal("jti-1", EMAIL, UUID.randomUUID(), UUID.randomUUID(), role, status,
+            Instant.now().minusSeconds(10), Instant.now().plusSeconds(600));
+    }
+}
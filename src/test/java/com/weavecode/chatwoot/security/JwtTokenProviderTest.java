@@ -0,0 +1,137 @@
+package com.weavecode.chatwoot.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JwtTokenProvider Tests")
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "test-jwt-secret-key-for-testing-purposes-only-256-bits-and-then-some-more";
+
+    private JwtTokenProvider tokenProvider;
+    private UUID userId;
+    private UUID tenantId;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 3600000);
+        ReflectionTestUtils.setField(tokenProvider, "tokenCacheMaxSize", 100);
+        tokenProvider.init();
+
+        userId = UUID.randomUUID();
+        tenantId = UUID.randomUUID();
+    }
+
+    @Test
+    @DisplayName("Should parse token into principal with all claims")
+    void shouldParseTokenIntoPrincipal() {
+        // Given
+        String token = tokenProvider.generateTokenForUser(userId, "test@example.com", tenantId);
+
+        // When
+        Optional<JwtPrincipal> principal = tokenProvider.parseToken(token);
+
+        // Then
+        assertTrue(principal.isPresent());
+        assertEquals("test@example.com", principal.get().getSubject());
+        assertEquals(userId, principal.get().getUserId());
+        assertEquals(tenantId, principal.get().getTenantId());
+        assertTrue(principal.get().getExpiresAt().isAfter(Instant.now()));
+    }
+
+    @Test
+    @DisplayName("Should carry role and status claims when issued for a user")
+    void shouldCarryRoleAndStatusClaims() {
+        // Given
+        String token = tokenProvider.generateTokenForUser(userId, "test@example.com", tenantId, "ADMIN", "ACTIVE");
+
+        // When
+        JwtPrincipal principal = tokenProvider.parseToken(token).orElseThrow();
+
+        // Then
+        assertTrue(principal.hasAuthorityClaims());
+        assertEquals("ADMIN", principal.getRole());
+        assertTrue(principal.isActive());
+        assertNotNull(principal.getIssuedAt());
+    }
+
+    @Test
+    @DisplayName("Should issue a unique token id per token")
+    void shouldIssueUniqueTokenIdPerToken() {
+        // Given
+        String first = tokenProvider.generateTokenForUser(userId, "test@example.com", tenantId, "USER", "ACTIVE");
+        String second = tokenProvider.generateTokenForUser(userId, "test@example.com", tenantId, "USER", "ACTIVE");
+
+        // When
+        String firstId = tokenProvider.parseToken(first).orElseThrow().getTokenId();
+        String secondId = tokenProvider.parseToken(second).orElseThrow().getTokenId();
+
+        // Then
+        assertNotNull(firstId);
+        assertNotEquals(firstId, secondId);
+    }
+
+    @Test
+    @DisplayName("Should return the cached principal for a repeated token")
+    void shouldReturnCachedPrincipalForRepeatedToken() {
+        // Given
+        String token = tokenProvider.generateTokenForUser(userId, "test@example.com", tenantId);
+
+        // When
+        JwtPrincipal first = tokenProvider.parseToken(token).orElseThrow();
+        JwtPrincipal second = tokenProvider.parseToken(token).orElseThrow();
+
+        // Then
+        assertSame(first, second);
+    }
+
+    @Test
+    @DisplayName("Should reject token with tampered signature")
+    void shouldRejectTamperedToken() {
+        // Given
+        String token = tokenProvider.generateTokenForUser(userId, "test@example.com", tenantId);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        // When & Then
+        assertTrue(tokenProvider.parseToken(tampered).isEmpty());
+        assertFalse(tokenProvider.validateToken(tampered));
+    }
+
+    @Test
+    @DisplayName("Should reject expired token")
+    void shouldRejectExpiredToken() {
+        // Given
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", -1000);
+        String token = tokenProvider.generateTokenForUser(userId, "test@example.com", tenantId);
+
+        // When & Then
+        assertTrue(tokenProvider.parseToken(token).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep token cache within its bound")
+    void shouldKeepTokenCacheWithinBound() {
+        // Given
+        JwtTokenCache cache = new JwtTokenCache(10);
+        long now = System.currentTimeMillis();
+        JwtPrincipal principal = new JwtPrincipal("a@example.com", userId, tenantId, Instant.ofEpochMilli(now + 60000));
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            cache.put(cache.keyFor("token-" + i), principal, now);
+        }
+
+        // Then
+        assertTrue(cache.size() <= 10);
+    }
+}
@@ -0,0 +1,178 @@
+package com.weavecode.chatwoot.security;
+
+import com.weavecode.chatwoot.metrics.ExecutorRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LeasingRateLimiter Tests")
+class LeasingRateLimiterTest {
+
+    private static final String CLIENT = "203.0.113.7";
+
+    @Mock
+    private RedisRateLimiter redisRateLimiter;
+
+    private LeasingRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new LeasingRateLimiter();
+        ReflectionTestUtils.setField(limiter, "redisRateLimiter", redisRateLimiter);
+        ReflectionTestUtils.setField(limiter, "leasingEnabled", true);
+        ReflectionTestUtils.setField(limiter, "minuteDivisor", 20);
+        ReflectionTestUtils.setField(limiter, "leaseTtlMs", 60000L);
+        ReflectionTestUtils.setField(limiter, "redisBackoffMs", 5000L);
+        ExecutorRegistry executorRegistry = new ExecutorRegistry();
+        ReflectionTestUtils.setField(executorRegistry, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(limiter, "executorRegistry", executorRegistry);
+        limiter.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        limiter.returnLeases();
+    }
+
+    @Test
+    @DisplayName("Should serve requests from a local lease")
+    void shouldServeRequestsFromLocalLease() {
+        // Given
+        when(redisRateLimiter.lease(RateLimitPolicy.API, CLIENT, 10))
+            .thenReturn(new RateLimitResult(10, 200, 190, 3000, 0));
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(RateLimitPolicy.API, CLIENT).isAllowed());
+        }
+
+        // Then
+        verify(redisRateLimiter, times(1)).lease(RateLimitPolicy.API, CLIENT, 10);
+    }
+
+    @Test
+    @DisplayName("Should reject when the shared budget grants nothing")
+    void shouldRejectWhenSharedBudgetIsExhausted() {
+        // Given
+        when(redisRateLimiter.lease(RateLimitPolicy.API, CLIENT, 10))
+            .thenReturn(new RateLimitResult(0, 200, 0, 60000, 300));
+
+        // When
+        RateLimitResult result = limiter.tryAcquire(RateLimitPolicy.API, CLIENT);
+
+        // Then
+        assertFalse(result.isAllowed());
+        assertEquals(300, result.getRetryAfterMillis());
+    }
+
+    @Test
+    @DisplayName("Should deny locally until the retry-after of a denial passes")
+    void shouldRememberDenial() {
+        // Given
+        when(redisRateLimiter.lease(RateLimitPolicy.API, CLIENT, 10))
+            .thenReturn(new RateLimitResult(0, 200, 0, 60000, 30000));
+        limiter.tryAcquire(RateLimitPolicy.API, CLIENT);
+
+        // When
+        RateLimitResult result = limiter.tryAcquire(RateLimitPolicy.API, CLIENT);
+
+        // Then
+        assertFalse(result.isAllowed());
+        assertTrue(result.getRetryAfterMillis() > 0 && result.getRetryAfterMillis() <= 30000);
+        assertEquals(200, result.getLimit());
+        verify(redisRateLimiter, times(1)).lease(RateLimitPolicy.API, CLIENT, 10);
+        verify(redisRateLimiter, never()).tryAcquire(any(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should take one lease per bucket while others are decided one request at a time")
+    void shouldLeaseOncePerBucket() throws Exception {
+        // Given a lease that is still in flight
+        CountDownLatch leasing = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        when(redisRateLimiter.lease(RateLimitPolicy.API, CLIENT, 10)).thenAnswer(invocation -> {
+            leasing.countDown();
+            proceed.await(5, TimeUnit.SECONDS);
+            return new RateLimitResult(10, 200, 190, 3000, 0);
+        });
+        when(redisRateLimiter.tryAcquire(RateLimitPolicy.API, CLIENT))
+            .thenReturn(new RateLimitResult(1, 200, 189, 3000, 0));
+        CompletableFuture<RateLimitResult> leaser =
+            CompletableFuture.supplyAsync(() -> limiter.tryAcquire(RateLimitPolicy.API, CLIENT));
+        assertTrue(leasing.await(5, TimeUnit.SECONDS));
+
+        // When
+        RateLimitResult concurrent = limiter.tryAcquire(RateLimitPolicy.API, CLIENT);
+        proceed.countDown();
+
+        // Then
+        assertTrue(concurrent.isAllowed());
+        assertTrue(leaser.get(5, TimeUnit.SECONDS).isAllowed());
+        verify(redisRateLimiter, times(1)).lease(RateLimitPolicy.API, CLIENT, 10);
+        verify(redisRateLimiter, times(1)).tryAcquire(RateLimitPolicy.API, CLIENT);
+    }
+
+    @Test
+    @DisplayName("Should go straight to Redis when the lease would be a single request")
+    void shouldNotLeaseAuthBudgets() {
+        // Given
+        when(redisRateLimiter.tryAcquire(RateLimitPolicy.AUTH, CLIENT))
+            .thenReturn(new RateLimitResult(1, 5, 4, 12000, 0));
+
+        // When
+        limiter.tryAcquire(RateLimitPolicy.AUTH, CLIENT);
+        limiter.tryAcquire(RateLimitPolicy.AUTH, CLIENT);
+
+        // Then
+        verify(redisRateLimiter, times(2)).tryAcquire(RateLimitPolicy.AUTH, CLIENT);
+        verify(redisRateLimiter, never()).lease(any(), anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should fail open and back off when Redis is unavailable")
+    void shouldFailOpenAndBackOffWhenRedisFails() {
+        // Given
+        when(redisRateLimiter.lease(RateLimitPolicy.API, CLIENT, 10))
+            .thenThrow(new IllegalStateException("connection refused"));
+
+        // When
+        RateLimitResult first = limiter.tryAcquire(RateLimitPolicy.API, CLIENT);
+        RateLimitResult second = limiter.tryAcquire(RateLimitPolicy.API, CLIENT);
+
+        // Then
+        assertNull(first);
+        assertNull(second);
+        verify(redisRateLimiter, times(1)).lease(RateLimitPolicy.API, CLIENT, 10);
+    }
+
+    @Test
+    @DisplayName("Should return unused leased quota on shutdown")
+    void shouldReturnUnusedQuotaOnShutdown() {
+        // Given
+        when(redisRateLimiter.lease(RateLimitPolicy.API, CLIENT, 10))
+            .thenReturn(new RateLimitResult(10, 200, 190, 3000, 0));
+        limiter.tryAcquire(RateLimitPolicy.API, CLIENT);
+
+        // When
+        limiter.returnLeases();
+
+        // Then
+        verify(redisRateLimiter).release(RateLimitPolicy.API, CLIENT, 9L);
+        assertEquals(0, limiter.bucketCount());
+    }
+}
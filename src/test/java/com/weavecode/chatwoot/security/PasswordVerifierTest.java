@@ -0,0 +1,129 @@
+package com.weavecode.chatwoot.security;
+
+import com.weavecode.chatwoot.exception.ServiceUnavailableException;
+import com.weavecode.chatwoot.metrics.ExecutorRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PasswordVerifier Tests")
+class PasswordVerifierTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordVerifier passwordVerifier;
+    private ThreadPoolExecutor cpuExecutor;
+
+    @AfterEach
+    void tearDown() {
+        cpuExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should verify passwords and record hash time")
+    void shouldVerifyPasswordsAndRecordHashTime() {
+        // Given
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        passwordVerifier = newVerifier(encoder, 2, 8);
+        String hash = encoder.encode("password123");
+
+        // When & Then
+        assertTrue(passwordVerifier.matches("password123", hash));
+        assertFalse(passwordVerifier.matches("wrong-password", hash));
+        assertEquals(2, meterRegistry.get("chatwoot.auth.password.hash.duration").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should never match unknown users")
+    void shouldNeverMatchUnknownUsers() {
+        // Given
+        passwordVerifier = newVerifier(new BCryptPasswordEncoder(4), 1, 8);
+
+        // When & Then
+        assertFalse(passwordVerifier.matches("password123", null));
+    }
+
+    @Test
+    @DisplayName("Should shed verifications once the queue is full")
+    void shouldShedVerificationsWhenQueueFull() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        passwordVerifier = newVerifier(new BlockingEncoder(release), 1, 1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> passwordVerifier.matches("a", "hash"));
+        waitForActive();
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> passwordVerifier.matches("b", "hash"));
+        waitForQueued();
+
+        // When
+        ServiceUnavailableException rejected = assertThrows(ServiceUnavailableException.class,
+            () -> passwordVerifier.matches("c", "hash"));
+
+        // Then
+        assertTrue(rejected.getRetryAfterSeconds() >= 1);
+        assertEquals(1.0, meterRegistry.get("chatwoot.auth.password.rejected").counter().count());
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private PasswordVerifier newVerifier(PasswordEncoder encoder, int threads, int queueCapacity) {
+        ExecutorRegistry executorRegistry = new ExecutorRegistry();
+        ReflectionTestUtils.setField(executorRegistry, "meterRegistry", meterRegistry);
+        cpuExecutor = executorRegistry.newThreadPool("cpu", threads, threads, Duration.ZERO, queueCapacity,
+            new ThreadPoolExecutor.AbortPolicy(), null);
+
+        PasswordVerifier verifier = new PasswordVerifier();
+        ReflectionTestUtils.setField(verifier, "passwordEncoder", encoder);
+        ReflectionTestUtils.setField(verifier, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(verifier, "executor", cpuExecutor);
+        ReflectionTestUtils.setField(verifier, "timeoutMs", 5000L);
+        verifier.start();
+        return verifier;
+    }
+
+    private void waitForActive() throws InterruptedException {
+        while (meterRegistry.get("chatwoot.auth.password.queue.wait").timer().count() < 1) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void waitForQueued() throws InterruptedException {
+        while (meterRegistry.get("chatwoot.executor.queue.depth").tag("executor", "cpu").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static final class BlockingEncoder implements PasswordEncoder {
+        private final CountDownLatch release;
+
+        private BlockingEncoder(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return "hash";
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.weavecode.chatwoot.security;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+@DisplayName("RedisRateLimiter Tests")
+class RedisRateLimiterTest {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static RedisRateLimiter rateLimiter;
+
+    @BeforeAll
+    static void setUp() {
+        connectionFactory = connectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        rateLimiter = newLimiter(connectionFactory);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    @DisplayName("Should allow the full burst and deny the request after it")
+    void shouldDenyAtBurstBoundary() {
+        // Given
+        String client = UUID.randomUUID().toString();
+
+        // When
+        RateLimitResult last = null;
+        for (int i = 0; i < RateLimitPolicy.AUTH.getPerMinute(); i++) {
+            last = rateLimiter.tryAcquire(RateLimitPolicy.AUTH, client);
+            assertTrue(last.isAllowed(), "request " + (i + 1) + " should be allowed");
+        }
+        RateLimitResult denied = rateLimiter.tryAcquire(RateLimitPolicy.AUTH, client);
+
+        // Then
+        assertEquals(RateLimitPolicy.AUTH.getPerMinute(), last.getLimit());
+        assertEquals(0, last.getRemaining());
+        assertFalse(denied.isAllowed());
+        assertEquals(0, denied.getGranted());
+    }
+
+    @Test
+    @DisplayName("Should tell a denied client to retry after one emission interval")
+    void shouldReportRetryAfter() {
+        // Given
+        String client = UUID.randomUUID().toString();
+        for (int i = 0; i < RateLimitPolicy.AUTH.getPerMinute(); i++) {
+            rateLimiter.tryAcquire(RateLimitPolicy.AUTH, client);
+        }
+
+        // When
+        RateLimitResult denied = rateLimiter.tryAcquire(RateLimitPolicy.AUTH, client);
+
+        // Then: one request is replenished every minute / limit
+        long interval = RateLimitPolicy.MINUTE_MILLIS / RateLimitPolicy.AUTH.getPerMinute();
+        assertTrue(denied.getRetryAfterMillis() > interval - 5000, "retry after " + denied.getRetryAfterMillis());
+        assertTrue(denied.getRetryAfterMillis() <= interval, "retry after " + denied.getRetryAfterMillis());
+        assertTrue(denied.getResetMillis() > RateLimitPolicy.MINUTE_MILLIS - 5000);
+    }
+
+    @Test
+    @DisplayName("Should grant part of a lease when that is all the budget can spare")
+    void shouldGrantPartialLease() {
+        // Given
+        String client = UUID.randomUUID().toString();
+
+        // When
+        RateLimitResult lease = rateLimiter.lease(RateLimitPolicy.API, client, 300);
+        RateLimitResult next = rateLimiter.lease(RateLimitPolicy.API, client, 10);
+
+        // Then
+        assertEquals(RateLimitPolicy.API.getPerMinute(), lease.getGranted());
+        assertFalse(next.isAllowed());
+        assertTrue(next.getRetryAfterMillis() > 0);
+    }
+
+    @Test
+    @DisplayName("Should admit requests again once unused quota is returned")
+    void shouldAdmitAfterRelease() {
+        // Given
+        String client = UUID.randomUUID().toString();
+        rateLimiter.lease(RateLimitPolicy.AUTH, client, RateLimitPolicy.AUTH.getPerMinute());
+        assertFalse(rateLimiter.tryAcquire(RateLimitPolicy.AUTH, client).isAllowed());
+
+        // When
+        rateLimiter.release(RateLimitPolicy.AUTH, client, 1);
+
+        // Then
+        assertTrue(rateLimiter.tryAcquire(RateLimitPolicy.AUTH, client).isAllowed());
+        assertFalse(rateLimiter.tryAcquire(RateLimitPolicy.AUTH, client).isAllowed());
+    }
+
+    @Test
+    @DisplayName("Should fail and let the leasing limiter fail open when Redis is unavailable")
+    void shouldFailOpenWhenRedisIsUnavailable() {
+        // Given nothing listening on the port
+        LettuceConnectionFactory unavailable = connectionFactory("localhost", 1);
+        RedisRateLimiter unreachable = newLimiter(unavailable);
+        LeasingRateLimiter limiter = new LeasingRateLimiter();
+        ReflectionTestUtils.setField(limiter, "redisRateLimiter", unreachable);
+        ReflectionTestUtils.setField(limiter, "leasingEnabled", true);
+        ReflectionTestUtils.setField(limiter, "minuteDivisor", 20);
+        ReflectionTestUtils.setField(limiter, "redisBackoffMs", 5000L);
+
+        try {
+            // When & Then
+            assertThrows(RedisConnectionFailureException.class,
+                () -> unreachable.tryAcquire(RateLimitPolicy.AUTH, "203.0.113.7"));
+            assertNull(limiter.tryAcquire(RateLimitPolicy.AUTH, "203.0.113.7"));
+        } finally {
+            unavailable.destroy();
+        }
+    }
+
+    private static LettuceConnectionFactory connectionFactory(String host, int port) {
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port),
+            LettuceClientConfiguration.builder().commandTimeout(Duration.ofSeconds(2)).build());
+        factory.afterPropertiesSet();
+        return factory;
+    }
+
+    private static RedisRateLimiter newLimiter(LettuceConnectionFactory factory) {
+        RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(factory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+
+        RedisRateLimiter limiter = new RedisRateLimiter();
+        ReflectionTestUtils.setField(limiter, "redisTemplate", redisTemplate);
+        return limiter;
+    }
+}
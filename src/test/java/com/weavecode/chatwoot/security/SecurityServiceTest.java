@@ -0,0 +1,124 @@
+package com.weavecode.chatwoot.security;
+
+import com.weavecode.chatwoot.entity.User;
+import com.weavecode.chatwoot.service.TenantService;
+import com.weavecode.chatwoot.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SecurityService Tests")
+class SecurityServiceTest {
+
+    private static final String EMAIL = "admin@example.com";
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private TenantService tenantService;
+
+    @InjectMocks
+    private SecurityService securityService;
+
+    private MockHttpServletRequest request;
+    private final UUID userId = UUID.randomUUID();
+    private final UUID tenantId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    private void authenticate(String email) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+            email, null, AuthorityUtils.createAuthorityList("ROLE_ADMIN")));
+    }
+
+    @Test
+    @DisplayName("Should answer from the principal resolved by the JWT filter without a lookup")
+    void shouldUseResolvedPrincipal() {
+        // Given
+        authenticate(EMAIL);
+        CurrentUserContext.bind(request).setCurrentUser(new CurrentUser(userId, EMAIL, tenantId, "ADMIN"));
+
+        // When & Then
+        assertEquals(userId, securityService.getCurrentUserId());
+        assertEquals(tenantId, securityService.getCurrentTenantId());
+        assertTrue(securityService.isTenantOwner(tenantId));
+        assertTrue(securityService.isCurrentUser(userId));
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    @DisplayName("Should resolve nothing without authentication")
+    void shouldResolveNothingWithoutAuthentication() {
+        // When & Then
+        assertNull(securityService.getCurrentUserId());
+        assertNull(securityService.getCurrentTenantId());
+        assertFalse(securityService.isCurrentUser(userId));
+        assertFalse(securityService.hasAccessToTenant(tenantId));
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    @DisplayName("Should deny access to another tenant")
+    void shouldDenyCrossTenantAccess() {
+        // Given
+        authenticate(EMAIL);
+        CurrentUserContext.bind(request).setCurrentUser(new CurrentUser(userId, EMAIL, tenantId, "ADMIN"));
+        UUID otherTenant = UUID.randomUUID();
+
+        // When & Then
+        assertFalse(securityService.hasAccessToTenant(otherTenant));
+        assertFalse(securityService.isTenantOwner(otherTenant));
+        assertTrue(securityService.hasAccessToTenant(tenantId));
+    }
+
+    @Test
+    @DisplayName("Should look the user up once when the resolved principal is for someone else")
+    void shouldReloadMismatchedPrincipal() {
+        // Given a snapshot left for a different user than the one authenticated
+        authenticate(EMAIL);
+        CurrentUserContext.bind(request).setCurrentUser(
+            new CurrentUser(UUID.randomUUID(), "other@example.com", UUID.randomUUID(), "ADMIN"));
+        User user = new User(tenantId.toString(), EMAIL, "hash", "Admin", User.UserRole.AGENT);
+        user.setId(userId);
+        when(userService.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+
+        // When
+        UUID resolvedUserId = securityService.getCurrentUserId();
+        UUID resolvedTenantId = securityService.getCurrentTenantId();
+
+        // Then
+        assertEquals(userId, resolvedUserId);
+        assertEquals(tenantId, resolvedTenantId);
+        assertFalse(securityService.isTenantOwner(tenantId));
+        verify(userService, times(1)).findByEmail(EMAIL);
+    }
+}
@@ -0,0 +1,89 @@
+package com.weavecode.chatwoot.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SuspiciousActivityTracker Tests")
+class SuspiciousActivityTrackerTest {
+
+    private SuspiciousActivityTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new SuspiciousActivityTracker(new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Should report activity once a threshold is reached")
+    void shouldReportWhenThresholdReached() {
+        // Given
+        for (int i = 0; i < 4; i++) {
+            assertNull(tracker.record("198.51.100.1", SuspiciousActivityTracker.RESPONSES_5XX));
+        }
+
+        // When
+        SuspiciousActivityTracker.ActivitySnapshot snapshot =
+            tracker.record("198.51.100.1", SuspiciousActivityTracker.RESPONSES_5XX);
+
+        // Then
+        assertNotNull(snapshot);
+        assertEquals(5, snapshot.get5xxResponses());
+    }
+
+    @Test
+    @DisplayName("Should keep exact counts under concurrent updates")
+    void shouldKeepExactCountsUnderConcurrency() throws Exception {
+        // Given
+        int threads = 8;
+        int perThread = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    tracker.record("198.51.100.2", SuspiciousActivityTracker.RESPONSES_4XX,
+                        SuspiciousActivityTracker.FAILED_AUTH);
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        // Then
+        SuspiciousActivityTracker.ActivitySnapshot snapshot = tracker.snapshot("198.51.100.2");
+        assertEquals(threads * perThread, snapshot.get4xxResponses());
+        assertEquals(threads * perThread, snapshot.getFailedAuthAttempts());
+    }
+
+    @Test
+    @DisplayName("Should rank top offenders by total events")
+    void shouldRankTopOffenders() {
+        // Given
+        tracker.record("198.51.100.3", SuspiciousActivityTracker.RESPONSES_4XX);
+        for (int i = 0; i < 3; i++) {
+            tracker.record("198.51.100.4", SuspiciousActivityTracker.SUSPICIOUS_PATTERNS);
+        }
+
+        // When
+        List<SuspiciousActivityTracker.ActivitySnapshot> top = tracker.getTopOffenders();
+
+        // Then
+        assertEquals(2, top.size());
+        assertEquals("198.51.100.4", top.get(0).getClientIp());
+        tracker.sweep();
+        assertEquals(2, tracker.trackedIps());
+    }
+}
@@ -0,0 +1,147 @@
+package com.weavecode.chatwoot.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TokenRevocationService Tests")
+class TokenRevocationServiceTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private Cursor<String> cursor;
+
+    @InjectMocks
+    private TokenRevocationService revocationService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(revocationService, "expectedRevocations", 1000);
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        revocationService.init();
+    }
+
+    @Test
+    @DisplayName("Should revoke token locally and publish to other nodes")
+    void shouldRevokeTokenLocallyAndPublish() {
+        // Given
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        JwtPrincipal principal = principal("jti-1", Instant.now().plusSeconds(600));
+
+        // When
+        boolean revoked = revocationService.revoke(principal);
+
+        // Then
+        assertTrue(revoked);
+        assertTrue(revocationService.isRevoked("jti-1"));
+        assertFalse(revocationService.isRevoked("jti-2"));
+        verify(valueOperations).set(eq("revoked_token:jti-1"), anyLong(), any(Duration.class));
+        verify(redisTemplate).convertAndSend(eq(TokenRevocationService.REVOCATION_CHANNEL), anyString());
+    }
+
+    @Test
+    @DisplayName("Should refuse to revoke tokens without a token id")
+    void shouldRefuseTokensWithoutTokenId() {
+        // When
+        boolean revoked = revocationService.revoke(principal(null, Instant.now().plusSeconds(600)));
+
+        // Then
+        assertFalse(revoked);
+        assertFalse(revocationService.isRevoked(null));
+        verify(redisTemplate, never()).opsForValue();
+    }
+
+    @Test
+    @DisplayName("Should stay revoked locally when Redis is unavailable")
+    void shouldStayRevokedLocallyWhenRedisUnavailable() {
+        // Given
+        when(redisTemplate.opsForValue()).thenThrow(new RuntimeException("Redis down"));
+
+        // When
+        boolean revoked = revocationService.revoke(principal("jti-1", Instant.now().plusSeconds(600)));
+
+        // Then
+        assertTrue(revoked);
+        assertTrue(revocationService.isRevoked("jti-1"));
+    }
+
+    @Test
+    @DisplayName("Should mirror revocations published by other nodes")
+    void shouldMirrorRevocationsFromOtherNodes() {
+        // Given
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> serializer = mock(RedisSerializer.class);
+        byte[] body = new byte[0];
+        long expiresAt = System.currentTimeMillis() + 60000;
+        Message message = mock(Message.class);
+        when(message.getBody()).thenReturn(body);
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+        when(serializer.deserialize(body)).thenReturn("jti-remote:" + expiresAt);
+
+        // When
+        revocationService.onMessage(message, null);
+
+        // Then
+        assertTrue(revocationService.isRevoked("jti-remote"));
+    }
+
+    @Test
+    @DisplayName("Should evict revocations once their tokens expire")
+    void shouldEvictExpiredRevocations() {
+        // Given
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        revocationService.revoke(principal("jti-1", Instant.now().plusSeconds(600)));
+        ReflectionTestUtils.invokeMethod(revocationService, "revokeLocally", "jti-2", System.currentTimeMillis() + 50);
+
+        // When
+        sleep(100);
+        revocationService.evictExpired();
+
+        // Then
+        assertEquals(1, revocationService.revokedCount());
+        assertTrue(revocationService.isRevoked("jti-1"));
+        assertFalse(revocationService.isRevoked("jti-2"));
+    }
+
+    private static JwtPrincipal principal(String tokenId, Instant expiresAt) {
+        return new JwtPrincipal(tokenId, "test@example.com", UUID.randomUUID(), UUID.randomUUID(),
+                "USER", "active", Instant.now(), expiresAt);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
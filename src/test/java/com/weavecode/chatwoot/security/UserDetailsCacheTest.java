@@ -0,0 +1,151 @@
+package com.weavecode.chatwoot.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserDetailsCache Tests")
+class UserDetailsCacheTest {
+
+    private static final String EMAIL = "agent@example.com";
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private Cursor<String> cursor;
+
+    @InjectMocks
+    private UserDetailsCache userDetailsCache;
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<String, UserDetails> loader = email -> {
+        loads.incrementAndGet();
+        return User.withUsername(email).password("hash").roles("AGENT").build();
+    };
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userDetailsCache, "ttlSeconds", 30L);
+        ReflectionTestUtils.setField(userDetailsCache, "maxEntries", 100);
+        ReflectionTestUtils.setField(userDetailsCache, "jwtExpirationInMs", 3600000L);
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+    }
+
+    @Test
+    @DisplayName("Should evict the cached user when another node publishes a change")
+    void shouldEvictOnInvalidationMessage() {
+        // Given
+        userDetailsCache.subscribe();
+        userDetailsCache.getOrLoad(EMAIL, loader);
+        userDetailsCache.getOrLoad(EMAIL, loader);
+        assertEquals(1, loads.get());
+
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> serializer = mock(RedisSerializer.class);
+        byte[] body = new byte[0];
+        Message message = mock(Message.class);
+        when(message.getBody()).thenReturn(body);
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+        long changedAt = System.currentTimeMillis();
+        when(serializer.deserialize(body)).thenReturn(changedAt + ":" + EMAIL);
+
+        // When
+        userDetailsCache.onMessage(message, null);
+
+        // Then
+        UserDetails reloaded = userDetailsCache.getOrLoad(EMAIL, loader);
+        assertEquals(2, loads.get());
+        assertEquals("", reloaded.getPassword());
+        assertTrue(userDetailsCache.isStale(EMAIL, Instant.ofEpochMilli(changedAt - 1000)));
+    }
+
+    @Test
+    @DisplayName("Should reject tokens issued before a role or status change")
+    void shouldRejectTokensOlderThanChange() {
+        // Given
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        userDetailsCache.subscribe();
+        Instant issuedBefore = Instant.now().minusSeconds(60);
+
+        // When
+        userDetailsCache.invalidate(EMAIL);
+
+        // Then
+        assertTrue(userDetailsCache.isStale(EMAIL, issuedBefore));
+        assertTrue(userDetailsCache.isStale(EMAIL, null));
+        assertFalse(userDetailsCache.isStale(EMAIL, Instant.now().plusSeconds(1)));
+        assertFalse(userDetailsCache.isStale("other@example.com", issuedBefore));
+        verify(valueOperations).set(eq("user_security_changed:" + EMAIL), anyLong(), eq(Duration.ofHours(1)));
+        verify(redisTemplate).convertAndSend(eq(UserDetailsCache.INVALIDATION_CHANNEL), endsWith(":" + EMAIL));
+    }
+
+    @Test
+    @DisplayName("Should load change markers from Redis on a cold start")
+    void shouldLoadChangesOnColdStart() {
+        // Given a change made while this node was down
+        long changedAt = System.currentTimeMillis() - 10000;
+        doAnswer(invocation -> {
+            Consumer<String> action = invocation.getArgument(0);
+            action.accept("user_security_changed:" + EMAIL);
+            return null;
+        }).when(cursor).forEachRemaining(any());
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(List.of("user_security_changed:" + EMAIL))).thenReturn(List.of(changedAt));
+
+        // When
+        userDetailsCache.subscribe();
+
+        // Then
+        assertTrue(userDetailsCache.isStale(EMAIL, Instant.ofEpochMilli(changedAt - 60000)));
+        assertFalse(userDetailsCache.isStale(EMAIL, Instant.ofEpochMilli(changedAt + 1000)));
+        assertFalse(userDetailsCache.isStale("other@example.com", Instant.ofEpochMilli(changedAt - 60000)));
+    }
+
+    @Test
+    @DisplayName("Should trust no token claims until the markers have been loaded")
+    void shouldTrustNoClaimsUntilSynced() {
+        // Given Redis is unreachable at startup
+        when(redisTemplate.scan(any(ScanOptions.class)))
+            .thenThrow(new RuntimeException("Redis down"))
+            .thenReturn(cursor);
+        userDetailsCache.subscribe();
+
+        // When & Then
+        assertTrue(userDetailsCache.isStale("other@example.com", Instant.now()));
+        userDetailsCache.resync();
+        assertFalse(userDetailsCache.isStale("other@example.com", Instant.now()));
+    }
+}
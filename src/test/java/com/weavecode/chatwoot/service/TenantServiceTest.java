@@ -5,6 +5,7 @@ import com.weavecode.chatwoot.entity.Tenant;
 import com.weavecode.chatwoot.enums.PlanType;
 import com.weavecode.chatwoot.exception.EntityNotFoundException;
 import com.weavecode.chatwoot.exception.ValidationException;
+import com.weavecode.chatwoot.metrics.TenantUsageMeter;
 import com.weavecode.chatwoot.repository.TenantRepository;
 import com.weavecode.chatwoot.service.impl.TenantServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -36,6 +37,9 @@ class TenantServiceTest {
     @Mock
     private TenantRepository tenantRepository;
 
+    @Mock
+    private TenantUsageMeter usageMeter;
+
     @InjectMocks
     private TenantServiceImpl tenantService;
 
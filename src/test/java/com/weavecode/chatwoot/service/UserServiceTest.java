@@ -0,0 +1,95 @@
+package com.weavecode.chatwoot.service;
+
+import com.weavecode.chatwoot.entity.User;
+import com.weavecode.chatwoot.repository.UserRepository;
+import com.weavecode.chatwoot.security.UserDetailsCache;
+import com.weavecode.chatwoot.service.impl.UserServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserService Tests")
+class UserServiceTest {
+
+    private static final String EMAIL = "agent@example.com";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private UserDetailsCache userDetailsCache;
+
+    @InjectMocks
+    private UserServiceImpl userService;
+
+    private UUID userId;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        user = new User(UUID.randomUUID().toString(), EMAIL, "hashed-password", "Agent", User.UserRole.AGENT);
+        user.setId(userId);
+    }
+
+    @Test
+    @DisplayName("Should stop trusting token claims when a role changes through update")
+    void shouldInvalidateOnRoleChangeThroughUpdate() {
+        // Given
+        user.setRole(User.UserRole.ADMIN);
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(userRepository.save(user)).thenReturn(user);
+
+        // When
+        User updated = userService.update(userId, user);
+
+        // Then
+        assertEquals(User.UserRole.ADMIN, updated.getRole());
+        verify(userDetailsCache).invalidate(EMAIL);
+    }
+
+    @Test
+    @DisplayName("Should stop trusting token claims of a deleted user")
+    void shouldInvalidateOnDelete() {
+        // Given
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+
+        // When
+        userService.deleteById(userId);
+
+        // Then
+        verify(userRepository).deleteById(userId);
+        verify(userDetailsCache).invalidate(EMAIL);
+    }
+
+    @Test
+    @DisplayName("Should stop trusting token claims after a password reset")
+    void shouldInvalidateOnPasswordReset() {
+        // Given
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(passwordEncoder.encode("new-password-123")).thenReturn("new-hash");
+        when(userRepository.save(user)).thenReturn(user);
+
+        // When
+        userService.resetPassword(userId, "new-password-123");
+
+        // Then
+        assertEquals("new-hash", user.getPassword());
+        verify(userDetailsCache).invalidate(EMAIL);
+    }
+}
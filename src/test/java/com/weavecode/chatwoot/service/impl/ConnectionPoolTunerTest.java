@@ -0,0 +1,156 @@
+package com.weavecode.chatwoot.service.impl;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ConnectionPoolTuner Tests")
+class ConnectionPoolTunerTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private HikariConfigMXBean config;
+
+    private ConnectionPoolTuner tuner;
+
+    @BeforeEach
+    void setUp() {
+        tuner = new ConnectionPoolTuner();
+        ReflectionTestUtils.setField(tuner, "dataSource", dataSource);
+        ReflectionTestUtils.setField(tuner, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(tuner, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(tuner, "minSize", 5);
+        ReflectionTestUtils.setField(tuner, "maxSize", 50);
+        ReflectionTestUtils.setField(tuner, "step", 2);
+        ReflectionTestUtils.setField(tuner, "targetAcquireP95Ms", 20.0);
+        ReflectionTestUtils.setField(tuner, "reservedServerConnections", 10);
+    }
+
+    @Test
+    @DisplayName("Should grow the pool when acquire waits exceed the target")
+    void shouldGrowOnSlowAcquire() {
+        assertEquals(12, tuner.targetSize(10, 10, 0, 45.0, 40));
+        // Only one connection left above the reserve
+        assertEquals(11, tuner.targetSize(10, 10, 3, 5.0, 11));
+        assertEquals(50, tuner.targetSize(50, 50, 5, 100.0, 100));
+    }
+
+    @Test
+    @DisplayName("Should not grow the pool without server headroom")
+    void shouldNotGrowWithoutHeadroom() {
+        assertEquals(10, tuner.targetSize(10, 10, 2, 45.0, 10));
+        assertEquals(10, tuner.targetSize(10, 10, 2, 45.0, -1));
+    }
+
+    @Test
+    @DisplayName("Should shrink a mostly idle pool with fast acquires")
+    void shouldShrinkIdlePool() {
+        assertEquals(18, tuner.targetSize(20, 4, 0, 1.0, 40));
+        assertEquals(20, tuner.targetSize(20, 12, 0, 1.0, 40));
+        assertEquals(20, tuner.targetSize(20, 4, 0, 10.0, 40));
+        assertEquals(5, tuner.targetSize(6, 0, 0, 0.0, 40));
+    }
+
+    @Test
+    @DisplayName("Should never grow the pool while shrinking")
+    void shouldNotGrowWhileShrinking() {
+        // Given a step larger than half the pool
+        ReflectionTestUtils.setField(tuner, "step", 8);
+
+        // When & Then
+        assertEquals(12, tuner.targetSize(12, 6, 0, 1.0, 40));
+        assertEquals(10, tuner.targetSize(12, 2, 0, 1.0, 40));
+    }
+
+    @Test
+    @DisplayName("Should resize an exhausted Hikari pool from the last headroom sample")
+    void shouldResizeHikariPool() throws Exception {
+        // Given a sample taken while a connection was idle, then an exhausted pool
+        HikariPoolMXBean pool = mockHikariPool(10);
+        when(pool.getActiveConnections()).thenReturn(10);
+        when(config.getMinimumIdle()).thenReturn(5);
+        when(pool.getIdleConnections()).thenReturn(2, 0);
+        when(pool.getThreadsAwaitingConnection()).thenReturn(0, 0, 3);
+        when(jdbcTemplate.queryForMap(anyString()))
+            .thenReturn(Map.of("max_connections", 100, "used_connections", 60L));
+        assertEquals(10, tuner.adjust());
+
+        // When
+        int size = tuner.adjust();
+
+        // Then the headroom was read once, while a connection was free
+        assertEquals(12, size);
+        verify(jdbcTemplate, times(1)).queryForMap(anyString());
+        verify(config).setMaximumPoolSize(12);
+        verify(config, never()).setMinimumIdle(anyInt());
+        assertEquals(10, tuner.activeConnections());
+    }
+
+    @Test
+    @DisplayName("Should not borrow from an exhausted pool to read the headroom")
+    void shouldNotQueryExhaustedPool() throws Exception {
+        // Given no sample yet and no connection to spare
+        HikariPoolMXBean pool = mockHikariPool(10);
+        when(pool.getActiveConnections()).thenReturn(10);
+        when(pool.getIdleConnections()).thenReturn(0);
+        when(pool.getThreadsAwaitingConnection()).thenReturn(3);
+
+        // When
+        int size = tuner.adjust();
+
+        // Then growth waits for a sample rather than queueing behind the waiting threads
+        assertEquals(10, size);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should report without borrowing a connection when the pool is not Hikari")
+    void shouldNotBorrowConnectionForOtherPools() throws Exception {
+        // Given
+        when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(false);
+
+        // When
+        Map<String, Object> metrics = tuner.metrics();
+
+        // Then
+        assertEquals(1, metrics.size());
+        assertEquals(-1, tuner.adjust());
+        assertEquals(0, tuner.activeConnections());
+        verify(dataSource, never()).getConnection();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private HikariPoolMXBean mockHikariPool(int maximumPoolSize) throws Exception {
+        HikariDataSource hikari = mock(HikariDataSource.class);
+        HikariPoolMXBean pool = mock(HikariPoolMXBean.class);
+        when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(true);
+        when(dataSource.unwrap(HikariDataSource.class)).thenReturn(hikari);
+        when(hikari.getHikariPoolMXBean()).thenReturn(pool);
+        when(hikari.getHikariConfigMXBean()).thenReturn(config);
+        when(config.getPoolName()).thenReturn("chatwoot");
+        when(config.getMaximumPoolSize()).thenReturn(maximumPoolSize);
+        return pool;
+    }
+}
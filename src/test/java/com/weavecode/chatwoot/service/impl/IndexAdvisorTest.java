@@ -0,0 +1,205 @@
+package com.weavecode.chatwoot.service.impl;
+
+import com.weavecode.chatwoot.dto.IndexRecommendation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IndexAdvisor Tests")
+class IndexAdvisorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private IndexAdvisor indexAdvisor;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(indexAdvisor, "applyEnabled", true);
+        ReflectionTestUtils.setField(indexAdvisor, "maintenanceWindow", "00:00-00:00");
+        ReflectionTestUtils.setField(indexAdvisor, "zone", "UTC");
+        ReflectionTestUtils.setField(indexAdvisor, "maxIndexesPerRun", 1);
+    }
+
+    private IndexRecommendation create(String name) {
+        IndexRecommendation recommendation = new IndexRecommendation(IndexRecommendation.Type.CREATE_INDEX,
+            "conversations", "CREATE INDEX CONCURRENTLY IF NOT EXISTS " + name + " ON conversations (tenant_id, created_at)",
+            "test");
+        recommendation.setIndexName(name);
+        return recommendation;
+    }
+
+    @Test
+    @DisplayName("Should derive tenant-scoped composite indexes from statement shapes")
+    void shouldDeriveCompositeIndexes() {
+        assertEquals(List.of("tenant_id", "created_at"), IndexAdvisor.shapeOf(
+            "SELECT * FROM conversations WHERE tenant_id = $1 ORDER BY created_at DESC LIMIT $2").compositeIndex());
+        assertEquals(List.of("tenant_id", "conversation_id", "created_at"), IndexAdvisor.shapeOf(
+            "select m.id from messages m where m.tenant_id = $1 and m.conversation_id = $2 and m.created_at >= $3")
+            .compositeIndex());
+        assertNull(IndexAdvisor.shapeOf("SELECT * FROM users WHERE email = $1").compositeIndex());
+        assertNull(IndexAdvisor.shapeOf("SELECT * FROM users u JOIN tenants t ON t.id = u.tenant_id WHERE u.tenant_id = $1"));
+    }
+
+    @Test
+    @DisplayName("Should treat an existing index with the same leading columns as covering")
+    void shouldDetectCoveringIndexes() {
+        List<String> existing = IndexAdvisor.indexColumns(
+            "CREATE INDEX idx_c ON public.conversations USING btree (tenant_id, created_at DESC, status)");
+        assertEquals(List.of("tenant_id", "created_at", "status"), existing);
+        assertTrue(IndexAdvisor.isCovered(List.of(existing), List.of("tenant_id", "created_at")));
+        assertFalse(IndexAdvisor.isCovered(List.of(List.of("tenant_id")), List.of("tenant_id", "created_at")));
+        assertEquals(List.of("tenant_id"), IndexAdvisor.indexColumns(
+            "CREATE INDEX idx_open ON public.conversations USING btree (tenant_id) WHERE (status = 'OPEN'::text)"));
+    }
+
+    @Test
+    @DisplayName("Should honour maintenance windows that span midnight")
+    void shouldEvaluateMaintenanceWindow() {
+        assertTrue(IndexAdvisor.inMaintenanceWindow("02:00-05:00", LocalTime.of(3, 0)));
+        assertFalse(IndexAdvisor.inMaintenanceWindow("02:00-05:00", LocalTime.of(5, 0)));
+        assertTrue(IndexAdvisor.inMaintenanceWindow("23:00-01:00", LocalTime.of(0, 30)));
+        assertFalse(IndexAdvisor.inMaintenanceWindow("23:00-01:00", LocalTime.of(12, 0)));
+    }
+
+    private void lockAcquired(boolean acquired) {
+        when(jdbcTemplate.queryForObject(contains("pg_try_advisory_lock"), eq(Boolean.class),
+            eq(IndexAdvisor.APPLY_LOCK_KEY))).thenReturn(acquired);
+    }
+
+    @Test
+    @DisplayName("Should create at most the configured number of indexes per run")
+    void shouldLimitIndexesPerRun() {
+        // Given
+        lockAcquired(true);
+
+        // When
+        List<String> created = indexAdvisor.createIndexes(jdbcTemplate, List.of(create("idx_a"), create("idx_b")));
+
+        // Then
+        assertEquals(List.of("idx_a"), created);
+        verify(jdbcTemplate).execute(startsWith("CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_a"));
+        verify(jdbcTemplate, never()).execute(startsWith("CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_b"));
+        verify(jdbcTemplate).queryForObject(contains("pg_advisory_unlock"), eq(Boolean.class),
+            eq(IndexAdvisor.APPLY_LOCK_KEY));
+    }
+
+    @Test
+    @DisplayName("Should build nothing while another node holds the lock")
+    void shouldSkipWhenLockIsHeld() {
+        // Given
+        lockAcquired(false);
+
+        // When
+        List<String> created = indexAdvisor.createIndexes(jdbcTemplate, List.of(create("idx_a")));
+
+        // Then
+        assertTrue(created.isEmpty());
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(jdbcTemplate, never()).queryForObject(contains("pg_advisory_unlock"), eq(Boolean.class), any());
+    }
+
+    @Test
+    @DisplayName("Should drop and rebuild an invalid index instead of keeping it")
+    void shouldRebuildInvalidIndex() {
+        // Given an invalid index left by an earlier failed build
+        lockAcquired(true);
+        when(jdbcTemplate.queryForObject(contains("pg_stat_progress_create_index"), eq(Integer.class), eq("idx_a")))
+            .thenReturn(1);
+
+        // When
+        List<String> created = indexAdvisor.createIndexes(jdbcTemplate, List.of(create("idx_a")));
+
+        // Then
+        assertEquals(List.of("idx_a"), created);
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).execute("DROP INDEX CONCURRENTLY IF EXISTS idx_a");
+        order.verify(jdbcTemplate).execute(startsWith("CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_a"));
+    }
+
+    @Test
+    @DisplayName("Should drop the invalid index left by a failed concurrent build")
+    void shouldCleanUpFailedBuild() {
+        // Given
+        lockAcquired(true);
+        when(jdbcTemplate.queryForObject(contains("pg_stat_progress_create_index"), eq(Integer.class), eq("idx_a")))
+            .thenReturn(0, 1);
+        doThrow(new DataIntegrityViolationException("deadlock"))
+            .when(jdbcTemplate).execute(startsWith("CREATE INDEX"));
+
+        // When
+        List<String> created = indexAdvisor.createIndexes(jdbcTemplate, List.of(create("idx_a")));
+
+        // Then
+        assertTrue(created.isEmpty());
+        verify(jdbcTemplate).execute("DROP INDEX CONCURRENTLY IF EXISTS idx_a");
+    }
+
+    @Test
+    @DisplayName("Should not drop an index another session is still building")
+    void shouldNotDropIndexBeingBuilt() {
+        // Given the build query times out while a build of the same index is in progress
+        lockAcquired(true);
+        when(jdbcTemplate.queryForObject(contains("pg_stat_progress_create_index"), eq(Integer.class), eq("idx_a")))
+            .thenReturn(0);
+        doThrow(new QueryTimeoutException("canceling statement due to statement timeout"))
+            .when(jdbcTemplate).execute(startsWith("CREATE INDEX"));
+
+        // When
+        List<String> created = indexAdvisor.createIndexes(jdbcTemplate, List.of(create("idx_a")));
+
+        // Then
+        assertTrue(created.isEmpty());
+        verify(jdbcTemplate, never()).execute(startsWith("DROP INDEX"));
+    }
+
+    @Test
+    @DisplayName("Should not touch the database when applying is disabled")
+    void shouldNotApplyWhenDisabled() {
+        // Given
+        ReflectionTestUtils.setField(indexAdvisor, "applyEnabled", false);
+
+        // When
+        List<String> created = indexAdvisor.apply(List.of(create("idx_a")));
+
+        // Then
+        assertTrue(created.isEmpty());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should not look for indexes to build outside the maintenance window")
+    void shouldNotScheduleOutsideWindow() {
+        // Given a window starting an hour from now
+        LocalTime now = LocalTime.now(ZoneOffset.UTC);
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("HH:mm");
+        ReflectionTestUtils.setField(indexAdvisor, "maintenanceWindow",
+            now.plusHours(1).format(format) + "-" + now.plusHours(2).format(format));
+
+        // When
+        indexAdvisor.scheduledApply();
+
+        // Then
+        verifyNoInteractions(jdbcTemplate);
+    }
+}